@@ -0,0 +1,73 @@
+package com.linkare.validation.benchmark;
+
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkare.validation.identification.BatchValidator;
+import com.linkare.validation.identification.DeduplicatingValidator;
+import com.linkare.validation.identification.DocumentType;
+
+/**
+ * 
+ * Compares the plain batch validation with the deduplicating one on batches drawn from a limited number of distinct tax numbers, in nanoseconds per number.
+ * 
+ * @author Linkare TI
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DeduplicationBenchmark {
+
+    private static final Locale PORTUGAL = new Locale("pt", "PT");
+
+    @Param({ "16", "4096" })
+    public int distinct;
+
+    private String[] numbers;
+
+    private final BitSet valid = new BitSet(Inputs.SIZE);
+
+    private DeduplicatingValidator validator;
+
+    @Setup
+    public void setUp() {
+	final String[] pool = Inputs.taxNumbers(Inputs.MIX_REALISTIC);
+	final Random random = new Random(42);
+	numbers = new String[Inputs.SIZE];
+	for (int i = 0; i < Inputs.SIZE; i++) {
+	    numbers[i] = pool[random.nextInt(distinct)];
+	}
+	validator = new DeduplicatingValidator(DocumentType.TAX_NUMBER);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Inputs.SIZE)
+    public int batch() {
+	return BatchValidator.validate(PORTUGAL, DocumentType.TAX_NUMBER, numbers, valid);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Inputs.SIZE)
+    public int deduplicated() {
+	return validator.validate(PORTUGAL, numbers, valid);
+    }
+}
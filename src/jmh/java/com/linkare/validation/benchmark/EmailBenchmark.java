@@ -0,0 +1,66 @@
+package com.linkare.validation.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkare.validation.email.EmailBatchResult;
+import com.linkare.validation.email.EmailBatchValidator;
+import com.linkare.validation.email.EmailValidator;
+
+/**
+ * 
+ * Throughput of {@link EmailValidator#isValid(String, EmailValidator.Mode)} over a pre generated input mix, for each implementation, and of the
+ * {@link EmailBatchValidator} over the whole mix, in addresses per second. Run it with <code>-prof gc</code> to get the bytes allocated per validation.
+ * 
+ * @author Linkare TI
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EmailBenchmark {
+
+    @Param({ Inputs.MIX_VALID, Inputs.MIX_INVALID, Inputs.MIX_MALFORMED, Inputs.MIX_REALISTIC })
+    public String mix;
+
+    @Param({ "NATIVE", "COMMONS_VALIDATOR" })
+    public EmailValidator.Mode mode;
+
+    private String[] emails;
+
+    private int index;
+
+    private final EmailBatchValidator batchValidator = new EmailBatchValidator();
+
+    @Setup
+    public void setUp() {
+	emails = Inputs.emails(mix);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+	index = (index + 1) & (Inputs.SIZE - 1);
+	return EmailValidator.isValid(emails[index], mode);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Inputs.SIZE)
+    public EmailBatchResult batch() {
+	return batchValidator.validate(emails);
+    }
+}
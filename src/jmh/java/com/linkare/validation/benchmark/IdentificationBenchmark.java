@@ -0,0 +1,82 @@
+package com.linkare.validation.benchmark;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkare.validation.identification.CitizenCardNumberValidator;
+import com.linkare.validation.identification.IdentificationCardNumberValidator;
+import com.linkare.validation.identification.TaxNumberValidator;
+
+/**
+ * 
+ * Throughput of the single number entry points of the identification validators. Each invocation validates the next number of a pre generated input mix,
+ * so run it with <code>-prof gc</code> to get the bytes allocated per validation.
+ * 
+ * @author Linkare TI
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class IdentificationBenchmark {
+
+    private static final Locale PORTUGAL = new Locale("pt", "PT");
+
+    @Param({ Inputs.MIX_VALID, Inputs.MIX_INVALID, Inputs.MIX_MALFORMED, Inputs.MIX_REALISTIC })
+    public String mix;
+
+    private String[] taxNumbers;
+
+    private String[] idCardNumbers;
+
+    private String[] citizenCardNumbers;
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+	taxNumbers = Inputs.taxNumbers(mix);
+	idCardNumbers = Inputs.idCardNumbers(mix);
+	citizenCardNumbers = Inputs.citizenCardNumbers(mix);
+    }
+
+    private int next() {
+	index = (index + 1) & (Inputs.SIZE - 1);
+	return index;
+    }
+
+    @Benchmark
+    public boolean taxNumberIsValid() {
+	return TaxNumberValidator.isValid(PORTUGAL, taxNumbers[next()]);
+    }
+
+    @Benchmark
+    public int idCardScore() {
+	return IdentificationCardNumberValidator.scoreIdCard(PORTUGAL, idCardNumbers[next()]);
+    }
+
+    @Benchmark
+    public boolean citizenCardIsValid() {
+	try {
+	    return CitizenCardNumberValidator.isValid(citizenCardNumbers[next()]);
+	} catch (final IllegalArgumentException e) {
+	    // malformed numbers are reported through exceptions, whose cost is part of what is being measured
+	    return false;
+	}
+    }
+}
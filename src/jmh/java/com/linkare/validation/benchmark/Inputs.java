@@ -0,0 +1,130 @@
+package com.linkare.validation.benchmark;
+
+import java.util.Random;
+
+import com.linkare.validation.identification.CheckDigitEngine;
+
+/**
+ * 
+ * Generates reproducible input mixes for the benchmarks. Every generator accepts one of the <code>MIX_*</code> names, which define the proportion of valid,
+ * invalid (well formed but with a wrong check digit) and malformed (blank, non numeric or with a wrong length) values.
+ * 
+ * @author Linkare TI
+ * 
+ */
+final class Inputs {
+
+    static final String MIX_VALID = "valid";
+
+    static final String MIX_INVALID = "invalid";
+
+    static final String MIX_MALFORMED = "malformed";
+
+    static final String MIX_REALISTIC = "realistic";
+
+    static final int SIZE = 4096;
+
+    private static final char[] TAX_NUMBER_PREFIXES = { '1', '2', '5', '6', '7', '8', '9' };
+
+    private static final String[] MALFORMED = { "", " ", "12345", "1234567890123", "12a45678b", "-12345678", "ABCDEFGHI", "123 456 789" };
+
+    private Inputs() {
+    }
+
+    static String[] taxNumbers(final String mix) {
+	final Random random = new Random(mix.hashCode());
+	final String[] result = new String[SIZE];
+	for (int i = 0; i < SIZE; i++) {
+	    final char[] number = new char[CheckDigitEngine.PT_NUMBER_LENGTH];
+	    number[0] = TAX_NUMBER_PREFIXES[random.nextInt(TAX_NUMBER_PREFIXES.length)];
+	    fillDigits(random, number, 1, number.length - 1);
+	    number[number.length - 1] = mod11CheckDigit(number);
+	    result[i] = corrupt(random, mix, number);
+	}
+	return result;
+    }
+
+    static String[] idCardNumbers(final String mix) {
+	final Random random = new Random(mix.hashCode() + 1);
+	final String[] result = new String[SIZE];
+	for (int i = 0; i < SIZE; i++) {
+	    final char[] number = new char[CheckDigitEngine.PT_NUMBER_LENGTH];
+	    fillDigits(random, number, 0, number.length - 1);
+	    number[number.length - 1] = mod11CheckDigit(number);
+	    result[i] = corrupt(random, mix, number);
+	}
+	return result;
+    }
+
+    static String[] citizenCardNumbers(final String mix) {
+	final Random random = new Random(mix.hashCode() + 2);
+	final String[] result = new String[SIZE];
+	for (int i = 0; i < SIZE; i++) {
+	    final char[] number = new char[CheckDigitEngine.CITIZEN_CARD_LENGTH];
+	    fillDigits(random, number, 0, CheckDigitEngine.PT_NUMBER_LENGTH - 1);
+	    number[CheckDigitEngine.PT_NUMBER_LENGTH - 1] = mod11CheckDigit(number);
+	    number[9] = (char) ('A' + random.nextInt(26));
+	    number[10] = (char) ('A' + random.nextInt(26));
+	    number[11] = '0';
+	    number[11] = (char) ('0' + (10 - CheckDigitEngine.citizenCardRemainder(number, 0, number.length)) % 10);
+	    result[i] = corrupt(random, mix, number);
+	}
+	return result;
+    }
+
+    static String[] emails(final String mix) {
+	final Random random = new Random(mix.hashCode() + 3);
+	final String[] users = { "joao.silva", "maria", "info", "j_pereira+news", "\"quoted user\"", "a.b.c.d" };
+	final String[] domains = { "linkare.com", "mail.example.pt", "gmail.com", "sapo.pt", "sub.domain.example.co.uk" };
+	final String[] malformed = { "", "@", "no-at-sign", "two@@example.com", "user@", "@example.com", "user@example.c", "user@example.com.", "user@exa mple.com",
+		"us..er@example.com" };
+	final String[] result = new String[SIZE];
+	for (int i = 0; i < SIZE; i++) {
+	    final String kind = kind(random, mix);
+	    final String email = users[random.nextInt(users.length)] + '@' + domains[random.nextInt(domains.length)];
+	    if (MIX_VALID.equals(kind)) {
+		result[i] = email;
+	    } else if (MIX_INVALID.equals(kind)) {
+		// valid structure but not an acceptable top level domain
+		result[i] = email + random.nextInt(10);
+	    } else {
+		result[i] = malformed[random.nextInt(malformed.length)];
+	    }
+	}
+	return result;
+    }
+
+    private static String corrupt(final Random random, final String mix, final char[] number) {
+	final String kind = kind(random, mix);
+	if (MIX_INVALID.equals(kind)) {
+	    final int last = number.length - 1;
+	    number[last] = (char) ('0' + (number[last] - '0' + 1 + random.nextInt(8)) % 10);
+	} else if (MIX_MALFORMED.equals(kind)) {
+	    return MALFORMED[random.nextInt(MALFORMED.length)];
+	}
+	return new String(number);
+    }
+
+    private static String kind(final Random random, final String mix) {
+	if (!MIX_REALISTIC.equals(mix)) {
+	    return mix;
+	}
+	// 90% valid, 8% invalid and 2% malformed
+	final int percentile = random.nextInt(100);
+	return percentile < 90 ? MIX_VALID : percentile < 98 ? MIX_INVALID : MIX_MALFORMED;
+    }
+
+    private static void fillDigits(final Random random, final char[] number, final int from, final int to) {
+	for (int i = from; i < to; i++) {
+	    number[i] = (char) ('0' + random.nextInt(10));
+	}
+    }
+
+    private static char mod11CheckDigit(final char[] number) {
+	int sum = 0;
+	for (int i = 0; i < CheckDigitEngine.PT_NUMBER_LENGTH - 1; i++) {
+	    sum += (number[i] - '0') * (CheckDigitEngine.PT_NUMBER_LENGTH - i);
+	}
+	return (char) ('0' + CheckDigitEngine.checkDigit(sum));
+    }
+}
@@ -0,0 +1,69 @@
+package com.linkare.validation.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkare.validation.identification.CheckDigitEngine;
+import com.linkare.validation.identification.NumberGenerator;
+
+/**
+ * 
+ * Throughput of the number generator, in numbers per second. Each invocation fills a buffer of <code>BATCH</code> numbers.
+ * 
+ * @author Linkare TI
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NumberGeneratorBenchmark {
+
+    private static final int BATCH = 65536;
+
+    private final int[] numbers = new int[BATCH];
+
+    private final char[] citizenCards = new char[BATCH * CheckDigitEngine.CITIZEN_CARD_LENGTH];
+
+    private final Random random = new Random(42);
+
+    private int firstBody = 10000000;
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] sequentialTaxNumbers() {
+	if (NumberGenerator.fillTaxNumbers(numbers, 0, BATCH, firstBody, NumberGenerator.ALL_TAX_NUMBER_PREFIXES) < BATCH) {
+	    firstBody = 10000000;
+	} else {
+	    firstBody = numbers[BATCH - 1] / 10 + 1;
+	}
+	return numbers;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] randomTaxNumbers() {
+	NumberGenerator.fillRandomTaxNumbers(numbers, 0, BATCH, NumberGenerator.ALL_TAX_NUMBER_PREFIXES, random);
+	return numbers;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public char[] randomCitizenCards() {
+	NumberGenerator.fillRandomCitizenCards(citizenCards, 0, BATCH, NumberGenerator.DEFAULT_CITIZEN_CARD_VERSION, random);
+	return citizenCards;
+    }
+}
@@ -0,0 +1,85 @@
+package com.linkare.validation.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkare.validation.identification.CheckDigitEngine;
+import com.linkare.validation.identification.CheckDigitScheme;
+import com.linkare.validation.identification.CompiledScheme;
+import com.linkare.validation.identification.DocumentType;
+
+/**
+ * 
+ * Compares the hand-written loops of the {@link CheckDigitEngine} with the {@link CompiledScheme}s of the same numbers, in nanoseconds per number.
+ * 
+ * @author Linkare TI
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SchemeBenchmark {
+
+    @Param({ Inputs.MIX_VALID, Inputs.MIX_REALISTIC })
+    public String mix;
+
+    @Param({ "TAX_NUMBER", "IDENTIFICATION_CARD", "CITIZEN_CARD" })
+    public DocumentType type;
+
+    private String[] numbers;
+
+    private CompiledScheme scheme;
+
+    @Setup
+    public void setUp() {
+	if (type == DocumentType.CITIZEN_CARD) {
+	    numbers = Inputs.citizenCardNumbers(mix);
+	    scheme = CheckDigitScheme.PT_CITIZEN_CARD.compile();
+	} else if (type == DocumentType.TAX_NUMBER) {
+	    numbers = Inputs.taxNumbers(mix);
+	    scheme = CheckDigitScheme.PT_TAX_NUMBER.compile();
+	} else {
+	    numbers = Inputs.idCardNumbers(mix);
+	    scheme = CheckDigitScheme.PT_IDENTIFICATION_CARD.compile();
+	}
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Inputs.SIZE)
+    public int handWritten() {
+	int count = 0;
+	for (final String number : numbers) {
+	    if (type.isValid(number)) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Inputs.SIZE)
+    public int compiled() {
+	int count = 0;
+	for (final String number : numbers) {
+	    if (scheme.isValid(number)) {
+		count++;
+	    }
+	}
+	return count;
+    }
+}
@@ -0,0 +1,60 @@
+package com.linkare.validation.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkare.validation.email.EmailValidator;
+import com.linkare.validation.identification.CitizenCardNumberValidator;
+import com.linkare.validation.identification.IdentificationCardNumberValidator;
+import com.linkare.validation.identification.TaxNumberValidator;
+
+/**
+ * 
+ * Time to first validation, in microseconds: each fork is a fresh JVM that runs a single validation, so the time includes loading and initializing the
+ * classes of the validator and of its dependencies. The <code>emailCommonsValidator</code> benchmark loads commons-validator and its own dependencies,
+ * as every email validation did before the native parser, to show what the dependency free core saves.
+ * 
+ * The benchmarks do not share a state, so that no class is loaded before the measured call.
+ * 
+ * @author Linkare TI
+ * 
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+    @Benchmark
+    public boolean taxNumber() {
+	return TaxNumberValidator.isValid("217186246");
+    }
+
+    @Benchmark
+    public boolean idCard() {
+	return IdentificationCardNumberValidator.isValid("120972778");
+    }
+
+    @Benchmark
+    public boolean citizenCard() {
+	return CitizenCardNumberValidator.isValid("153846575ZZ0");
+    }
+
+    @Benchmark
+    public boolean emailNative() {
+	return EmailValidator.isValid("jpereira@linkare.com", EmailValidator.Mode.NATIVE);
+    }
+
+    @Benchmark
+    public boolean emailCommonsValidator() {
+	return EmailValidator.isValid("jpereira@linkare.com", EmailValidator.Mode.COMMONS_VALIDATOR);
+    }
+}
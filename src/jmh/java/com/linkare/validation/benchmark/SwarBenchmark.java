@@ -0,0 +1,107 @@
+package com.linkare.validation.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkare.validation.identification.DocumentType;
+
+/**
+ * 
+ * Compares the scalar <code>byte[]</code> kernels with the SWAR ones behind the <code>ByteBuffer</code> entry points, on fixed width records holding one
+ * number each, in nanoseconds per number.
+ * 
+ * @author Linkare TI
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SwarBenchmark {
+
+    private static final int RECORD_LENGTH = 16;
+
+    @Param({ Inputs.MIX_VALID, Inputs.MIX_REALISTIC })
+    public String mix;
+
+    @Param({ "TAX_NUMBER", "IDENTIFICATION_CARD", "CITIZEN_CARD" })
+    public DocumentType type;
+
+    private byte[] records;
+
+    private int[] lengths;
+
+    private ByteBuffer heap;
+
+    private ByteBuffer direct;
+
+    @Setup
+    public void setUp() {
+	final String[] numbers = type == DocumentType.CITIZEN_CARD ? Inputs.citizenCardNumbers(mix) : type == DocumentType.TAX_NUMBER ? Inputs
+		.taxNumbers(mix) : Inputs.idCardNumbers(mix);
+	records = new byte[Inputs.SIZE * RECORD_LENGTH];
+	lengths = new int[Inputs.SIZE];
+	for (int i = 0; i < Inputs.SIZE; i++) {
+	    final int length = Math.min(numbers[i].length(), RECORD_LENGTH);
+	    for (int j = 0; j < length; j++) {
+		records[i * RECORD_LENGTH + j] = (byte) numbers[i].charAt(j);
+	    }
+	    lengths[i] = length;
+	}
+	heap = ByteBuffer.wrap(records).order(ByteOrder.LITTLE_ENDIAN);
+	direct = ByteBuffer.allocateDirect(records.length).order(ByteOrder.LITTLE_ENDIAN);
+	direct.put(records).clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Inputs.SIZE)
+    public int scalar() {
+	int count = 0;
+	for (int i = 0; i < Inputs.SIZE; i++) {
+	    if (type.isValid(records, i * RECORD_LENGTH, lengths[i])) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Inputs.SIZE)
+    public int swarHeap() {
+	int count = 0;
+	for (int i = 0; i < Inputs.SIZE; i++) {
+	    if (type.isValid(heap, i * RECORD_LENGTH, lengths[i])) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Inputs.SIZE)
+    public int swarDirect() {
+	int count = 0;
+	for (int i = 0; i < Inputs.SIZE; i++) {
+	    if (type.isValid(direct, i * RECORD_LENGTH, lengths[i])) {
+		count++;
+	    }
+	}
+	return count;
+    }
+}
@@ -0,0 +1,69 @@
+package com.linkare.validation.constraints;
+
+import java.util.Locale;
+
+import com.linkare.validation.identification.CheckDigitEngine;
+import com.linkare.validation.identification.CountryRules;
+import com.linkare.validation.identification.CountryRulesRegistry;
+import com.linkare.validation.identification.ValidationResult;
+import com.linkare.validation.metrics.ValidationMetrics;
+import com.linkare.validation.metrics.ValidatorKind;
+
+/**
+ * 
+ * The checks shared by the constraint validators. They go straight to the resolved {@link CountryRules}, and report to the {@link ValidationMetrics}
+ * just as the static validators do.
+ * 
+ * @author Linkare TI
+ * 
+ */
+final class ConstraintSupport {
+
+    private static final String CITIZEN_CARD_COUNTRY = "PT";
+
+    private ConstraintSupport() {
+    }
+
+    /**
+     * 
+     * @param country
+     *            the ISO 3166 alpha-2 code of the country, in any case
+     * @return the rules registered for the <code>country</code>.
+     * 
+     * @throws UnsupportedOperationException
+     *             when no rules are registered for the <code>country</code>.
+     */
+    static CountryRules rules(final String country) {
+	return CountryRulesRegistry.get(new Locale("", country));
+    }
+
+    static boolean isValidTaxNumber(final CountryRules rules, final CharSequence value) {
+	if (!ValidationMetrics.ENABLED) {
+	    return rules.isValidTaxNumber(value);
+	}
+	final long start = ValidationMetrics.start();
+	final int code = rules.checkTaxNumber(value);
+	ValidationMetrics.record(ValidatorKind.TAX_NUMBER, rules.getCountry(), ValidationResult.reason(code), start);
+	return code == ValidationResult.VALID;
+    }
+
+    static boolean isValidIdCard(final CountryRules rules, final CharSequence value) {
+	if (!ValidationMetrics.ENABLED) {
+	    return rules.isValidIdCard(value);
+	}
+	final long start = ValidationMetrics.start();
+	final int code = rules.checkIdCard(value);
+	ValidationMetrics.record(ValidatorKind.IDENTIFICATION_CARD, rules.getCountry(), ValidationResult.reason(code), start);
+	return code == ValidationResult.VALID;
+    }
+
+    static boolean isValidCitizenCard(final CharSequence value) {
+	if (!ValidationMetrics.ENABLED) {
+	    return CheckDigitEngine.citizenCardRemainder(value) == 0;
+	}
+	final long start = ValidationMetrics.start();
+	final int code = CheckDigitEngine.checkCitizenCard(value);
+	ValidationMetrics.record(ValidatorKind.CITIZEN_CARD, CITIZEN_CARD_COUNTRY, ValidationResult.reason(code), start);
+	return code == ValidationResult.VALID;
+    }
+}
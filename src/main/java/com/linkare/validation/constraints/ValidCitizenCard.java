@@ -0,0 +1,39 @@
+package com.linkare.validation.constraints;
+
+import static java.lang.annotation.ElementType.ANNOTATION_TYPE;
+import static java.lang.annotation.ElementType.CONSTRUCTOR;
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.ElementType.TYPE_USE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+
+/**
+ * 
+ * The annotated <code>CharSequence</code> must be a valid portuguese citizen card number. Unlike
+ * {@link com.linkare.validation.identification.CitizenCardNumberValidator#isValid(String)}, malformed numbers are invalid instead of throwing an
+ * exception. {@link com.linkare.validation.constraints Null values} are valid.
+ * 
+ * @author Linkare TI
+ * 
+ * @see com.linkare.validation.identification.CitizenCardNumberValidator
+ */
+@Documented
+@Constraint(validatedBy = ValidCitizenCardValidator.class)
+@Target({ METHOD, FIELD, ANNOTATION_TYPE, CONSTRUCTOR, PARAMETER, TYPE_USE })
+@Retention(RUNTIME)
+public @interface ValidCitizenCard {
+
+    String message() default "The citizen card number is not valid";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
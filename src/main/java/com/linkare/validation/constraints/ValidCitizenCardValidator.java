@@ -0,0 +1,19 @@
+package com.linkare.validation.constraints;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+/**
+ * 
+ * Validates the {@link ValidCitizenCard} constraint.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class ValidCitizenCardValidator implements ConstraintValidator<ValidCitizenCard, CharSequence> {
+
+    @Override
+    public boolean isValid(final CharSequence value, final ConstraintValidatorContext context) {
+	return value == null || ConstraintSupport.isValidCitizenCard(value);
+    }
+}
@@ -0,0 +1,39 @@
+package com.linkare.validation.constraints;
+
+import static java.lang.annotation.ElementType.ANNOTATION_TYPE;
+import static java.lang.annotation.ElementType.CONSTRUCTOR;
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.ElementType.TYPE_USE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+
+/**
+ * 
+ * The annotated <code>CharSequence</code> must be a well formed e-mail address, as validated by
+ * {@link com.linkare.validation.email.EmailValidator#isValid(String)}, including its cache, if installed.
+ * {@link com.linkare.validation.constraints Null values} are valid.
+ * 
+ * @author Linkare TI
+ * 
+ * @see com.linkare.validation.email.EmailValidator
+ */
+@Documented
+@Constraint(validatedBy = ValidEmailValidator.class)
+@Target({ METHOD, FIELD, ANNOTATION_TYPE, CONSTRUCTOR, PARAMETER, TYPE_USE })
+@Retention(RUNTIME)
+public @interface ValidEmail {
+
+    String message() default "The e-mail address is not valid";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,21 @@
+package com.linkare.validation.constraints;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+import com.linkare.validation.email.EmailValidator;
+
+/**
+ * 
+ * Validates the {@link ValidEmail} constraint.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class ValidEmailValidator implements ConstraintValidator<ValidEmail, CharSequence> {
+
+    @Override
+    public boolean isValid(final CharSequence value, final ConstraintValidatorContext context) {
+	return value == null || EmailValidator.isValid(value.toString());
+    }
+}
@@ -0,0 +1,45 @@
+package com.linkare.validation.constraints;
+
+import static java.lang.annotation.ElementType.ANNOTATION_TYPE;
+import static java.lang.annotation.ElementType.CONSTRUCTOR;
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.ElementType.TYPE_USE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+
+/**
+ * 
+ * The annotated <code>CharSequence</code> must be a valid tax number (NIF) of the <code>country</code>. {@link com.linkare.validation.constraints Null
+ * values} are valid.
+ * 
+ * @author Linkare TI
+ * 
+ * @see com.linkare.validation.identification.TaxNumberValidator
+ */
+@Documented
+@Constraint(validatedBy = ValidNifValidator.class)
+@Target({ METHOD, FIELD, ANNOTATION_TYPE, CONSTRUCTOR, PARAMETER, TYPE_USE })
+@Retention(RUNTIME)
+public @interface ValidNif {
+
+    String message() default "The tax number is not valid";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+    /**
+     * 
+     * @return the ISO 3166 alpha-2 code of the country whose {@link com.linkare.validation.identification.CountryRules} apply. The rules are resolved
+     *         once, when the constraint is initialized.
+     */
+    String country() default "PT";
+}
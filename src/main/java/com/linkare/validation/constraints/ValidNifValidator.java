@@ -0,0 +1,29 @@
+package com.linkare.validation.constraints;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+import com.linkare.validation.identification.CountryRules;
+
+/**
+ * 
+ * Validates the {@link ValidNif} constraint. The rules of the country are resolved once, when the constraint is initialized, so each validation costs
+ * no more than the check digit arithmetic.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class ValidNifValidator implements ConstraintValidator<ValidNif, CharSequence> {
+
+    private CountryRules rules;
+
+    @Override
+    public void initialize(final ValidNif constraint) {
+	rules = ConstraintSupport.rules(constraint.country());
+    }
+
+    @Override
+    public boolean isValid(final CharSequence value, final ConstraintValidatorContext context) {
+	return value == null || ConstraintSupport.isValidTaxNumber(rules, value);
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * 
+ * Bean Validation constraints for the identification numbers and the e-mail addresses, backed by the validators of this library.
+ * 
+ * As usual in Bean Validation, every constraint of this package considers a null value valid, so combine it with <code>@NotNull</code> when the value
+ * is required.
+ * 
+ * @author Linkare TI
+ * 
+ */
+package com.linkare.validation.constraints;
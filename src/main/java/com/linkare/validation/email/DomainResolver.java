@@ -0,0 +1,28 @@
+package com.linkare.validation.email;
+
+import java.io.IOException;
+
+/**
+ * 
+ * Tells whether an email domain can receive mail. {@link JndiDomainResolver} asks the DNS. Other implementations, such as an in-memory map for the
+ * tests, can be plugged in {@link EmailDomainVerifier}.
+ * 
+ * Implementations must be thread safe, since {@link EmailDomainVerifier} calls them concurrently for distinct domains. They may block, as each lookup runs
+ * in a thread of the verifier.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public interface DomainResolver {
+
+    /**
+     * 
+     * @param domain
+     *            the domain of an email address, in lower case and without comments or blanks
+     * @return true if the <code>domain</code> can receive mail. It returns false if it is known not to.
+     * 
+     * @throws IOException
+     *             if the lookup failed, in which case the outcome is not cached.
+     */
+    boolean canReceiveMail(String domain) throws IOException;
+}
@@ -0,0 +1,106 @@
+package com.linkare.validation.email;
+
+import java.util.BitSet;
+
+import com.linkare.validation.identification.FailureReason;
+
+/**
+ * 
+ * The merged outcome of a batch validated by the {@link EmailBatchValidator}: which addresses are valid, how many addresses failed for each reason and how
+ * many domains had to be validated.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class EmailBatchResult {
+
+    private final int size;
+
+    private final BitSet valid;
+
+    private final int[] reasonCounts;
+
+    private final int domainValidations;
+
+    EmailBatchResult(final int size, final long[] validWords, final int[] reasonCounts, final int domainValidations) {
+	this.size = size;
+	this.valid = BitSet.valueOf(validWords);
+	this.reasonCounts = reasonCounts;
+	this.domainValidations = domainValidations;
+    }
+
+    /**
+     * 
+     * @return the number of addresses in the batch
+     */
+    public int getSize() {
+	return size;
+    }
+
+    /**
+     * 
+     * @return the number of valid addresses in the batch
+     */
+    public int getValidCount() {
+	return reasonCounts[FailureReason.NONE.ordinal()];
+    }
+
+    /**
+     * 
+     * @return the number of invalid addresses in the batch
+     */
+    public int getInvalidCount() {
+	return size - getValidCount();
+    }
+
+    /**
+     * 
+     * @param index
+     *            the index of the address in the batch
+     * @return true if the address at <code>index</code> is valid. It returns false otherwise.
+     */
+    public boolean isValid(final int index) {
+	return valid.get(index);
+    }
+
+    /**
+     * 
+     * @return a copy of the set where the bit of index <code>i</code> is set if the <code>i</code>th address is valid
+     */
+    public BitSet getValid() {
+	return (BitSet) valid.clone();
+    }
+
+    /**
+     * 
+     * @return the indexes of the invalid addresses, in ascending order
+     */
+    public int[] getInvalidIndices() {
+	final int[] result = new int[getInvalidCount()];
+	int i = 0;
+	for (int index = valid.nextClearBit(0); index < size; index = valid.nextClearBit(index + 1)) {
+	    result[i++] = index;
+	}
+	return result;
+    }
+
+    /**
+     * 
+     * @param reason
+     *            one of <code>NONE</code>, <code>BLANK</code>, <code>BAD_LOCAL_PART</code>, <code>BAD_DOMAIN</code> or <code>INVALID</code>, the reason of
+     *            the addresses that cannot be split in a local part and a domain
+     * @return the number of addresses in the batch that failed for the given <code>reason</code>, or the number of valid addresses for <code>NONE</code>
+     */
+    public int getReasonCount(final FailureReason reason) {
+	return reasonCounts[reason.ordinal()];
+    }
+
+    /**
+     * 
+     * @return the number of domains validated, which is the number of distinct domains of the addresses with a valid local part, unless several threads
+     *         came across the same domain
+     */
+    public int getDomainValidations() {
+	return domainValidations;
+    }
+}
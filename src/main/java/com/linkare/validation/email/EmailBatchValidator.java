@@ -0,0 +1,294 @@
+package com.linkare.validation.email;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.linkare.validation.identification.FailureReason;
+
+/**
+ * 
+ * Validates large batches of email addresses, such as the ones of a bulk import, where most addresses share a few thousand domains. Each address is split
+ * in its local part and its domain in a single pass, which also hashes the domain into a <code>long</code>. The local part is validated right away, while
+ * the domain is looked up in an open addressing table of primitive hashes, so each distinct domain is validated once instead of once per address.
+ * 
+ * Batches are split across the workers of a <code>ForkJoinPool</code> as the {@link com.linkare.validation.identification.ParallelBatchValidator} does,
+ * and each worker keeps its own table of domains for the whole batch, so no lookup contends with the other workers. The addresses are validated as the
+ * <code>NATIVE</code> {@link EmailValidator.Mode} does, whatever the default mode, and without going through the cache of the {@link EmailValidator}.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class EmailBatchValidator {
+
+    /**
+     * The default maximum number of addresses validated by a single task.
+     */
+    public static final int DEFAULT_THRESHOLD = 16384;
+
+    private static final int WORD_BITS = 64;
+
+    private static final int REASONS = FailureReason.values().length;
+
+    private static final int NONE = FailureReason.NONE.ordinal();
+
+    private static final int BLANK = FailureReason.BLANK.ordinal();
+
+    private static final int INVALID = FailureReason.INVALID.ordinal();
+
+    private static final int BAD_LOCAL_PART = FailureReason.BAD_LOCAL_PART.ordinal();
+
+    private static final int BAD_DOMAIN = FailureReason.BAD_DOMAIN.ordinal();
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    /**
+     * Creates a validator running on the common pool with the <code>DEFAULT_THRESHOLD</code>.
+     */
+    public EmailBatchValidator() {
+	this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * 
+     * @param pool
+     *            the pool where the validation tasks will run
+     * @param threshold
+     *            the maximum number of addresses validated by a single task. It is rounded up to a multiple of 64, but for the largest values, which are
+     *            rounded down.
+     */
+    public EmailBatchValidator(final ForkJoinPool pool, final int threshold) {
+	if (threshold <= 0) {
+	    throw new IllegalArgumentException("The threshold must be positive");
+	}
+	this.pool = pool;
+	// rounded up in long, so that the thresholds close to Integer.MAX_VALUE do not overflow
+	this.threshold = (int) Math.min(((long) threshold + WORD_BITS - 1) / WORD_BITS * WORD_BITS, Integer.MAX_VALUE & -WORD_BITS);
+    }
+
+    /**
+     * 
+     * @param emails
+     *            the addresses to be validated. Null elements are blank.
+     * @return the merged result of the validation
+     */
+    public EmailBatchResult validate(final CharSequence[] emails) {
+	final Map<Thread, DomainTable> tables = new ConcurrentHashMap<Thread, DomainTable>();
+	final ChunkTask task = new ChunkTask(emails, new long[(emails.length + WORD_BITS - 1) / WORD_BITS], tables, 0, emails.length);
+	final int[] reasonCounts = pool.invoke(task);
+	int domainValidations = 0;
+	for (final DomainTable table : tables.values()) {
+	    domainValidations += table.validations;
+	}
+	return new EmailBatchResult(emails.length, task.words, reasonCounts, domainValidations);
+    }
+
+    /**
+     * 
+     * @param emails
+     *            the addresses to be validated. Null elements are blank.
+     * @return the merged result of the validation
+     */
+    public EmailBatchResult validate(final List<? extends CharSequence> emails) {
+	return validate(emails.toArray(new CharSequence[emails.size()]));
+    }
+
+    /**
+     * Validates the addresses in <code>[from, to)</code>, marking the valid ones in <code>words</code> and returning the number of addresses that failed
+     * for each reason.
+     */
+    private final class ChunkTask extends RecursiveTask<int[]> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final CharSequence[] emails;
+
+	final long[] words;
+
+	private final Map<Thread, DomainTable> tables;
+
+	private final int from;
+
+	private final int to;
+
+	ChunkTask(final CharSequence[] emails, final long[] words, final Map<Thread, DomainTable> tables, final int from, final int to) {
+	    this.emails = emails;
+	    this.words = words;
+	    this.tables = tables;
+	    this.from = from;
+	    this.to = to;
+	}
+
+	@Override
+	protected int[] compute() {
+	    if (to - from <= threshold) {
+		return validateLeaf();
+	    }
+	    final int middle = from + Math.max(WORD_BITS, (to - from) / 2 / WORD_BITS * WORD_BITS);
+	    final ChunkTask left = new ChunkTask(emails, words, tables, from, middle);
+	    left.fork();
+	    final int[] reasonCounts = new ChunkTask(emails, words, tables, middle, to).compute();
+	    final int[] other = left.join();
+	    for (int i = 0; i < REASONS; i++) {
+		reasonCounts[i] += other[i];
+	    }
+	    return reasonCounts;
+	}
+
+	private int[] validateLeaf() {
+	    final int[] reasonCounts = new int[REASONS];
+	    DomainTable table = tables.get(Thread.currentThread());
+	    if (table == null) {
+		// only the current thread puts its own table
+		table = new DomainTable();
+		tables.put(Thread.currentThread(), table);
+	    }
+	    for (int i = from; i < to; i++) {
+		final int reason = table.check(emails[i]);
+		reasonCounts[reason]++;
+		if (reason == NONE) {
+		    words[i / WORD_BITS] |= 1L << i;
+		}
+	    }
+	    return reasonCounts;
+	}
+    }
+
+    /**
+     * The outcome of the domains validated by one thread, keyed by the 64 bit FNV-1a hash of their chars. A matching hash is confirmed by comparing the
+     * chars with the ones of the first address the domain was found in, so colliding domains are never mistaken for each other.
+     */
+    private static final class DomainTable {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+
+	private static final long FNV_PRIME = 0x100000001B3L;
+
+	private long[] hashes = new long[INITIAL_CAPACITY];
+
+	private CharSequence[] domains = new CharSequence[INITIAL_CAPACITY];
+
+	private int[] starts = new int[INITIAL_CAPACITY];
+
+	private boolean[] outcomes = new boolean[INITIAL_CAPACITY];
+
+	private int size;
+
+	int validations;
+
+	/**
+	 * 
+	 * @return the ordinal of the {@link FailureReason} of the <code>email</code>
+	 */
+	int check(final CharSequence email) {
+	    if (email == null) {
+		return BLANK;
+	    }
+	    // finds the separator as EmailSyntax.separatorIndex does, hashing the chars after it
+	    final int length = email.length();
+	    int separator = -1;
+	    boolean quoted = false;
+	    long hash = FNV_OFFSET_BASIS;
+	    for (int i = 0; i < length; i++) {
+		final char c = email.charAt(i);
+		if (c == '(' || c == '\n') {
+		    return unsplit(email);
+		}
+		if (separator >= 0) {
+		    hash = (hash ^ c) * FNV_PRIME;
+		}
+		if (c == '"') {
+		    quoted = !quoted;
+		} else if (c == '@' && !quoted && separator < 0) {
+		    separator = i;
+		}
+	    }
+	    if (separator < 0) {
+		return unsplit(email);
+	    }
+	    if (!EmailSyntax.isValidLocalPart(email, separator)) {
+		return BAD_LOCAL_PART;
+	    }
+	    return isValidDomain(email, separator + 1, hash) ? NONE : BAD_DOMAIN;
+	}
+
+	private boolean isValidDomain(final CharSequence email, final int start, final long hash) {
+	    final int mask = hashes.length - 1;
+	    int slot = (int) (hash ^ hash >>> 32) & mask;
+	    for (; domains[slot] != null; slot = (slot + 1) & mask) {
+		if (hashes[slot] == hash && sameDomain(domains[slot], starts[slot], email, start)) {
+		    return outcomes[slot];
+		}
+	    }
+	    final boolean valid = EmailSyntax.isValidDomain(email, start, email.length());
+	    validations++;
+	    hashes[slot] = hash;
+	    domains[slot] = email;
+	    starts[slot] = start;
+	    outcomes[slot] = valid;
+	    if (++size * 2 > hashes.length) {
+		grow();
+	    }
+	    return valid;
+	}
+
+	private void grow() {
+	    final long[] oldHashes = hashes;
+	    final CharSequence[] oldDomains = domains;
+	    final int[] oldStarts = starts;
+	    final boolean[] oldOutcomes = outcomes;
+	    final int capacity = oldHashes.length * 2;
+	    hashes = new long[capacity];
+	    domains = new CharSequence[capacity];
+	    starts = new int[capacity];
+	    outcomes = new boolean[capacity];
+	    for (int i = 0; i < oldHashes.length; i++) {
+		if (oldDomains[i] != null) {
+		    int slot = (int) (oldHashes[i] ^ oldHashes[i] >>> 32) & capacity - 1;
+		    while (domains[slot] != null) {
+			slot = (slot + 1) & capacity - 1;
+		    }
+		    hashes[slot] = oldHashes[i];
+		    domains[slot] = oldDomains[i];
+		    starts[slot] = oldStarts[i];
+		    outcomes[slot] = oldOutcomes[i];
+		}
+	    }
+	}
+
+	private static boolean sameDomain(final CharSequence domain, final int domainStart, final CharSequence email, final int start) {
+	    final int length = email.length() - start;
+	    if (domain.length() - domainStart != length) {
+		return false;
+	    }
+	    for (int i = 0; i < length; i++) {
+		if (domain.charAt(domainStart + i) != email.charAt(start + i)) {
+		    return false;
+		}
+	    }
+	    return true;
+	}
+
+	/**
+	 * 
+	 * @return the ordinal of the {@link FailureReason} of an address without a separator, or with comments or new lines, which is parsed as a whole.
+	 */
+	private static int unsplit(final CharSequence email) {
+	    if (EmailSyntax.isValid(email)) {
+		return NONE;
+	    }
+	    for (int i = 0; i < email.length(); i++) {
+		if (!Character.isWhitespace(email.charAt(i))) {
+		    return INVALID;
+		}
+	    }
+	    return BLANK;
+	}
+    }
+}
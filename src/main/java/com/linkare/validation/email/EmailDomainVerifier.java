@@ -0,0 +1,330 @@
+package com.linkare.validation.email;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 
+ * Asynchronous verification that the domain of an email address can receive mail, on top of the syntax validation of {@link EmailValidator}. The lookups
+ * are made by a {@link DomainResolver}, the DNS one by default, in threads of the verifier, so that callers are never blocked:
+ * 
+ * <pre>
+ * try (final EmailDomainVerifier verifier = new EmailDomainVerifier()) {
+ *     verifier.verify(&quot;jpereira@linkare.com&quot;).thenAccept(deliverable -&gt; ...);
+ * }
+ * </pre>
+ * 
+ * The outcome of each domain is cached for a time to live, and concurrent verifications of the same domain share a single lookup. At most
+ * <code>maximumConcurrency</code> lookups run at the same time. They run in virtual threads when the JVM supports them, and in a fixed pool of platform
+ * threads otherwise. Failed lookups complete the futures exceptionally and are not cached.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class EmailDomainVerifier implements AutoCloseable {
+
+    /**
+     * The default time to live of the cached outcomes, in minutes.
+     */
+    public static final int DEFAULT_TTL_MINUTES = 10;
+
+    /**
+     * The default maximum number of concurrent lookups.
+     */
+    public static final int DEFAULT_MAXIMUM_CONCURRENCY = 16;
+
+    /**
+     * The default maximum number of cached domains.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final DomainResolver resolver;
+
+    private final long ttlNanos;
+
+    private final int capacity;
+
+    private final LongSupplier ticker;
+
+    private final Semaphore permits;
+
+    private final ExecutorService executor;
+
+    private final ConcurrentHashMap<String, CachedOutcome> cache = new ConcurrentHashMap<String, CachedOutcome>();
+
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<String, CompletableFuture<Boolean>>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder lookups = new LongAdder();
+
+    /**
+     * Creates a verifier that asks the DNS through a {@link JndiDomainResolver}, with the default time to live, concurrency and capacity.
+     */
+    public EmailDomainVerifier() {
+	this(new JndiDomainResolver(), DEFAULT_TTL_MINUTES, TimeUnit.MINUTES, DEFAULT_MAXIMUM_CONCURRENCY);
+    }
+
+    /**
+     * 
+     * @param resolver
+     *            the resolver that tells whether a domain can receive mail
+     * @param ttl
+     *            the time the outcome of a domain is cached for
+     * @param unit
+     *            the unit of the <code>ttl</code>
+     * @param maximumConcurrency
+     *            the maximum number of lookups running at the same time
+     */
+    public EmailDomainVerifier(final DomainResolver resolver, final long ttl, final TimeUnit unit, final int maximumConcurrency) {
+	this(resolver, unit.toNanos(ttl), maximumConcurrency, DEFAULT_CAPACITY, System::nanoTime);
+    }
+
+    EmailDomainVerifier(final DomainResolver resolver, final long ttlNanos, final int maximumConcurrency, final int capacity, final LongSupplier ticker) {
+	if (resolver == null) {
+	    throw new IllegalArgumentException("The domain resolver is mandatory");
+	}
+	if (ttlNanos < 0 || maximumConcurrency <= 0 || capacity <= 0) {
+	    throw new IllegalArgumentException("The time to live cannot be negative and the concurrency and capacity must be positive");
+	}
+	this.resolver = resolver;
+	this.ttlNanos = ttlNanos;
+	this.capacity = capacity;
+	this.ticker = ticker;
+	this.permits = new Semaphore(maximumConcurrency);
+	this.executor = newExecutor(maximumConcurrency);
+    }
+
+    /**
+     * 
+     * @param email
+     *            the email address to be verified
+     * @return a future completed with true if the syntax of the <code>email</code> is valid, as told by {@link EmailValidator#isValid(String)}, and its
+     *         domain can receive mail. The future is completed with false right away when the syntax is not valid.
+     */
+    public CompletableFuture<Boolean> verify(final String email) {
+	if (!EmailValidator.isValid(email)) {
+	    return CompletableFuture.completedFuture(Boolean.FALSE);
+	}
+	return verifyDomain(domainOf(email));
+    }
+
+    /**
+     * 
+     * @param domain
+     *            the domain to be verified, whose syntax is not validated
+     * @return a future completed with true if the <code>domain</code> can receive mail, or completed exceptionally if the lookup failed. Address
+     *         literals, such as <code>[10.0.0.1]</code>, name the host that receives the mail instead of a domain, so they are deliverable without any
+     *         lookup.
+     */
+    public CompletableFuture<Boolean> verifyDomain(final String domain) {
+	if (domain.startsWith("[")) {
+	    return CompletableFuture.completedFuture(Boolean.TRUE);
+	}
+	final String key = domain.toLowerCase(Locale.ROOT);
+	Boolean deliverable = cached(key);
+	if (deliverable != null) {
+	    hits.increment();
+	    return CompletableFuture.completedFuture(deliverable);
+	}
+	final CompletableFuture<Boolean> created = new CompletableFuture<Boolean>();
+	final CompletableFuture<Boolean> pending = inFlight.putIfAbsent(key, created);
+	if (pending != null) {
+	    coalesced.increment();
+	    return pending;
+	}
+	// a lookup of the same domain may have finished since the cache was read
+	deliverable = cached(key);
+	if (deliverable != null) {
+	    inFlight.remove(key, created);
+	    hits.increment();
+	    created.complete(deliverable);
+	    return created;
+	}
+	lookups.increment();
+	try {
+	    executor.execute(() -> lookup(key, created));
+	} catch (final RuntimeException e) {
+	    inFlight.remove(key, created);
+	    created.completeExceptionally(e);
+	}
+	return created;
+    }
+
+    /**
+     * 
+     * @return the outcome cached for the <code>domain</code>, or null if there is none or it has expired
+     */
+    private Boolean cached(final String domain) {
+	final CachedOutcome cached = cache.get(domain);
+	if (cached == null) {
+	    return null;
+	}
+	if (ticker.getAsLong() - cached.expiresAt < 0) {
+	    return cached.deliverable;
+	}
+	cache.remove(domain, cached);
+	return null;
+    }
+
+    private void lookup(final String domain, final CompletableFuture<Boolean> result) {
+	try {
+	    final Boolean deliverable;
+	    permits.acquire();
+	    try {
+		deliverable = Boolean.valueOf(resolver.canReceiveMail(domain));
+	    } finally {
+		permits.release();
+	    }
+	    // the outcome is cached before the lookup stops being in flight, so that no verification starts a second one in between. The future is
+	    // completed once the permit is released, so that the callers' dependent stages do not hold it.
+	    cache(domain, deliverable);
+	    inFlight.remove(domain, result);
+	    result.complete(deliverable);
+	} catch (final InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    inFlight.remove(domain, result);
+	    result.completeExceptionally(e);
+	} catch (final Throwable e) {
+	    // an Error of the resolver completes the lookup too, as in CompletableFuture.supplyAsync, or every later verification of the domain would join it
+	    // and wait forever
+	    inFlight.remove(domain, result);
+	    result.completeExceptionally(e);
+	}
+    }
+
+    private void cache(final String domain, final Boolean deliverable) {
+	final long now = ticker.getAsLong();
+	if (cache.size() >= capacity) {
+	    purge(now);
+	    if (cache.size() >= capacity) {
+		return;
+	    }
+	}
+	cache.put(domain, new CachedOutcome(deliverable, now + ttlNanos));
+    }
+
+    private void purge(final long now) {
+	for (final Iterator<Map.Entry<String, CachedOutcome>> i = cache.entrySet().iterator(); i.hasNext();) {
+	    if (now - i.next().getValue().expiresAt >= 0) {
+		i.remove();
+	    }
+	}
+    }
+
+    /**
+     * 
+     * @return the number of verifications answered by the cache
+     */
+    public long getHits() {
+	return hits.sum();
+    }
+
+    /**
+     * 
+     * @return the number of verifications that joined a lookup of the same domain already in flight
+     */
+    public long getCoalesced() {
+	return coalesced.sum();
+    }
+
+    /**
+     * 
+     * @return the number of lookups asked to the resolver
+     */
+    public long getLookups() {
+	return lookups.sum();
+    }
+
+    /**
+     * 
+     * @return the number of domains currently cached, including the expired ones not yet removed
+     */
+    public int size() {
+	return cache.size();
+    }
+
+    /**
+     * Removes every domain from the cache. The counters are not reset.
+     */
+    public void clear() {
+	cache.clear();
+    }
+
+    /**
+     * Stops the threads of the verifier. The lookups in flight are still completed, but no new ones are accepted.
+     */
+    @Override
+    public void close() {
+	executor.shutdown();
+    }
+
+    /**
+     * 
+     * @param email
+     *            an email address whose syntax is valid
+     * @return the domain of the <code>email</code>, in lower case and without comments or blanks.
+     */
+    static String domainOf(final String email) {
+	// once the comments, which may hold '@', are stripped as the syntax validation strips them, domains cannot contain '@', so the last one is the
+	// separator even when the local part quotes others
+	final CharSequence stripped = EmailSyntax.stripComments(email);
+	final StringBuilder domain = new StringBuilder(stripped.length());
+	for (int i = stripped.toString().lastIndexOf('@') + 1; i < stripped.length(); i++) {
+	    final char c = stripped.charAt(i);
+	    if (!Character.isWhitespace(c)) {
+		domain.append(Character.toLowerCase(c));
+	    }
+	}
+	return domain.toString();
+    }
+
+    private static ExecutorService newExecutor(final int maximumConcurrency) {
+	try {
+	    // virtual threads are cheap to block, so the permits alone bound the concurrency
+	    final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+	    return (ExecutorService) method.invoke(null);
+	} catch (final ReflectiveOperationException e) {
+	    return Executors.newFixedThreadPool(maximumConcurrency, new ThreadFactory() {
+
+		@Override
+		public Thread newThread(final Runnable task) {
+		    final Thread thread = new Thread(task, "email-domain-verifier-" + THREAD_NUMBER.incrementAndGet());
+		    thread.setDaemon(true);
+		    return thread;
+		}
+	    });
+	}
+    }
+
+    /**
+     * The outcome of a domain, with the <code>System.nanoTime()</code> it expires at.
+     */
+    private static final class CachedOutcome {
+
+	final Boolean deliverable;
+
+	final long expiresAt;
+
+	CachedOutcome(final Boolean deliverable, final long expiresAt) {
+	    this.deliverable = deliverable;
+	    this.expiresAt = expiresAt;
+	}
+    }
+}
\ No newline at end of file
@@ -0,0 +1,402 @@
+package com.linkare.validation.email;
+
+/**
+ * 
+ * Hand written, single pass and allocation free implementation of the email address syntax accepted by the
+ * <code>org.apache.commons.validator.EmailValidator</code> of commons-validator 1.3.1:
+ * 
+ * <ul>
+ * <li>the address must only contain ASCII chars, and control chars are only allowed in quoted strings and comments;</li>
+ * <li>parenthesized comments outside quoted strings, which may be nested, are replaced by a blank, so they are only allowed before the local part and
+ * after the domain;</li>
+ * <li>the local part is made of dot separated words, which are either quoted strings or runs of valid chars (and apostrophes), and may be preceded by
+ * blanks;</li>
+ * <li>the domain is either an IP address literal, such as <code>[216.109.118.76]</code>, whose four numbers have up to 3 digits and are not above 255,
+ * or is made of at least two dot separated labels of valid chars, may be followed by blanks and its last label must have two or more letters.</li>
+ * </ul>
+ * 
+ * The comments are found as the regular expression of commons-validator finds them, quirks included: it follows backslash escapes, counts the quotes
+ * inside comments and strips the innermost comments first. Addresses with comments, which are rare, are therefore stripped of them into a copy before
+ * being parsed, so only they allocate. The only intended difference is that domains with more than 10 labels are validated, where commons-validator
+ * fails with an <code>ArrayIndexOutOfBoundsException</code>.
+ * 
+ * @author Linkare TI
+ * 
+ */
+final class EmailSyntax {
+
+    private static final int ASCII_LIMIT = 128;
+
+    private static final String SPECIAL_CHARS = "()<>@,;:'\\\".[]";
+
+    private static final String BLANK_CHARS = " \t\n\r\f";
+
+    private static final boolean[] VALID_CHARS = new boolean[ASCII_LIMIT];
+
+    private static final int LOCAL_START = 0;
+
+    private static final int LOCAL_WORD = 1;
+
+    private static final int LOCAL_QUOTED = 2;
+
+    private static final int LOCAL_AFTER_QUOTE = 3;
+
+    private static final int LOCAL_DOT = 4;
+
+    private static final int LABEL_START = 5;
+
+    private static final int LABEL = 6;
+
+    private static final int TRAILING_BLANKS = 7;
+
+    private static final int IP_OCTET = 8;
+
+    private static final int IP_END = 9;
+
+    private static final int IP_OCTETS = 4;
+
+    private static final int MAXIMUM_OCTET = 255;
+
+    private static final int MAXIMUM_OCTET_DIGITS = 3;
+
+    private static final char DELETE = 127;
+
+    private static final int MINIMUM_LABELS = 2;
+
+    private static final int MINIMUM_TLD_LENGTH = 2;
+
+    private static final int REJECTED = 0;
+
+    private static final int ACCEPTED = 1;
+
+    private static final int COMMENTED = 2;
+
+    private static final int PLAIN = 0;
+
+    private static final int QUOTED = 1;
+
+    private static final int AFTER_QUOTED = 2;
+
+    /**
+     * The chars that, due to an octal escape in its source, commons-validator accepts before an escaped char after a quoted string.
+     */
+    private static final String ESCAPE_PREFIX = "I111";
+
+    static {
+	for (char c = 0; c < ASCII_LIMIT; c++) {
+	    // as the \p{Cntrl} class of commons-validator, which excludes the control chars
+	    VALID_CHARS[c] = c >= ' ' && c != DELETE && SPECIAL_CHARS.indexOf(c) < 0 && BLANK_CHARS.indexOf(c) < 0;
+	}
+    }
+
+    private EmailSyntax() {
+    }
+
+    /**
+     * 
+     * @param email
+     *            the email address whose syntax we want to validate
+     * @return true if the syntax of the <code>email</code> is valid. It returns false otherwise, including when <code>email</code> is null.
+     */
+    static boolean isValid(final CharSequence email) {
+	if (email == null) {
+	    return false;
+	}
+	final int result = parse(email, 0, email.length(), LOCAL_START, false);
+	if (result != COMMENTED) {
+	    return result == ACCEPTED;
+	}
+	for (int i = 0; i < email.length(); i++) {
+	    if (email.charAt(i) >= ASCII_LIMIT) {
+		return false;
+	    }
+	}
+	final CharSequence stripped = stripComments(email);
+	// the comments left are not well formed, and their parentheses are rejected
+	return parse(stripped, 0, stripped.length(), LOCAL_START, false) == ACCEPTED;
+    }
+
+    /**
+     * 
+     * @param email
+     *            the email address
+     * @return the <code>email</code> with each comment replaced by a blank, as the <code>stripComments</code> method of commons-validator 1.3.1 does,
+     *         or the <code>email</code> itself if it has no comments.
+     */
+    static CharSequence stripComments(final CharSequence email) {
+	StringBuilder result = null;
+	CharSequence input = email;
+	for (int start = lastComment(input); start >= 0; start = lastComment(input)) {
+	    if (result == null) {
+		result = new StringBuilder(email);
+		input = result;
+	    }
+	    result.replace(start, commentEnd(result, start), " ");
+	}
+	return input;
+    }
+
+    /**
+     * Finds the comment replaced by the regular expression of commons-validator, whose greedy prefix makes it the last comment without nested ones
+     * that is preceded by balanced quoted strings. The backslash escapes the next char in and out of quoted strings, except that after the first quoted
+     * string only the escapes preceded by <code>ESCAPE_PREFIX</code> are allowed outside quoted strings.
+     * 
+     * @return the index of the '(' starting the comment, or -1 if there is none.
+     */
+    private static int lastComment(final CharSequence email) {
+	int last = -1;
+	int state = PLAIN;
+	// the number of chars consumed one by one since the last quoted string or escape, which may start an escape after a quoted string
+	int singles = 0;
+	for (int i = 0; i < email.length(); i++) {
+	    final char c = email.charAt(i);
+	    if (c == '\\') {
+		if (state == AFTER_QUOTED && (singles < ESCAPE_PREFIX.length() || !endsWithEscapePrefix(email, i))) {
+		    break;
+		}
+		if (++i == email.length()) {
+		    break;
+		}
+		singles = 0;
+	    } else if (c == '"') {
+		state = state == QUOTED ? AFTER_QUOTED : QUOTED;
+		singles = 0;
+	    } else {
+		if (c == '(' && state != QUOTED && commentEnd(email, i) > 0) {
+		    last = i;
+		}
+		singles++;
+	    }
+	}
+	return last;
+    }
+
+    private static boolean endsWithEscapePrefix(final CharSequence email, final int end) {
+	final int start = end - ESCAPE_PREFIX.length();
+	for (int i = 0; i < ESCAPE_PREFIX.length(); i++) {
+	    if (email.charAt(start + i) != ESCAPE_PREFIX.charAt(i)) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * 
+     * @return the index after the ')' closing the comment started at <code>start</code>, or -1 if it does not close before another '('.
+     */
+    private static int commentEnd(final CharSequence email, final int start) {
+	for (int i = start + 1; i < email.length(); i++) {
+	    final char c = email.charAt(i);
+	    if (c == ')') {
+		return i + 1;
+	    }
+	    if (c == '(') {
+		return -1;
+	    }
+	    if (c == '\\') {
+		i++;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * 
+     * @param email
+     *            the email address
+     * @return the index of the '@' separating the local part from the domain, or -1 if the address has comments or new lines, which prevent the two
+     *         parts from being validated independently, or if it has no separator outside quoted strings.
+     */
+    static int separatorIndex(final CharSequence email) {
+	int separator = -1;
+	boolean quoted = false;
+	for (int i = 0; i < email.length(); i++) {
+	    final char c = email.charAt(i);
+	    if (c == '(' || c == '\n') {
+		return -1;
+	    }
+	    if (c == '"') {
+		quoted = !quoted;
+	    } else if (c == '@' && !quoted && separator < 0) {
+		separator = i;
+	    }
+	}
+	return separator;
+    }
+
+    /**
+     * 
+     * @param email
+     *            the email address
+     * @param separator
+     *            the index returned by {@link #separatorIndex(CharSequence)}
+     * @return true if the local part of the address, the chars before <code>separator</code>, is valid.
+     */
+    static boolean isValidLocalPart(final CharSequence email, final int separator) {
+	// the separator is included, so that a valid local part leaves the parser at the start of the domain
+	return parse(email, 0, separator + 1, LOCAL_START, true) == ACCEPTED;
+    }
+
+    /**
+     * 
+     * @param email
+     *            the sequence holding the domain
+     * @param from
+     *            the index of the first char of the domain
+     * @param to
+     *            the index after the last char of the domain
+     * @return true if the chars in the given range are a valid domain.
+     */
+    static boolean isValidDomain(final CharSequence email, final int from, final int to) {
+	return parse(email, from, to, LABEL_START, false) == ACCEPTED;
+    }
+
+    /**
+     * 
+     * @return <code>ACCEPTED</code> or <code>REJECTED</code>, or <code>COMMENTED</code> as soon as a comment is found.
+     */
+    private static int parse(final CharSequence email, final int from, final int to, final int initialState, final boolean localPart) {
+	if (from >= to) {
+	    return REJECTED;
+	}
+	int state = initialState;
+	int labels = 0;
+	int labelLength = 0;
+	boolean letters = false;
+	int octets = 0;
+	int octet = 0;
+	int octetDigits = 0;
+	for (int i = from; i < to; i++) {
+	    final char c = email.charAt(i);
+	    if (c >= ASCII_LIMIT) {
+		return REJECTED;
+	    }
+	    if (state == LOCAL_QUOTED) {
+		if (c == '"') {
+		    state = LOCAL_AFTER_QUOTE;
+		} else if (c == '\n') {
+		    return REJECTED;
+		}
+		continue;
+	    }
+	    if (c == '(') {
+		return COMMENTED;
+	    }
+	    if (c == '\n') {
+		// as in a perl regular expression, the end of the address may be followed by a single new line
+		if (i != to - 1) {
+		    return REJECTED;
+		}
+		break;
+	    }
+	    switch (state) {
+	    case LOCAL_START:
+	    case LOCAL_DOT:
+		if (state == LOCAL_START && isBlank(c)) {
+		    // blanks are only allowed before the first word
+		    break;
+		}
+		if (c == '"') {
+		    state = LOCAL_QUOTED;
+		} else if (isValidLocalChar(c)) {
+		    state = LOCAL_WORD;
+		} else {
+		    return REJECTED;
+		}
+		break;
+	    case LOCAL_WORD:
+		if (c == '.') {
+		    state = LOCAL_DOT;
+		} else if (c == '@') {
+		    state = LABEL_START;
+		} else if (!isValidLocalChar(c)) {
+		    return REJECTED;
+		}
+		break;
+	    case LOCAL_AFTER_QUOTE:
+		if (c == '.') {
+		    state = LOCAL_DOT;
+		} else if (c == '@') {
+		    state = LABEL_START;
+		} else {
+		    return REJECTED;
+		}
+		break;
+	    case LABEL_START:
+		if (c == '[' && labels == 0) {
+		    state = IP_OCTET;
+		    break;
+		}
+		if (!VALID_CHARS[c]) {
+		    return REJECTED;
+		}
+		state = LABEL;
+		labelLength = 1;
+		letters = isLetter(c);
+		break;
+	    case LABEL:
+		if (c == '.') {
+		    labels++;
+		    state = LABEL_START;
+		} else if (isBlank(c)) {
+		    labels++;
+		    state = TRAILING_BLANKS;
+		} else if (VALID_CHARS[c]) {
+		    labelLength++;
+		    letters = letters && isLetter(c);
+		} else {
+		    return REJECTED;
+		}
+		break;
+	    case IP_OCTET:
+		if (c >= '0' && c <= '9' && octetDigits < MAXIMUM_OCTET_DIGITS) {
+		    octet = octet * 10 + c - '0';
+		    octetDigits++;
+		} else if (octetDigits == 0 || octet > MAXIMUM_OCTET) {
+		    return REJECTED;
+		} else if (c == '.' && octets < IP_OCTETS - 1) {
+		    octets++;
+		    octet = 0;
+		    octetDigits = 0;
+		} else if (c == ']' && octets == IP_OCTETS - 1) {
+		    state = IP_END;
+		} else {
+		    return REJECTED;
+		}
+		break;
+	    case IP_END:
+		// nothing but the final new line may follow an IP address literal
+		return REJECTED;
+	    default:
+		if (!isBlank(c)) {
+		    return REJECTED;
+		}
+	    }
+	}
+	if (localPart) {
+	    return state == LABEL_START ? ACCEPTED : REJECTED;
+	}
+	if (state == IP_END) {
+	    return ACCEPTED;
+	}
+	if (state == LABEL) {
+	    labels++;
+	} else if (state != TRAILING_BLANKS) {
+	    return REJECTED;
+	}
+	return labels >= MINIMUM_LABELS && labelLength >= MINIMUM_TLD_LENGTH && letters ? ACCEPTED : REJECTED;
+    }
+
+    private static boolean isValidLocalChar(final char c) {
+	return VALID_CHARS[c] || c == '\'';
+    }
+
+    private static boolean isBlank(final char c) {
+	return c == ' ' || c == '\t' || c == '\r' || c == '\f';
+    }
+
+    private static boolean isLetter(final char c) {
+	return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,248 @@
+package com.linkare.validation.email;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 
+ * Bounded, thread safe cache of email validation results, keyed by address and, when the native parser is used, by domain. Repeated addresses cost one hash
+ * lookup, and new addresses on already seen domains only have their local part parsed.
+ * 
+ * Each cache is split in segments guarded by their own lock, so that concurrent validations rarely contend. The capacity is the maximum number of
+ * addresses kept, and the same number of domains. When a segment is full, its least recently used (<code>LRU</code>) or oldest (<code>FIFO</code>) entry
+ * is evicted.
+ * 
+ * Install it with {@link EmailValidator#setCache(EmailValidationCache)} to have {@link EmailValidator#isValid(String)} use it, or call
+ * {@link #isValid(String)} directly.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class EmailValidationCache {
+
+    /**
+     * The policies that choose the entry to evict when the cache is full.
+     */
+    public enum Eviction {
+
+	/**
+	 * Evicts the least recently used entry.
+	 */
+	LRU,
+
+	/**
+	 * Evicts the oldest entry, regardless of how often it is used. Lookups do not reorder the entries, which makes them slightly cheaper.
+	 */
+	FIFO
+    }
+
+    private static final int MAXIMUM_SEGMENTS = 16;
+
+    private static final int MINIMUM_SEGMENT_CAPACITY = 64;
+
+    private final Segment[] addresses;
+
+    private final Segment[] domains;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder domainHits = new LongAdder();
+
+    private final LongAdder domainMisses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 
+     * @param capacity
+     *            the maximum number of addresses (and of domains) kept
+     */
+    public EmailValidationCache(final int capacity) {
+	this(capacity, Eviction.LRU);
+    }
+
+    /**
+     * 
+     * @param capacity
+     *            the maximum number of addresses (and of domains) kept
+     * @param eviction
+     *            the policy that chooses the entry to evict when the cache is full
+     */
+    public EmailValidationCache(final int capacity, final Eviction eviction) {
+	if (capacity <= 0) {
+	    throw new IllegalArgumentException("The capacity must be positive");
+	}
+	int segments = 1;
+	while (segments < MAXIMUM_SEGMENTS && capacity / (segments * 2) >= MINIMUM_SEGMENT_CAPACITY) {
+	    segments *= 2;
+	}
+	this.addresses = segments(segments, capacity, eviction);
+	this.domains = segments(segments, capacity, eviction);
+    }
+
+    /**
+     * 
+     * @param email
+     *            the email address whose format we want to validate
+     * @return true if the email format is valid. Returns false otherwise. The result is the one of {@link EmailValidator#isValid(String)} without a
+     *         cache.
+     */
+    public boolean isValid(final String email) {
+	if (email == null) {
+	    return false;
+	}
+	final Segment segment = segment(addresses, email);
+	final Boolean cached = segment.get(email);
+	if (cached != null) {
+	    hits.increment();
+	    return cached.booleanValue();
+	}
+	misses.increment();
+	final EmailValidator.Mode mode = EmailValidator.getDefaultMode();
+	final boolean result = mode == EmailValidator.Mode.NATIVE ? validate(email) : EmailValidator.isValid(email, mode);
+	segment.put(email, Boolean.valueOf(result));
+	return result;
+    }
+
+    private boolean validate(final String email) {
+	final int separator = EmailSyntax.separatorIndex(email);
+	if (separator < 0) {
+	    return EmailSyntax.isValid(email);
+	}
+	if (!EmailSyntax.isValidLocalPart(email, separator)) {
+	    return false;
+	}
+	final String domain = email.substring(separator + 1);
+	final Segment segment = segment(domains, domain);
+	final Boolean cached = segment.get(domain);
+	if (cached != null) {
+	    domainHits.increment();
+	    return cached.booleanValue();
+	}
+	domainMisses.increment();
+	final boolean result = EmailSyntax.isValidDomain(domain, 0, domain.length());
+	segment.put(domain, Boolean.valueOf(result));
+	return result;
+    }
+
+    /**
+     * 
+     * @return the number of addresses found in the cache
+     */
+    public long getHits() {
+	return hits.sum();
+    }
+
+    /**
+     * 
+     * @return the number of addresses that had to be validated
+     */
+    public long getMisses() {
+	return misses.sum();
+    }
+
+    /**
+     * 
+     * @return the number of domains found in the cache, while validating addresses that were not
+     */
+    public long getDomainHits() {
+	return domainHits.sum();
+    }
+
+    /**
+     * 
+     * @return the number of domains that had to be validated
+     */
+    public long getDomainMisses() {
+	return domainMisses.sum();
+    }
+
+    /**
+     * 
+     * @return the number of addresses and domains evicted to respect the capacity
+     */
+    public long getEvictions() {
+	return evictions.sum();
+    }
+
+    /**
+     * 
+     * @return the number of addresses currently kept
+     */
+    public int size() {
+	int size = 0;
+	for (final Segment segment : addresses) {
+	    size += segment.size();
+	}
+	return size;
+    }
+
+    /**
+     * Removes every address and domain from the cache. The counters are not reset.
+     */
+    public void clear() {
+	for (final Segment segment : addresses) {
+	    segment.clear();
+	}
+	for (final Segment segment : domains) {
+	    segment.clear();
+	}
+    }
+
+    private Segment[] segments(final int count, final int capacity, final Eviction eviction) {
+	final Segment[] result = new Segment[count];
+	for (int i = 0; i < count; i++) {
+	    // the first segments take the remainder, so that the capacities add up to the requested one
+	    result[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0), eviction == Eviction.LRU);
+	}
+	return result;
+    }
+
+    private static Segment segment(final Segment[] segments, final String key) {
+	final int hash = key.hashCode();
+	return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * A bounded <code>LinkedHashMap</code> guarded by its own lock.
+     */
+    private final class Segment {
+
+	private final LinkedHashMap<String, Boolean> entries;
+
+	Segment(final int capacity, final boolean accessOrder) {
+	    this.entries = new LinkedHashMap<String, Boolean>(capacity * 4 / 3 + 1, 0.75f, accessOrder) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+		    if (size() > capacity) {
+			evictions.increment();
+			return true;
+		    }
+		    return false;
+		}
+	    };
+	}
+
+	synchronized Boolean get(final String key) {
+	    return entries.get(key);
+	}
+
+	synchronized void put(final String key, final Boolean value) {
+	    entries.put(key, value);
+	}
+
+	synchronized int size() {
+	    return entries.size();
+	}
+
+	synchronized void clear() {
+	    entries.clear();
+	}
+    }
+}
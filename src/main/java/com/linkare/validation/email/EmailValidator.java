@@ -1,14 +1,48 @@
 package com.linkare.validation.email;
 
+import com.linkare.validation.identification.FailureReason;
+import com.linkare.validation.metrics.ValidationMetrics;
+import com.linkare.validation.metrics.ValidatorKind;
+
 /**
  * 
  * Utility class to validate the format of an email address.
  * 
+ * By default the addresses are validated by a native, allocation free parser that accepts the same syntax as the
+ * <code>org.apache.commons.validator.EmailValidator</code> validator class from the commons-validator project from Apache. The commons-validator
+ * implementation itself can still be selected, per call or for the whole JVM through the <code>MODE_PROPERTY</code> system property.
+ * 
  * @author Paulo Zenida - Linkare TI
  * 
  */
 public final class EmailValidator {
 
+    /**
+     * The implementations an email address can be validated with.
+     */
+    public enum Mode {
+
+	/**
+	 * The native parser, which does not need commons-validator in the classpath.
+	 */
+	NATIVE,
+
+	/**
+	 * The <code>org.apache.commons.validator.EmailValidator</code> class, kept for compatibility. commons-validator and Jakarta ORO, which it runs its
+	 * regular expressions on, are optional dependencies, which have to be added to the classpath to use this mode.
+	 */
+	COMMONS_VALIDATOR
+    }
+
+    /**
+     * The system property with the name of the default {@link Mode}. Unknown names select the <code>NATIVE</code> mode.
+     */
+    public static final String MODE_PROPERTY = "com.linkare.validation.email.mode";
+
+    private static final Mode DEFAULT_MODE = defaultMode();
+
+    private static volatile EmailValidationCache cache;
+
     /**
      * Hide utility class constructor. All methods in this class should be accessed statically.
      */
@@ -19,10 +53,77 @@ public final class EmailValidator {
      * 
      * @param email
      *            the email address whose format we want to validate
-     * @return true if the email format is valid. Returns false otherwise. This method delegates its implementation in the
-     *         <code>org.apache.commons.validator.EmailValidator</code> validator class from the commons-validator project from Apache.
+     * @return true if the email format is valid. Returns false otherwise. The address is validated with the default {@link Mode}, through the cache
+     *         installed with {@link #setCache(EmailValidationCache)}, if any.
      */
     public static boolean isValid(final String email) {
-	return org.apache.commons.validator.EmailValidator.getInstance().isValid(email);
+	final long start = ValidationMetrics.start();
+	final EmailValidationCache current = cache;
+	final boolean valid = current != null ? current.isValid(email) : isValid(email, DEFAULT_MODE);
+	ValidationMetrics.record(ValidatorKind.EMAIL, null, valid ? FailureReason.NONE : FailureReason.INVALID, start);
+	return valid;
+    }
+
+    /**
+     * 
+     * @param email
+     *            the email address whose format we want to validate
+     * @param mode
+     *            the implementation to validate the address with
+     * @return true if the email format is valid. Returns false otherwise.
+     * 
+     * @throws UnsupportedOperationException
+     *             if the <code>mode</code> is <code>COMMONS_VALIDATOR</code> and commons-validator or Jakarta ORO is not in the classpath.
+     */
+    public static boolean isValid(final String email, final Mode mode) {
+	return mode == Mode.COMMONS_VALIDATOR ? CommonsValidator.isValid(email) : EmailSyntax.isValid(email);
+    }
+
+    /**
+     * 
+     * @param validationCache
+     *            the cache to be used by {@link #isValid(String)}, or null to disable caching, which is the default.
+     */
+    public static void setCache(final EmailValidationCache validationCache) {
+	cache = validationCache;
+    }
+
+    /**
+     * 
+     * @return the cache used by {@link #isValid(String)}, or null if caching is disabled.
+     */
+    public static EmailValidationCache getCache() {
+	return cache;
+    }
+
+    static Mode getDefaultMode() {
+	return DEFAULT_MODE;
+    }
+
+    private static Mode defaultMode() {
+	final String name = System.getProperty(MODE_PROPERTY);
+	for (final Mode mode : Mode.values()) {
+	    if (mode.name().equals(name)) {
+		return mode;
+	    }
+	}
+	return Mode.NATIVE;
+    }
+
+    /**
+     * Isolates the commons-validator classes, so that they are only loaded when the <code>COMMONS_VALIDATOR</code> mode is used.
+     */
+    private static final class CommonsValidator {
+
+	private CommonsValidator() {
+	}
+
+	static boolean isValid(final String email) {
+	    try {
+		return org.apache.commons.validator.EmailValidator.getInstance().isValid(email);
+	    } catch (final NoClassDefFoundError e) {
+		throw new UnsupportedOperationException("The COMMONS_VALIDATOR mode needs commons-validator and Jakarta ORO in the classpath", e);
+	    }
+	}
     }
-}
\ No newline at end of file
+}
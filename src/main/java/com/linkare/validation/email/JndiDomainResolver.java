@@ -0,0 +1,104 @@
+package com.linkare.validation.email;
+
+import java.io.IOException;
+import java.util.Hashtable;
+
+import javax.naming.Context;
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+
+/**
+ * 
+ * {@link DomainResolver} that asks the DNS through the JNDI DNS provider of the JDK, so that no further dependency is needed. As defined by RFC 5321, a
+ * domain can receive mail if it has MX records or, when it has none, if it has an address (A or AAAA) record, the implicit MX. A "null MX" (RFC 7505),
+ * whose single exchange is ".", tells the domain does not accept mail.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class JndiDomainResolver implements DomainResolver {
+
+    private static final String DNS_CONTEXT_FACTORY = "com.sun.jndi.dns.DnsContextFactory";
+
+    private static final String TIMEOUT_PROPERTY = "com.sun.jndi.dns.timeout.initial";
+
+    private static final String RETRIES_PROPERTY = "com.sun.jndi.dns.timeout.retries";
+
+    private static final String[] MX = { "MX" };
+
+    private static final String[] ADDRESSES = { "A", "AAAA" };
+
+    private static final int DEFAULT_TIMEOUT_MILLIS = 2000;
+
+    private static final int DEFAULT_RETRIES = 2;
+
+    private final Hashtable<String, String> environment = new Hashtable<String, String>();
+
+    /**
+     * Creates a resolver for the name servers of the system, with a timeout of 2 seconds and 2 retries per query.
+     */
+    public JndiDomainResolver() {
+	this(null, DEFAULT_TIMEOUT_MILLIS, DEFAULT_RETRIES);
+    }
+
+    /**
+     * 
+     * @param nameServers
+     *            the space separated name servers to be asked, as in <code>dns://8.8.8.8 dns://1.1.1.1</code>, or null for the ones of the system
+     * @param timeoutMillis
+     *            the initial timeout of each query, in milliseconds, which is doubled on each retry
+     * @param retries
+     *            the number of times each query is retried
+     */
+    public JndiDomainResolver(final String nameServers, final int timeoutMillis, final int retries) {
+	if (timeoutMillis <= 0 || retries < 0) {
+	    throw new IllegalArgumentException("The timeout must be positive and the retries cannot be negative");
+	}
+	environment.put(Context.INITIAL_CONTEXT_FACTORY, DNS_CONTEXT_FACTORY);
+	if (nameServers != null) {
+	    environment.put(Context.PROVIDER_URL, nameServers);
+	}
+	environment.put(TIMEOUT_PROPERTY, Integer.toString(timeoutMillis));
+	environment.put(RETRIES_PROPERTY, Integer.toString(retries));
+    }
+
+    @Override
+    public boolean canReceiveMail(final String domain) throws IOException {
+	try {
+	    final DirContext context = new InitialDirContext(environment);
+	    try {
+		final Attribute exchanges = context.getAttributes(domain, MX).get(MX[0]);
+		if (exchanges != null && exchanges.size() > 0) {
+		    return !isNullMx(exchanges);
+		}
+		final Attributes addresses = context.getAttributes(domain, ADDRESSES);
+		return addresses.size() > 0;
+	    } finally {
+		context.close();
+	    }
+	} catch (final NameNotFoundException e) {
+	    return false;
+	} catch (final NamingException e) {
+	    throw new IOException("Unable to resolve the domain " + domain, e);
+	}
+    }
+
+    private static boolean isNullMx(final Attribute exchanges) throws NamingException {
+	if (exchanges.size() != 1) {
+	    return false;
+	}
+	final NamingEnumeration<?> values = exchanges.getAll();
+	try {
+	    // each value is the preference followed by the exchange, as in "0 ."
+	    final String value = String.valueOf(values.next()).trim();
+	    return value.endsWith(" .") || value.equals(".");
+	} finally {
+	    values.close();
+	}
+    }
+}
@@ -0,0 +1,44 @@
+package com.linkare.validation.flow;
+
+/**
+ * 
+ * An element of a stream together with the outcome of its validation, as emitted by the {@link ValidationProcessor}.
+ * 
+ * @param <T>
+ *            the type of the validated elements
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class Validated<T> {
+
+    private final T value;
+
+    private final boolean valid;
+
+    Validated(final T value, final boolean valid) {
+	this.value = value;
+	this.valid = valid;
+    }
+
+    /**
+     * 
+     * @return the validated element
+     */
+    public T getValue() {
+	return value;
+    }
+
+    /**
+     * 
+     * @return true if the element is valid. It returns false otherwise.
+     */
+    public boolean isValid() {
+	return valid;
+    }
+
+    @Override
+    public String toString() {
+	return "Validated [value=" + value + ", valid=" + valid + "]";
+    }
+}
@@ -0,0 +1,475 @@
+package com.linkare.validation.flow;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 
+ * A <code>Flow.Processor</code> that validates the elements of a stream in micro-batches, instead of one at a time inside a <code>map</code> operator:
+ * 
+ * <pre>
+ * final ValidationProcessor&lt;String&gt; processor = new ValidationProcessor&lt;String&gt;(TaxNumberValidator::isValid, 256, 4, executor);
+ * publisher.subscribe(processor);
+ * processor.subscribe(subscriber);
+ * </pre>
+ * 
+ * The incoming elements are gathered in batches of up to <code>batchSize</code> elements, each one validated in a tight loop by the <code>executor</code>,
+ * so that the batches are validated in parallel, or by the thread that closes it when there is no executor. A batch is closed when it is full, when the
+ * upstream has delivered every element requested so far or when it has been open for <code>linger</code>, so the elements of a slow source, which keeps
+ * the subscription open without filling a batch, are not held back waiting for more.
+ * 
+ * The results are emitted in the order of the elements and only as requested downstream. At most <code>batchSize * maximumBatches</code> elements are
+ * requested upstream and not yet emitted, so the memory stays bounded whatever the pace of the subscriber. A failure of the upstream is signalled once the
+ * elements received before it are emitted, whereas a failure of the validator or of the executor is signalled right away, cancelling the upstream.
+ * 
+ * This class needs Java 9, unlike the rest of the library, which still runs on Java 8 as long as this package is not loaded. A processor serves a single
+ * subscriber.
+ * 
+ * @param <T>
+ *            the type of the validated elements
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class ValidationProcessor<T> implements Flow.Processor<T, Validated<T>> {
+
+    /**
+     * The default maximum number of elements validated together.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * The default maximum number of batches being validated or waiting to be emitted.
+     */
+    public static final int DEFAULT_MAXIMUM_BATCHES = 4;
+
+    /**
+     * The default maximum time a batch waits for more elements before being validated.
+     */
+    public static final Duration DEFAULT_LINGER = Duration.ofMillis(1);
+
+    private final Predicate<? super T> validator;
+
+    private final int batchSize;
+
+    private final int capacity;
+
+    private final Executor executor;
+
+    private final Executor lingerTimer;
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // the state below is guarded by this
+
+    private final ArrayDeque<Batch<T>> batches = new ArrayDeque<Batch<T>>();
+
+    private Batch<T> filling;
+
+    private Flow.Subscription upstream;
+
+    private Flow.Subscriber<? super Validated<T>> downstream;
+
+    private long demand;
+
+    private long outstanding;
+
+    private long buffered;
+
+    private boolean upstreamDone;
+
+    private Throwable upstreamError;
+
+    private Throwable failure;
+
+    private boolean cancelled;
+
+    private boolean terminated;
+
+    /**
+     * Creates a processor that validates batches of <code>DEFAULT_BATCH_SIZE</code> elements in the thread that delivers them.
+     * 
+     * @param validator
+     *            the validation of each element, such as <code>TaxNumberValidator::isValid</code>
+     */
+    public ValidationProcessor(final Predicate<? super T> validator) {
+	this(validator, DEFAULT_BATCH_SIZE, DEFAULT_MAXIMUM_BATCHES, null);
+    }
+
+    /**
+     * 
+     * @param validator
+     *            the validation of each element, such as <code>TaxNumberValidator::isValid</code>
+     * @param batchSize
+     *            the maximum number of elements validated together
+     * @param maximumBatches
+     *            the maximum number of batches being validated or waiting to be emitted
+     * @param executor
+     *            the executor where the batches are validated, such as a bounded pool or one of virtual threads, or null to validate them in the thread
+     *            that delivers the elements
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>validator</code> is null or the <code>batchSize</code> or <code>maximumBatches</code> is not positive.
+     */
+    public ValidationProcessor(final Predicate<? super T> validator, final int batchSize, final int maximumBatches, final Executor executor) {
+	this(validator, batchSize, maximumBatches, executor, DEFAULT_LINGER);
+    }
+
+    /**
+     * 
+     * @param validator
+     *            the validation of each element, such as <code>TaxNumberValidator::isValid</code>
+     * @param batchSize
+     *            the maximum number of elements validated together
+     * @param maximumBatches
+     *            the maximum number of batches being validated or waiting to be emitted
+     * @param executor
+     *            the executor where the batches are validated, such as a bounded pool or one of virtual threads, or null to validate them in the thread
+     *            that delivers the elements. A batch closed by the <code>linger</code> is then validated in the common <code>ForkJoinPool</code>.
+     * @param linger
+     *            the maximum time a batch that is not full waits for more elements, or null to have it wait until the upstream delivers every element
+     *            requested so far
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>validator</code> is null, if the <code>batchSize</code> or <code>maximumBatches</code> is not positive or if the
+     *             <code>linger</code> is not positive.
+     */
+    public ValidationProcessor(final Predicate<? super T> validator, final int batchSize, final int maximumBatches, final Executor executor,
+	    final Duration linger) {
+	if (validator == null) {
+	    throw new IllegalArgumentException("The validator is mandatory");
+	}
+	if (batchSize <= 0 || maximumBatches <= 0 || (long) batchSize * maximumBatches > Integer.MAX_VALUE) {
+	    throw new IllegalArgumentException("The batch size and the maximum number of batches must be positive");
+	}
+	if (linger != null && (linger.isNegative() || linger.isZero())) {
+	    throw new IllegalArgumentException("The linger must be positive");
+	}
+	this.validator = validator;
+	this.batchSize = batchSize;
+	this.capacity = batchSize * maximumBatches;
+	this.executor = executor;
+	// the shared timer thread of the JDK only hands the lingering batch over, so that no validator or subscriber ever runs in it
+	final Executor lingerExecutor = executor == null ? ForkJoinPool.commonPool() : executor;
+	this.lingerTimer = linger == null ? null : CompletableFuture.delayedExecutor(linger.toNanos(), TimeUnit.NANOSECONDS, task -> {
+	    try {
+		lingerExecutor.execute(task);
+	    } catch (final RejectedExecutionException e) {
+		fail(e);
+	    }
+	});
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+	final boolean accepted;
+	synchronized (this) {
+	    accepted = upstream == null && !cancelled;
+	    if (accepted) {
+		upstream = subscription;
+	    }
+	}
+	if (!accepted) {
+	    subscription.cancel();
+	    return;
+	}
+	drain();
+    }
+
+    @Override
+    public void onNext(final T item) {
+	final Batch<T> current;
+	final boolean opened;
+	final boolean closed;
+	synchronized (this) {
+	    if (upstreamDone || cancelled || terminated) {
+		return;
+	    }
+	    opened = filling == null;
+	    if (opened) {
+		filling = new Batch<T>(batchSize);
+		batches.add(filling);
+	    }
+	    current = filling;
+	    current.values[current.size++] = item;
+	    outstanding--;
+	    buffered++;
+	    closed = current.size == batchSize || outstanding == 0;
+	    if (closed) {
+		filling = null;
+	    }
+	}
+	if (closed) {
+	    validate(current);
+	} else if (opened && lingerTimer != null) {
+	    lingerTimer.execute(() -> close(current));
+	}
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+	final Batch<T> closed;
+	synchronized (this) {
+	    if (upstreamDone) {
+		return;
+	    }
+	    upstreamDone = true;
+	    upstreamError = throwable;
+	    closed = filling;
+	    filling = null;
+	}
+	if (closed != null) {
+	    validate(closed);
+	} else {
+	    drain();
+	}
+    }
+
+    @Override
+    public void onComplete() {
+	onError(null);
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super Validated<T>> subscriber) {
+	final boolean accepted;
+	synchronized (this) {
+	    accepted = downstream == null;
+	    if (accepted) {
+		downstream = subscriber;
+	    }
+	}
+	if (!accepted) {
+	    subscriber.onSubscribe(new Flow.Subscription() {
+
+		@Override
+		public void request(final long n) {
+		}
+
+		@Override
+		public void cancel() {
+		}
+	    });
+	    subscriber.onError(new IllegalStateException("The processor serves a single subscriber"));
+	    return;
+	}
+	subscriber.onSubscribe(new Flow.Subscription() {
+
+	    @Override
+	    public void request(final long n) {
+		if (n <= 0) {
+		    fail(new IllegalArgumentException("The number of requested elements must be positive, as required by the reactive streams rule 3.9"));
+		    return;
+		}
+		synchronized (ValidationProcessor.this) {
+		    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+		}
+		drain();
+	    }
+
+	    @Override
+	    public void cancel() {
+		final Flow.Subscription source;
+		synchronized (ValidationProcessor.this) {
+		    cancelled = true;
+		    source = release();
+		}
+		if (source != null) {
+		    source.cancel();
+		}
+	    }
+	});
+	drain();
+    }
+
+    /**
+     * Closes the <code>batch</code> once its linger is over, unless it was already closed, and validates it in the current thread, which is one of the
+     * <code>executor</code> or of the common pool.
+     */
+    private void close(final Batch<T> batch) {
+	synchronized (this) {
+	    if (filling != batch) {
+		return;
+	    }
+	    filling = null;
+	}
+	validateNow(batch);
+    }
+
+    private void validate(final Batch<T> batch) {
+	if (executor == null) {
+	    validateNow(batch);
+	    return;
+	}
+	try {
+	    executor.execute(() -> validateNow(batch));
+	} catch (final RejectedExecutionException e) {
+	    fail(e);
+	}
+    }
+
+    private void validateNow(final Batch<T> batch) {
+	try {
+	    batch.validate(validator);
+	} catch (final RuntimeException e) {
+	    fail(e);
+	    return;
+	}
+	drain();
+    }
+
+    /**
+     * Records the first failure, leaving it to <code>drain</code> to cancel the upstream before signalling it, so that the subscriber never sees the
+     * failure while the upstream is still active.
+     */
+    private void fail(final Throwable throwable) {
+	synchronized (this) {
+	    if (failure != null || terminated) {
+		return;
+	    }
+	    failure = throwable;
+	}
+	drain();
+    }
+
+    /**
+     * Emits the validated elements as requested downstream, delivers the terminal signal and tops up the upstream requests. Only one thread runs it at a
+     * time, so the subscriber is signalled serially; the others leave it a pass to make.
+     */
+    private void drain() {
+	if (wip.getAndIncrement() != 0) {
+	    return;
+	}
+	int missed = 1;
+	do {
+	    for (;;) {
+		final Flow.Subscriber<? super Validated<T>> subscriber;
+		Batch<T> batch = null;
+		int from = 0;
+		int to = 0;
+		boolean terminate = false;
+		Throwable error = null;
+		Flow.Subscription source = null;
+		Flow.Subscription cancel = null;
+		long request = 0;
+		synchronized (this) {
+		    subscriber = downstream;
+		    if (cancelled || terminated) {
+			break;
+		    }
+		    final Batch<T> head = batches.peek();
+		    if (failure != null) {
+			// the upstream is cancelled before the failure is signalled, even when there is no subscriber to signal it yet
+			cancel = release();
+			terminated = subscriber != null;
+			terminate = terminated;
+			error = failure;
+		    } else if (subscriber == null) {
+			break;
+		    } else if (head != null && head.validated && demand > 0) {
+			batch = head;
+			from = head.emitted;
+			to = (int) Math.min(head.size, from + demand);
+			head.emitted = to;
+			demand -= to - from;
+			buffered -= to - from;
+			if (to == head.size) {
+			    batches.poll();
+			}
+		    } else if (head == null && upstreamDone) {
+			terminated = true;
+			terminate = true;
+			error = upstreamError;
+		    }
+		    if (!upstreamDone && upstream != null) {
+			final long room = capacity - buffered - outstanding;
+			if (room >= batchSize) {
+			    request = room - room % batchSize;
+			    outstanding += request;
+			    source = upstream;
+			}
+		    }
+		}
+		if (cancel != null) {
+		    cancel.cancel();
+		}
+		if (source != null) {
+		    source.request(request);
+		}
+		if (terminate) {
+		    if (error == null) {
+			subscriber.onComplete();
+		    } else {
+			subscriber.onError(error);
+		    }
+		    break;
+		}
+		if (batch == null) {
+		    break;
+		}
+		for (int i = from; i < to; i++) {
+		    subscriber.onNext(batch.result(i));
+		}
+	    }
+	    missed = wip.addAndGet(-missed);
+	} while (missed != 0);
+    }
+
+    /**
+     * Drops the elements not yet emitted, once no more will be, and stops the upstream. It must be called holding the lock.
+     * 
+     * @return the upstream subscription, if it still has to be cancelled
+     */
+    private Flow.Subscription release() {
+	batches.clear();
+	filling = null;
+	buffered = 0;
+	final Flow.Subscription source = upstreamDone ? null : upstream;
+	upstreamDone = true;
+	return source;
+    }
+
+    /**
+     * Up to <code>batchSize</code> elements, validated together.
+     */
+    private static final class Batch<T> {
+
+	final Object[] values;
+
+	final boolean[] valid;
+
+	int size;
+
+	int emitted;
+
+	volatile boolean validated;
+
+	Batch(final int capacity) {
+	    this.values = new Object[capacity];
+	    this.valid = new boolean[capacity];
+	}
+
+	@SuppressWarnings("unchecked")
+	void validate(final Predicate<? super T> validator) {
+	    for (int i = 0; i < size; i++) {
+		valid[i] = validator.test((T) values[i]);
+	    }
+	    validated = true;
+	}
+
+	@SuppressWarnings("unchecked")
+	Validated<T> result(final int index) {
+	    final Validated<T> result = new Validated<T>((T) values[index], valid[index]);
+	    values[index] = null;
+	    return result;
+	}
+    }
+}
@@ -0,0 +1,100 @@
+package com.linkare.validation.identification;
+
+import java.util.BitSet;
+
+/**
+ * 
+ * The merged outcome of a batch validated by the {@link ParallelBatchValidator}: which numbers are valid, how many of them and, for identification card
+ * batches, how many numbers got each score.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class BatchResult {
+
+    private final int size;
+
+    private final BitSet valid;
+
+    private final int validCount;
+
+    private final int[] scoreHistogram;
+
+    BatchResult(final int size, final long[] validWords, final int[] histogram, final boolean scored) {
+	this.size = size;
+	this.valid = BitSet.valueOf(validWords);
+	this.validCount = histogram[IdentificationCardNumberValidator.MAXIMUM_SCORE];
+	this.scoreHistogram = scored ? histogram : null;
+    }
+
+    /**
+     * 
+     * @return the number of numbers in the batch
+     */
+    public int getSize() {
+	return size;
+    }
+
+    /**
+     * 
+     * @return the number of valid numbers in the batch
+     */
+    public int getValidCount() {
+	return validCount;
+    }
+
+    /**
+     * 
+     * @return the number of invalid numbers in the batch
+     */
+    public int getInvalidCount() {
+	return size - validCount;
+    }
+
+    /**
+     * 
+     * @param index
+     *            the index of the number in the batch
+     * @return true if the number at <code>index</code> is valid. It returns false otherwise.
+     */
+    public boolean isValid(final int index) {
+	return valid.get(index);
+    }
+
+    /**
+     * 
+     * @return a copy of the set where the bit of index <code>i</code> is set if the <code>i</code>th number is valid
+     */
+    public BitSet getValid() {
+	return (BitSet) valid.clone();
+    }
+
+    /**
+     * 
+     * @return the indexes of the invalid numbers, in ascending order
+     */
+    public int[] getInvalidIndices() {
+	final int[] result = new int[getInvalidCount()];
+	int i = 0;
+	for (int index = valid.nextClearBit(0); index < size; index = valid.nextClearBit(index + 1)) {
+	    result[i++] = index;
+	}
+	return result;
+    }
+
+    /**
+     * 
+     * @param score
+     *            one of the scores defined in {@link IdentificationCardNumberValidator}
+     * @return the number of numbers in the batch with the given <code>score</code>
+     * 
+     * @throws UnsupportedOperationException
+     *             if the batch was not scored, which is the case of every batch but the identification card ones.
+     */
+    public int getScoreCount(final int score) {
+	if (scoreHistogram == null) {
+	    throw new UnsupportedOperationException("Not supported for batches that were not scored");
+	}
+	return score >= 0 && score < scoreHistogram.length ? scoreHistogram[score] : 0;
+    }
+}
@@ -0,0 +1,261 @@
+package com.linkare.validation.identification;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 
+ * Validates batches of identification numbers. The <code>locale</code> is checked once per batch and the numbers are then checked in a tight loop over the
+ * allocation free {@link CheckDigitEngine}, writing the outcome of every number into a caller supplied <code>BitSet</code> or score array.
+ * 
+ * Batches are PT only. Unlike {@link TaxNumberValidator} and {@link IdentificationCardNumberValidator}, the batch validators do not look the
+ * <code>locale</code> up in the {@link CountryRulesRegistry}: they always apply the built in Portuguese rules, even if other rules are registered for PT,
+ * and reject every other country, even one with registered rules.
+ * 
+ * Besides arrays and lists of <code>CharSequence</code>, numbers can be packed in a <code>byte[]</code> of fixed width ASCII records, as read from
+ * fixed width extracts. The designated field of each record is trimmed of the space padding before being checked.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class BatchValidator {
+
+    private static final byte PADDING = ' ';
+
+    private BatchValidator() {
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the country of the numbers to be validated.
+     * @param type
+     *            the type of document the numbers belong to
+     * @param numbers
+     *            the numbers to be validated. Null elements are invalid.
+     * @param valid
+     *            the set where the bit of index <code>i</code> is set if <code>numbers[i]</code> is valid and cleared otherwise
+     * @return the number of valid numbers
+     * 
+     * @throws UnsupportedOperationException
+     *             when the country of the <code>locale</code> is not PT, since batches are validated with the built in Portuguese rules only.
+     */
+    public static int validate(final Locale locale, final DocumentType type, final CharSequence[] numbers, final BitSet valid) {
+	checkLocale(locale);
+	int count = 0;
+	for (int i = 0; i < numbers.length; i++) {
+	    final boolean result = type.isValid(numbers[i]);
+	    valid.set(i, result);
+	    if (result) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the country of the numbers to be validated.
+     * @param type
+     *            the type of document the numbers belong to
+     * @param numbers
+     *            the numbers to be validated. Null elements are invalid.
+     * @param valid
+     *            the set where the bit of index <code>i</code> is set if the <code>i</code>th number is valid and cleared otherwise
+     * @return the number of valid numbers
+     * 
+     * @throws UnsupportedOperationException
+     *             when the country of the <code>locale</code> is not PT, since batches are validated with the built in Portuguese rules only.
+     */
+    public static int validate(final Locale locale, final DocumentType type, final List<? extends CharSequence> numbers, final BitSet valid) {
+	checkLocale(locale);
+	int count = 0;
+	int i = 0;
+	for (final CharSequence number : numbers) {
+	    final boolean result = type.isValid(number);
+	    valid.set(i++, result);
+	    if (result) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the country of the numbers to be validated.
+     * @param type
+     *            the type of document the numbers belong to
+     * @param records
+     *            the fixed width ASCII records holding the numbers to be validated
+     * @param recordLength
+     *            the length of each record, including any record separator
+     * @param fieldOffset
+     *            the offset of the number inside each record
+     * @param fieldLength
+     *            the width of the number field, which may be padded with spaces
+     * @param valid
+     *            the set where the bit of index <code>i</code> is set if the number of the <code>i</code>th record is valid and cleared otherwise
+     * @return the number of valid numbers
+     * 
+     * @throws UnsupportedOperationException
+     *             when the country of the <code>locale</code> is not PT, since batches are validated with the built in Portuguese rules only.
+     * @throws IllegalArgumentException
+     *             if the <code>recordLength</code> is not positive, if the field does not fit in the record or if <code>records</code> does not hold a
+     *             whole number of records
+     */
+    public static int validate(final Locale locale, final DocumentType type, final byte[] records, final int recordLength, final int fieldOffset,
+	    final int fieldLength, final BitSet valid) {
+	checkLocale(locale);
+	final int recordCount = recordCount(records, recordLength, fieldOffset, fieldLength);
+	final ByteBuffer buffer = littleEndian(records);
+	int count = 0;
+	for (int i = 0, start = fieldOffset; i < recordCount; i++, start += recordLength) {
+	    final int from = trimStart(records, start, start + fieldLength);
+	    final int to = trimEnd(records, from, start + fieldLength);
+	    final boolean result = type.isValid(buffer, from, to - from);
+	    valid.set(i, result);
+	    if (result) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the identification card country to be validated.
+     * @param numbers
+     *            the identification card numbers to be scored. Null elements are scored as blank.
+     * @param scores
+     *            the array where the score of <code>numbers[i]</code> is written at index <code>i</code>
+     * @return the number of numbers with the <code>MAXIMUM_SCORE</code>
+     * 
+     * @see IdentificationCardNumberValidator#scoreIdCard(Locale, String)
+     */
+    public static int scoreIdCards(final Locale locale, final CharSequence[] numbers, final byte[] scores) {
+	checkLocale(locale);
+	int count = 0;
+	for (int i = 0; i < numbers.length; i++) {
+	    final int score = CheckDigitEngine.scoreIdCard(numbers[i]);
+	    scores[i] = (byte) score;
+	    if (score == IdentificationCardNumberValidator.MAXIMUM_SCORE) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the identification card country to be validated.
+     * @param numbers
+     *            the identification card numbers to be scored. Null elements are scored as blank.
+     * @param scores
+     *            the array where the score of the <code>i</code>th number is written at index <code>i</code>
+     * @return the number of numbers with the <code>MAXIMUM_SCORE</code>
+     * 
+     * @see IdentificationCardNumberValidator#scoreIdCard(Locale, String)
+     */
+    public static int scoreIdCards(final Locale locale, final List<? extends CharSequence> numbers, final byte[] scores) {
+	checkLocale(locale);
+	int count = 0;
+	int i = 0;
+	for (final CharSequence number : numbers) {
+	    final int score = CheckDigitEngine.scoreIdCard(number);
+	    scores[i++] = (byte) score;
+	    if (score == IdentificationCardNumberValidator.MAXIMUM_SCORE) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the identification card country to be validated.
+     * @param records
+     *            the fixed width ASCII records holding the identification card numbers to be scored
+     * @param recordLength
+     *            the length of each record, including any record separator
+     * @param fieldOffset
+     *            the offset of the number inside each record
+     * @param fieldLength
+     *            the width of the number field, which may be padded with spaces
+     * @param scores
+     *            the array where the score of the number of the <code>i</code>th record is written at index <code>i</code>
+     * @return the number of numbers with the <code>MAXIMUM_SCORE</code>
+     * 
+     * @see IdentificationCardNumberValidator#scoreIdCard(Locale, String)
+     */
+    public static int scoreIdCards(final Locale locale, final byte[] records, final int recordLength, final int fieldOffset, final int fieldLength,
+	    final byte[] scores) {
+	checkLocale(locale);
+	final int recordCount = recordCount(records, recordLength, fieldOffset, fieldLength);
+	int count = 0;
+	for (int i = 0, start = fieldOffset; i < recordCount; i++, start += recordLength) {
+	    final int from = trimStart(records, start, start + fieldLength);
+	    final int to = trimEnd(records, from, start + fieldLength);
+	    final int score = CheckDigitEngine.scoreIdCard(records, from, to - from);
+	    scores[i] = (byte) score;
+	    if (score == IdentificationCardNumberValidator.MAXIMUM_SCORE) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * The {@link DocumentType} kernels implement the Portuguese documents only, so the {@link CountryRules} registered for any country are ignored.
+     */
+    static void checkLocale(final Locale locale) {
+	if (locale == null || !PortugueseRules.COUNTRY.equals(locale.getCountry())) {
+	    throw new UnsupportedOperationException("Not implemented yet");
+	}
+    }
+
+    /**
+     * The records are read through a little endian view, so the {@link DocumentType} kernels can load 8 chars at once in the order {@link SwarDigits}
+     * expects them.
+     */
+    static ByteBuffer littleEndian(final byte[] records) {
+	return ByteBuffer.wrap(records).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static int recordCount(final byte[] records, final int recordLength, final int fieldOffset, final int fieldLength) {
+	if (recordLength <= 0) {
+	    throw new IllegalArgumentException("The record length must be positive");
+	}
+	if (fieldOffset < 0 || fieldLength < 0 || fieldOffset > recordLength || fieldLength > recordLength - fieldOffset) {
+	    throw new IllegalArgumentException("The field does not fit in the record");
+	}
+	if (records.length % recordLength != 0) {
+	    throw new IllegalArgumentException("The buffer does not hold a whole number of records");
+	}
+	return records.length / recordLength;
+    }
+
+    static int trimStart(final byte[] records, final int from, final int to) {
+	int i = from;
+	while (i < to && records[i] == PADDING) {
+	    i++;
+	}
+	return i;
+    }
+
+    static int trimEnd(final byte[] records, final int from, final int to) {
+	int i = to;
+	while (i > from && records[i - 1] == PADDING) {
+	    i--;
+	}
+	return i;
+    }
+}
@@ -0,0 +1,47 @@
+package com.linkare.validation.identification;
+
+/**
+ * 
+ * Reads 8 ASCII chars of a <code>byte[]</code> as a single little endian <code>long</code>, for the {@link SwarDigits} kernels of the <code>byte[]</code>
+ * entry points of {@link CheckDigitEngine}.
+ * 
+ * This is the baseline implementation, which assembles the word byte by byte and is therefore not intrinsic: the engine keeps its scalar
+ * loops. The multi-release jar replaces it on Java 17 and later with one that reads the word through a <code>VarHandle</code>, which the JIT compiles to a
+ * single load.
+ * 
+ * @author Linkare TI
+ * 
+ */
+final class ByteArrayWords {
+
+    private ByteArrayWords() {
+    }
+
+    /**
+     * 
+     * @return true if {@link #word(byte[], int)} is a single load, and so worth using instead of the scalar loops. It is a method rather than a
+     *         constant, which javac would inline in the callers compiled against the other implementation, and the JIT folds it all the same.
+     */
+    static boolean isIntrinsic() {
+	return false;
+    }
+
+    /**
+     * 
+     * @param array
+     *            the array holding the chars
+     * @param index
+     *            the index of the first char
+     * @return the 8 chars from the <code>index</code>, with the first one in the lowest byte.
+     * 
+     * @throws IndexOutOfBoundsException
+     *             if the 8 chars do not fit in the <code>array</code>.
+     */
+    static long word(final byte[] array, final int index) {
+	long word = 0;
+	for (int i = SwarDigits.WORD_LENGTH - 1; i >= 0; i--) {
+	    word = word << 8 | (array[index + i] & 0xFFL);
+	}
+	return word;
+    }
+}
@@ -0,0 +1,1057 @@
+package com.linkare.validation.identification;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 
+ * Arithmetic core shared by the portuguese identification validators ({@link TaxNumberValidator}, {@link IdentificationCardNumberValidator} and
+ * {@link CitizenCardNumberValidator}).
+ * 
+ * All the methods work directly on the characters of a <code>CharSequence</code> or on a slice of a <code>char[]</code>/<code>byte[]</code>, apply the left
+ * zero padding virtually and do not create any object, so they can be used on hot paths that validate millions of numbers. Byte slices are expected to
+ * contain ASCII characters. <code>ByteBuffer</code> slices are read with absolute gets, so direct buffers are validated without copying them and without
+ * moving their position.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class CheckDigitEngine {
+
+    /**
+     * The length of the portuguese tax (NIF) and identification card (BI) numbers, including the check digit.
+     */
+    public static final int PT_NUMBER_LENGTH = 9;
+
+    /**
+     * The length of the portuguese citizen card number, including the version and the check digit.
+     */
+    public static final int CITIZEN_CARD_LENGTH = 12;
+
+    /**
+     * Returned by the <code>citizenCardRemainder</code> methods when the number has not the appropriate length.
+     */
+    public static final int INVALID_LENGTH = -1;
+
+    /**
+     * Returned by the <code>citizenCardRemainder</code> methods when the number contains an invalid char/number.
+     */
+    public static final int INVALID_CHAR = -2;
+
+    private static final int DIVISION_FACTOR = 11;
+
+    private static final int MINIMUM_REMAINING = 2;
+
+    private static final int FIRST_CHAR_NUMBER = 10;
+
+    private static final int ASCII_LIMIT = 128;
+
+    private static final int LATIN1_LIMIT = 256;
+
+    private static final int LETTERS = 'Z' - 'A' + 1;
+
+    private static final int SEPARATOR = -2;
+
+    /**
+     * The citizen card value of each Latin-1 char, or -1 if it is neither a digit nor an upper case letter.
+     */
+    private static final byte[] VALUES = new byte[LATIN1_LIMIT];
+
+    /**
+     * The citizen card value of each Latin-1 char as printed on the card, where letters may be in lower case and spaces and hyphens are
+     * <code>SEPARATOR</code>s.
+     */
+    private static final byte[] PRINTED_VALUES = new byte[LATIN1_LIMIT];
+
+    /**
+     * The doubled citizen card values, minus 9 when the double is above 9.
+     */
+    private static final int[] DOUBLED = new int[FIRST_CHAR_NUMBER + LETTERS];
+
+    private static final int BLANK = ValidationResult.code(FailureReason.BLANK, -1);
+
+    private static final int BAD_LENGTH = ValidationResult.code(FailureReason.BAD_LENGTH, -1);
+
+    static {
+	Arrays.fill(VALUES, (byte) -1);
+	for (int i = 0; i < FIRST_CHAR_NUMBER; i++) {
+	    VALUES['0' + i] = (byte) i;
+	}
+	for (int i = 0; i < LETTERS; i++) {
+	    VALUES['A' + i] = (byte) (FIRST_CHAR_NUMBER + i);
+	}
+	System.arraycopy(VALUES, 0, PRINTED_VALUES, 0, LATIN1_LIMIT);
+	for (int i = 0; i < LETTERS; i++) {
+	    PRINTED_VALUES['a' + i] = (byte) (FIRST_CHAR_NUMBER + i);
+	}
+	PRINTED_VALUES[' '] = SEPARATOR;
+	PRINTED_VALUES['-'] = SEPARATOR;
+	for (int i = 0; i < DOUBLED.length; i++) {
+	    DOUBLED[i] = i * 2 > 9 ? i * 2 - 9 : i * 2;
+	}
+    }
+
+    private CheckDigitEngine() {
+    }
+
+    /**
+     * 
+     * @param weightedSum
+     *            the sum of the digits multiplied by their weights (2 for the rightmost digit before the check digit, 3 for the next one and so on)
+     * @return the mod 11 check digit for the <code>weightedSum</code>. Remainders 0 and 1 both map to the check digit 0.
+     */
+    public static int checkDigit(final int weightedSum) {
+	final int remaining = weightedSum % DIVISION_FACTOR;
+	return remaining < MINIMUM_REMAINING ? 0 : DIVISION_FACTOR - remaining;
+    }
+
+    /**
+     * 
+     * @param prefix
+     *            up to 8 digits of a tax (NIF) or identification card (BI) number, without the check digit. Shorter prefixes are padded with leading zeros.
+     * @return the mod 11 check digit that completes the <code>prefix</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>prefix</code> is longer than 8 chars or contains a char that is not a digit.
+     */
+    public static int computeCheckDigit(final CharSequence prefix) {
+	if (prefix.length() > PT_NUMBER_LENGTH - 1) {
+	    throw new IllegalArgumentException("The prefix has more than " + (PT_NUMBER_LENGTH - 1) + " digits");
+	}
+	int sum = 0;
+	// the check digit has weight 1, so the last digit of the prefix has weight 2
+	int multiplier = prefix.length() + 1;
+	for (int i = 0; i < prefix.length(); i++) {
+	    final int n = digit(prefix.charAt(i));
+	    if (n < 0) {
+		throw new IllegalArgumentException("The prefix contains an invalid number/char");
+	    }
+	    sum += n * multiplier--;
+	}
+	return checkDigit(sum);
+    }
+
+    /**
+     * 
+     * @param prefix
+     *            the first 11 chars of a citizen card number: the 9 digits of the document number followed by the 2 chars of the version
+     * @return the check digit that completes the <code>prefix</code>, as a char between '0' and '9'.
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>prefix</code> has not 11 chars or contains an invalid char/number.
+     */
+    public static char computeCitizenCardCheckDigit(final CharSequence prefix) {
+	if (prefix.length() != CITIZEN_CARD_LENGTH - 1) {
+	    throw new IllegalArgumentException("The prefix has not " + (CITIZEN_CARD_LENGTH - 1) + " chars");
+	}
+	int sum = 0;
+	// the check digit is the rightmost one and is not doubled, so the rightmost char of the prefix is
+	boolean secondDigit = true;
+	for (int i = prefix.length() - 1; i >= 0; --i) {
+	    final int value = citizenCardValue(prefix.charAt(i));
+	    if (value < 0) {
+		throw new IllegalArgumentException("The prefix contains an invalid number/char");
+	    }
+	    sum += secondDigit ? doubled(value) : value;
+	    secondDigit = !secondDigit;
+	}
+	return citizenCardCheckChar(sum);
+    }
+
+    /**
+     * 
+     * @param sum
+     *            the control sum of the first 11 chars of a citizen card number, with the doubled values of the chars at even positions
+     * @return the check digit that makes the control sum of the whole number a multiple of 10.
+     */
+    static char citizenCardCheckChar(final int sum) {
+	return (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the tax number to be checked
+     * @return true if the <code>number</code> is a valid portuguese tax number (NIF). It returns false otherwise, including when <code>number</code> is
+     *         null.
+     */
+    public static boolean isValidTaxNumber(final CharSequence number) {
+	return number != null && isValidTaxNumber(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @param number
+     *            the sequence holding the tax number to be checked
+     * @param offset
+     *            the index of the first char of the tax number
+     * @param length
+     *            the number of chars of the tax number
+     * @return true if the chars in the given range are a valid portuguese tax number (NIF). It returns false otherwise.
+     */
+    public static boolean isValidTaxNumber(final CharSequence number, final int offset, final int length) {
+	// a shorter number would be padded with a leading 0, which is not an allowed first digit
+	if (length != PT_NUMBER_LENGTH || !isTaxNumberPrefix(number.charAt(offset))) {
+	    return false;
+	}
+	int sum = 0;
+	for (int i = 0; i < PT_NUMBER_LENGTH - 1; i++) {
+	    final int n = digit(number.charAt(offset + i));
+	    if (n < 0) {
+		return false;
+	    }
+	    sum += n * (PT_NUMBER_LENGTH - i);
+	}
+	return checkDigit(sum) == digit(number.charAt(offset + PT_NUMBER_LENGTH - 1));
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#isValidTaxNumber(CharSequence, int, int)
+     */
+    public static boolean isValidTaxNumber(final char[] number, final int offset, final int length) {
+	if (length != PT_NUMBER_LENGTH || !isTaxNumberPrefix(number[offset])) {
+	    return false;
+	}
+	int sum = 0;
+	for (int i = 0; i < PT_NUMBER_LENGTH - 1; i++) {
+	    final int n = digit(number[offset + i]);
+	    if (n < 0) {
+		return false;
+	    }
+	    sum += n * (PT_NUMBER_LENGTH - i);
+	}
+	return checkDigit(sum) == digit(number[offset + PT_NUMBER_LENGTH - 1]);
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#isValidTaxNumber(CharSequence, int, int)
+     */
+    public static boolean isValidTaxNumber(final byte[] number, final int offset, final int length) {
+	if (length != PT_NUMBER_LENGTH) {
+	    return false;
+	}
+	if (ByteArrayWords.isIntrinsic()) {
+	    final long word = ByteArrayWords.word(number, offset);
+	    return SwarDigits.isDigits(word) && isTaxNumberPrefix((char) (word & 0xFF))
+		    && checkDigit(SwarDigits.weightedSum(word)) == digit(number[offset + PT_NUMBER_LENGTH - 1]);
+	}
+	if (!isTaxNumberPrefix((char) number[offset])) {
+	    return false;
+	}
+	int sum = 0;
+	for (int i = 0; i < PT_NUMBER_LENGTH - 1; i++) {
+	    final int n = digit(number[offset + i]);
+	    if (n < 0) {
+		return false;
+	    }
+	    sum += n * (PT_NUMBER_LENGTH - i);
+	}
+	return checkDigit(sum) == digit(number[offset + PT_NUMBER_LENGTH - 1]);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the buffer holding the ASCII bytes of the tax number to be checked. Its position and limit are not changed.
+     * @param index
+     *            the absolute index of the first byte of the tax number
+     * @param length
+     *            the number of bytes of the tax number
+     * @return true if the bytes in the given range are a valid portuguese tax number (NIF). It returns false otherwise.
+     * 
+     * @throws IndexOutOfBoundsException
+     *             if the range does not fit below the limit of the buffer.
+     */
+    public static boolean isValidTaxNumber(final ByteBuffer number, final int index, final int length) {
+	checkRange(number, index, length);
+	if (length != PT_NUMBER_LENGTH) {
+	    return false;
+	}
+	// the 8 digits before the check digit are checked and summed as a single word
+	final long word = SwarDigits.word(number, index);
+	if (!SwarDigits.isDigits(word) || !isTaxNumberPrefix((char) (word & 0xFF))) {
+	    return false;
+	}
+	return checkDigit(SwarDigits.weightedSum(word)) == digit(number.get(index + PT_NUMBER_LENGTH - 1));
+    }
+
+    /**
+     * 
+     * @param number
+     *            the identification card number to be scored
+     * @return the score of the <code>number</code>, as defined by {@link IdentificationCardNumberValidator#scoreIdCard(java.util.Locale, String)}.
+     */
+    public static int scoreIdCard(final CharSequence number) {
+	return number == null ? IdentificationCardNumberValidator.MINIMUM_SCORE : scoreIdCard(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @param number
+     *            the sequence holding the identification card number to be scored
+     * @param offset
+     *            the index of the first char of the identification card number
+     * @param length
+     *            the number of chars of the identification card number
+     * @return the score of the chars in the given range, as defined by {@link IdentificationCardNumberValidator#scoreIdCard(java.util.Locale, String)}.
+     */
+    public static int scoreIdCard(final CharSequence number, final int offset, final int length) {
+	boolean blank = true;
+	boolean digits = true;
+	int sum = 0;
+	// the weights grow from the right, so the virtual leading zeros never contribute to the sum
+	int multiplier = length;
+	for (int i = offset; i < offset + length; i++) {
+	    final char c = number.charAt(i);
+	    final int n = digit(c);
+	    if (n < 0) {
+		digits = false;
+		blank = blank && Character.isWhitespace(c);
+	    } else {
+		blank = false;
+		sum += n * multiplier;
+	    }
+	    multiplier--;
+	}
+	return score(blank, digits, length, sum, blank || !digits ? 0 : digit(number.charAt(offset + length - 1)));
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#scoreIdCard(CharSequence, int, int)
+     */
+    public static int scoreIdCard(final char[] number, final int offset, final int length) {
+	boolean blank = true;
+	boolean digits = true;
+	int sum = 0;
+	int multiplier = length;
+	for (int i = offset; i < offset + length; i++) {
+	    final char c = number[i];
+	    final int n = digit(c);
+	    if (n < 0) {
+		digits = false;
+		blank = blank && Character.isWhitespace(c);
+	    } else {
+		blank = false;
+		sum += n * multiplier;
+	    }
+	    multiplier--;
+	}
+	return score(blank, digits, length, sum, blank || !digits ? 0 : digit(number[offset + length - 1]));
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#scoreIdCard(CharSequence, int, int)
+     */
+    public static int scoreIdCard(final byte[] number, final int offset, final int length) {
+	if (ByteArrayWords.isIntrinsic() && length == PT_NUMBER_LENGTH) {
+	    final long word = ByteArrayWords.word(number, offset);
+	    final int lastDigit = digit(number[offset + PT_NUMBER_LENGTH - 1]);
+	    if (SwarDigits.isDigits(word) && lastDigit >= 0) {
+		return checkDigit(SwarDigits.weightedSum(word)) == lastDigit ? IdentificationCardNumberValidator.MAXIMUM_SCORE
+			: IdentificationCardNumberValidator.LEVEL3_SCORE;
+	    }
+	}
+	boolean blank = true;
+	boolean digits = true;
+	int sum = 0;
+	int multiplier = length;
+	for (int i = offset; i < offset + length; i++) {
+	    final int n = digit(number[i]);
+	    if (n < 0) {
+		digits = false;
+		blank = blank && Character.isWhitespace((char) (number[i] & 0xFF));
+	    } else {
+		blank = false;
+		sum += n * multiplier;
+	    }
+	    multiplier--;
+	}
+	return score(blank, digits, length, sum, blank || !digits ? 0 : digit(number[offset + length - 1]));
+    }
+
+    /**
+     * 
+     * @param number
+     *            the buffer holding the ASCII bytes of the identification card number to be scored. Its position and limit are not changed.
+     * @param index
+     *            the absolute index of the first byte of the identification card number
+     * @param length
+     *            the number of bytes of the identification card number
+     * @return the score of the bytes in the given range, as defined by {@link IdentificationCardNumberValidator#scoreIdCard(java.util.Locale, String)}.
+     * 
+     * @throws IndexOutOfBoundsException
+     *             if the range does not fit below the limit of the buffer.
+     */
+    public static int scoreIdCard(final ByteBuffer number, final int index, final int length) {
+	checkRange(number, index, length);
+	if (length == PT_NUMBER_LENGTH) {
+	    final long word = SwarDigits.word(number, index);
+	    final int lastDigit = digit(number.get(index + PT_NUMBER_LENGTH - 1));
+	    if (SwarDigits.isDigits(word) && lastDigit >= 0) {
+		return checkDigit(SwarDigits.weightedSum(word)) == lastDigit ? IdentificationCardNumberValidator.MAXIMUM_SCORE
+			: IdentificationCardNumberValidator.LEVEL3_SCORE;
+	    }
+	}
+	if (number.hasArray()) {
+	    return scoreIdCard(number.array(), number.arrayOffset() + index, length);
+	}
+	boolean blank = true;
+	boolean digits = true;
+	int sum = 0;
+	int multiplier = length;
+	for (int i = index; i < index + length; i++) {
+	    final byte b = number.get(i);
+	    final int n = digit(b);
+	    if (n < 0) {
+		digits = false;
+		blank = blank && Character.isWhitespace((char) (b & 0xFF));
+	    } else {
+		blank = false;
+		sum += n * multiplier;
+	    }
+	    multiplier--;
+	}
+	return score(blank, digits, length, sum, blank || !digits ? 0 : digit(number.get(index + length - 1)));
+    }
+
+    /**
+     * 
+     * @param number
+     *            the sequence holding the tax number to be scored
+     * @param offset
+     *            the index of the first char of the tax number
+     * @param length
+     *            the number of chars of the tax number
+     * @return the score of the chars in the given range, on the scale of {@link IdentificationCardNumberValidator}: <code>MINIMUM_SCORE</code> if blank,
+     *         <code>LEVEL1_SCORE</code> if not numeric, <code>LEVEL2_SCORE</code> if it has not 9 digits, <code>LEVEL3_SCORE</code> if the first digit or
+     *         the check digit are not valid and <code>MAXIMUM_SCORE</code> if valid.
+     */
+    public static int scoreTaxNumber(final CharSequence number, final int offset, final int length) {
+	if (isValidTaxNumber(number, offset, length)) {
+	    return IdentificationCardNumberValidator.MAXIMUM_SCORE;
+	}
+	return shapeScore(number, offset, length, PT_NUMBER_LENGTH, false);
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#scoreTaxNumber(CharSequence, int, int)
+     */
+    public static int scoreTaxNumber(final byte[] number, final int offset, final int length) {
+	if (isValidTaxNumber(number, offset, length)) {
+	    return IdentificationCardNumberValidator.MAXIMUM_SCORE;
+	}
+	return shapeScore(number, offset, length, PT_NUMBER_LENGTH, false);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the sequence holding the citizen card number to be scored
+     * @param offset
+     *            the index of the first char of the citizen card number
+     * @param length
+     *            the number of chars of the citizen card number
+     * @return the score of the chars in the given range, on the scale of {@link IdentificationCardNumberValidator}: <code>MINIMUM_SCORE</code> if blank,
+     *         <code>LEVEL1_SCORE</code> if it contains an invalid char/number, <code>LEVEL2_SCORE</code> if it has not 12 chars, <code>LEVEL3_SCORE</code>
+     *         if the check digit is not valid and <code>MAXIMUM_SCORE</code> if valid.
+     */
+    public static int scoreCitizenCard(final CharSequence number, final int offset, final int length) {
+	if (citizenCardRemainder(number, offset, length) == 0) {
+	    return IdentificationCardNumberValidator.MAXIMUM_SCORE;
+	}
+	return shapeScore(number, offset, length, CITIZEN_CARD_LENGTH, true);
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#scoreCitizenCard(CharSequence, int, int)
+     */
+    public static int scoreCitizenCard(final byte[] number, final int offset, final int length) {
+	if (citizenCardRemainder(number, offset, length) == 0) {
+	    return IdentificationCardNumberValidator.MAXIMUM_SCORE;
+	}
+	return shapeScore(number, offset, length, CITIZEN_CARD_LENGTH, true);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the tax number to be checked
+     * @return the {@link ValidationResult} code of the <code>number</code>: <code>BLANK</code>, <code>NON_DIGIT</code>, <code>BAD_LENGTH</code>,
+     *         <code>BAD_PREFIX</code> or <code>BAD_CHECK_DIGIT</code>, by this order, or <code>VALID</code>.
+     */
+    public static int checkTaxNumber(final CharSequence number) {
+	return number == null ? BLANK : checkTaxNumber(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#checkTaxNumber(CharSequence)
+     */
+    public static int checkTaxNumber(final CharSequence number, final int offset, final int length) {
+	if (isValidTaxNumber(number, offset, length)) {
+	    return ValidationResult.VALID;
+	}
+	final int shape = shapeCode(number, offset, length, false);
+	if (shape != ValidationResult.VALID) {
+	    return shape;
+	}
+	if (length != PT_NUMBER_LENGTH) {
+	    return BAD_LENGTH;
+	}
+	if (!isTaxNumberPrefix(number.charAt(offset))) {
+	    return ValidationResult.code(FailureReason.BAD_PREFIX, 0);
+	}
+	return ValidationResult.code(FailureReason.BAD_CHECK_DIGIT, PT_NUMBER_LENGTH - 1);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the identification card number to be checked
+     * @return the {@link ValidationResult} code of the <code>number</code>: <code>BLANK</code>, <code>NON_DIGIT</code>, <code>BAD_LENGTH</code> or
+     *         <code>BAD_CHECK_DIGIT</code>, matching the levels of {@link CheckDigitEngine#scoreIdCard(CharSequence)}, or <code>VALID</code>.
+     */
+    public static int checkIdCard(final CharSequence number) {
+	return number == null ? BLANK : checkIdCard(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#checkIdCard(CharSequence)
+     */
+    public static int checkIdCard(final CharSequence number, final int offset, final int length) {
+	switch (scoreIdCard(number, offset, length)) {
+	case IdentificationCardNumberValidator.MAXIMUM_SCORE:
+	    return ValidationResult.VALID;
+	case IdentificationCardNumberValidator.LEVEL3_SCORE:
+	    return ValidationResult.code(FailureReason.BAD_CHECK_DIGIT, length - 1);
+	case IdentificationCardNumberValidator.LEVEL2_SCORE:
+	    return BAD_LENGTH;
+	default:
+	    return shapeCode(number, offset, length, false);
+	}
+    }
+
+    /**
+     * 
+     * @param number
+     *            the citizen card number to be checked
+     * @return the {@link ValidationResult} code of the <code>number</code>: <code>BLANK</code>, <code>INVALID_CHAR</code>, <code>BAD_LENGTH</code> or
+     *         <code>BAD_CHECK_DIGIT</code>, by this order, or <code>VALID</code>.
+     */
+    public static int checkCitizenCard(final CharSequence number) {
+	return number == null ? BLANK : checkCitizenCard(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#checkCitizenCard(CharSequence)
+     */
+    public static int checkCitizenCard(final CharSequence number, final int offset, final int length) {
+	final int remainder = citizenCardRemainder(number, offset, length);
+	if (remainder == 0) {
+	    return ValidationResult.VALID;
+	}
+	final int shape = shapeCode(number, offset, length, true);
+	if (shape != ValidationResult.VALID) {
+	    return shape;
+	}
+	return remainder == INVALID_LENGTH ? BAD_LENGTH : ValidationResult.code(FailureReason.BAD_CHECK_DIGIT, CITIZEN_CARD_LENGTH - 1);
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#checkTaxNumber(CharSequence)
+     */
+    public static int checkTaxNumber(final byte[] number, final int offset, final int length) {
+	if (isValidTaxNumber(number, offset, length)) {
+	    return ValidationResult.VALID;
+	}
+	final int shape = shapeCode(number, offset, length, false);
+	if (shape != ValidationResult.VALID) {
+	    return shape;
+	}
+	if (length != PT_NUMBER_LENGTH) {
+	    return BAD_LENGTH;
+	}
+	if (!isTaxNumberPrefix((char) number[offset])) {
+	    return ValidationResult.code(FailureReason.BAD_PREFIX, 0);
+	}
+	return ValidationResult.code(FailureReason.BAD_CHECK_DIGIT, PT_NUMBER_LENGTH - 1);
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#checkIdCard(CharSequence)
+     */
+    public static int checkIdCard(final byte[] number, final int offset, final int length) {
+	switch (scoreIdCard(number, offset, length)) {
+	case IdentificationCardNumberValidator.MAXIMUM_SCORE:
+	    return ValidationResult.VALID;
+	case IdentificationCardNumberValidator.LEVEL3_SCORE:
+	    return ValidationResult.code(FailureReason.BAD_CHECK_DIGIT, length - 1);
+	case IdentificationCardNumberValidator.LEVEL2_SCORE:
+	    return BAD_LENGTH;
+	default:
+	    return shapeCode(number, offset, length, false);
+	}
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#checkCitizenCard(CharSequence)
+     */
+    public static int checkCitizenCard(final byte[] number, final int offset, final int length) {
+	final int remainder = citizenCardRemainder(number, offset, length);
+	if (remainder == 0) {
+	    return ValidationResult.VALID;
+	}
+	final int shape = shapeCode(number, offset, length, true);
+	if (shape != ValidationResult.VALID) {
+	    return shape;
+	}
+	return remainder == INVALID_LENGTH ? BAD_LENGTH : ValidationResult.code(FailureReason.BAD_CHECK_DIGIT, CITIZEN_CARD_LENGTH - 1);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the buffer holding the ASCII bytes of the tax number to be checked. Its position and limit are not changed.
+     * @param index
+     *            the absolute index of the first byte of the tax number
+     * @param length
+     *            the number of bytes of the tax number
+     * @return the {@link ValidationResult} code of the bytes in the given range, as defined by {@link CheckDigitEngine#checkTaxNumber(CharSequence)}.
+     * 
+     * @throws IndexOutOfBoundsException
+     *             if the range does not fit below the limit of the buffer.
+     */
+    public static int checkTaxNumber(final ByteBuffer number, final int index, final int length) {
+	if (isValidTaxNumber(number, index, length)) {
+	    return ValidationResult.VALID;
+	}
+	final int shape = shapeCode(number, index, length);
+	if (shape != ValidationResult.VALID) {
+	    return shape;
+	}
+	if (length != PT_NUMBER_LENGTH) {
+	    return BAD_LENGTH;
+	}
+	if (!isTaxNumberPrefix((char) number.get(index))) {
+	    return ValidationResult.code(FailureReason.BAD_PREFIX, 0);
+	}
+	return ValidationResult.code(FailureReason.BAD_CHECK_DIGIT, PT_NUMBER_LENGTH - 1);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the citizen card number as printed on the card, where letters may be in lower case and spaces and hyphens may separate the groups of
+     *            chars, as in <code>15384657 5 zz0</code>
+     * @return the {@link ValidationResult} code of the check digit part of the <code>number</code>: <code>BLANK</code>, <code>INVALID_CHAR</code>,
+     *         <code>BAD_LENGTH</code> or <code>BAD_CHECK_DIGIT</code>, by this order, or <code>VALID</code>. The check digit of the document number is
+     *         not checked, see {@link CheckDigitEngine#checkCitizenCardDocument(CharSequence)}. Positions count the separators.
+     */
+    public static int checkPrintedCitizenCard(final CharSequence number) {
+	return number == null ? BLANK : checkPrinted(number, 0, number.length(), false);
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#checkPrintedCitizenCard(CharSequence)
+     */
+    public static int checkPrintedCitizenCard(final CharSequence number, final int offset, final int length) {
+	return checkPrinted(number, offset, length, false);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the citizen card number as printed on the card, where letters may be in lower case and spaces and hyphens may separate the groups of
+     *            chars, or its document number alone, as in <code>15384657 7</code>
+     * @return the {@link ValidationResult} code of the document number part of the <code>number</code>, whose first 9 chars are the identification
+     *         card number with its mod 11 check digit. A number of 12 significant chars or a document number of 9 have the appropriate length:
+     *         <code>BLANK</code>, <code>INVALID_CHAR</code>, <code>NON_DIGIT</code>, <code>BAD_LENGTH</code> or <code>BAD_CHECK_DIGIT</code>, by this
+     *         order, or <code>VALID</code>. The version and the check digit of the whole number are not checked, see
+     *         {@link CheckDigitEngine#checkPrintedCitizenCard(CharSequence)}. Positions count the separators.
+     */
+    public static int checkCitizenCardDocument(final CharSequence number) {
+	return number == null ? BLANK : checkPrinted(number, 0, number.length(), true);
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#checkCitizenCardDocument(CharSequence)
+     */
+    public static int checkCitizenCardDocument(final CharSequence number, final int offset, final int length) {
+	return checkPrinted(number, offset, length, true);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the citizen card number to be checked
+     * @return the remainder by 10 of the citizen card control sum, which is 0 for valid numbers, or one of <code>INVALID_LENGTH</code> and
+     *         <code>INVALID_CHAR</code>
+     */
+    public static int citizenCardRemainder(final CharSequence number) {
+	return citizenCardRemainder(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @param number
+     *            the sequence holding the citizen card number to be checked
+     * @param offset
+     *            the index of the first char of the citizen card number
+     * @param length
+     *            the number of chars of the citizen card number
+     * @return the remainder by 10 of the citizen card control sum, which is 0 for valid numbers, or one of <code>INVALID_LENGTH</code> and
+     *         <code>INVALID_CHAR</code>
+     */
+    public static int citizenCardRemainder(final CharSequence number, final int offset, final int length) {
+	if (length != CITIZEN_CARD_LENGTH) {
+	    return INVALID_LENGTH;
+	}
+	int sum = 0;
+	boolean secondDigit = false;
+	for (int i = offset + length - 1; i >= offset; --i) {
+	    final int value = citizenCardValue(number.charAt(i));
+	    if (value < 0) {
+		return INVALID_CHAR;
+	    }
+	    sum += secondDigit ? doubled(value) : value;
+	    secondDigit = !secondDigit;
+	}
+	return sum % 10;
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#citizenCardRemainder(CharSequence, int, int)
+     */
+    public static int citizenCardRemainder(final char[] number, final int offset, final int length) {
+	if (length != CITIZEN_CARD_LENGTH) {
+	    return INVALID_LENGTH;
+	}
+	int sum = 0;
+	boolean secondDigit = false;
+	for (int i = offset + length - 1; i >= offset; --i) {
+	    final int value = citizenCardValue(number[i]);
+	    if (value < 0) {
+		return INVALID_CHAR;
+	    }
+	    sum += secondDigit ? doubled(value) : value;
+	    secondDigit = !secondDigit;
+	}
+	return sum % 10;
+    }
+
+    /**
+     * 
+     * @see CheckDigitEngine#citizenCardRemainder(CharSequence, int, int)
+     */
+    public static int citizenCardRemainder(final byte[] number, final int offset, final int length) {
+	if (length != CITIZEN_CARD_LENGTH) {
+	    return INVALID_LENGTH;
+	}
+	if (ByteArrayWords.isIntrinsic()) {
+	    final long word = ByteArrayWords.word(number, offset);
+	    if (SwarDigits.isDigits(word)) {
+		int sum = SwarDigits.citizenCardSum(word);
+		for (int i = SwarDigits.WORD_LENGTH; i < CITIZEN_CARD_LENGTH; i++) {
+		    final int value = citizenCardValue((char) (number[offset + i] & 0xFF));
+		    if (value < 0) {
+			return INVALID_CHAR;
+		    }
+		    sum += (i & 1) == 0 ? doubled(value) : value;
+		}
+		return sum % 10;
+	    }
+	}
+	int sum = 0;
+	boolean secondDigit = false;
+	for (int i = offset + length - 1; i >= offset; --i) {
+	    final int value = citizenCardValue((char) (number[i] & 0xFF));
+	    if (value < 0) {
+		return INVALID_CHAR;
+	    }
+	    sum += secondDigit ? doubled(value) : value;
+	    secondDigit = !secondDigit;
+	}
+	return sum % 10;
+    }
+
+    /**
+     * 
+     * @param number
+     *            the buffer holding the ASCII bytes of the citizen card number to be checked. Its position and limit are not changed.
+     * @param index
+     *            the absolute index of the first byte of the citizen card number
+     * @param length
+     *            the number of bytes of the citizen card number
+     * @return the remainder by 10 of the citizen card control sum, which is 0 for valid numbers, or one of <code>INVALID_LENGTH</code> and
+     *         <code>INVALID_CHAR</code>
+     * 
+     * @throws IndexOutOfBoundsException
+     *             if the range does not fit below the limit of the buffer.
+     */
+    public static int citizenCardRemainder(final ByteBuffer number, final int index, final int length) {
+	checkRange(number, index, length);
+	if (length != CITIZEN_CARD_LENGTH) {
+	    return INVALID_LENGTH;
+	}
+	final long word = SwarDigits.word(number, index);
+	if (SwarDigits.isDigits(word)) {
+	    // the first 8 chars of the document number are summed as a single word and the last 4 chars one by one
+	    int sum = SwarDigits.citizenCardSum(word);
+	    for (int i = SwarDigits.WORD_LENGTH; i < CITIZEN_CARD_LENGTH; i++) {
+		final int value = citizenCardValue((char) (number.get(index + i) & 0xFF));
+		if (value < 0) {
+		    return INVALID_CHAR;
+		}
+		sum += (i & 1) == 0 ? doubled(value) : value;
+	    }
+	    return sum % 10;
+	}
+	if (number.hasArray()) {
+	    return citizenCardRemainder(number.array(), number.arrayOffset() + index, length);
+	}
+	int sum = 0;
+	boolean secondDigit = false;
+	for (int i = index + length - 1; i >= index; --i) {
+	    final int value = citizenCardValue((char) (number.get(i) & 0xFF));
+	    if (value < 0) {
+		return INVALID_CHAR;
+	    }
+	    sum += secondDigit ? doubled(value) : value;
+	    secondDigit = !secondDigit;
+	}
+	return sum % 10;
+    }
+
+    /**
+     * 
+     * @param c
+     *            the char to be converted
+     * @return the decimal value of <code>c</code>, or -1 if it is not a digit. Non ASCII digits are accepted, as they always were by the validators.
+     */
+    static int digit(final char c) {
+	if (c >= '0' && c <= '9') {
+	    return c - '0';
+	}
+	return c < ASCII_LIMIT ? -1 : Character.digit(c, 10);
+    }
+
+    /**
+     * 
+     * @param b
+     *            the ASCII byte to be converted
+     * @return the decimal value of <code>b</code>, or -1 if it is not a digit.
+     */
+    static int digit(final byte b) {
+	final int n = b - '0';
+	return n >= 0 && n <= 9 ? n : -1;
+    }
+
+    static boolean isTaxNumberPrefix(final char c) {
+	// The first digit must be one of 1, 2, 5, 6, 7, 8 or 9
+	return c == '1' || c == '2' || (c >= '5' && c <= '9');
+    }
+
+    static int score(final boolean blank, final boolean digits, final int length, final int sum, final int lastDigit) {
+	if (blank) {
+	    return IdentificationCardNumberValidator.MINIMUM_SCORE;
+	}
+	if (!digits) {
+	    return IdentificationCardNumberValidator.LEVEL1_SCORE;
+	}
+	if (length > PT_NUMBER_LENGTH) {
+	    return IdentificationCardNumberValidator.LEVEL2_SCORE;
+	}
+	// the check digit weight is 1, so it has to be discounted from the sum
+	return checkDigit(sum - lastDigit) == lastDigit ? IdentificationCardNumberValidator.MAXIMUM_SCORE : IdentificationCardNumberValidator.LEVEL3_SCORE;
+    }
+
+    private static int shapeScore(final CharSequence number, final int offset, final int length, final int expectedLength, final boolean letters) {
+	boolean blank = true;
+	boolean valid = true;
+	for (int i = offset; i < offset + length; i++) {
+	    final char c = number.charAt(i);
+	    if ((letters ? citizenCardValue(c) : digit(c)) < 0) {
+		valid = false;
+		blank = blank && Character.isWhitespace(c);
+	    } else {
+		blank = false;
+	    }
+	}
+	return shapeScore(blank, valid, length == expectedLength);
+    }
+
+    private static int shapeScore(final byte[] number, final int offset, final int length, final int expectedLength, final boolean letters) {
+	boolean blank = true;
+	boolean valid = true;
+	for (int i = offset; i < offset + length; i++) {
+	    final char c = (char) (number[i] & 0xFF);
+	    if ((letters ? citizenCardValue(c) : digit(c)) < 0) {
+		valid = false;
+		blank = blank && Character.isWhitespace(c);
+	    } else {
+		blank = false;
+	    }
+	}
+	return shapeScore(blank, valid, length == expectedLength);
+    }
+
+    private static int shapeCode(final CharSequence number, final int offset, final int length, final boolean letters) {
+	boolean blank = true;
+	int invalid = -1;
+	for (int i = offset; i < offset + length; i++) {
+	    final char c = number.charAt(i);
+	    if ((letters ? citizenCardValue(c) : digit(c)) < 0) {
+		if (invalid < 0) {
+		    invalid = i - offset;
+		}
+		blank = blank && Character.isWhitespace(c);
+	    } else {
+		blank = false;
+	    }
+	}
+	if (blank) {
+	    return BLANK;
+	}
+	return invalid < 0 ? ValidationResult.VALID : ValidationResult.code(letters ? FailureReason.INVALID_CHAR : FailureReason.NON_DIGIT, invalid);
+    }
+
+    private static int shapeCode(final byte[] number, final int offset, final int length, final boolean letters) {
+	boolean blank = true;
+	int invalid = -1;
+	for (int i = offset; i < offset + length; i++) {
+	    final char c = (char) (number[i] & 0xFF);
+	    if ((letters ? citizenCardValue(c) : digit(c)) < 0) {
+		if (invalid < 0) {
+		    invalid = i - offset;
+		}
+		blank = blank && Character.isWhitespace(c);
+	    } else {
+		blank = false;
+	    }
+	}
+	if (blank) {
+	    return BLANK;
+	}
+	return invalid < 0 ? ValidationResult.VALID : ValidationResult.code(letters ? FailureReason.INVALID_CHAR : FailureReason.NON_DIGIT, invalid);
+    }
+
+    private static int shapeCode(final ByteBuffer number, final int index, final int length) {
+	boolean blank = true;
+	int invalid = -1;
+	for (int i = index; i < index + length; i++) {
+	    final char c = (char) (number.get(i) & 0xFF);
+	    if (digit(c) < 0) {
+		if (invalid < 0) {
+		    invalid = i - index;
+		}
+		blank = blank && Character.isWhitespace(c);
+	    } else {
+		blank = false;
+	    }
+	}
+	if (blank) {
+	    return BLANK;
+	}
+	return invalid < 0 ? ValidationResult.VALID : ValidationResult.code(FailureReason.NON_DIGIT, invalid);
+    }
+
+    private static int checkPrinted(final CharSequence number, final int offset, final int length, final boolean document) {
+	boolean blank = true;
+	int invalid = -1;
+	int nonDigit = -1;
+	int significant = 0;
+	int sum = 0;
+	int checkValue = -1;
+	int checkPosition = -1;
+	for (int i = offset; i < offset + length; i++) {
+	    final char c = number.charAt(i);
+	    final int value = c < LATIN1_LIMIT ? PRINTED_VALUES[c] : Character.digit(c, 10);
+	    if (value >= 0) {
+		blank = false;
+		if (!document) {
+		    // the chars at even positions are the doubled ones, as long as the number has the appropriate length
+		    sum += (significant & 1) == 0 ? DOUBLED[value] : value;
+		    checkPosition = i - offset;
+		} else if (significant < PT_NUMBER_LENGTH) {
+		    if (value >= FIRST_CHAR_NUMBER) {
+			nonDigit = nonDigit < 0 ? i - offset : nonDigit;
+		    } else if (significant < PT_NUMBER_LENGTH - 1) {
+			sum += value * (PT_NUMBER_LENGTH - significant);
+		    } else {
+			checkValue = value;
+			checkPosition = i - offset;
+		    }
+		}
+		significant++;
+	    } else if (value != SEPARATOR) {
+		invalid = invalid < 0 ? i - offset : invalid;
+		blank = blank && Character.isWhitespace(c);
+	    }
+	}
+	if (blank) {
+	    return BLANK;
+	}
+	if (invalid >= 0) {
+	    return ValidationResult.code(FailureReason.INVALID_CHAR, invalid);
+	}
+	if (nonDigit >= 0) {
+	    return ValidationResult.code(FailureReason.NON_DIGIT, nonDigit);
+	}
+	// the document number may come alone, as in a form field of its own, whereas the check digit of the whole number needs all its chars
+	if (significant != CITIZEN_CARD_LENGTH && !(document && significant == PT_NUMBER_LENGTH)) {
+	    return BAD_LENGTH;
+	}
+	final boolean valid = document ? checkDigit(sum) == checkValue : sum % 10 == 0;
+	return valid ? ValidationResult.VALID : ValidationResult.code(FailureReason.BAD_CHECK_DIGIT, checkPosition);
+    }
+
+    private static void checkRange(final ByteBuffer number, final int index, final int length) {
+	if (index < 0 || length < 0 || index > number.limit() - length) {
+	    throw new IndexOutOfBoundsException("The range [" + index + ", " + index + " + " + length + ") does not fit in the buffer limit " + number.limit());
+	}
+    }
+
+    static int shapeScore(final boolean blank, final boolean valid, final boolean expectedLength) {
+	if (blank) {
+	    return IdentificationCardNumberValidator.MINIMUM_SCORE;
+	}
+	if (!valid) {
+	    return IdentificationCardNumberValidator.LEVEL1_SCORE;
+	}
+	return expectedLength ? IdentificationCardNumberValidator.LEVEL3_SCORE : IdentificationCardNumberValidator.LEVEL2_SCORE;
+    }
+
+    /**
+     * 
+     * @param c
+     *            the char to be converted
+     * @return the citizen card value of <code>c</code>, from 0 for '0' to 35 for 'Z', or -1 if it is neither a digit nor an upper case letter.
+     */
+    static int citizenCardValue(final char c) {
+	return c < LATIN1_LIMIT ? VALUES[c] : Character.digit(c, 10);
+    }
+
+    /**
+     * 
+     * @param value
+     *            a citizen card value, from 0 to 35
+     * @return the doubled <code>value</code>, minus 9 if the double is above 9.
+     */
+    static int doubled(final int value) {
+	return DOUBLED[value];
+    }
+}
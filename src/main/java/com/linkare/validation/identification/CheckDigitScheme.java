@@ -0,0 +1,254 @@
+package com.linkare.validation.identification;
+
+import java.util.Arrays;
+
+/**
+ * 
+ * The declarative description of a check digit scheme, so that the identification numbers of a new country can be validated by describing them rather
+ * than by writing a new validator. A number of the scheme is made of <code>length - 1</code> payload chars followed by a check char:
+ * <ul>
+ * <li>each char has the value of its index in the <code>alphabet</code>;</li>
+ * <li>each payload char contributes its value times the weight of its position, optionally reduced by 9 when above 9 and the weight is not 1, as the doubled
+ * digits of the Luhn algorithm are;</li>
+ * <li>the number is valid when the value of the check char, modulo the <code>modulus</code>, is the one the <code>remainders</code> map the remainder of
+ * the sum of the contributions to.</li>
+ * </ul>
+ * 
+ * Schemes are compiled by {@link #compile()} into a {@link CompiledScheme}, which is what validates the numbers. The portuguese numbers are described by
+ * <code>PT_TAX_NUMBER</code>, <code>PT_IDENTIFICATION_CARD</code> and <code>PT_CITIZEN_CARD</code>.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class CheckDigitScheme {
+
+    /**
+     * The padding of the schemes whose numbers must have exactly <code>length</code> chars.
+     */
+    public static final char NO_PADDING = 0;
+
+    /**
+     * The alphabet of the numbers made of decimal digits.
+     */
+    public static final String DIGITS = "0123456789";
+
+    /**
+     * The alphabet of the numbers made of decimal digits and upper case letters, valued from 10 for 'A' to 35 for 'Z'.
+     */
+    public static final String DIGITS_AND_LETTERS = DIGITS + "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    /**
+     * The portuguese tax number (NIF), as validated by {@link CheckDigitEngine#isValidTaxNumber(CharSequence)}, except that only ASCII digits are
+     * accepted.
+     */
+    public static final CheckDigitScheme PT_TAX_NUMBER = new CheckDigitScheme("PT tax number", CheckDigitEngine.PT_NUMBER_LENGTH, NO_PADDING, "1256789",
+	    DIGITS, new int[] { 9, 8, 7, 6, 5, 4, 3, 2 }, false, 11, new int[] { 0, 0, 9, 8, 7, 6, 5, 4, 3, 2, 1 });
+
+    /**
+     * The portuguese identification card number (BI), as validated by {@link CheckDigitEngine#scoreIdCard(CharSequence)}, except that only ASCII digits
+     * are accepted. Shorter numbers are padded with leading zeros.
+     */
+    public static final CheckDigitScheme PT_IDENTIFICATION_CARD = new CheckDigitScheme("PT identification card number", CheckDigitEngine.PT_NUMBER_LENGTH,
+	    '0', null, DIGITS, new int[] { 9, 8, 7, 6, 5, 4, 3, 2 }, false, 11, new int[] { 0, 0, 9, 8, 7, 6, 5, 4, 3, 2, 1 });
+
+    /**
+     * The portuguese citizen card number, as validated by {@link CheckDigitEngine#citizenCardRemainder(CharSequence)}, except that only ASCII digits are
+     * accepted.
+     */
+    public static final CheckDigitScheme PT_CITIZEN_CARD = new CheckDigitScheme("PT citizen card number", CheckDigitEngine.CITIZEN_CARD_LENGTH,
+	    NO_PADDING, null, DIGITS_AND_LETTERS, new int[] { 2, 1, 2, 1, 2, 1, 2, 1, 2, 1, 2 }, true, 10, new int[] { 0, 9, 8, 7, 6, 5, 4, 3, 2, 1 });
+
+    /**
+     * The maximum length of the numbers of a scheme.
+     */
+    public static final int MAXIMUM_LENGTH = 64;
+
+    /**
+     * The maximum modulus of a scheme.
+     */
+    public static final int MAXIMUM_MODULUS = 1 << 16;
+
+    private final String name;
+
+    private final int length;
+
+    private final char padding;
+
+    private final String prefixes;
+
+    private final String alphabet;
+
+    private final int[] weights;
+
+    private final boolean luhnReduction;
+
+    private final int modulus;
+
+    private final int[] remainders;
+
+    /**
+     * 
+     * @param name
+     *            the name of the scheme, for messages
+     * @param length
+     *            the length of the numbers, including the check char
+     * @param padding
+     *            the char shorter numbers are padded with on the left, or <code>NO_PADDING</code>
+     * @param prefixes
+     *            the chars a number may start with, or null if any char of the <code>alphabet</code> is allowed. It cannot be used with padding.
+     * @param alphabet
+     *            the ASCII chars allowed in the numbers, each one valued by its index
+     * @param weights
+     *            the weight of each payload position, from left to right
+     * @param luhnReduction
+     *            true if the weighted values above 9 are reduced by 9, except at the positions of weight 1
+     * @param modulus
+     *            the modulus of the sum of the contributions
+     * @param remainders
+     *            the check value expected for each remainder of the sum by the <code>modulus</code>
+     * 
+     * @throws IllegalArgumentException
+     *             if the description is not consistent: there must be a weight for each payload position and an expected check value, lower than the
+     *             <code>modulus</code>, for each remainder. The <code>length</code> cannot be above <code>MAXIMUM_LENGTH</code> nor the
+     *             <code>modulus</code> above <code>MAXIMUM_MODULUS</code>.
+     */
+    public CheckDigitScheme(final String name, final int length, final char padding, final String prefixes, final String alphabet, final int[] weights,
+	    final boolean luhnReduction, final int modulus, final int[] remainders) {
+	if (length < 2 || length > MAXIMUM_LENGTH || weights.length != length - 1) {
+	    throw new IllegalArgumentException("The scheme " + name + " must have up to " + MAXIMUM_LENGTH + " chars and a weight for each payload position");
+	}
+	if (modulus < 2 || modulus > MAXIMUM_MODULUS || remainders.length != modulus) {
+	    throw new IllegalArgumentException("The scheme " + name + " must have an expected check value for each of its " + modulus + " remainders");
+	}
+	for (final int remainder : remainders) {
+	    if (remainder < 0 || remainder >= modulus) {
+		throw new IllegalArgumentException("The expected check values of the scheme " + name + " must be lower than its modulus");
+	    }
+	}
+	if (alphabet.isEmpty() || !isAscii(alphabet) || (prefixes != null && !isAscii(prefixes))) {
+	    throw new IllegalArgumentException("The alphabet and prefixes of the scheme " + name + " must be made of ASCII chars");
+	}
+	if (padding != NO_PADDING && (alphabet.indexOf(padding) < 0 || prefixes != null)) {
+	    throw new IllegalArgumentException("The padding of the scheme " + name + " must belong to its alphabet and excludes prefixes");
+	}
+	this.name = name;
+	this.length = length;
+	this.padding = padding;
+	this.prefixes = prefixes;
+	this.alphabet = alphabet;
+	this.weights = weights.clone();
+	this.luhnReduction = luhnReduction;
+	this.modulus = modulus;
+	this.remainders = remainders.clone();
+    }
+
+    /**
+     * 
+     * @return a validator specialised for this scheme
+     */
+    public CompiledScheme compile() {
+	return new CompiledScheme(this);
+    }
+
+    /**
+     * 
+     * @param position
+     *            a payload position, from 0 to <code>length - 2</code>
+     * @param value
+     *            the value of a char of the alphabet
+     * @return the contribution of the char to the sum, modulo the <code>modulus</code>.
+     */
+    int contribution(final int position, final int value) {
+	int product = value * weights[position];
+	if (luhnReduction && weights[position] > 1 && product > 9) {
+	    product -= 9;
+	}
+	return product % modulus;
+    }
+
+    /**
+     * 
+     * @return the name of the scheme
+     */
+    public String getName() {
+	return name;
+    }
+
+    /**
+     * 
+     * @return the length of the numbers, including the check char
+     */
+    public int getLength() {
+	return length;
+    }
+
+    /**
+     * 
+     * @return the char shorter numbers are padded with on the left, or <code>NO_PADDING</code>
+     */
+    public char getPadding() {
+	return padding;
+    }
+
+    /**
+     * 
+     * @return the chars a number may start with, or null if any char of the alphabet is allowed
+     */
+    public String getPrefixes() {
+	return prefixes;
+    }
+
+    /**
+     * 
+     * @return the chars allowed in the numbers, each one valued by its index
+     */
+    public String getAlphabet() {
+	return alphabet;
+    }
+
+    /**
+     * 
+     * @return a copy of the weights of the payload positions, from left to right
+     */
+    public int[] getWeights() {
+	return weights.clone();
+    }
+
+    /**
+     * 
+     * @return true if the weighted values above 9 are reduced by 9, except at the positions of weight 1
+     */
+    public boolean isLuhnReduction() {
+	return luhnReduction;
+    }
+
+    /**
+     * 
+     * @return the modulus of the sum of the contributions
+     */
+    public int getModulus() {
+	return modulus;
+    }
+
+    /**
+     * 
+     * @return a copy of the check values expected for each remainder
+     */
+    public int[] getRemainders() {
+	return remainders.clone();
+    }
+
+    @Override
+    public String toString() {
+	return name + " [length=" + length + ", modulus=" + modulus + ", weights=" + Arrays.toString(weights) + "]";
+    }
+
+    private static boolean isAscii(final String chars) {
+	for (int i = 0; i < chars.length(); i++) {
+	    if (chars.charAt(i) >= CompiledScheme.ASCII_LIMIT) {
+		return false;
+	    }
+	}
+	return true;
+    }
+}
@@ -1,6 +1,9 @@
 package com.linkare.validation.identification;
 
-import org.apache.commons.lang.math.NumberUtils;
+import java.nio.ByteBuffer;
+
+import com.linkare.validation.metrics.ValidationMetrics;
+import com.linkare.validation.metrics.ValidatorKind;
 
 /**
  * 
@@ -11,14 +14,6 @@ import org.apache.commons.lang.math.NumberUtils;
  */
 public final class CitizenCardNumberValidator {
 
-    private static final int CITIZEN_CARD_LENGTH = 12;
-
-    private static final short MIN_CHAR = (short) 'A';
-
-    private static final short MAX_CHAR = (short) 'Z';
-
-    private static final short FIRST_CHAR_NUMBER = 10;
-
     private CitizenCardNumberValidator() {
     }
 
@@ -29,34 +24,150 @@ public final class CitizenCardNumberValidator {
      * @return true if the number is valid. It returns false, otherwise
      * @throws IllegalArgumentException
      *             if the citizen card has not the appropriate length or if contains an invalid char/number
+     * 
+     * @see CitizenCardNumberValidator#check(String)
      */
     public static boolean isValid(final String number) {
-	int sum = 0;
-	boolean secondDigit = false;
-	if (number.length() != CITIZEN_CARD_LENGTH) {
+	final long start = ValidationMetrics.start();
+	final int remainder = CheckDigitEngine.citizenCardRemainder(number);
+	ValidationMetrics.record(ValidatorKind.CITIZEN_CARD, PortugueseRules.COUNTRY, reason(remainder), start);
+	return isValid(remainder);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the ASCII bytes holding the citizen card number to be validated
+     * @param offset
+     *            the index of the first byte of the citizen card number
+     * @param length
+     *            the number of bytes of the citizen card number
+     * @return true if the bytes are a valid citizen card number. It returns false otherwise.
+     * @throws IllegalArgumentException
+     *             if the citizen card has not the appropriate length or if contains an invalid char/number
+     */
+    public static boolean isValid(final byte[] number, final int offset, final int length) {
+	final long start = ValidationMetrics.start();
+	final int remainder = CheckDigitEngine.citizenCardRemainder(number, offset, length);
+	ValidationMetrics.record(ValidatorKind.CITIZEN_CARD, PortugueseRules.COUNTRY, reason(remainder), start);
+	return isValid(remainder);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the buffer holding the ASCII bytes of the citizen card number to be validated, in place. Its position and limit are not changed.
+     * @param index
+     *            the absolute index of the first byte of the citizen card number
+     * @param length
+     *            the number of bytes of the citizen card number
+     * @return true if the bytes are a valid citizen card number. It returns false otherwise.
+     * @throws IllegalArgumentException
+     *             if the citizen card has not the appropriate length or if contains an invalid char/number
+     */
+    public static boolean isValid(final ByteBuffer number, final int index, final int length) {
+	final long start = ValidationMetrics.start();
+	final int remainder = CheckDigitEngine.citizenCardRemainder(number, index, length);
+	ValidationMetrics.record(ValidatorKind.CITIZEN_CARD, PortugueseRules.COUNTRY, reason(remainder), start);
+	return isValid(remainder);
+    }
+
+    private static boolean isValid(final int remainder) {
+	if (remainder == CheckDigitEngine.INVALID_LENGTH) {
 	    throw new IllegalArgumentException("The citizen card has hot the appropriate length");
 	}
-	for (int i = number.length() - 1; i >= 0; --i) {
-	    int valor = convertToNumber(number.charAt(i));
-	    if (secondDigit) {
-		valor *= 2;
-		if (valor > 9)
-		    valor -= 9;
-	    }
-	    sum += valor;
-	    secondDigit = !secondDigit;
+	if (remainder == CheckDigitEngine.INVALID_CHAR) {
+	    throw new IllegalArgumentException("The citizen card contains an invalid number/char");
 	}
-	return (sum % 10) == 0;
+	return remainder == 0;
+    }
+
+    /**
+     * 
+     * @param number
+     *            the citizen card number to be checked
+     * @return the {@link ValidationResult} code of the <code>number</code>, which tells why it is not valid without throwing an exception.
+     * 
+     * @see CheckDigitEngine#checkCitizenCard(CharSequence)
+     */
+    public static int check(final String number) {
+	final long start = ValidationMetrics.start();
+	final int code = CheckDigitEngine.checkCitizenCard(number);
+	ValidationMetrics.record(ValidatorKind.CITIZEN_CARD, PortugueseRules.COUNTRY, ValidationResult.reason(code), start);
+	return code;
+    }
+
+    /**
+     * 
+     * @param number
+     *            the citizen card number to be checked
+     * @param result
+     *            the holder to be filled with the outcome of the validation
+     * @return true if the <code>number</code> is valid. It returns false otherwise.
+     */
+    public static boolean check(final String number, final ValidationResult result) {
+	return result.set(check(number)).isValid();
+    }
+
+    /**
+     * 
+     * @param number
+     *            the ASCII bytes holding the citizen card number to be checked
+     * @param offset
+     *            the index of the first byte of the citizen card number
+     * @param length
+     *            the number of bytes of the citizen card number
+     * @return the {@link ValidationResult} code of the bytes, which tells why they are not valid without throwing an exception.
+     */
+    public static int check(final byte[] number, final int offset, final int length) {
+	final long start = ValidationMetrics.start();
+	final int code = CheckDigitEngine.checkCitizenCard(number, offset, length);
+	ValidationMetrics.record(ValidatorKind.CITIZEN_CARD, PortugueseRules.COUNTRY, ValidationResult.reason(code), start);
+	return code;
+    }
+
+    /**
+     * 
+     * @param number
+     *            the citizen card number as printed on the card, where letters may be in lower case and spaces and hyphens may separate the groups of
+     *            chars, as in <code>15384657 5 zz0</code>
+     * @return the {@link ValidationResult} code of the <code>number</code>, whose positions count the separators.
+     * 
+     * @see CheckDigitEngine#checkPrintedCitizenCard(CharSequence)
+     */
+    public static int checkPrinted(final String number) {
+	final long start = ValidationMetrics.start();
+	final int code = CheckDigitEngine.checkPrintedCitizenCard(number);
+	ValidationMetrics.record(ValidatorKind.CITIZEN_CARD, PortugueseRules.COUNTRY, ValidationResult.reason(code), start);
+	return code;
+    }
+
+    /**
+     * 
+     * @param number
+     *            the citizen card number, either as stored or as printed on the card, or its document number of 9 digits alone
+     * @return the {@link ValidationResult} code of the document number part of the <code>number</code>, which is checked independently of the version and
+     *         of the check digit of the whole number.
+     * 
+     * @see CheckDigitEngine#checkCitizenCardDocument(CharSequence)
+     */
+    public static int checkDocumentNumber(final String number) {
+	final long start = ValidationMetrics.start();
+	final int code = CheckDigitEngine.checkCitizenCardDocument(number);
+	ValidationMetrics.record(ValidatorKind.CITIZEN_CARD, PortugueseRules.COUNTRY, ValidationResult.reason(code), start);
+	return code;
     }
 
-    private static int convertToNumber(final char letter) {
-	final String s = String.valueOf(letter);
-	final short letterNumber = (short) letter;
-	if (NumberUtils.isDigits(s)) {
-	    return Integer.valueOf(s);
-	} else if (letterNumber >= MIN_CHAR && letterNumber <= MAX_CHAR) {
-	    return letterNumber - MIN_CHAR + FIRST_CHAR_NUMBER;
+    private static FailureReason reason(final int remainder) {
+	switch (remainder) {
+	case 0:
+	    return FailureReason.NONE;
+	case CheckDigitEngine.INVALID_LENGTH:
+	    return FailureReason.BAD_LENGTH;
+	case CheckDigitEngine.INVALID_CHAR:
+	    return FailureReason.INVALID_CHAR;
+	default:
+	    return FailureReason.BAD_CHECK_DIGIT;
 	}
-	throw new IllegalArgumentException("The citizen card contains an invalid number/char");
     }
 }
\ No newline at end of file
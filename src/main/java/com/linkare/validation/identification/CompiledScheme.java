@@ -0,0 +1,256 @@
+package com.linkare.validation.identification;
+
+import java.util.Arrays;
+
+/**
+ * 
+ * A validator specialised for one {@link CheckDigitScheme}, created by {@link CheckDigitScheme#compile()}. The whole scheme is folded into tables built
+ * once: the table of each payload position holds, for every ASCII char, its weighted value modulo the modulus, already reduced, or a large negative
+ * sentinel when the char is not allowed there, allowed prefixes included. Validating a number is then one ASCII test, one table load and one addition per
+ * char, and a single comparison of the check char at the end, which is as much work as the hand-written loops of the {@link CheckDigitEngine}.
+ * 
+ * Instances are immutable and thread safe.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class CompiledScheme {
+
+    static final int ASCII_LIMIT = 128;
+
+    private static final int ASCII_BITS = 7;
+
+    /**
+     * Any sum including it stays negative, since the contributions of a whole number are far from making up for it.
+     */
+    private static final int NOT_ALLOWED = -(1 << 24);
+
+    private static final int BLANK = ValidationResult.code(FailureReason.BLANK, -1);
+
+    private static final int BAD_LENGTH = ValidationResult.code(FailureReason.BAD_LENGTH, -1);
+
+    private final CheckDigitScheme scheme;
+
+    private final int length;
+
+    private final int modulus;
+
+    private final boolean padded;
+
+    private final boolean digits;
+
+    /**
+     * The contribution of each ASCII char at each payload position, at index <code>position &lt;&lt; 7 | char</code>.
+     */
+    private final int[] contributions;
+
+    /**
+     * The value of each ASCII char as a check char, modulo the modulus, or -1 if it is not allowed.
+     */
+    private final int[] checkValues;
+
+    private final int[] remainders;
+
+    /**
+     * The sum of the contributions of the padding of the numbers of each length.
+     */
+    private final int[] paddingSums;
+
+    CompiledScheme(final CheckDigitScheme scheme) {
+	this.scheme = scheme;
+	this.length = scheme.getLength();
+	this.modulus = scheme.getModulus();
+	this.padded = scheme.getPadding() != CheckDigitScheme.NO_PADDING;
+	this.remainders = scheme.getRemainders();
+	final String alphabet = scheme.getAlphabet();
+	final String prefixes = scheme.getPrefixes();
+	this.digits = CheckDigitScheme.DIGITS.startsWith(alphabet);
+	this.contributions = new int[(length - 1) << ASCII_BITS];
+	Arrays.fill(contributions, NOT_ALLOWED);
+	for (int position = 0; position < length - 1; position++) {
+	    for (int value = 0; value < alphabet.length(); value++) {
+		final char c = alphabet.charAt(value);
+		if (position > 0 || prefixes == null || prefixes.indexOf(c) >= 0) {
+		    contributions[position << ASCII_BITS | c] = scheme.contribution(position, value);
+		}
+	    }
+	}
+	this.checkValues = new int[ASCII_LIMIT];
+	Arrays.fill(checkValues, -1);
+	for (int value = 0; value < alphabet.length(); value++) {
+	    checkValues[alphabet.charAt(value)] = value % modulus;
+	}
+	this.paddingSums = new int[length + 1];
+	if (padded) {
+	    for (int size = 1; size < length; size++) {
+		for (int position = 0; position < length - size; position++) {
+		    paddingSums[size] += contributions[position << ASCII_BITS | scheme.getPadding()];
+		}
+	    }
+	}
+    }
+
+    /**
+     * 
+     * @param number
+     *            the number to be checked
+     * @return true if the <code>number</code> is valid for the scheme. It returns false otherwise, including when it is null.
+     */
+    public boolean isValid(final CharSequence number) {
+	return number != null && isValid(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @param number
+     *            the sequence holding the number to be checked
+     * @param offset
+     *            the index of the first char of the number
+     * @param length
+     *            the number of chars of the number
+     * @return true if the chars in the given range are a valid number. It returns false otherwise.
+     */
+    public boolean isValid(final CharSequence number, final int offset, final int length) {
+	if (!isValidLength(length)) {
+	    return false;
+	}
+	final int end = offset + length - 1;
+	// the positions are aligned to the right, after the virtual padding
+	int index = (this.length - length) << ASCII_BITS;
+	int sum = paddingSums[length];
+	for (int i = offset; i < end; i++) {
+	    final char c = number.charAt(i);
+	    if (c >= ASCII_LIMIT) {
+		return false;
+	    }
+	    sum += contributions[index | c];
+	    index += ASCII_LIMIT;
+	}
+	final char check = number.charAt(end);
+	return sum >= 0 && check < ASCII_LIMIT && checkValues[check] == remainders[sum % modulus];
+    }
+
+    /**
+     * 
+     * @param number
+     *            the ASCII bytes holding the number to be checked
+     * @param offset
+     *            the index of the first byte of the number
+     * @param length
+     *            the number of bytes of the number
+     * @return true if the bytes in the given range are a valid number. It returns false otherwise.
+     */
+    public boolean isValid(final byte[] number, final int offset, final int length) {
+	if (!isValidLength(length)) {
+	    return false;
+	}
+	final int end = offset + length - 1;
+	int index = (this.length - length) << ASCII_BITS;
+	int sum = paddingSums[length];
+	for (int i = offset; i < end; i++) {
+	    final byte b = number[i];
+	    if (b < 0) {
+		return false;
+	    }
+	    sum += contributions[index | b];
+	    index += ASCII_LIMIT;
+	}
+	final byte check = number[end];
+	return sum >= 0 && check >= 0 && checkValues[check] == remainders[sum % modulus];
+    }
+
+    /**
+     * 
+     * @param number
+     *            the number to be scored
+     * @return the score of the <code>number</code>, on the scale defined by {@link IdentificationCardNumberValidator}: the minimum score if it is blank,
+     *         level 1 if it contains a char out of the alphabet, level 2 if it has not the appropriate length, level 3 if the check char or the prefix is
+     *         wrong and the maximum score if it is valid.
+     */
+    public int score(final CharSequence number) {
+	if (number == null) {
+	    return IdentificationCardNumberValidator.MINIMUM_SCORE;
+	}
+	if (isValid(number, 0, number.length())) {
+	    return IdentificationCardNumberValidator.MAXIMUM_SCORE;
+	}
+	final int code = check(number);
+	switch (ValidationResult.reason(code)) {
+	case BLANK:
+	    return IdentificationCardNumberValidator.MINIMUM_SCORE;
+	case NON_DIGIT:
+	case INVALID_CHAR:
+	    return IdentificationCardNumberValidator.LEVEL1_SCORE;
+	case BAD_LENGTH:
+	    return IdentificationCardNumberValidator.LEVEL2_SCORE;
+	default:
+	    return IdentificationCardNumberValidator.LEVEL3_SCORE;
+	}
+    }
+
+    /**
+     * 
+     * @param number
+     *            the number to be checked
+     * @return the {@link ValidationResult} code of the <code>number</code>: <code>BLANK</code>, <code>NON_DIGIT</code> (<code>INVALID_CHAR</code> when
+     *         the alphabet has letters), <code>BAD_LENGTH</code>, <code>BAD_PREFIX</code> or <code>BAD_CHECK_DIGIT</code>, by this order, or
+     *         <code>VALID</code>.
+     */
+    public int check(final CharSequence number) {
+	return number == null ? BLANK : check(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @see CompiledScheme#check(CharSequence)
+     */
+    public int check(final CharSequence number, final int offset, final int length) {
+	if (isValid(number, offset, length)) {
+	    return ValidationResult.VALID;
+	}
+	boolean blank = true;
+	int invalid = -1;
+	for (int i = offset; i < offset + length; i++) {
+	    final char c = number.charAt(i);
+	    if (c >= ASCII_LIMIT || checkValues[c] < 0) {
+		if (invalid < 0) {
+		    invalid = i - offset;
+		}
+		blank = blank && Character.isWhitespace(c);
+	    } else {
+		blank = false;
+	    }
+	}
+	if (blank) {
+	    return BLANK;
+	}
+	if (invalid >= 0) {
+	    return ValidationResult.code(digits ? FailureReason.NON_DIGIT : FailureReason.INVALID_CHAR, invalid);
+	}
+	if (!isValidLength(length)) {
+	    return BAD_LENGTH;
+	}
+	final String prefixes = scheme.getPrefixes();
+	if (prefixes != null && prefixes.indexOf(number.charAt(offset)) < 0) {
+	    return ValidationResult.code(FailureReason.BAD_PREFIX, 0);
+	}
+	return ValidationResult.code(FailureReason.BAD_CHECK_DIGIT, length - 1);
+    }
+
+    /**
+     * 
+     * @return the scheme this validator was compiled from
+     */
+    public CheckDigitScheme getScheme() {
+	return scheme;
+    }
+
+    @Override
+    public String toString() {
+	return "CompiledScheme [" + scheme + "]";
+    }
+
+    private boolean isValidLength(final int length) {
+	return length == this.length || (padded && length > 0 && length < this.length);
+    }
+}
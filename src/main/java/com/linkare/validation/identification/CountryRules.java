@@ -0,0 +1,82 @@
+package com.linkare.validation.identification;
+
+/**
+ * 
+ * The identification number rules of one country. Implementations are registered in the {@link CountryRulesRegistry}, either explicitly or through the
+ * <code>java.util.ServiceLoader</code> mechanism, by listing them in a <code>META-INF/services/com.linkare.validation.identification.CountryRules</code>
+ * resource. Discovered implementations must be public and have a public no arguments constructor.
+ * 
+ * Implementations must be thread safe, since a single instance serves every validation for its country.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public interface CountryRules {
+
+    /**
+     * 
+     * @return the ISO 3166 alpha-2 code of the country these rules apply to, in upper case, as returned by <code>Locale.getCountry()</code>
+     */
+    String getCountry();
+
+    /**
+     * 
+     * @param number
+     *            the tax number to be validated
+     * @return true if the <code>number</code> is a valid tax number in this country. It returns false otherwise, including when it is null.
+     * 
+     * @throws UnsupportedOperationException
+     *             if this country has no tax number rules.
+     */
+    boolean isValidTaxNumber(CharSequence number);
+
+    /**
+     * 
+     * @param number
+     *            the identification card number to be scored
+     * @return the score of the <code>number</code>, on the scale defined by {@link IdentificationCardNumberValidator}.
+     * 
+     * @throws UnsupportedOperationException
+     *             if this country has no identification card rules.
+     */
+    int scoreIdCard(CharSequence number);
+
+    /**
+     * 
+     * @param number
+     *            the identification card number to be validated
+     * @return true if the <code>number</code> is a valid identification card number in this country. It returns false otherwise.
+     * 
+     * @throws UnsupportedOperationException
+     *             if this country has no identification card rules.
+     */
+    default boolean isValidIdCard(final CharSequence number) {
+	return scoreIdCard(number) == IdentificationCardNumberValidator.MAXIMUM_SCORE;
+    }
+
+    /**
+     * 
+     * @param number
+     *            the tax number to be checked
+     * @return the {@link ValidationResult} code of the <code>number</code>. Unless overridden, failures are reported as <code>INVALID</code>.
+     * 
+     * @throws UnsupportedOperationException
+     *             if this country has no tax number rules.
+     */
+    default int checkTaxNumber(final CharSequence number) {
+	return isValidTaxNumber(number) ? ValidationResult.VALID : ValidationResult.code(FailureReason.INVALID, -1);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the identification card number to be checked
+     * @return the {@link ValidationResult} code of the <code>number</code>. Unless overridden, it is derived from the score of the <code>number</code>.
+     * 
+     * @throws UnsupportedOperationException
+     *             if this country has no identification card rules.
+     */
+    default int checkIdCard(final CharSequence number) {
+	return ValidationResult.fromScore(scoreIdCard(number));
+    }
+}
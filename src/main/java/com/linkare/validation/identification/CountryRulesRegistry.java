@@ -0,0 +1,146 @@
+package com.linkare.validation.identification;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * 
+ * Registry of the {@link CountryRules} used by {@link TaxNumberValidator} and {@link IdentificationCardNumberValidator}. The rules for Portugal are built
+ * in and the ones listed as <code>CountryRules</code> services are discovered by the first lookup of a country without rules, or by {@link #discover()},
+ * so that the rules of Portugal are served without scanning the class path.
+ * 
+ * Lookups index an array by the two letters of the country code, so resolving the rules of a <code>Locale</code> costs no more than comparing its
+ * country with a single constant. Registrations replace the array as a whole, so lookups never lock.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class CountryRulesRegistry {
+
+    private static final int LETTERS = 'Z' - 'A' + 1;
+
+    private static volatile CountryRules[] rules = new CountryRules[LETTERS * LETTERS];
+
+    private static volatile boolean discovered;
+
+    static {
+	register(PortugueseRules.INSTANCE);
+    }
+
+    private CountryRulesRegistry() {
+    }
+
+    /**
+     * Registers the rules listed as <code>CountryRules</code> services, unless they were already discovered. Discovered rules do not replace the ones
+     * registered for the same country, including the built in ones, and the providers that cannot be loaded are skipped.
+     */
+    public static synchronized void discover() {
+	if (discovered) {
+	    return;
+	}
+	final Iterator<CountryRules> providers = ServiceLoader.load(CountryRules.class).iterator();
+	while (true) {
+	    final CountryRules provider;
+	    try {
+		if (!providers.hasNext()) {
+		    break;
+		}
+		provider = providers.next();
+	    } catch (final ServiceConfigurationError e) {
+		// the iterator moves on to the next provider
+		continue;
+	    }
+	    final int index = index(provider.getCountry());
+	    if (index >= 0 && rules[index] == null) {
+		register(provider);
+	    }
+	}
+	discovered = true;
+    }
+
+    /**
+     * 
+     * @param countryRules
+     *            the rules to be registered. They replace any rules previously registered for the same country, including the built in ones.
+     * 
+     * @throws IllegalArgumentException
+     *             if the country of the rules is not a two upper case letters code.
+     */
+    public static synchronized void register(final CountryRules countryRules) {
+	final int index = index(countryRules.getCountry());
+	if (index < 0) {
+	    throw new IllegalArgumentException("The country must be an ISO 3166 alpha-2 code: " + countryRules.getCountry());
+	}
+	final CountryRules[] copy = rules.clone();
+	copy[index] = countryRules;
+	rules = copy;
+    }
+
+    /**
+     * 
+     * @param country
+     *            the ISO 3166 alpha-2 code of the country whose rules are to be removed
+     * @return the removed rules, or null if there were none.
+     */
+    public static synchronized CountryRules unregister(final String country) {
+	final int index = index(country);
+	if (index < 0 || rules[index] == null) {
+	    return null;
+	}
+	final CountryRules[] copy = rules.clone();
+	final CountryRules removed = copy[index];
+	copy[index] = null;
+	rules = copy;
+	return removed;
+    }
+
+    /**
+     * 
+     * @param country
+     *            the ISO 3166 alpha-2 code of the country
+     * @return the rules registered for the <code>country</code>, or null if there are none.
+     */
+    public static CountryRules find(final String country) {
+	final int index = index(country);
+	if (index < 0) {
+	    return null;
+	}
+	final CountryRules found = rules[index];
+	if (found != null || discovered) {
+	    return found;
+	}
+	discover();
+	return rules[index];
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the locale whose country rules are wanted
+     * @return the rules registered for the country of the <code>locale</code>.
+     * 
+     * @throws UnsupportedOperationException
+     *             when no rules are registered for the country of the <code>locale</code>, or when it is null.
+     */
+    public static CountryRules get(final Locale locale) {
+	final CountryRules result = locale == null ? null : find(locale.getCountry());
+	if (result == null) {
+	    throw new UnsupportedOperationException("Not implemented yet");
+	}
+	return result;
+    }
+
+    private static int index(final String country) {
+	if (country == null || country.length() != 2) {
+	    return -1;
+	}
+	final int first = country.charAt(0) - 'A';
+	final int second = country.charAt(1) - 'A';
+	if (first < 0 || first >= LETTERS || second < 0 || second >= LETTERS) {
+	    return -1;
+	}
+	return first * LETTERS + second;
+    }
+}
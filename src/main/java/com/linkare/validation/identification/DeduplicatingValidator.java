@@ -0,0 +1,340 @@
+package com.linkare.validation.identification;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 
+ * Validates highly repetitive batches of tax (NIF) or identification card (BI) numbers, such as invoice lines where the same company shows up millions of
+ * times. Each number made of up to 9 ASCII digits is packed in an <code>int</code> key and its outcome is memoised in an open addressing table of
+ * primitive keys and values, so a repeated number costs one probe instead of a new validation. Other numbers are validated as
+ * {@link BatchValidator} does, without being memoised.
+ * 
+ * The table holds at most <code>capacity</code> numbers. When it is full it is cleared, so the memory stays bounded and the numbers that keep showing up
+ * are memoised again right away. Instances are not thread safe, and are meant to be reused across the batches of a single thread.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class DeduplicatingValidator {
+
+    /**
+     * The default maximum number of memoised numbers.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int EMPTY = -1;
+
+    private static final byte VALID = 1;
+
+    private static final byte INVALID = 2;
+
+    /**
+     * The golden ratio multiplier of the Fibonacci hashing, which spreads the consecutive numbers of a batch across the table.
+     */
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private final DocumentType type;
+
+    private final int capacity;
+
+    private final int shift;
+
+    private final int[] keys;
+
+    private final byte[] outcomes;
+
+    private int size;
+
+    private long hits;
+
+    private long misses;
+
+    private long resets;
+
+    /**
+     * 
+     * @param type
+     *            the type of document the numbers belong to, either <code>TAX_NUMBER</code> or <code>IDENTIFICATION_CARD</code>
+     */
+    public DeduplicatingValidator(final DocumentType type) {
+	this(type, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 
+     * @param type
+     *            the type of document the numbers belong to, either <code>TAX_NUMBER</code> or <code>IDENTIFICATION_CARD</code>
+     * @param capacity
+     *            the maximum number of memoised numbers. The table takes between 10 and 20 bytes per number.
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>type</code> is not supported or the <code>capacity</code> is not positive.
+     */
+    public DeduplicatingValidator(final DocumentType type, final int capacity) {
+	if (type != DocumentType.TAX_NUMBER && type != DocumentType.IDENTIFICATION_CARD) {
+	    throw new IllegalArgumentException("Only tax and identification card numbers can be deduplicated");
+	}
+	if (capacity <= 0 || capacity > 1 << 29) {
+	    throw new IllegalArgumentException("The capacity must be positive and not above " + (1 << 29));
+	}
+	this.type = type;
+	this.capacity = capacity;
+	// the table is kept at most half full, so that the probe sequences stay short
+	final int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+	this.shift = Integer.numberOfLeadingZeros(tableSize) + 1;
+	this.keys = new int[tableSize];
+	this.outcomes = new byte[tableSize];
+	Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the number to be checked
+     * @return true if the <code>number</code> is valid, as told by {@link DocumentType#isValid(CharSequence)}. It returns false otherwise.
+     */
+    public boolean isValid(final CharSequence number) {
+	return number != null && isValid(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @param number
+     *            the sequence holding the number to be checked
+     * @param offset
+     *            the index of the first char of the number
+     * @param length
+     *            the number of chars of the number
+     * @return true if the chars in the given range are a valid number. It returns false otherwise.
+     */
+    public boolean isValid(final CharSequence number, final int offset, final int length) {
+	if (!isPackable(length)) {
+	    return type.isValid(number, offset, length);
+	}
+	int key = 0;
+	for (int i = offset; i < offset + length; i++) {
+	    final int n = number.charAt(i) - '0';
+	    if (n < 0 || n > 9) {
+		return type.isValid(number, offset, length);
+	    }
+	    key = key * 10 + n;
+	}
+	final int slot = find(key);
+	if (keys[slot] == key) {
+	    hits++;
+	    return outcomes[slot] == VALID;
+	}
+	return memoise(slot, key, type.isValid(number, offset, length));
+    }
+
+    /**
+     * 
+     * @param number
+     *            the ASCII bytes holding the number to be checked
+     * @param offset
+     *            the index of the first byte of the number
+     * @param length
+     *            the number of bytes of the number
+     * @return true if the bytes in the given range are a valid number. It returns false otherwise.
+     */
+    public boolean isValid(final byte[] number, final int offset, final int length) {
+	if (!isPackable(length)) {
+	    return type.isValid(number, offset, length);
+	}
+	int key = 0;
+	for (int i = offset; i < offset + length; i++) {
+	    final int n = number[i] - '0';
+	    if (n < 0 || n > 9) {
+		return type.isValid(number, offset, length);
+	    }
+	    key = key * 10 + n;
+	}
+	final int slot = find(key);
+	if (keys[slot] == key) {
+	    hits++;
+	    return outcomes[slot] == VALID;
+	}
+	return memoise(slot, key, type.isValid(number, offset, length));
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the country of the numbers to be validated.
+     * @param numbers
+     *            the numbers to be validated. Null elements are invalid.
+     * @param valid
+     *            the set where the bit of index <code>i</code> is set if <code>numbers[i]</code> is valid and cleared otherwise
+     * @return the number of valid numbers
+     * 
+     * @throws UnsupportedOperationException
+     *             when the country of the <code>locale</code> is not PT, since batches are validated with the built in Portuguese rules only.
+     * 
+     * @see BatchValidator#validate(Locale, DocumentType, CharSequence[], BitSet)
+     */
+    public int validate(final Locale locale, final CharSequence[] numbers, final BitSet valid) {
+	BatchValidator.checkLocale(locale);
+	int count = 0;
+	for (int i = 0; i < numbers.length; i++) {
+	    final boolean result = isValid(numbers[i]);
+	    valid.set(i, result);
+	    if (result) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the country of the numbers to be validated.
+     * @param numbers
+     *            the numbers to be validated. Null elements are invalid.
+     * @param valid
+     *            the set where the bit of index <code>i</code> is set if the <code>i</code>th number is valid and cleared otherwise
+     * @return the number of valid numbers
+     * 
+     * @throws UnsupportedOperationException
+     *             when the country of the <code>locale</code> is not PT, since batches are validated with the built in Portuguese rules only.
+     * 
+     * @see BatchValidator#validate(Locale, DocumentType, List, BitSet)
+     */
+    public int validate(final Locale locale, final List<? extends CharSequence> numbers, final BitSet valid) {
+	BatchValidator.checkLocale(locale);
+	int count = 0;
+	int i = 0;
+	for (final CharSequence number : numbers) {
+	    final boolean result = isValid(number);
+	    valid.set(i++, result);
+	    if (result) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the country of the numbers to be validated.
+     * @param records
+     *            the fixed width ASCII records holding the numbers to be validated
+     * @param recordLength
+     *            the length of each record, including any record separator
+     * @param fieldOffset
+     *            the offset of the number inside each record
+     * @param fieldLength
+     *            the width of the number field, which may be padded with spaces
+     * @param valid
+     *            the set where the bit of index <code>i</code> is set if the number of the <code>i</code>th record is valid and cleared otherwise
+     * @return the number of valid numbers
+     * 
+     * @throws UnsupportedOperationException
+     *             when the country of the <code>locale</code> is not PT, since batches are validated with the built in Portuguese rules only.
+     * @throws IllegalArgumentException
+     *             if the <code>recordLength</code> is not positive, if the field does not fit in the record or if <code>records</code> does not hold a
+     *             whole number of records
+     * 
+     * @see BatchValidator#validate(Locale, DocumentType, byte[], int, int, int, BitSet)
+     */
+    public int validate(final Locale locale, final byte[] records, final int recordLength, final int fieldOffset, final int fieldLength, final BitSet valid) {
+	BatchValidator.checkLocale(locale);
+	final int recordCount = BatchValidator.recordCount(records, recordLength, fieldOffset, fieldLength);
+	int count = 0;
+	for (int i = 0, start = fieldOffset; i < recordCount; i++, start += recordLength) {
+	    final int from = BatchValidator.trimStart(records, start, start + fieldLength);
+	    final int to = BatchValidator.trimEnd(records, from, start + fieldLength);
+	    final boolean result = isValid(records, from, to - from);
+	    valid.set(i, result);
+	    if (result) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * 
+     * @return the type of document the numbers belong to
+     */
+    public DocumentType getType() {
+	return type;
+    }
+
+    /**
+     * 
+     * @return the number of numbers whose outcome was found in the table
+     */
+    public long getHits() {
+	return hits;
+    }
+
+    /**
+     * 
+     * @return the number of numbers validated and memoised
+     */
+    public long getMisses() {
+	return misses;
+    }
+
+    /**
+     * 
+     * @return the number of times the table was cleared for being full
+     */
+    public long getResets() {
+	return resets;
+    }
+
+    /**
+     * 
+     * @return the number of numbers currently memoised
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Removes every number from the table. The counters are not reset.
+     */
+    public void clear() {
+	Arrays.fill(keys, EMPTY);
+	size = 0;
+    }
+
+    private boolean isPackable(final int length) {
+	// shorter identification card numbers are padded with leading zeros, so their outcome only depends on their value, as the one of tax numbers with
+	// 9 digits does. Shorter tax numbers are never valid and are not worth memoising.
+	return type == DocumentType.TAX_NUMBER ? length == CheckDigitEngine.PT_NUMBER_LENGTH : length > 0 && length <= CheckDigitEngine.PT_NUMBER_LENGTH;
+    }
+
+    /**
+     * 
+     * @return the slot holding the <code>key</code>, or the empty slot where it would be inserted.
+     */
+    private int find(final int key) {
+	final int mask = keys.length - 1;
+	int slot = (key * GOLDEN_RATIO) >>> shift;
+	while (keys[slot] != EMPTY && keys[slot] != key) {
+	    slot = (slot + 1) & mask;
+	}
+	return slot;
+    }
+
+    private boolean memoise(final int slot, final int key, final boolean valid) {
+	misses++;
+	int target = slot;
+	if (size == capacity) {
+	    clear();
+	    resets++;
+	    target = find(key);
+	}
+	keys[target] = key;
+	outcomes[target] = valid ? VALID : INVALID;
+	size++;
+	return valid;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,186 @@
+package com.linkare.validation.identification;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 
+ * The portuguese identification documents whose numbers can be validated in batches. Each type delegates in the allocation free
+ * {@link CheckDigitEngine}, so the per number cost is exactly the one of the check digit arithmetic.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public enum DocumentType {
+
+    /**
+     * The tax number (NIF), validated as {@link TaxNumberValidator#isValid(String)}.
+     */
+    TAX_NUMBER {
+	@Override
+	public boolean isValid(final CharSequence number, final int offset, final int length) {
+	    return CheckDigitEngine.isValidTaxNumber(number, offset, length);
+	}
+
+	@Override
+	public boolean isValid(final byte[] number, final int offset, final int length) {
+	    return CheckDigitEngine.isValidTaxNumber(number, offset, length);
+	}
+
+	@Override
+	public boolean isValid(final ByteBuffer number, final int index, final int length) {
+	    return CheckDigitEngine.isValidTaxNumber(number, index, length);
+	}
+
+	@Override
+	public int check(final CharSequence number, final int offset, final int length) {
+	    return CheckDigitEngine.checkTaxNumber(number, offset, length);
+	}
+
+	@Override
+	public int score(final byte[] number, final int offset, final int length) {
+	    return CheckDigitEngine.scoreTaxNumber(number, offset, length);
+	}
+    },
+
+    /**
+     * The identification card number (BI), validated as {@link IdentificationCardNumberValidator#isValid(String)}.
+     */
+    IDENTIFICATION_CARD {
+	@Override
+	public boolean isValid(final CharSequence number, final int offset, final int length) {
+	    return CheckDigitEngine.scoreIdCard(number, offset, length) == IdentificationCardNumberValidator.MAXIMUM_SCORE;
+	}
+
+	@Override
+	public boolean isValid(final byte[] number, final int offset, final int length) {
+	    return CheckDigitEngine.scoreIdCard(number, offset, length) == IdentificationCardNumberValidator.MAXIMUM_SCORE;
+	}
+
+	@Override
+	public boolean isValid(final ByteBuffer number, final int index, final int length) {
+	    return CheckDigitEngine.scoreIdCard(number, index, length) == IdentificationCardNumberValidator.MAXIMUM_SCORE;
+	}
+
+	@Override
+	public int check(final CharSequence number, final int offset, final int length) {
+	    return CheckDigitEngine.checkIdCard(number, offset, length);
+	}
+
+	@Override
+	public int score(final byte[] number, final int offset, final int length) {
+	    return CheckDigitEngine.scoreIdCard(number, offset, length);
+	}
+    },
+
+    /**
+     * The citizen card number (Cartão de Cidadão), validated as {@link CitizenCardNumberValidator#isValid(String)}, except that a wrong length or an
+     * invalid char make the number invalid instead of throwing an exception.
+     */
+    CITIZEN_CARD {
+	@Override
+	public boolean isValid(final CharSequence number, final int offset, final int length) {
+	    return CheckDigitEngine.citizenCardRemainder(number, offset, length) == 0;
+	}
+
+	@Override
+	public boolean isValid(final byte[] number, final int offset, final int length) {
+	    return CheckDigitEngine.citizenCardRemainder(number, offset, length) == 0;
+	}
+
+	@Override
+	public boolean isValid(final ByteBuffer number, final int index, final int length) {
+	    return CheckDigitEngine.citizenCardRemainder(number, index, length) == 0;
+	}
+
+	@Override
+	public int check(final CharSequence number, final int offset, final int length) {
+	    return CheckDigitEngine.checkCitizenCard(number, offset, length);
+	}
+
+	@Override
+	public int score(final byte[] number, final int offset, final int length) {
+	    return CheckDigitEngine.scoreCitizenCard(number, offset, length);
+	}
+    };
+
+    /**
+     * 
+     * @param number
+     *            the number to be checked
+     * @return true if the <code>number</code> is valid for this document type. It returns false otherwise, including when <code>number</code> is null.
+     */
+    public boolean isValid(final CharSequence number) {
+	return number != null && isValid(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @param number
+     *            the sequence holding the number to be checked
+     * @param offset
+     *            the index of the first char of the number
+     * @param length
+     *            the number of chars of the number
+     * @return true if the chars in the given range are a valid number for this document type. It returns false otherwise.
+     */
+    public abstract boolean isValid(final CharSequence number, final int offset, final int length);
+
+    /**
+     * 
+     * @param number
+     *            the ASCII bytes holding the number to be checked
+     * @param offset
+     *            the index of the first byte of the number
+     * @param length
+     *            the number of bytes of the number
+     * @return true if the bytes in the given range are a valid number for this document type. It returns false otherwise.
+     */
+    public abstract boolean isValid(final byte[] number, final int offset, final int length);
+
+    /**
+     * 
+     * @param number
+     *            the buffer holding the ASCII bytes of the number to be checked. Its position and limit are not changed.
+     * @param index
+     *            the absolute index of the first byte of the number
+     * @param length
+     *            the number of bytes of the number
+     * @return true if the bytes in the given range are a valid number for this document type. It returns false otherwise.
+     */
+    public abstract boolean isValid(final ByteBuffer number, final int index, final int length);
+
+    /**
+     * 
+     * @param number
+     *            the number to be checked
+     * @return the {@link ValidationResult} code of the <code>number</code> for this document type. Null numbers are <code>BLANK</code>.
+     */
+    public int check(final CharSequence number) {
+	return number == null ? ValidationResult.code(FailureReason.BLANK, -1) : check(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @param number
+     *            the sequence holding the number to be checked
+     * @param offset
+     *            the index of the first char of the number
+     * @param length
+     *            the number of chars of the number
+     * @return the {@link ValidationResult} code of the chars in the given range for this document type.
+     */
+    public abstract int check(final CharSequence number, final int offset, final int length);
+
+    /**
+     * 
+     * @param number
+     *            the ASCII bytes holding the number to be scored
+     * @param offset
+     *            the index of the first byte of the number
+     * @param length
+     *            the number of bytes of the number
+     * @return the score of the bytes in the given range, on the scale of {@link IdentificationCardNumberValidator} (from <code>MINIMUM_SCORE</code>
+     *         for blank numbers to <code>MAXIMUM_SCORE</code> for valid ones).
+     */
+    public abstract int score(final byte[] number, final int offset, final int length);
+}
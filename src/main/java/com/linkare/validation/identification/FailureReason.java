@@ -0,0 +1,75 @@
+package com.linkare.validation.identification;
+
+/**
+ * 
+ * The reasons why a value fails validation, shared by every validator of the library, so that the {@link ValidationResult} codes, the batch results
+ * and the metrics report a single type. Most reasons apply to the identification numbers, whereas <code>BAD_LOCAL_PART</code> and
+ * <code>BAD_DOMAIN</code> apply to the e-mail addresses only. They are reported packed in an int code, as defined by {@link ValidationResult}, so
+ * reporting them creates no object.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public enum FailureReason {
+
+    /**
+     * The value is valid.
+     */
+    NONE("The value is valid"),
+
+    /**
+     * The value is null, empty or made of whitespace only.
+     */
+    BLANK("The value is blank"),
+
+    /**
+     * The number contains a char that is not a digit.
+     */
+    NON_DIGIT("The number is not numeric"),
+
+    /**
+     * The number has not the appropriate length.
+     */
+    BAD_LENGTH("The number has not the appropriate length"),
+
+    /**
+     * The first digit of the number is not allowed.
+     */
+    BAD_PREFIX("The number first digit is not valid"),
+
+    /**
+     * The check digit of the number is not valid.
+     */
+    BAD_CHECK_DIGIT("The number check digit is not valid"),
+
+    /**
+     * The number contains a char that is neither a digit nor an allowed letter.
+     */
+    INVALID_CHAR("The number contains an invalid number/char"),
+
+    /**
+     * The value is not valid, for a reason the validator does not tell apart, as for e-mail addresses or for the {@link CountryRules} that only tell
+     * whether a number is valid.
+     */
+    INVALID("The value is not valid"),
+
+    /**
+     * The local part of the e-mail address, before the '@', is not valid.
+     */
+    BAD_LOCAL_PART("The address local part is not valid"),
+
+    /**
+     * The domain of the e-mail address, after the '@', is not valid.
+     */
+    BAD_DOMAIN("The address domain is not valid");
+
+    private final String message;
+
+    private FailureReason(final String message) {
+	this.message = message;
+    }
+
+    public String getMessage() {
+	return message;
+    }
+}
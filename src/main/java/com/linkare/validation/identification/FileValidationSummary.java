@@ -0,0 +1,54 @@
+package com.linkare.validation.identification;
+
+/**
+ * 
+ * The totals of a file validated by the {@link FileValidator}.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class FileValidationSummary {
+
+    private final long records;
+
+    private final long[] scoreCounts;
+
+    FileValidationSummary(final long records, final long[] scoreCounts) {
+	this.records = records;
+	this.scoreCounts = scoreCounts;
+    }
+
+    /**
+     * 
+     * @return the number of validated records, not counting the header lines
+     */
+    public long getRecords() {
+	return records;
+    }
+
+    /**
+     * 
+     * @return the number of records with a valid number
+     */
+    public long getValid() {
+	return scoreCounts[IdentificationCardNumberValidator.MAXIMUM_SCORE];
+    }
+
+    /**
+     * 
+     * @return the number of records with an invalid number, which are the ones written to the report
+     */
+    public long getInvalid() {
+	return records - getValid();
+    }
+
+    /**
+     * 
+     * @param score
+     *            one of the scores defined in {@link IdentificationCardNumberValidator}
+     * @return the number of records whose number got the given <code>score</code>
+     */
+    public long getScoreCount(final int score) {
+	return score >= 0 && score < scoreCounts.length ? scoreCounts[score] : 0;
+    }
+}
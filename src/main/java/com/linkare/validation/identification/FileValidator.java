@@ -0,0 +1,300 @@
+package com.linkare.validation.identification;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 
+ * Validates one column of CSV or fixed width files of any size. The file is memory mapped in windows of <code>windowSize</code> bytes and scanned line by
+ * line; the designated field is parsed as raw ASCII bytes and checked by the {@link CheckDigitEngine}, so no <code>String</code> is created and the memory
+ * used does not depend on the file size.
+ * 
+ * Every record whose number is not valid is written to the report as one <code>line;offset;score</code> ASCII line, where <code>line</code> is the 1
+ * based line number, <code>offset</code> the byte offset of the line in the file and <code>score</code> the score of the number, on the scale of
+ * {@link IdentificationCardNumberValidator}.
+ * 
+ * Instances are immutable and can be shared by several threads.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class FileValidator {
+
+    /**
+     * The default size of the memory mapped windows. No line can be longer than the window.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final byte NEW_LINE = '\n';
+
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private static final byte QUOTE = '"';
+
+    private static final byte PADDING = ' ';
+
+    private static final byte SEPARATOR = ';';
+
+    private static final int INITIAL_FIELD_CAPACITY = 64;
+
+    private static final int SCORES = IdentificationCardNumberValidator.MAXIMUM_SCORE + 1;
+
+    private final DocumentType type;
+
+    private final byte delimiter;
+
+    private final int column;
+
+    private final int fieldOffset;
+
+    private final int fieldLength;
+
+    private final int headerLines;
+
+    private final int windowSize;
+
+    private FileValidator(final DocumentType type, final byte delimiter, final int column, final int fieldOffset, final int fieldLength,
+	    final int headerLines, final int windowSize) {
+	this.type = type;
+	this.delimiter = delimiter;
+	this.column = column;
+	this.fieldOffset = fieldOffset;
+	this.fieldLength = fieldLength;
+	this.headerLines = headerLines;
+	this.windowSize = windowSize;
+    }
+
+    /**
+     * 
+     * @param type
+     *            the type of document of the numbers in the column
+     * @param delimiter
+     *            the ASCII field delimiter, such as ',' or ';'
+     * @param column
+     *            the 0 based index of the column holding the numbers. Quoted fields are supported, as long as they do not contain escaped quotes.
+     * @return a validator for the given column of delimited files
+     */
+    public static FileValidator csv(final DocumentType type, final char delimiter, final int column) {
+	if (type == null) {
+	    throw new IllegalArgumentException("The document type is mandatory");
+	}
+	if (delimiter > Byte.MAX_VALUE || column < 0) {
+	    throw new IllegalArgumentException("The delimiter must be an ASCII char and the column must not be negative");
+	}
+	return new FileValidator(type, (byte) delimiter, column, -1, -1, 0, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * 
+     * @param type
+     *            the type of document of the numbers in the field
+     * @param fieldOffset
+     *            the offset of the number inside each line
+     * @param fieldLength
+     *            the width of the number field, which may be padded with spaces
+     * @return a validator for the given field of fixed width files
+     */
+    public static FileValidator fixedWidth(final DocumentType type, final int fieldOffset, final int fieldLength) {
+	if (type == null) {
+	    throw new IllegalArgumentException("The document type is mandatory");
+	}
+	if (fieldOffset < 0 || fieldLength < 0) {
+	    throw new IllegalArgumentException("The field offset and length must not be negative");
+	}
+	return new FileValidator(type, (byte) 0, -1, fieldOffset, fieldLength, 0, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * 
+     * @param lines
+     *            the number of lines at the beginning of the file that are not records
+     * @return a copy of this validator skipping the given number of header lines
+     */
+    public FileValidator withHeaderLines(final int lines) {
+	if (lines < 0) {
+	    throw new IllegalArgumentException("The number of header lines must not be negative");
+	}
+	return new FileValidator(type, delimiter, column, fieldOffset, fieldLength, lines, windowSize);
+    }
+
+    /**
+     * 
+     * @param size
+     *            the size, in bytes, of the memory mapped windows
+     * @return a copy of this validator mapping the file in windows of the given size
+     */
+    public FileValidator withWindowSize(final int size) {
+	if (size <= 0) {
+	    throw new IllegalArgumentException("The window size must be positive");
+	}
+	return new FileValidator(type, delimiter, column, fieldOffset, fieldLength, headerLines, size);
+    }
+
+    /**
+     * 
+     * @param file
+     *            the file to be validated
+     * @param report
+     *            the stream where the invalid records are written. It is flushed, but not closed.
+     * @return the totals of the validation
+     * @throws IOException
+     *             if the file cannot be read, if a line is longer than the window size or if the report cannot be written
+     */
+    public FileValidationSummary validate(final Path file, final OutputStream report) throws IOException {
+	final Scan scan = new Scan(report);
+	try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+	    final long size = channel.size();
+	    long windowStart = 0;
+	    while (windowStart < size) {
+		final int length = (int) Math.min(windowSize, size - windowStart);
+		final boolean last = windowStart + length == size;
+		final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+		int lineStart = 0;
+		while (lineStart < length) {
+		    int lineEnd = lineStart;
+		    while (lineEnd < length && window.get(lineEnd) != NEW_LINE) {
+			lineEnd++;
+		    }
+		    if (lineEnd == length && !last) {
+			// the line continues in the next window
+			break;
+		    }
+		    scan.line(window, lineStart, lineEnd, windowStart + lineStart);
+		    lineStart = lineEnd + 1;
+		}
+		if (lineStart == 0) {
+		    throw new IOException("The line at offset " + windowStart + " is longer than the window size (" + windowSize + ")");
+		}
+		windowStart += Math.min(lineStart, length);
+	    }
+	}
+	scan.flush();
+	return new FileValidationSummary(scan.records, scan.scoreCounts);
+    }
+
+    /**
+     * The mutable state of one validation: counters, the buffer the fields are copied to and the report writer.
+     */
+    private final class Scan {
+
+	private final OutputStream report;
+
+	private final byte[] reportLine = new byte[3 * 20 + 3];
+
+	private byte[] field = new byte[INITIAL_FIELD_CAPACITY];
+
+	private final long[] scoreCounts = new long[SCORES];
+
+	private long lines;
+
+	private long records;
+
+	Scan(final OutputStream report) {
+	    this.report = new BufferedOutputStream(report);
+	}
+
+	void line(final MappedByteBuffer window, final int start, final int end, final long offset) throws IOException {
+	    lines++;
+	    if (lines <= headerLines) {
+		return;
+	    }
+	    records++;
+	    final int lineEnd = end > start && window.get(end - 1) == CARRIAGE_RETURN ? end - 1 : end;
+	    final int length = column < 0 ? fixedWidthField(window, start, lineEnd) : delimitedField(window, start, lineEnd);
+	    final int score = type.score(field, 0, length);
+	    scoreCounts[score]++;
+	    if (score != IdentificationCardNumberValidator.MAXIMUM_SCORE) {
+		int i = append(lines, 0);
+		reportLine[i++] = SEPARATOR;
+		i = append(offset, i);
+		reportLine[i++] = SEPARATOR;
+		i = append(score, i);
+		reportLine[i++] = NEW_LINE;
+		report.write(reportLine, 0, i);
+	    }
+	}
+
+	private int fixedWidthField(final MappedByteBuffer window, final int lineStart, final int lineEnd) {
+	    final int from = Math.min(lineStart + fieldOffset, lineEnd);
+	    return copy(window, from, Math.min(from + fieldLength, lineEnd));
+	}
+
+	private int delimitedField(final MappedByteBuffer window, final int lineStart, final int lineEnd) {
+	    int from = lineStart;
+	    for (int c = 0; c < column && from < lineEnd; c++) {
+		from = skipField(window, from, lineEnd) + 1;
+	    }
+	    if (from >= lineEnd) {
+		return 0;
+	    }
+	    if (window.get(from) == QUOTE) {
+		int to = from + 1;
+		while (to < lineEnd && window.get(to) != QUOTE) {
+		    to++;
+		}
+		return copy(window, from + 1, to);
+	    }
+	    int to = from;
+	    while (to < lineEnd && window.get(to) != delimiter) {
+		to++;
+	    }
+	    return copy(window, from, to);
+	}
+
+	private int skipField(final MappedByteBuffer window, final int from, final int lineEnd) {
+	    int i = from;
+	    boolean quoted = false;
+	    while (i < lineEnd && (quoted || window.get(i) != delimiter)) {
+		if (window.get(i) == QUOTE) {
+		    quoted = !quoted;
+		}
+		i++;
+	    }
+	    return i;
+	}
+
+	/**
+	 * Copies the bytes in <code>[from, to)</code>, trimmed of spaces, to the field buffer and returns how many were copied.
+	 */
+	private int copy(final MappedByteBuffer window, final int from, final int to) {
+	    int begin = from;
+	    int end = to;
+	    while (begin < end && window.get(begin) == PADDING) {
+		begin++;
+	    }
+	    while (end > begin && window.get(end - 1) == PADDING) {
+		end--;
+	    }
+	    final int length = end - begin;
+	    if (length > field.length) {
+		field = new byte[Math.max(length, 2 * field.length)];
+	    }
+	    for (int i = 0; i < length; i++) {
+		field[i] = window.get(begin + i);
+	    }
+	    return length;
+	}
+
+	private int append(final long value, final int index) {
+	    int digits = 1;
+	    for (long v = value; v >= 10; v /= 10) {
+		digits++;
+	    }
+	    long v = value;
+	    for (int i = index + digits - 1; i >= index; i--) {
+		reportLine[i] = (byte) ('0' + v % 10);
+		v /= 10;
+	    }
+	    return index + digits;
+	}
+
+	void flush() throws IOException {
+	    report.flush();
+	}
+    }
+}
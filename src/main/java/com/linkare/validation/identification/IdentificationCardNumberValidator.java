@@ -1,9 +1,10 @@
 package com.linkare.validation.identification;
 
+import java.nio.ByteBuffer;
 import java.util.Locale;
 
-import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.math.NumberUtils;
+import com.linkare.validation.metrics.ValidationMetrics;
+import com.linkare.validation.metrics.ValidatorKind;
 
 /**
  * 
@@ -12,17 +13,11 @@ import org.apache.commons.lang.math.NumberUtils;
  */
 public final class IdentificationCardNumberValidator {
 
-    private static final int DIVISION_FACTOR = 11;
-
-    private static final char PADDING_CHAR = '0';
-
-    private static final int ID_CARD_NUMBER_LENGTH = 9;
+    private static final int ID_CARD_NUMBER_LENGTH = CheckDigitEngine.PT_NUMBER_LENGTH;
 
     private static final String DEFAULT_LANGUAGE = "pt";
 
-    private static final String DEFAULT_COUNTRY = "PT";
-
-    private static final Locale DEFAULT_ID_CARD_COUNTRY = new Locale(DEFAULT_LANGUAGE, DEFAULT_COUNTRY);
+    private static final Locale DEFAULT_ID_CARD_COUNTRY = new Locale(DEFAULT_LANGUAGE, PortugueseRules.COUNTRY);
 
     private static final String MAXIMUM_SCORE_MESSAGE = "The identification card is valid";
 
@@ -71,26 +66,18 @@ public final class IdentificationCardNumberValidator {
      * @return true if the <code>number</code> is valid in the <code>locale</code> passed in. It returns false otherwise.
      * 
      * @throws UnsupportedOperationException
-     *             when the <code>locale</code> is not PT, since no other countries are supported yet.
+     *             when no {@link CountryRules} are registered for the country of the <code>locale</code>.
      * 
      */
     public static boolean isValid(final Locale locale, final String number) {
-	if (locale != null && DEFAULT_COUNTRY.equals(locale.getCountry())) {
-	    return isValidPtIdCard(number);
-	} else {
-	    throw new UnsupportedOperationException("Not implemented yet");
+	final CountryRules rules = CountryRulesRegistry.get(locale);
+	if (!ValidationMetrics.ENABLED) {
+	    return rules.isValidIdCard(number);
 	}
-    }
-
-    /**
-     * 
-     * @param number
-     *            the number to be checked
-     * 
-     * @return true if the <code>number</code> is a valid identification card number in Portugal.
-     */
-    private static boolean isValidPtIdCard(final String number) {
-	return scorePtIdCard(number) == MAXIMUM_SCORE;
+	final long start = ValidationMetrics.start();
+	final int code = rules.checkIdCard(number);
+	ValidationMetrics.record(ValidatorKind.IDENTIFICATION_CARD, rules.getCountry(), ValidationResult.reason(code), start);
+	return code == ValidationResult.VALID;
     }
 
     /**
@@ -152,111 +139,151 @@ public final class IdentificationCardNumberValidator {
      *         </table>
      * 
      * @throws UnsupportedOperationException
-     *             when the <code>locale</code> is not PT, since no other countries are supported yet.
+     *             when no {@link CountryRules} are registered for the country of the <code>locale</code>.
      */
     public static int scoreIdCard(final Locale locale, final String number) {
-	if (locale != null && DEFAULT_COUNTRY.equals(locale.getCountry())) {
-	    return scorePtIdCard(number);
-	} else {
-	    throw new UnsupportedOperationException("Not implemented yet");
-	}
-    }
-
-    private static int scorePtIdCard(final String number) {
-	int scoreBlank = scoreBlank(number);
-	int scoreDigits = scoreBlank == 1 ? scoreDigits(number) : 0;
-	final String paddedNumber = StringUtils.leftPad(number, ID_CARD_NUMBER_LENGTH, PADDING_CHAR);
-	int scoreLength = scoreDigits == 1 ? scoreLength(paddedNumber) : 0;
-	int scoreCheckDigit = scoreLength == 1 ? scoreCheckDigit(paddedNumber) : 0;
-	return scoreBlank + scoreDigits + scoreLength + scoreCheckDigit;
-    }
-
-    public static boolean isSuccess(final int score) {
-	return score == MAXIMUM_SCORE;
+	final CountryRules rules = CountryRulesRegistry.get(locale);
+	final long start = ValidationMetrics.start();
+	final int score = rules.scoreIdCard(number);
+	ValidationMetrics.record(ValidatorKind.IDENTIFICATION_CARD, rules.getCountry(), ValidationResult.reason(ValidationResult.fromScore(score)), start);
+	return score;
     }
 
-    public static boolean isError(final int score) {
-	return score == MINIMUM_SCORE;
+    /**
+     * 
+     * @param number
+     *            the identification card number to be checked
+     * @return the {@link ValidationResult} code of the <code>number</code> for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT), which tells why it is not
+     *         valid without throwing an exception.
+     * 
+     * @see CheckDigitEngine#checkIdCard(CharSequence)
+     */
+    public static int check(final String number) {
+	final long start = ValidationMetrics.start();
+	final int code = CheckDigitEngine.checkIdCard(number);
+	ValidationMetrics.record(ValidatorKind.IDENTIFICATION_CARD, PortugueseRules.COUNTRY, ValidationResult.reason(code), start);
+	return code;
     }
 
-    public static boolean isWarning(final int score) {
-	return !isSuccess(score) && !isError(score);
+    /**
+     * 
+     * @param number
+     *            the identification card number to be checked
+     * @param result
+     *            the holder to be filled with the outcome of the validation
+     * @return true if the <code>number</code> is valid for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT). It returns false otherwise.
+     */
+    public static boolean check(final String number, final ValidationResult result) {
+	return result.set(check(number)).isValid();
     }
 
-    public static String getMessage(final int score) {
-	switch (score) {
-	case MAXIMUM_SCORE:
-	    return MAXIMUM_SCORE_MESSAGE;
-	case LEVEL1_SCORE:
-	    return LEVEL1_SCORE_MESSAGE;
-	case LEVEL2_SCORE:
-	    return LEVEL2_SCORE_MESSAGE;
-	case LEVEL3_SCORE:
-	    return LEVEL3_SCORE_MESSAGE;
-	case MINIMUM_SCORE:
-	    return MINIMUM_SCORE_MESSAGE;
-	default:
-	    throw new UnsupportedOperationException("Not supported for score " + score);
-	}
+    /**
+     * 
+     * @param number
+     *            the ASCII bytes holding the identification card number to be validated
+     * @param offset
+     *            the index of the first byte of the identification card number
+     * @param length
+     *            the number of bytes of the identification card number
+     * @return true if the bytes are a valid identification card number for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT). It returns false otherwise.
+     */
+    public static boolean isValid(final byte[] number, final int offset, final int length) {
+	return scoreIdCard(number, offset, length) == MAXIMUM_SCORE;
     }
 
     /**
      * 
      * @param number
-     *            the number to be checked for blanking.
-     * 
-     * @return 1 if the <code>number</code> is not blank. It returns 0 otherwise.
+     *            the buffer holding the ASCII bytes of the identification card number to be validated, in place. Its position and limit are not changed.
+     * @param index
+     *            the absolute index of the first byte of the identification card number
+     * @param length
+     *            the number of bytes of the identification card number
+     * @return true if the bytes are a valid identification card number for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT). It returns false otherwise.
      */
-    private static int scoreBlank(final String number) {
-	return StringUtils.isBlank(number) ? 0 : 1;
+    public static boolean isValid(final ByteBuffer number, final int index, final int length) {
+	return scoreIdCard(number, index, length) == MAXIMUM_SCORE;
     }
 
     /**
      * 
      * @param number
-     *            the number to be checked for digits.
-     * 
-     * @return 1 if the <code>number</code> has only digits. It returns 0 otherwise.
+     *            the ASCII bytes holding the identification card number to be scored
+     * @param offset
+     *            the index of the first byte of the identification card number
+     * @param length
+     *            the number of bytes of the identification card number
+     * @return the score of the bytes for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT), as defined by
+     *         {@link IdentificationCardNumberValidator#scoreIdCard(Locale, String)}.
      */
-    private static int scoreDigits(final String number) {
-	return NumberUtils.isDigits(number) ? 1 : 0;
+    public static int scoreIdCard(final byte[] number, final int offset, final int length) {
+	final long start = ValidationMetrics.start();
+	final int score = CheckDigitEngine.scoreIdCard(number, offset, length);
+	ValidationMetrics.record(ValidatorKind.IDENTIFICATION_CARD, PortugueseRules.COUNTRY, ValidationResult.reason(ValidationResult.fromScore(score)), start);
+	return score;
     }
 
     /**
      * 
      * @param number
-     *            the number to be checked for length.
-     * 
-     * @return 1 if the <code>number</code> has the length <code>ID_CARD_NUMBER_LENGTH</code>. It returns 0 otherwise.
+     *            the buffer holding the ASCII bytes of the identification card number to be scored, in place. Its position and limit are not changed.
+     * @param index
+     *            the absolute index of the first byte of the identification card number
+     * @param length
+     *            the number of bytes of the identification card number
+     * @return the score of the bytes for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT), as defined by
+     *         {@link IdentificationCardNumberValidator#scoreIdCard(Locale, String)}.
      */
-    private static int scoreLength(final String number) {
-	return number.length() == ID_CARD_NUMBER_LENGTH ? 1 : 0;
+    public static int scoreIdCard(final ByteBuffer number, final int index, final int length) {
+	final long start = ValidationMetrics.start();
+	final int score = CheckDigitEngine.scoreIdCard(number, index, length);
+	ValidationMetrics.record(ValidatorKind.IDENTIFICATION_CARD, PortugueseRules.COUNTRY, ValidationResult.reason(ValidationResult.fromScore(score)), start);
+	return score;
     }
 
     /**
      * 
      * @param number
-     *            the number to be checked for check digit.
-     * 
-     * @return 1 if the <code>number</code>'s check digit is ok. It returns 0 otherwise.
+     *            the ASCII bytes holding the identification card number to be checked
+     * @param offset
+     *            the index of the first byte of the identification card number
+     * @param length
+     *            the number of bytes of the identification card number
+     * @return the {@link ValidationResult} code of the bytes for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT).
      */
-    private static int scoreCheckDigit(final String number) {
-	final String numberWithoutCheckDigit = number.substring(0, number.length() - 1);
-	final int scoreDigit = Integer.valueOf(String.valueOf(number.charAt(number.length() - 1)));
-	return scoreDigit == calculateCheckDigit(numberWithoutCheckDigit) ? 1 : 0;
+    public static int check(final byte[] number, final int offset, final int length) {
+	final long start = ValidationMetrics.start();
+	final int code = CheckDigitEngine.checkIdCard(number, offset, length);
+	ValidationMetrics.record(ValidatorKind.IDENTIFICATION_CARD, PortugueseRules.COUNTRY, ValidationResult.reason(code), start);
+	return code;
+    }
+
+    public static boolean isSuccess(final int score) {
+	return score == MAXIMUM_SCORE;
+    }
+
+    public static boolean isError(final int score) {
+	return score == MINIMUM_SCORE;
+    }
+
+    public static boolean isWarning(final int score) {
+	return !isSuccess(score) && !isError(score);
     }
 
-    private static int calculateCheckDigit(final String number) {
-	final char[] numbers = number.toCharArray();
-	int result = 0;
-	int multiplier = 2;
-	for (int i = (numbers.length - 1); i >= 0; i--) {
-	    int n = Integer.valueOf(String.valueOf(numbers[i]));
-	    result += (n * multiplier++);
+    public static String getMessage(final int score) {
+	switch (score) {
+	case MAXIMUM_SCORE:
+	    return MAXIMUM_SCORE_MESSAGE;
+	case LEVEL1_SCORE:
+	    return LEVEL1_SCORE_MESSAGE;
+	case LEVEL2_SCORE:
+	    return LEVEL2_SCORE_MESSAGE;
+	case LEVEL3_SCORE:
+	    return LEVEL3_SCORE_MESSAGE;
+	case MINIMUM_SCORE:
+	    return MINIMUM_SCORE_MESSAGE;
+	default:
+	    throw new UnsupportedOperationException("Not supported for score " + score);
 	}
-	int divisionByEleven = (int) Math.ceil((double) result / DIVISION_FACTOR);
-	int multiplication = divisionByEleven * DIVISION_FACTOR;
-	int finalResult = multiplication - result;
-	return finalResult > 9 ? 0 : finalResult;
     }
 }
\ No newline at end of file
@@ -0,0 +1,598 @@
+package com.linkare.validation.identification;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * 
+ * An immutable set of tax (NIF) or identification card (BI) numbers, such as a blocklist of fraudulent numbers or an allowlist of registered ones, held
+ * off the heap. Every such number of up to 9 digits is an <code>int</code> below 10^9, so the set is a compressed bitmap in the manner of Roaring bitmaps:
+ * the numbers are grouped by their 16 high bits into chunks, and each chunk keeps its 16 low bits either as a sorted array of <code>char</code>s, while it
+ * holds up to <code>ARRAY_LIMIT</code> numbers, or as a bitmap of 8 KiB. A chunk never takes more than 8 KiB, and a sparse one takes 2 bytes per number,
+ * instead of the tens of bytes of a <code>String</code> in a <code>HashSet</code>.
+ * 
+ * The set can be fronted by a blocked Bloom filter, where all the bits of a number lie in a single <code>long</code>, so that most of the absent numbers are
+ * rejected with one memory access, without touching the chunks. It is worth having when the set is much larger than the processor caches and most of the
+ * checked numbers are not in it.
+ * 
+ * The set is built from the numbers or from a text file, and kept in a direct <code>ByteBuffer</code> laid out exactly as the file written by
+ * {@link #write(Path)}. Such a file can be memory mapped at startup with {@link #map(Path)}, so the set is neither parsed nor copied to the heap and its
+ * pages are shared by the processes mapping it. No method checking numbers allocates, and instances can be shared by several threads.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class IdentifierSet {
+
+    /**
+     * The largest number the set can hold, the one of 9 digits.
+     */
+    public static final int MAXIMUM_VALUE = 999999999;
+
+    /**
+     * The maximum number of numbers of a chunk kept in a sorted array. Above it, the bitmap of the chunk takes less space.
+     */
+    public static final int ARRAY_LIMIT = 4096;
+
+    /**
+     * The bits per number to be given to the builders so that the set has no Bloom filter.
+     */
+    public static final int NO_BLOOM_FILTER = 0;
+
+    /**
+     * The maximum bits per number of the Bloom filter.
+     */
+    public static final int MAXIMUM_BLOOM_BITS = 32;
+
+    private static final int MAGIC = 0x4C4B4953;
+
+    private static final int VERSION = 1;
+
+    private static final int CHUNK_BITS = 16;
+
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    private static final int CHUNKS = (MAXIMUM_VALUE >>> CHUNK_BITS) + 1;
+
+    private static final int BITMAP_WORDS = (1 << CHUNK_BITS) / Long.SIZE;
+
+    private static final int BITMAP_BYTES = BITMAP_WORDS * Long.BYTES;
+
+    private static final int MAXIMUM_BLOOM_WORDS = 1 << 24;
+
+    private static final int MAXIMUM_BLOOM_HASHES = 10;
+
+    private static final int BLOOM_SELECTOR_BITS = 6;
+
+    private static final int SIZE_OFFSET = 8;
+
+    private static final int BLOOM_WORDS_OFFSET = 12;
+
+    private static final int BLOOM_HASHES_OFFSET = 16;
+
+    private static final int CHUNKS_OFFSET = 20;
+
+    /**
+     * The directory holds, for each chunk, the offset of its container, or 0 when it is empty, and the number of numbers in it.
+     */
+    private static final int DIRECTORY_OFFSET = 24;
+
+    private static final int DIRECTORY_ENTRY_BYTES = 8;
+
+    private static final int BLOOM_OFFSET = DIRECTORY_OFFSET + CHUNKS * DIRECTORY_ENTRY_BYTES;
+
+    private final ByteBuffer buffer;
+
+    private final int size;
+
+    private final int bloomMask;
+
+    private final int bloomHashes;
+
+    private IdentifierSet(final ByteBuffer buffer) {
+	this.buffer = buffer;
+	this.size = buffer.getInt(SIZE_OFFSET);
+	final int bloomWords = buffer.getInt(BLOOM_WORDS_OFFSET);
+	this.bloomMask = bloomWords - 1;
+	this.bloomHashes = buffer.getInt(BLOOM_HASHES_OFFSET);
+    }
+
+    /**
+     * 
+     * @param numbers
+     *            the numbers of the set, between 0 and <code>MAXIMUM_VALUE</code>. Repeated numbers are kept once.
+     * @return a set of the given numbers, without a Bloom filter
+     * 
+     * @throws IllegalArgumentException
+     *             if a number is out of range.
+     */
+    public static IdentifierSet of(final int... numbers) {
+	return of(IntStream.of(numbers), NO_BLOOM_FILTER);
+    }
+
+    /**
+     * 
+     * @param numbers
+     *            the numbers of the set, between 0 and <code>MAXIMUM_VALUE</code>, such as the ones generated by {@link NumberGenerator}. Repeated numbers
+     *            are kept once.
+     * @param bloomBits
+     *            the bits per number of the Bloom filter in front of the set, or <code>NO_BLOOM_FILTER</code>. About 10 bits reject over 98% of the absent
+     *            numbers.
+     * @return a set of the given numbers
+     * 
+     * @throws IllegalArgumentException
+     *             if a number is out of range or if <code>bloomBits</code> is negative or above <code>MAXIMUM_BLOOM_BITS</code>.
+     */
+    public static IdentifierSet of(final IntStream numbers, final int bloomBits) {
+	final Chunks chunks = new Chunks(bloomBits);
+	numbers.forEachOrdered(chunks::add);
+	return new IdentifierSet(chunks.toBuffer());
+    }
+
+    /**
+     * 
+     * Builds a set from a text file holding one number of up to 9 digits per line, such as an export of a database table. Blank lines, spaces around the
+     * numbers and <code>\r\n</code> line endings are accepted.
+     * 
+     * @param file
+     *            the text file with the numbers
+     * @param bloomBits
+     *            the bits per number of the Bloom filter in front of the set, or <code>NO_BLOOM_FILTER</code>
+     * @return a set of the numbers in the file
+     * @throws IOException
+     *             if the file cannot be read or a line does not hold a number
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>bloomBits</code> is negative or above <code>MAXIMUM_BLOOM_BITS</code>.
+     */
+    public static IdentifierSet build(final Path file, final int bloomBits) throws IOException {
+	final Chunks chunks = new Chunks(bloomBits);
+	try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+	    long line = 1;
+	    int value = 0;
+	    int digits = 0;
+	    boolean trailingSpaces = false;
+	    for (int b = in.read();; b = in.read()) {
+		if (b == -1 || b == '\n') {
+		    if (digits > 0) {
+			chunks.add(value);
+		    }
+		    if (b == -1) {
+			break;
+		    }
+		    line++;
+		    value = 0;
+		    digits = 0;
+		    trailingSpaces = false;
+		} else if (b >= '0' && b <= '9' && !trailingSpaces && digits < CheckDigitEngine.PT_NUMBER_LENGTH) {
+		    value = value * 10 + b - '0';
+		    digits++;
+		} else if (b == ' ' || b == '\r') {
+		    trailingSpaces = digits > 0;
+		} else {
+		    throw new IOException("The line " + line + " of " + file + " does not hold a number of up to 9 digits");
+		}
+	    }
+	}
+	return new IdentifierSet(chunks.toBuffer());
+    }
+
+    /**
+     * 
+     * Maps a file written by {@link #write(Path)} into memory, read only. The set is backed by the file and is unmapped when it is garbage collected.
+     * 
+     * @param file
+     *            the file holding the set
+     * @return the set held by the file
+     * @throws IOException
+     *             if the file cannot be mapped or does not hold a set
+     */
+    public static IdentifierSet map(final Path file) throws IOException {
+	try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+	    final long length = channel.size();
+	    if (length < BLOOM_OFFSET || length > Integer.MAX_VALUE) {
+		throw new IOException(file + " does not hold an identifier set");
+	    }
+	    final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+	    if (!isWellFormed(buffer)) {
+		throw new IOException(file + " does not hold an identifier set");
+	    }
+	    return new IdentifierSet(buffer);
+	}
+    }
+
+    /**
+     * 
+     * @param file
+     *            the file where the set is written, replacing it if it exists, so that it can be mapped with {@link #map(Path)}
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public void write(final Path file) throws IOException {
+	try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+	    final ByteBuffer content = buffer.duplicate();
+	    content.clear();
+	    while (content.hasRemaining()) {
+		channel.write(content);
+	    }
+	}
+    }
+
+    /**
+     * 
+     * @param number
+     *            the number to be looked up
+     * @return true if the <code>number</code> is in the set. It returns false otherwise.
+     */
+    public boolean contains(final int number) {
+	if (number < 0 || number > MAXIMUM_VALUE || (bloomHashes != 0 && !mightContain(number))) {
+	    return false;
+	}
+	final int entry = DIRECTORY_OFFSET + (number >>> CHUNK_BITS) * DIRECTORY_ENTRY_BYTES;
+	final int container = buffer.getInt(entry);
+	if (container == 0) {
+	    return false;
+	}
+	final int cardinality = buffer.getInt(entry + 4);
+	final int low = number & CHUNK_MASK;
+	if (cardinality > ARRAY_LIMIT) {
+	    return (buffer.getLong(container + (low >>> 6) * Long.BYTES) & 1L << low) != 0;
+	}
+	int from = 0;
+	int to = cardinality - 1;
+	while (from <= to) {
+	    final int middle = (from + to) >>> 1;
+	    final int value = buffer.getChar(container + middle * Character.BYTES);
+	    if (value < low) {
+		from = middle + 1;
+	    } else if (value > low) {
+		to = middle - 1;
+	    } else {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * 
+     * @param number
+     *            the number to be looked up
+     * @return true if the <code>number</code> is made of up to 9 digits and is in the set. It returns false otherwise.
+     */
+    public boolean contains(final CharSequence number) {
+	return number != null && contains(number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @param number
+     *            the sequence holding the number to be looked up
+     * @param offset
+     *            the index of the first char of the number
+     * @param length
+     *            the number of chars of the number
+     * @return true if the chars in the given range are up to 9 digits of a number in the set, in any script accepted by the validators. It returns false
+     *         otherwise.
+     */
+    public boolean contains(final CharSequence number, final int offset, final int length) {
+	if (length <= 0 || length > CheckDigitEngine.PT_NUMBER_LENGTH) {
+	    return false;
+	}
+	int value = 0;
+	for (int i = offset; i < offset + length; i++) {
+	    // the digits are read as the validators read them, so a number they accept is never missed by the lookup
+	    final int n = CheckDigitEngine.digit(number.charAt(i));
+	    if (n < 0) {
+		return false;
+	    }
+	    value = value * 10 + n;
+	}
+	return contains(value);
+    }
+
+    /**
+     * 
+     * @param number
+     *            the ASCII bytes holding the number to be looked up
+     * @param offset
+     *            the index of the first byte of the number
+     * @param length
+     *            the number of bytes of the number
+     * @return true if the bytes in the given range are up to 9 digits of a number in the set. It returns false otherwise.
+     */
+    public boolean contains(final byte[] number, final int offset, final int length) {
+	if (length <= 0 || length > CheckDigitEngine.PT_NUMBER_LENGTH) {
+	    return false;
+	}
+	int value = 0;
+	for (int i = offset; i < offset + length; i++) {
+	    final int n = number[i] - '0';
+	    if (n < 0 || n > 9) {
+		return false;
+	    }
+	    value = value * 10 + n;
+	}
+	return contains(value);
+    }
+
+    /**
+     * 
+     * Tells if a number is valid and is not in the set, as it is required of the numbers checked against a blocklist.
+     * 
+     * @param type
+     *            the type of document of the number, either <code>TAX_NUMBER</code> or <code>IDENTIFICATION_CARD</code>
+     * @param number
+     *            the number to be checked
+     * @return true if the <code>number</code> is valid, as told by {@link DocumentType#isValid(CharSequence)}, and is not in the set. It returns false
+     *         otherwise.
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>type</code> is not supported.
+     */
+    public boolean isValidAndAbsent(final DocumentType type, final CharSequence number) {
+	return number != null && isValidAndAbsent(type, number, 0, number.length());
+    }
+
+    /**
+     * 
+     * @param type
+     *            the type of document of the number, either <code>TAX_NUMBER</code> or <code>IDENTIFICATION_CARD</code>
+     * @param number
+     *            the sequence holding the number to be checked
+     * @param offset
+     *            the index of the first char of the number
+     * @param length
+     *            the number of chars of the number
+     * @return true if the chars in the given range are a valid number which is not in the set. It returns false otherwise.
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>type</code> is not supported.
+     */
+    public boolean isValidAndAbsent(final DocumentType type, final CharSequence number, final int offset, final int length) {
+	checkType(type);
+	return type.isValid(number, offset, length) && !contains(number, offset, length);
+    }
+
+    /**
+     * 
+     * @param type
+     *            the type of document of the number, either <code>TAX_NUMBER</code> or <code>IDENTIFICATION_CARD</code>
+     * @param number
+     *            the ASCII bytes holding the number to be checked
+     * @param offset
+     *            the index of the first byte of the number
+     * @param length
+     *            the number of bytes of the number
+     * @return true if the bytes in the given range are a valid number which is not in the set. It returns false otherwise.
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>type</code> is not supported.
+     */
+    public boolean isValidAndAbsent(final DocumentType type, final byte[] number, final int offset, final int length) {
+	checkType(type);
+	return type.isValid(number, offset, length) && !contains(number, offset, length);
+    }
+
+    /**
+     * 
+     * @return the number of numbers in the set
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * 
+     * @return true if the set is fronted by a Bloom filter. It returns false otherwise.
+     */
+    public boolean hasBloomFilter() {
+	return bloomHashes != 0;
+    }
+
+    /**
+     * 
+     * @return the number of bytes taken by the set, which is the size of the file written by {@link #write(Path)}
+     */
+    public int getByteSize() {
+	return buffer.capacity();
+    }
+
+    private static void checkType(final DocumentType type) {
+	if (type != DocumentType.TAX_NUMBER && type != DocumentType.IDENTIFICATION_CARD) {
+	    throw new IllegalArgumentException("Only tax and identification card numbers can be held in an identifier set");
+	}
+    }
+
+    private boolean mightContain(final int number) {
+	final long hash = mix(number);
+	final long word = buffer.getLong(BLOOM_OFFSET + ((int) hash & bloomMask) * Long.BYTES);
+	final long bits = bloomBits(mix(hash), bloomHashes);
+	return (word & bits) == bits;
+    }
+
+    /**
+     * 
+     * @return the bits of the Bloom filter word that are set for a number, chosen by the successive 6 bit selectors of its second hash
+     */
+    private static long bloomBits(final long selectors, final int hashes) {
+	long bits = 0;
+	for (int i = 0; i < hashes; i++) {
+	    bits |= 1L << (selectors >>> i * BLOOM_SELECTOR_BITS);
+	}
+	return bits;
+    }
+
+    /**
+     * The finalizer of the 64 bit MurmurHash3, so that close numbers fall in unrelated words and bits.
+     */
+    private static long mix(final long value) {
+	long hash = value;
+	hash ^= hash >>> 33;
+	hash *= 0xFF51AFD7ED558CCDL;
+	hash ^= hash >>> 33;
+	hash *= 0xC4CEB9FE1A85EC53L;
+	hash ^= hash >>> 33;
+	return hash;
+    }
+
+    private static boolean isWellFormed(final ByteBuffer buffer) {
+	final int length = buffer.capacity();
+	if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(CHUNKS_OFFSET) != CHUNKS) {
+	    return false;
+	}
+	final int bloomWords = buffer.getInt(BLOOM_WORDS_OFFSET);
+	final int bloomHashes = buffer.getInt(BLOOM_HASHES_OFFSET);
+	if (bloomWords < 0 || bloomWords > MAXIMUM_BLOOM_WORDS || Integer.bitCount(bloomWords) > 1 || bloomHashes < 0 || bloomHashes > MAXIMUM_BLOOM_HASHES
+	    || (bloomWords == 0) != (bloomHashes == 0)) {
+	    return false;
+	}
+	final long containers = BLOOM_OFFSET + (long) bloomWords * Long.BYTES;
+	long size = 0;
+	for (int chunk = 0; chunk < CHUNKS; chunk++) {
+	    final int entry = DIRECTORY_OFFSET + chunk * DIRECTORY_ENTRY_BYTES;
+	    final int container = buffer.getInt(entry);
+	    final int cardinality = buffer.getInt(entry + 4);
+	    final int bytes = cardinality > ARRAY_LIMIT ? BITMAP_BYTES : cardinality * Character.BYTES;
+	    if (container == 0 ? cardinality != 0 : cardinality <= 0 || cardinality > 1 << CHUNK_BITS || container < containers || container > length - bytes) {
+		return false;
+	    }
+	    size += cardinality;
+	}
+	return size == buffer.getInt(SIZE_OFFSET);
+    }
+
+    /**
+     * The numbers of a set being built, kept as one bitmap per chunk, so that repeated numbers are dropped and they come out sorted.
+     */
+    private static final class Chunks {
+
+	private final long[][] bitmaps = new long[CHUNKS][];
+
+	private final int[] cardinalities = new int[CHUNKS];
+
+	private final int bloomBits;
+
+	private int size;
+
+	Chunks(final int bloomBits) {
+	    if (bloomBits < 0 || bloomBits > MAXIMUM_BLOOM_BITS) {
+		throw new IllegalArgumentException("The bits per number of the Bloom filter must be between 0 and " + MAXIMUM_BLOOM_BITS);
+	    }
+	    this.bloomBits = bloomBits;
+	}
+
+	void add(final int number) {
+	    if (number < 0 || number > MAXIMUM_VALUE) {
+		throw new IllegalArgumentException("The number " + number + " is not between 0 and " + MAXIMUM_VALUE);
+	    }
+	    final int chunk = number >>> CHUNK_BITS;
+	    long[] bitmap = bitmaps[chunk];
+	    if (bitmap == null) {
+		bitmap = bitmaps[chunk] = new long[BITMAP_WORDS];
+	    }
+	    final int low = number & CHUNK_MASK;
+	    final long bit = 1L << low;
+	    if ((bitmap[low >>> 6] & bit) == 0) {
+		bitmap[low >>> 6] |= bit;
+		cardinalities[chunk]++;
+		size++;
+	    }
+	}
+
+	ByteBuffer toBuffer() {
+	    int bloomWords = 0;
+	    int bloomHashes = 0;
+	    if (bloomBits != NO_BLOOM_FILTER && size > 0) {
+		final long words = ((long) size * bloomBits + Long.SIZE - 1) / Long.SIZE;
+		bloomWords = (int) Math.min(MAXIMUM_BLOOM_WORDS, Long.highestOneBit(words * 2 - 1));
+		// the optimal number of hashes is ln 2 times the bits per number
+		bloomHashes = Math.max(1, Math.min(MAXIMUM_BLOOM_HASHES, (int) Math.round(bloomBits * Math.log(2))));
+	    }
+	    long length = BLOOM_OFFSET + (long) bloomWords * Long.BYTES;
+	    for (int chunk = 0; chunk < CHUNKS; chunk++) {
+		final int cardinality = cardinalities[chunk];
+		length += cardinality > ARRAY_LIMIT ? BITMAP_BYTES : cardinality * Character.BYTES;
+	    }
+	    if (length > Integer.MAX_VALUE) {
+		throw new IllegalStateException("The set does not fit in 2 GiB");
+	    }
+	    // a direct buffer keeps a large set out of the collected heap, as a mapped one, and is written to a file without being copied first
+	    final ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+	    buffer.putInt(0, MAGIC);
+	    buffer.putInt(4, VERSION);
+	    buffer.putInt(SIZE_OFFSET, size);
+	    buffer.putInt(BLOOM_WORDS_OFFSET, bloomWords);
+	    buffer.putInt(BLOOM_HASHES_OFFSET, bloomHashes);
+	    buffer.putInt(CHUNKS_OFFSET, CHUNKS);
+	    // the bitmaps are written first, right after the Bloom filter, so that their words are aligned
+	    int position = BLOOM_OFFSET + bloomWords * Long.BYTES;
+	    for (int chunk = 0; chunk < CHUNKS; chunk++) {
+		if (cardinalities[chunk] > ARRAY_LIMIT) {
+		    position = putBitmap(buffer, chunk, position);
+		}
+	    }
+	    for (int chunk = 0; chunk < CHUNKS; chunk++) {
+		if (cardinalities[chunk] > 0 && cardinalities[chunk] <= ARRAY_LIMIT) {
+		    position = putArray(buffer, chunk, position);
+		}
+	    }
+	    if (bloomWords > 0) {
+		putBloomFilter(buffer, bloomWords - 1, bloomHashes);
+	    }
+	    return buffer;
+	}
+
+	private int putBitmap(final ByteBuffer buffer, final int chunk, final int position) {
+	    putEntry(buffer, chunk, position);
+	    final long[] bitmap = bitmaps[chunk];
+	    for (int i = 0; i < BITMAP_WORDS; i++) {
+		buffer.putLong(position + i * Long.BYTES, bitmap[i]);
+	    }
+	    return position + BITMAP_BYTES;
+	}
+
+	private int putArray(final ByteBuffer buffer, final int chunk, final int position) {
+	    putEntry(buffer, chunk, position);
+	    final long[] bitmap = bitmaps[chunk];
+	    int next = position;
+	    for (int i = 0; i < BITMAP_WORDS; i++) {
+		for (long word = bitmap[i]; word != 0; word &= word - 1) {
+		    buffer.putChar(next, (char) (i * Long.SIZE + Long.numberOfTrailingZeros(word)));
+		    next += Character.BYTES;
+		}
+	    }
+	    return next;
+	}
+
+	private void putEntry(final ByteBuffer buffer, final int chunk, final int position) {
+	    final int entry = DIRECTORY_OFFSET + chunk * DIRECTORY_ENTRY_BYTES;
+	    buffer.putInt(entry, position);
+	    buffer.putInt(entry + 4, cardinalities[chunk]);
+	}
+
+	private void putBloomFilter(final ByteBuffer buffer, final int bloomMask, final int bloomHashes) {
+	    for (int chunk = 0; chunk < CHUNKS; chunk++) {
+		final long[] bitmap = bitmaps[chunk];
+		if (bitmap == null) {
+		    continue;
+		}
+		for (int i = 0; i < BITMAP_WORDS; i++) {
+		    for (long word = bitmap[i]; word != 0; word &= word - 1) {
+			final int number = chunk << CHUNK_BITS | i * Long.SIZE + Long.numberOfTrailingZeros(word);
+			final long hash = mix(number);
+			final int index = BLOOM_OFFSET + ((int) hash & bloomMask) * Long.BYTES;
+			buffer.putLong(index, buffer.getLong(index) | bloomBits(mix(hash), bloomHashes));
+		    }
+		}
+	    }
+	}
+    }
+}
@@ -0,0 +1,279 @@
+package com.linkare.validation.identification;
+
+import java.util.Arrays;
+
+/**
+ * 
+ * The state of a number being typed into an input field, which is updated one char at a time. Each {@link IncrementalValidator#append(char)} and
+ * {@link IncrementalValidator#deleteLast()} updates the running sums in constant time, so the outcome of the validation of the current text is
+ * available after each keystroke without going through the whole number again:
+ * 
+ * <pre>
+ * final IncrementalValidator nif = new IncrementalValidator(DocumentType.TAX_NUMBER);
+ * nif.append('2').append('1');
+ * if (!nif.canBecomeValid()) {
+ *     warn(nif.check());
+ * }
+ * </pre>
+ * 
+ * The outcomes are the same as the ones of {@link DocumentType#isValid(CharSequence)}, {@link DocumentType#check(CharSequence)} and of the scores of
+ * the validators for the text typed so far. Instances are not thread safe and are meant to be owned by a single input field.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class IncrementalValidator {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final DocumentType type;
+
+    private final int maximumLength;
+
+    private char[] chars = new char[INITIAL_CAPACITY];
+
+    private int length;
+
+    private int blanks;
+
+    private int firstInvalid = -1;
+
+    /**
+     * The sum of the digits, for the mod 11 numbers.
+     */
+    private int digitSum;
+
+    /**
+     * The sum of the digits multiplied by their index, for the mod 11 numbers. Together with <code>digitSum</code> it gives the weighted sum of the
+     * number, whose weights grow from the right, for any length.
+     */
+    private int indexSum;
+
+    /**
+     * The control sum of the citizen card number, with the doubled values of the chars at even positions.
+     */
+    private int citizenCardSum;
+
+    /**
+     * 
+     * @param type
+     *            the type of the document whose number is going to be typed
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>type</code> is null.
+     */
+    public IncrementalValidator(final DocumentType type) {
+	if (type == null) {
+	    throw new IllegalArgumentException("The document type is mandatory");
+	}
+	this.type = type;
+	this.maximumLength = type == DocumentType.CITIZEN_CARD ? CheckDigitEngine.CITIZEN_CARD_LENGTH : CheckDigitEngine.PT_NUMBER_LENGTH;
+    }
+
+    /**
+     * 
+     * @return the type of the document whose number is being typed.
+     */
+    public DocumentType getType() {
+	return type;
+    }
+
+    /**
+     * 
+     * @param c
+     *            the char typed at the end of the number
+     * @return this validator, with the updated state.
+     */
+    public IncrementalValidator append(final char c) {
+	if (length == chars.length) {
+	    chars = Arrays.copyOf(chars, length * 2);
+	}
+	final int value = value(c);
+	if (value < 0) {
+	    if (firstInvalid < 0) {
+		firstInvalid = length;
+	    }
+	    if (Character.isWhitespace(c)) {
+		blanks++;
+	    }
+	} else if (type == DocumentType.CITIZEN_CARD) {
+	    citizenCardSum += (length & 1) == 0 ? CheckDigitEngine.doubled(value) : value;
+	} else {
+	    // the sums wrap around on very long texts, but they are restored exactly when the text is deleted back to a checkable length
+	    digitSum += value;
+	    indexSum += value * length;
+	}
+	chars[length++] = c;
+	return this;
+    }
+
+    /**
+     * 
+     * @param text
+     *            the chars typed or pasted at the end of the number
+     * @return this validator, with the updated state.
+     */
+    public IncrementalValidator append(final CharSequence text) {
+	for (int i = 0; i < text.length(); i++) {
+	    append(text.charAt(i));
+	}
+	return this;
+    }
+
+    /**
+     * 
+     * Removes the last char of the number, as the backspace key does. It does nothing if the number is empty.
+     * 
+     * @return this validator, with the updated state.
+     */
+    public IncrementalValidator deleteLast() {
+	if (length == 0) {
+	    return this;
+	}
+	final char c = chars[--length];
+	final int value = value(c);
+	if (value < 0) {
+	    // the deleted char was the last one, so no invalid char remains before it when it was the first
+	    if (firstInvalid == length) {
+		firstInvalid = -1;
+	    }
+	    if (Character.isWhitespace(c)) {
+		blanks--;
+	    }
+	} else if (type == DocumentType.CITIZEN_CARD) {
+	    citizenCardSum -= (length & 1) == 0 ? CheckDigitEngine.doubled(value) : value;
+	} else {
+	    digitSum -= value;
+	    indexSum -= value * length;
+	}
+	return this;
+    }
+
+    /**
+     * 
+     * Removes all the chars of the number, keeping the allocated buffer.
+     * 
+     * @return this validator, empty.
+     */
+    public IncrementalValidator clear() {
+	length = 0;
+	blanks = 0;
+	firstInvalid = -1;
+	digitSum = 0;
+	indexSum = 0;
+	citizenCardSum = 0;
+	return this;
+    }
+
+    /**
+     * 
+     * @return the number of chars typed so far.
+     */
+    public int length() {
+	return length;
+    }
+
+    /**
+     * 
+     * @return true if the number typed so far is valid. It returns false otherwise.
+     */
+    public boolean isValid() {
+	if (firstInvalid >= 0) {
+	    return false;
+	}
+	switch (type) {
+	case TAX_NUMBER:
+	    return length == CheckDigitEngine.PT_NUMBER_LENGTH && CheckDigitEngine.isTaxNumberPrefix(chars[0]) && isCheckDigitValid();
+	case IDENTIFICATION_CARD:
+	    return length > 0 && length <= CheckDigitEngine.PT_NUMBER_LENGTH && isCheckDigitValid();
+	default:
+	    return length == CheckDigitEngine.CITIZEN_CARD_LENGTH && citizenCardSum % 10 == 0;
+	}
+    }
+
+    /**
+     * 
+     * @return true if the number typed so far is valid or if more chars can be appended to make it valid. It returns false if some chars have to be deleted
+     *         for the number to become valid.
+     */
+    public boolean canBecomeValid() {
+	if (firstInvalid >= 0 || length > maximumLength) {
+	    return false;
+	}
+	if (type == DocumentType.TAX_NUMBER && length > 0 && !CheckDigitEngine.isTaxNumberPrefix(chars[0])) {
+	    return false;
+	}
+	// any shorter number can be completed with a check digit, so only the complete ones have to be valid
+	return length < maximumLength || isValid();
+    }
+
+    /**
+     * 
+     * @return the score of the number typed so far, on the scale of {@link IdentificationCardNumberValidator}.
+     * 
+     * @see DocumentType#score(byte[], int, int)
+     */
+    public int score() {
+	if (type == DocumentType.IDENTIFICATION_CARD) {
+	    final boolean digits = firstInvalid < 0;
+	    return CheckDigitEngine.score(isBlank(), digits, length, weightedSum(), digits && length > 0 ? lastDigit() : 0);
+	}
+	if (isValid()) {
+	    return IdentificationCardNumberValidator.MAXIMUM_SCORE;
+	}
+	return CheckDigitEngine.shapeScore(isBlank(), firstInvalid < 0, length == maximumLength);
+    }
+
+    /**
+     * 
+     * @return the {@link ValidationResult} code of the number typed so far.
+     * 
+     * @see DocumentType#check(CharSequence)
+     */
+    public int check() {
+	if (isValid()) {
+	    return ValidationResult.VALID;
+	}
+	if (isBlank()) {
+	    return ValidationResult.code(FailureReason.BLANK, -1);
+	}
+	if (firstInvalid >= 0) {
+	    return ValidationResult.code(type == DocumentType.CITIZEN_CARD ? FailureReason.INVALID_CHAR : FailureReason.NON_DIGIT, firstInvalid);
+	}
+	if (type == DocumentType.IDENTIFICATION_CARD ? length > maximumLength : length != maximumLength) {
+	    return ValidationResult.code(FailureReason.BAD_LENGTH, -1);
+	}
+	if (type == DocumentType.TAX_NUMBER && !CheckDigitEngine.isTaxNumberPrefix(chars[0])) {
+	    return ValidationResult.code(FailureReason.BAD_PREFIX, 0);
+	}
+	return ValidationResult.code(FailureReason.BAD_CHECK_DIGIT, length - 1);
+    }
+
+    private int value(final char c) {
+	return type == DocumentType.CITIZEN_CARD ? CheckDigitEngine.citizenCardValue(c) : CheckDigitEngine.digit(c);
+    }
+
+    private boolean isBlank() {
+	return blanks == length;
+    }
+
+    private int weightedSum() {
+	// the digit at index i has weight length - i
+	return length * digitSum - indexSum;
+    }
+
+    private int lastDigit() {
+	return CheckDigitEngine.digit(chars[length - 1]);
+    }
+
+    private boolean isCheckDigitValid() {
+	final int lastDigit = lastDigit();
+	// the check digit weight is 1, so it has to be discounted from the sum
+	return CheckDigitEngine.checkDigit(weightedSum() - lastDigit) == lastDigit;
+    }
+
+    @Override
+    public String toString() {
+	return new String(chars, 0, length);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,288 @@
+package com.linkare.validation.identification;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * 
+ * Generates valid portuguese identification numbers, for test data and load tests. Tax (NIF) and identification card (BI) numbers are produced as
+ * <code>int</code> values, which callers must pad with leading zeros to 9 digits when formatting BI numbers. Citizen card numbers are written as 12
+ * chars per number into a <code>char[]</code>.
+ * 
+ * The weighted sum of an 8 digit body is looked up in two precomputed tables, one for each half of its digits, so each number costs one division, two
+ * array loads and the mod 11 of {@link CheckDigitEngine#checkDigit(int)}.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class NumberGenerator {
+
+    /**
+     * All the allowed first digits of a tax number.
+     */
+    public static final String ALL_TAX_NUMBER_PREFIXES = "1256789";
+
+    /**
+     * The version of the citizen cards issued so far.
+     */
+    public static final String DEFAULT_CITIZEN_CARD_VERSION = "ZZ";
+
+    /**
+     * The number of 8 digit bodies, that is, of tax and identification card numbers without the check digit.
+     */
+    public static final int BODY_LIMIT = 100000000;
+
+    private static final int PREFIX_BLOCK = BODY_LIMIT / 10;
+
+    private static final int HALF = 10000;
+
+    private static final int[] HIGH_SUMS = new int[HALF];
+
+    private static final int[] LOW_SUMS = new int[HALF];
+
+    static {
+	for (int i = 0; i < HALF; i++) {
+	    // the body digits have weights 9 to 2, from the left
+	    HIGH_SUMS[i] = i / 1000 * 9 + i / 100 % 10 * 8 + i / 10 % 10 * 7 + i % 10 * 6;
+	    LOW_SUMS[i] = i / 1000 * 5 + i / 100 % 10 * 4 + i / 10 % 10 * 3 + i % 10 * 2;
+	}
+    }
+
+    private NumberGenerator() {
+    }
+
+    /**
+     * 
+     * @param body
+     *            the first 8 digits of the number, between 0 and <code>BODY_LIMIT</code> - 1
+     * @return the 9 digit number made of the <code>body</code> followed by its check digit. It is a valid tax number when the first digit of the
+     *         <code>body</code> is one of <code>ALL_TAX_NUMBER_PREFIXES</code> and a valid identification card number otherwise.
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>body</code> is out of range.
+     */
+    public static int complete(final int body) {
+	if (body < 0 || body >= BODY_LIMIT) {
+	    throw new IllegalArgumentException("The body must have at most 8 digits: " + body);
+	}
+	return completeBody(body);
+    }
+
+    /**
+     * 
+     * Fills the <code>target</code> with consecutive tax numbers, whose bodies start at <code>firstBody</code>. Bodies whose first digit is not one of the
+     * <code>prefixes</code> are skipped.
+     * 
+     * @param target
+     *            the array to be filled
+     * @param offset
+     *            the index of the first number to be written
+     * @param count
+     *            the number of numbers to be written
+     * @param firstBody
+     *            the body of the first number to be generated
+     * @param prefixes
+     *            the allowed first digits, a subset of <code>ALL_TAX_NUMBER_PREFIXES</code>
+     * @return the number of numbers written, which is less than <code>count</code> only if the bodies with the allowed first digits run out. The body of
+     *         the next number is the last one written divided by 10 plus 1.
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>prefixes</code> are empty or contain a digit that is not an allowed first digit of a tax number.
+     */
+    public static int fillTaxNumbers(final int[] target, final int offset, final int count, final int firstBody, final String prefixes) {
+	final boolean[] allowed = new boolean[10];
+	for (final int prefix : prefixDigits(prefixes)) {
+	    allowed[prefix] = true;
+	}
+	int body = Math.max(firstBody, 0);
+	int written = 0;
+	while (written < count && body < BODY_LIMIT) {
+	    if (!allowed[body / PREFIX_BLOCK]) {
+		body = (body / PREFIX_BLOCK + 1) * PREFIX_BLOCK;
+		continue;
+	    }
+	    // the whole block shares the first digit
+	    final int end = Math.min(body + count - written, (body / PREFIX_BLOCK + 1) * PREFIX_BLOCK);
+	    for (; body < end; body++) {
+		target[offset + written++] = completeBody(body);
+	    }
+	}
+	return written;
+    }
+
+    /**
+     * 
+     * @param target
+     *            the array to be filled
+     * @param offset
+     *            the index of the first number to be written
+     * @param count
+     *            the number of numbers to be written
+     * @param prefixes
+     *            the allowed first digits, a subset of <code>ALL_TAX_NUMBER_PREFIXES</code>. Each one is picked with the same probability.
+     * @param random
+     *            the source of the random bodies
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>prefixes</code> are empty or contain a digit that is not an allowed first digit of a tax number.
+     */
+    public static void fillRandomTaxNumbers(final int[] target, final int offset, final int count, final String prefixes, final Random random) {
+	final int[] digits = prefixDigits(prefixes);
+	for (int i = offset; i < offset + count; i++) {
+	    target[i] = completeBody(digits[random.nextInt(digits.length)] * PREFIX_BLOCK + random.nextInt(PREFIX_BLOCK));
+	}
+    }
+
+    /**
+     * 
+     * @param prefixes
+     *            the allowed first digits, a subset of <code>ALL_TAX_NUMBER_PREFIXES</code>. Each one is picked with the same probability.
+     * @param seed
+     *            the seed of the random bodies
+     * @return an infinite stream of random tax numbers, which can be split for parallel generation.
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>prefixes</code> are empty or contain a digit that is not an allowed first digit of a tax number.
+     */
+    public static IntStream taxNumbers(final String prefixes, final long seed) {
+	final int[] digits = prefixDigits(prefixes);
+	return new SplittableRandom(seed).ints(0, digits.length * PREFIX_BLOCK).map(n -> completeBody(digits[n / PREFIX_BLOCK] * PREFIX_BLOCK + n % PREFIX_BLOCK));
+    }
+
+    /**
+     * 
+     * Fills the <code>target</code> with consecutive identification card numbers, whose bodies start at <code>firstBody</code>.
+     * 
+     * @param target
+     *            the array to be filled
+     * @param offset
+     *            the index of the first number to be written
+     * @param count
+     *            the number of numbers to be written
+     * @param firstBody
+     *            the body of the first number to be generated
+     * 
+     * @throws IllegalArgumentException
+     *             if the bodies are out of range.
+     */
+    public static void fillIdCardNumbers(final int[] target, final int offset, final int count, final int firstBody) {
+	checkBodies(firstBody, count);
+	for (int i = 0; i < count; i++) {
+	    target[offset + i] = completeBody(firstBody + i);
+	}
+    }
+
+    /**
+     * 
+     * @param seed
+     *            the seed of the random bodies
+     * @return an infinite stream of random identification card numbers, which can be split for parallel generation.
+     */
+    public static IntStream idCardNumbers(final long seed) {
+	return new SplittableRandom(seed).ints(0, BODY_LIMIT).map(NumberGenerator::completeBody);
+    }
+
+    /**
+     * 
+     * Fills the <code>target</code> with consecutive citizen card numbers, 12 chars each, whose document numbers are the identification card numbers of
+     * the bodies starting at <code>firstBody</code>.
+     * 
+     * @param target
+     *            the array to be filled, with room for <code>count</code> * 12 chars from the <code>offset</code>
+     * @param offset
+     *            the index of the first char to be written
+     * @param count
+     *            the number of numbers to be written
+     * @param firstBody
+     *            the body of the document number of the first citizen card
+     * @param version
+     *            the 2 chars of the version of the citizen cards, such as <code>DEFAULT_CITIZEN_CARD_VERSION</code>
+     * 
+     * @throws IllegalArgumentException
+     *             if the bodies are out of range or the <code>version</code> is not valid.
+     */
+    public static void fillCitizenCards(final char[] target, final int offset, final int count, final int firstBody, final String version) {
+	checkBodies(firstBody, count);
+	final int versionSum = versionSum(version);
+	for (int i = 0; i < count; i++) {
+	    writeCitizenCard(target, offset + i * CheckDigitEngine.CITIZEN_CARD_LENGTH, completeBody(firstBody + i), version, versionSum);
+	}
+    }
+
+    /**
+     * 
+     * @param target
+     *            the array to be filled, with room for <code>count</code> * 12 chars from the <code>offset</code>
+     * @param offset
+     *            the index of the first char to be written
+     * @param count
+     *            the number of numbers to be written
+     * @param version
+     *            the 2 chars of the version of the citizen cards, such as <code>DEFAULT_CITIZEN_CARD_VERSION</code>
+     * @param random
+     *            the source of the random document numbers
+     * 
+     * @throws IllegalArgumentException
+     *             if the <code>version</code> is not valid.
+     */
+    public static void fillRandomCitizenCards(final char[] target, final int offset, final int count, final String version, final Random random) {
+	final int versionSum = versionSum(version);
+	for (int i = 0; i < count; i++) {
+	    writeCitizenCard(target, offset + i * CheckDigitEngine.CITIZEN_CARD_LENGTH, completeBody(random.nextInt(BODY_LIMIT)), version, versionSum);
+	}
+    }
+
+    private static int completeBody(final int body) {
+	return body * 10 + CheckDigitEngine.checkDigit(HIGH_SUMS[body / HALF] + LOW_SUMS[body % HALF]);
+    }
+
+    private static void writeCitizenCard(final char[] target, final int offset, final int document, final String version, final int versionSum) {
+	int sum = versionSum;
+	int remaining = document;
+	// the document digits at even positions, counting from 0 at the left, are the doubled ones
+	for (int i = CheckDigitEngine.PT_NUMBER_LENGTH - 1; i >= 0; i--) {
+	    final int n = remaining % 10;
+	    remaining /= 10;
+	    target[offset + i] = (char) ('0' + n);
+	    sum += (i & 1) == 0 ? CheckDigitEngine.doubled(n) : n;
+	}
+	target[offset + CheckDigitEngine.PT_NUMBER_LENGTH] = version.charAt(0);
+	target[offset + CheckDigitEngine.PT_NUMBER_LENGTH + 1] = version.charAt(1);
+	target[offset + CheckDigitEngine.CITIZEN_CARD_LENGTH - 1] = CheckDigitEngine.citizenCardCheckChar(sum);
+    }
+
+    private static int versionSum(final String version) {
+	if (version.length() != 2) {
+	    throw new IllegalArgumentException("The version must have 2 chars");
+	}
+	final int first = CheckDigitEngine.citizenCardValue(version.charAt(0));
+	final int second = CheckDigitEngine.citizenCardValue(version.charAt(1));
+	if (first < 0 || second < 0) {
+	    throw new IllegalArgumentException("The version contains an invalid number/char");
+	}
+	// the version takes the positions 9, which is not doubled, and 10, which is
+	return first + CheckDigitEngine.doubled(second);
+    }
+
+    private static void checkBodies(final int firstBody, final int count) {
+	if (firstBody < 0 || count < 0 || (long) firstBody + count > BODY_LIMIT) {
+	    throw new IllegalArgumentException("The bodies must have at most 8 digits");
+	}
+    }
+
+    private static int[] prefixDigits(final String prefixes) {
+	if (prefixes.isEmpty()) {
+	    throw new IllegalArgumentException("At least one prefix is required");
+	}
+	final int[] digits = new int[prefixes.length()];
+	for (int i = 0; i < digits.length; i++) {
+	    final char c = prefixes.charAt(i);
+	    if (ALL_TAX_NUMBER_PREFIXES.indexOf(c) < 0) {
+		throw new IllegalArgumentException("Not a valid tax number prefix: " + c);
+	    }
+	    digits[i] = c - '0';
+	}
+	return digits;
+    }
+}
@@ -0,0 +1,298 @@
+package com.linkare.validation.identification;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 
+ * Validates very large batches of identification numbers splitting them across the workers of a <code>ForkJoinPool</code>. Batches are split in halves
+ * until they have no more than <code>threshold</code> numbers, each chunk is checked in a tight loop over the {@link CheckDigitEngine} and the per chunk
+ * valid counts and score histograms are merged into a {@link BatchResult}.
+ * 
+ * Chunks always start at a multiple of 64, so every worker writes its own words of the shared valid bitmap and no merge step is needed for it.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class ParallelBatchValidator {
+
+    /**
+     * The default maximum number of numbers validated by a single task.
+     */
+    public static final int DEFAULT_THRESHOLD = 16384;
+
+    private static final int WORD_BITS = 64;
+
+    private static final int SCORES = IdentificationCardNumberValidator.MAXIMUM_SCORE + 1;
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    /**
+     * Creates a validator running on the common pool with the <code>DEFAULT_THRESHOLD</code>.
+     */
+    public ParallelBatchValidator() {
+	this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * 
+     * @param pool
+     *            the pool where the validation tasks will run
+     * @param threshold
+     *            the maximum number of numbers validated by a single task. It is rounded up to a multiple of 64, but for the largest values, which are
+     *            rounded down.
+     */
+    public ParallelBatchValidator(final ForkJoinPool pool, final int threshold) {
+	if (threshold <= 0) {
+	    throw new IllegalArgumentException("The threshold must be positive");
+	}
+	this.pool = pool;
+	// rounded up in long, so that the thresholds close to Integer.MAX_VALUE do not overflow
+	this.threshold = (int) Math.min(((long) threshold + WORD_BITS - 1) / WORD_BITS * WORD_BITS, Integer.MAX_VALUE & -WORD_BITS);
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the country of the numbers to be validated.
+     * @param type
+     *            the type of document the numbers belong to
+     * @param numbers
+     *            the numbers to be validated. Null elements are invalid.
+     * @return the merged result of the validation
+     * 
+     * @throws UnsupportedOperationException
+     *             when the country of the <code>locale</code> is not PT, since batches are validated with the built in Portuguese rules only.
+     * 
+     * @see BatchValidator#validate(Locale, DocumentType, CharSequence[], java.util.BitSet)
+     */
+    public BatchResult validate(final Locale locale, final DocumentType type, final CharSequence[] numbers) {
+	BatchValidator.checkLocale(locale);
+	return run(new ArrayTask(type, numbers, new long[words(numbers.length)], 0, numbers.length), numbers.length, false);
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the country of the numbers to be validated.
+     * @param type
+     *            the type of document the numbers belong to
+     * @param records
+     *            the fixed width ASCII records holding the numbers to be validated
+     * @param recordLength
+     *            the length of each record, including any record separator
+     * @param fieldOffset
+     *            the offset of the number inside each record
+     * @param fieldLength
+     *            the width of the number field, which may be padded with spaces
+     * @return the merged result of the validation
+     * 
+     * @throws UnsupportedOperationException
+     *             when the country of the <code>locale</code> is not PT, since batches are validated with the built in Portuguese rules only.
+     * 
+     * @see BatchValidator#validate(Locale, DocumentType, byte[], int, int, int, java.util.BitSet)
+     */
+    public BatchResult validate(final Locale locale, final DocumentType type, final byte[] records, final int recordLength, final int fieldOffset,
+	    final int fieldLength) {
+	BatchValidator.checkLocale(locale);
+	final int count = BatchValidator.recordCount(records, recordLength, fieldOffset, fieldLength);
+	return run(new RecordTask(type, records, recordLength, fieldOffset, fieldLength, new long[words(count)], 0, count), count, false);
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the identification card country to be validated.
+     * @param numbers
+     *            the identification card numbers to be scored. Null elements are scored as blank.
+     * @return the merged result of the scoring, including the score histogram
+     * 
+     * @see BatchValidator#scoreIdCards(Locale, CharSequence[], byte[])
+     */
+    public BatchResult scoreIdCards(final Locale locale, final CharSequence[] numbers) {
+	BatchValidator.checkLocale(locale);
+	return run(new ArrayTask(null, numbers, new long[words(numbers.length)], 0, numbers.length), numbers.length, true);
+    }
+
+    /**
+     * 
+     * @param locale
+     *            the identification card country to be validated.
+     * @param records
+     *            the fixed width ASCII records holding the identification card numbers to be scored
+     * @param recordLength
+     *            the length of each record, including any record separator
+     * @param fieldOffset
+     *            the offset of the number inside each record
+     * @param fieldLength
+     *            the width of the number field, which may be padded with spaces
+     * @return the merged result of the scoring, including the score histogram
+     * 
+     * @see BatchValidator#scoreIdCards(Locale, byte[], int, int, int, byte[])
+     */
+    public BatchResult scoreIdCards(final Locale locale, final byte[] records, final int recordLength, final int fieldOffset, final int fieldLength) {
+	BatchValidator.checkLocale(locale);
+	final int count = BatchValidator.recordCount(records, recordLength, fieldOffset, fieldLength);
+	return run(new RecordTask(null, records, recordLength, fieldOffset, fieldLength, new long[words(count)], 0, count), count, true);
+    }
+
+    private BatchResult run(final ChunkTask task, final int size, final boolean scored) {
+	return new BatchResult(size, task.words, pool.invoke(task), scored);
+    }
+
+    private static int words(final int size) {
+	return (size + WORD_BITS - 1) / WORD_BITS;
+    }
+
+    /**
+     * Validates the numbers in <code>[from, to)</code>, marking the valid ones in <code>words</code> and returning the score histogram of the range. When no
+     * document type is given the numbers are scored as identification cards, otherwise only the valid count (in the <code>MAXIMUM_SCORE</code> slot) is
+     * kept.
+     */
+    private abstract class ChunkTask extends RecursiveTask<int[]> {
+
+	private static final long serialVersionUID = 1L;
+
+	final DocumentType type;
+
+	final long[] words;
+
+	final int from;
+
+	final int to;
+
+	ChunkTask(final DocumentType type, final long[] words, final int from, final int to) {
+	    this.type = type;
+	    this.words = words;
+	    this.from = from;
+	    this.to = to;
+	}
+
+	@Override
+	protected int[] compute() {
+	    if (to - from <= threshold) {
+		final int[] histogram = new int[SCORES];
+		if (type == null) {
+		    scoreLeaf(histogram);
+		} else {
+		    validateLeaf(histogram);
+		}
+		return histogram;
+	    }
+	    final int middle = from + Math.max(WORD_BITS, (to - from) / 2 / WORD_BITS * WORD_BITS);
+	    final ChunkTask left = subtask(from, middle);
+	    left.fork();
+	    final int[] histogram = subtask(middle, to).compute();
+	    final int[] other = left.join();
+	    for (int i = 0; i < SCORES; i++) {
+		histogram[i] += other[i];
+	    }
+	    return histogram;
+	}
+
+	final void markValid(final int index) {
+	    words[index / WORD_BITS] |= 1L << index;
+	}
+
+	abstract ChunkTask subtask(int subFrom, int subTo);
+
+	abstract void validateLeaf(int[] histogram);
+
+	abstract void scoreLeaf(int[] histogram);
+    }
+
+    private final class ArrayTask extends ChunkTask {
+
+	private static final long serialVersionUID = 1L;
+
+	private final CharSequence[] numbers;
+
+	ArrayTask(final DocumentType type, final CharSequence[] numbers, final long[] words, final int from, final int to) {
+	    super(type, words, from, to);
+	    this.numbers = numbers;
+	}
+
+	@Override
+	ChunkTask subtask(final int subFrom, final int subTo) {
+	    return new ArrayTask(type, numbers, words, subFrom, subTo);
+	}
+
+	@Override
+	void validateLeaf(final int[] histogram) {
+	    for (int i = from; i < to; i++) {
+		if (type.isValid(numbers[i])) {
+		    histogram[IdentificationCardNumberValidator.MAXIMUM_SCORE]++;
+		    markValid(i);
+		}
+	    }
+	}
+
+	@Override
+	void scoreLeaf(final int[] histogram) {
+	    for (int i = from; i < to; i++) {
+		final int score = CheckDigitEngine.scoreIdCard(numbers[i]);
+		histogram[score]++;
+		if (score == IdentificationCardNumberValidator.MAXIMUM_SCORE) {
+		    markValid(i);
+		}
+	    }
+	}
+    }
+
+    private final class RecordTask extends ChunkTask {
+
+	private static final long serialVersionUID = 1L;
+
+	private final byte[] records;
+
+	private final int recordLength;
+
+	private final int fieldOffset;
+
+	private final int fieldLength;
+
+	RecordTask(final DocumentType type, final byte[] records, final int recordLength, final int fieldOffset, final int fieldLength, final long[] words,
+		final int from, final int to) {
+	    super(type, words, from, to);
+	    this.records = records;
+	    this.recordLength = recordLength;
+	    this.fieldOffset = fieldOffset;
+	    this.fieldLength = fieldLength;
+	}
+
+	@Override
+	ChunkTask subtask(final int subFrom, final int subTo) {
+	    return new RecordTask(type, records, recordLength, fieldOffset, fieldLength, words, subFrom, subTo);
+	}
+
+	@Override
+	void validateLeaf(final int[] histogram) {
+	    final ByteBuffer buffer = BatchValidator.littleEndian(records);
+	    for (int i = from, start = from * recordLength + fieldOffset; i < to; i++, start += recordLength) {
+		final int begin = BatchValidator.trimStart(records, start, start + fieldLength);
+		final int end = BatchValidator.trimEnd(records, begin, start + fieldLength);
+		if (type.isValid(buffer, begin, end - begin)) {
+		    histogram[IdentificationCardNumberValidator.MAXIMUM_SCORE]++;
+		    markValid(i);
+		}
+	    }
+	}
+
+	@Override
+	void scoreLeaf(final int[] histogram) {
+	    for (int i = from, start = from * recordLength + fieldOffset; i < to; i++, start += recordLength) {
+		final int begin = BatchValidator.trimStart(records, start, start + fieldLength);
+		final int end = BatchValidator.trimEnd(records, begin, start + fieldLength);
+		final int score = CheckDigitEngine.scoreIdCard(records, begin, end - begin);
+		histogram[score]++;
+		if (score == IdentificationCardNumberValidator.MAXIMUM_SCORE) {
+		    markValid(i);
+		}
+	    }
+	}
+    }
+}
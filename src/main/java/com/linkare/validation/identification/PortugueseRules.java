@@ -0,0 +1,43 @@
+package com.linkare.validation.identification;
+
+/**
+ * 
+ * The built in rules for Portugal: 9 digit tax numbers (NIF) and identification card numbers (BI), checked by the {@link CheckDigitEngine}.
+ * 
+ * @author Linkare TI
+ * 
+ */
+final class PortugueseRules implements CountryRules {
+
+    static final String COUNTRY = "PT";
+
+    static final PortugueseRules INSTANCE = new PortugueseRules();
+
+    private PortugueseRules() {
+    }
+
+    @Override
+    public String getCountry() {
+	return COUNTRY;
+    }
+
+    @Override
+    public boolean isValidTaxNumber(final CharSequence number) {
+	return CheckDigitEngine.isValidTaxNumber(number);
+    }
+
+    @Override
+    public int scoreIdCard(final CharSequence number) {
+	return CheckDigitEngine.scoreIdCard(number);
+    }
+
+    @Override
+    public int checkTaxNumber(final CharSequence number) {
+	return CheckDigitEngine.checkTaxNumber(number);
+    }
+
+    @Override
+    public int checkIdCard(final CharSequence number) {
+	return CheckDigitEngine.checkIdCard(number);
+    }
+}
@@ -0,0 +1,86 @@
+package com.linkare.validation.identification;
+
+/**
+ * 
+ * {@link CountryRules} described as data, by the {@link CheckDigitScheme}s of the tax and identification card numbers of a country. Rules discovered
+ * through <code>java.util.ServiceLoader</code> need a public no arguments constructor, so they are declared as subclasses:
+ * 
+ * <pre>
+ * public class EsRules extends SchemeCountryRules {
+ * 
+ *     public EsRules() {
+ *         super(&quot;ES&quot;, new CheckDigitScheme(...), null);
+ *     }
+ * }
+ * </pre>
+ * 
+ * @author Linkare TI
+ * 
+ */
+public class SchemeCountryRules implements CountryRules {
+
+    private final String country;
+
+    private final CompiledScheme taxNumber;
+
+    private final CompiledScheme idCard;
+
+    /**
+     * 
+     * @param country
+     *            the ISO 3166 alpha-2 code of the country, in upper case
+     * @param taxNumber
+     *            the scheme of the tax numbers, or null if the country has no tax number rules
+     * @param idCard
+     *            the scheme of the identification card numbers, or null if the country has no identification card rules
+     */
+    public SchemeCountryRules(final String country, final CheckDigitScheme taxNumber, final CheckDigitScheme idCard) {
+	this.country = country;
+	this.taxNumber = taxNumber == null ? null : taxNumber.compile();
+	this.idCard = idCard == null ? null : idCard.compile();
+    }
+
+    @Override
+    public String getCountry() {
+	return country;
+    }
+
+    @Override
+    public boolean isValidTaxNumber(final CharSequence number) {
+	return taxNumber().isValid(number);
+    }
+
+    @Override
+    public int scoreIdCard(final CharSequence number) {
+	return idCard().score(number);
+    }
+
+    @Override
+    public boolean isValidIdCard(final CharSequence number) {
+	return idCard().isValid(number);
+    }
+
+    @Override
+    public int checkTaxNumber(final CharSequence number) {
+	return taxNumber().check(number);
+    }
+
+    @Override
+    public int checkIdCard(final CharSequence number) {
+	return idCard().check(number);
+    }
+
+    private CompiledScheme taxNumber() {
+	if (taxNumber == null) {
+	    throw new UnsupportedOperationException("Not implemented yet");
+	}
+	return taxNumber;
+    }
+
+    private CompiledScheme idCard() {
+	if (idCard == null) {
+	    throw new UnsupportedOperationException("Not implemented yet");
+	}
+	return idCard;
+    }
+}
@@ -0,0 +1,96 @@
+package com.linkare.validation.identification;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 
+ * SWAR (SIMD within a register) arithmetic on 8 ASCII chars packed in a <code>long</code>, with the first char in the lowest byte. Checking that the 8
+ * chars are digits and computing their weighted sum take a handful of word operations instead of a loop of 8 loads, compares and multiplications.
+ * 
+ * The weighted sums spread the digits over 16 bit lanes, so that a single multiplication by a constant holding the weights in reverse lane order leaves
+ * the dot product in the top lane. No lane exceeds 16 bits, so no carry crosses the lanes.
+ * 
+ * @author Linkare TI
+ * 
+ */
+final class SwarDigits {
+
+    /**
+     * The number of chars in a word.
+     */
+    static final int WORD_LENGTH = Long.BYTES;
+
+    private static final long ZEROS = 0x3030303030303030L;
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    // adding 0x46 to a byte sets its high bit if it is above '9'
+    private static final long ABOVE_NINE = 0x4646464646464646L;
+
+    private static final long EVEN_BYTES = 0x00FF00FF00FF00FFL;
+
+    private static final long LANE_ONES = 0x0001000100010001L;
+
+    // the mod 11 weights of the digits 0, 2, 4 and 6 (9, 7, 5, 3) and of the digits 1, 3, 5 and 7 (8, 6, 4, 2), in reverse lane order
+    private static final long EVEN_WEIGHTS = 3L | 5L << 16 | 7L << 32 | 9L << 48;
+
+    private static final long ODD_WEIGHTS = 2L | 4L << 16 | 6L << 32 | 8L << 48;
+
+    // adding 123 to a digit sets the bit 7 of its lane if it is above 4
+    private static final long ABOVE_FOUR = 0x007B007B007B007BL;
+
+    private static final int TOP_LANE = 48;
+
+    private SwarDigits() {
+    }
+
+    /**
+     * 
+     * @param buffer
+     *            the buffer holding the chars
+     * @param index
+     *            the absolute index of the first char
+     * @return the 8 chars from the <code>index</code>, with the first one in the lowest byte, whatever the order of the <code>buffer</code>.
+     */
+    static long word(final ByteBuffer buffer, final int index) {
+	final long word = buffer.getLong(index);
+	return buffer.order() == ByteOrder.LITTLE_ENDIAN ? word : Long.reverseBytes(word);
+    }
+
+    /**
+     * 
+     * @param word
+     *            the 8 chars
+     * @return true if the 8 chars are ASCII digits.
+     */
+    static boolean isDigits(final long word) {
+	// chars below '0' borrow into their high bit and chars above '9' carry into it. Either may corrupt the next byte, but only once a failure is found.
+	return (((word + ABOVE_NINE) | (word - ZEROS)) & HIGH_BITS) == 0;
+    }
+
+    /**
+     * 
+     * @param word
+     *            the 8 chars, all of them digits
+     * @return the sum of the digits multiplied by their mod 11 weights, from 9 for the first one to 2 for the last one.
+     */
+    static int weightedSum(final long word) {
+	final long digits = word - ZEROS;
+	return (int) (((digits & EVEN_BYTES) * EVEN_WEIGHTS + (digits >>> 8 & EVEN_BYTES) * ODD_WEIGHTS) >>> TOP_LANE);
+    }
+
+    /**
+     * 
+     * @param word
+     *            the first 8 chars of a citizen card number, all of them digits
+     * @return the part of the citizen card control sum of the 8 chars, where the digits at even positions are doubled (minus 9 if above 9).
+     */
+    static int citizenCardSum(final long word) {
+	final long digits = word - ZEROS;
+	final long even = digits & EVEN_BYTES;
+	final long aboveFour = (even + ABOVE_FOUR) >>> 7 & LANE_ONES;
+	final long doubled = (even << 1) - aboveFour * 9;
+	return (int) ((doubled + (digits >>> 8 & EVEN_BYTES)) * LANE_ONES >>> TOP_LANE);
+    }
+}
@@ -1,9 +1,10 @@
 package com.linkare.validation.identification;
 
+import java.nio.ByteBuffer;
 import java.util.Locale;
 
-import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.math.NumberUtils;
+import com.linkare.validation.metrics.ValidationMetrics;
+import com.linkare.validation.metrics.ValidatorKind;
 
 /**
  * 
@@ -12,19 +13,9 @@ import org.apache.commons.lang.math.NumberUtils;
  */
 public final class TaxNumberValidator {
 
-    private static final int MINIMUM_REMAINING = 2;
-
-    private static final int DIVISION_FACTOR = 11;
-
-    private static final char PADDING_CHAR = '0';
-
-    private static final int ID_CARD_NUMBER_LENGTH = 9;
-
     private static final String DEFAULT_LANGUAGE = "pt";
 
-    private static final String DEFAULT_COUNTRY = "PT";
-
-    private static final Locale DEFAULT_ID_CARD_COUNTRY = new Locale(DEFAULT_LANGUAGE, DEFAULT_COUNTRY);
+    private static final Locale DEFAULT_ID_CARD_COUNTRY = new Locale(DEFAULT_LANGUAGE, PortugueseRules.COUNTRY);
 
     private TaxNumberValidator() {
     }
@@ -43,63 +34,111 @@ public final class TaxNumberValidator {
 
     /**
      * 
-     * This method validates if a given number for an identification document for a given country is valid. For the default country, PT (Portugal), this number
-     * is supposed to have 9 digits.
+     * @param number
+     *            the ASCII bytes holding the tax number to be validated
+     * @param offset
+     *            the index of the first byte of the tax number
+     * @param length
+     *            the number of bytes of the tax number
+     * @return true if the bytes are a valid tax number for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT). It returns false otherwise.
+     */
+    public static boolean isValid(final byte[] number, final int offset, final int length) {
+	if (!ValidationMetrics.ENABLED) {
+	    return CheckDigitEngine.isValidTaxNumber(number, offset, length);
+	}
+	return check(number, offset, length) == ValidationResult.VALID;
+    }
+
+    /**
      * 
-     * @param locale
-     *            the identification card country to be validated.
      * @param number
-     *            the identification card number to be validated
-     * @return true if the <code>number</code> is valid in the <code>locale</code> passed in. It returns false otherwise.
+     *            the buffer holding the ASCII bytes of the tax number to be validated, in place. Its position and limit are not changed.
+     * @param index
+     *            the absolute index of the first byte of the tax number
+     * @param length
+     *            the number of bytes of the tax number
+     * @return true if the bytes are a valid tax number for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT). It returns false otherwise.
+     */
+    public static boolean isValid(final ByteBuffer number, final int index, final int length) {
+	if (!ValidationMetrics.ENABLED) {
+	    return CheckDigitEngine.isValidTaxNumber(number, index, length);
+	}
+	final long start = ValidationMetrics.start();
+	final boolean valid = CheckDigitEngine.isValidTaxNumber(number, index, length);
+	// only the invalid numbers are checked again, to tell why they are not valid
+	final FailureReason reason = valid ? FailureReason.NONE : ValidationResult.reason(CheckDigitEngine.checkTaxNumber(number, index, length));
+	ValidationMetrics.record(ValidatorKind.TAX_NUMBER, PortugueseRules.COUNTRY, reason, start);
+	return valid;
+    }
+
+    /**
      * 
-     * @throws UnsupportedOperationException
-     *             when the <code>locale</code> is not PT, since no other countries are supported yet.
+     * @param number
+     *            the tax number to be checked
+     * @return the {@link ValidationResult} code of the <code>number</code> for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT), which tells why it is not
+     *         valid without throwing an exception.
      * 
+     * @see CheckDigitEngine#checkTaxNumber(CharSequence)
      */
-    public static boolean isValid(final Locale locale, final String number) {
-	if (locale != null && DEFAULT_COUNTRY.equals(locale.getCountry())) {
-	    return isValidPtIdCard(number);
-	} else {
-	    throw new UnsupportedOperationException("Not implemented yet");
-	}
+    public static int check(final String number) {
+	final long start = ValidationMetrics.start();
+	final int code = CheckDigitEngine.checkTaxNumber(number);
+	ValidationMetrics.record(ValidatorKind.TAX_NUMBER, PortugueseRules.COUNTRY, ValidationResult.reason(code), start);
+	return code;
     }
 
     /**
      * 
      * @param number
-     * @return
+     *            the tax number to be checked
+     * @param result
+     *            the holder to be filled with the outcome of the validation
+     * @return true if the <code>number</code> is valid for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT). It returns false otherwise.
      */
-    private static boolean isValidPtIdCard(final String number) {
-	// 1. Validate size (9 digits)
-	if (StringUtils.isBlank(number) || !NumberUtils.isDigits(number)) {
-	    return false;
-	}
-	final String paddedNumber = StringUtils.leftPad(number, ID_CARD_NUMBER_LENGTH, PADDING_CHAR);
-	if (paddedNumber.length() != ID_CARD_NUMBER_LENGTH) {
-	    return false;
-	}
+    public static boolean check(final String number, final ValidationResult result) {
+	return result.set(check(number)).isValid();
+    }
 
-	// 2. First digit must be one of 1, 2, 5, 6, 7, 8 ou 9
-	if (!paddedNumber.startsWith("1") && !paddedNumber.startsWith("2") && !paddedNumber.startsWith("5") && !paddedNumber.startsWith("6")
-		&& !paddedNumber.startsWith("7") && !paddedNumber.startsWith("8") && !paddedNumber.startsWith("9")) {
-	    return false;
-	}
+    /**
+     * 
+     * @param number
+     *            the ASCII bytes holding the tax number to be checked
+     * @param offset
+     *            the index of the first byte of the tax number
+     * @param length
+     *            the number of bytes of the tax number
+     * @return the {@link ValidationResult} code of the bytes for the <code>DEFAULT_ID_CARD_COUNTRY</code> (PT).
+     */
+    public static int check(final byte[] number, final int offset, final int length) {
+	final long start = ValidationMetrics.start();
+	final int code = CheckDigitEngine.checkTaxNumber(number, offset, length);
+	ValidationMetrics.record(ValidatorKind.TAX_NUMBER, PortugueseRules.COUNTRY, ValidationResult.reason(code), start);
+	return code;
+    }
 
-	// 3. Control sum is calculated with the formula 9xd1 + 8xd2 + 7xd3 + 6xd4 + 5xd5 + 4xd6 + 3xd7 + 2xd8
-	final char[] numbers = paddedNumber.toCharArray();
-	int result = 0;
-	int multiplier = ID_CARD_NUMBER_LENGTH;
-	for (int i = 0; i < (numbers.length - 1); i++) {
-	    int n = Integer.valueOf(String.valueOf(numbers[i]));
-	    result += (n * multiplier--);
+    /**
+     * 
+     * This method validates if a given number for an identification document for a given country is valid. For the default country, PT (Portugal), this number
+     * is supposed to have 9 digits.
+     * 
+     * @param locale
+     *            the identification card country to be validated.
+     * @param number
+     *            the identification card number to be validated
+     * @return true if the <code>number</code> is valid in the <code>locale</code> passed in. It returns false otherwise.
+     * 
+     * @throws UnsupportedOperationException
+     *             when no {@link CountryRules} are registered for the country of the <code>locale</code>.
+     * 
+     */
+    public static boolean isValid(final Locale locale, final String number) {
+	final CountryRules rules = CountryRulesRegistry.get(locale);
+	if (!ValidationMetrics.ENABLED) {
+	    return rules.isValidTaxNumber(number);
 	}
-	// 4. We calculate the remainder by 11
-	int remaining = (result % DIVISION_FACTOR);
-
-	// 5. If the remaining is below 0, the check digit is 0. Otherwise, is 11 subtracted by the remaining
-	int checkDigit = (remaining < MINIMUM_REMAINING) ? 0 : (DIVISION_FACTOR - remaining);
-	
-	// 6. If the checkDigit matches the number's last digit, it is valid. Otherwise, it is not
-	return checkDigit == Integer.valueOf(String.valueOf(numbers[ID_CARD_NUMBER_LENGTH - 1]));
+	final long start = ValidationMetrics.start();
+	final int code = rules.checkTaxNumber(number);
+	ValidationMetrics.record(ValidatorKind.TAX_NUMBER, rules.getCountry(), ValidationResult.reason(code), start);
+	return code == ValidationResult.VALID;
     }
 }
\ No newline at end of file
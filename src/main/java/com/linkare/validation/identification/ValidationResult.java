@@ -0,0 +1,137 @@
+package com.linkare.validation.identification;
+
+/**
+ * 
+ * The outcome of a validation, packed in an int code that holds the {@link FailureReason} and the position of the offending char, relative to the start
+ * of the number. The code of a valid number is <code>VALID</code> (0), so a plain comparison tells valid numbers apart.
+ * 
+ * The static methods decode the int codes returned by the <code>check</code> methods of the validators. Instances are mutable holders that can be reused
+ * across validations, for callers that prefer an object to an int code:
+ * 
+ * <pre>
+ * final ValidationResult result = new ValidationResult();
+ * for (final String number : numbers) {
+ *     if (!TaxNumberValidator.check(number, result)) {
+ *         report(result.getReason(), result.getPosition());
+ *     }
+ * }
+ * </pre>
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class ValidationResult {
+
+    /**
+     * The code of a valid number.
+     */
+    public static final int VALID = 0;
+
+    private static final int REASON_BITS = 8;
+
+    private static final int REASON_MASK = (1 << REASON_BITS) - 1;
+
+    private static final FailureReason[] REASONS = FailureReason.values();
+
+    private int code = VALID;
+
+    /**
+     * 
+     * @param reason
+     *            the reason of the failure
+     * @param position
+     *            the position of the offending char, relative to the start of the number, or -1 if the failure does not concern a single char
+     * @return the packed code
+     */
+    public static int code(final FailureReason reason, final int position) {
+	return reason.ordinal() | (position + 1) << REASON_BITS;
+    }
+
+    /**
+     * 
+     * @param score
+     *            a score on the scale of {@link IdentificationCardNumberValidator}
+     * @return the code of the failure the <code>score</code> stands for, without the position of the offending char.
+     */
+    public static int fromScore(final int score) {
+	switch (score) {
+	case IdentificationCardNumberValidator.MAXIMUM_SCORE:
+	    return VALID;
+	case IdentificationCardNumberValidator.LEVEL3_SCORE:
+	    return code(FailureReason.BAD_CHECK_DIGIT, -1);
+	case IdentificationCardNumberValidator.LEVEL2_SCORE:
+	    return code(FailureReason.BAD_LENGTH, -1);
+	case IdentificationCardNumberValidator.LEVEL1_SCORE:
+	    return code(FailureReason.NON_DIGIT, -1);
+	default:
+	    return code(FailureReason.BLANK, -1);
+	}
+    }
+
+    /**
+     * 
+     * @param code
+     *            the packed code
+     * @return the reason held in the <code>code</code>
+     */
+    public static FailureReason reason(final int code) {
+	return REASONS[code & REASON_MASK];
+    }
+
+    /**
+     * 
+     * @param code
+     *            the packed code
+     * @return the position of the offending char held in the <code>code</code>, or -1 if the failure does not concern a single char
+     */
+    public static int position(final int code) {
+	return (code >>> REASON_BITS) - 1;
+    }
+
+    /**
+     * 
+     * @param code
+     *            the packed code
+     * @return true if the <code>code</code> is the one of a valid number
+     */
+    public static boolean isValid(final int code) {
+	return code == VALID;
+    }
+
+    /**
+     * 
+     * @param code
+     *            the packed code to be held
+     * @return this result
+     */
+    public ValidationResult set(final int code) {
+	this.code = code;
+	return this;
+    }
+
+    public int getCode() {
+	return code;
+    }
+
+    public boolean isValid() {
+	return code == VALID;
+    }
+
+    public FailureReason getReason() {
+	return reason(code);
+    }
+
+    public int getPosition() {
+	return position(code);
+    }
+
+    public String getMessage() {
+	return getReason().getMessage();
+    }
+
+    @Override
+    public String toString() {
+	final int position = getPosition();
+	return position < 0 ? getReason().name() : getReason().name() + " at " + position;
+    }
+}
@@ -0,0 +1,100 @@
+package com.linkare.validation.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 
+ * A histogram of latencies with power of two buckets: the bucket <code>b</code> counts the latencies from 2^(b-1) to 2^b - 1 nanoseconds, and the bucket
+ * 0 the ones that are not positive. Recording a latency is a <code>numberOfLeadingZeros</code> and a <code>LongAdder</code> increment, so concurrent
+ * validations do not contend on the same counter.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of buckets, enough for every positive <code>long</code>.
+     */
+    public static final int BUCKETS = Long.SIZE;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    public LatencyHistogram() {
+	for (int i = 0; i < BUCKETS; i++) {
+	    counts[i] = new LongAdder();
+	}
+    }
+
+    /**
+     * 
+     * @param nanos
+     *            the latency to be recorded, in nanoseconds
+     */
+    public void record(final long nanos) {
+	counts[bucket(nanos)].increment();
+    }
+
+    /**
+     * 
+     * @param nanos
+     *            a latency, in nanoseconds
+     * @return the bucket of the <code>nanos</code>
+     */
+    public static int bucket(final long nanos) {
+	return nanos <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * 
+     * @param bucket
+     *            the bucket
+     * @return the highest latency counted by the <code>bucket</code>, in nanoseconds
+     */
+    public static long getUpperBound(final int bucket) {
+	return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    public long getCount(final int bucket) {
+	return counts[bucket].sum();
+    }
+
+    public long getCount() {
+	long total = 0;
+	for (final LongAdder count : counts) {
+	    total += count.sum();
+	}
+	return total;
+    }
+
+    /**
+     * 
+     * @param fraction
+     *            the fraction of the latencies, between 0 and 1
+     * @return the upper bound of the bucket below which at least the <code>fraction</code> of the recorded latencies lie, or 0 if none was recorded.
+     *         Concurrent recordings may make it slightly off.
+     */
+    public long getPercentile(final double fraction) {
+	final long[] snapshot = new long[BUCKETS];
+	long total = 0;
+	for (int i = 0; i < BUCKETS; i++) {
+	    snapshot[i] = counts[i].sum();
+	    total += snapshot[i];
+	}
+	final double threshold = fraction * total;
+	long cumulative = 0;
+	for (int i = 0; i < BUCKETS; i++) {
+	    cumulative += snapshot[i];
+	    if (snapshot[i] > 0 && cumulative >= threshold) {
+		return getUpperBound(i);
+	    }
+	}
+	return 0;
+    }
+
+    public void reset() {
+	for (final LongAdder count : counts) {
+	    count.reset();
+	}
+    }
+}
@@ -0,0 +1,118 @@
+package com.linkare.validation.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.linkare.validation.identification.FailureReason;
+
+/**
+ * 
+ * A {@link ValidationListener} that counts the validations by validator, by country and by failure reason, and records their latencies in a
+ * {@link LatencyHistogram} per validator. The counters are <code>LongAdder</code>s, so they can be read by a metrics exporter while the validators update
+ * them.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class ValidationCounters implements ValidationListener {
+
+    private static final ValidatorKind[] VALIDATORS = ValidatorKind.values();
+
+    private static final FailureReason[] REASONS = FailureReason.values();
+
+    private final LongAdder[][] reasons = new LongAdder[VALIDATORS.length][REASONS.length];
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[VALIDATORS.length];
+
+    private final ConcurrentMap<String, LongAdder[]> countries = new ConcurrentHashMap<String, LongAdder[]>();
+
+    public ValidationCounters() {
+	for (int i = 0; i < VALIDATORS.length; i++) {
+	    for (int j = 0; j < REASONS.length; j++) {
+		reasons[i][j] = new LongAdder();
+	    }
+	    latencies[i] = new LatencyHistogram();
+	}
+    }
+
+    @Override
+    public void validated(final ValidatorKind validator, final String country, final FailureReason reason, final long nanos) {
+	reasons[validator.ordinal()][reason.ordinal()].increment();
+	latencies[validator.ordinal()].record(nanos);
+	if (country != null) {
+	    LongAdder[] counts = countries.get(country);
+	    if (counts == null) {
+		counts = countries.computeIfAbsent(country, key -> newCounters());
+	    }
+	    counts[validator.ordinal()].increment();
+	}
+    }
+
+    /**
+     * 
+     * @param validator
+     *            the validator
+     * @return the number of validations run by the <code>validator</code>
+     */
+    public long getCount(final ValidatorKind validator) {
+	long total = 0;
+	for (final LongAdder count : reasons[validator.ordinal()]) {
+	    total += count.sum();
+	}
+	return total;
+    }
+
+    /**
+     * 
+     * @param validator
+     *            the validator
+     * @param reason
+     *            the reason of the failure, or <code>NONE</code> for the valid values
+     * @return the number of validations run by the <code>validator</code> that ended with the <code>reason</code>
+     */
+    public long getCount(final ValidatorKind validator, final FailureReason reason) {
+	return reasons[validator.ordinal()][reason.ordinal()].sum();
+    }
+
+    /**
+     * 
+     * @param validator
+     *            the validator
+     * @param country
+     *            the ISO 3166 alpha-2 code of the country
+     * @return the number of validations run by the <code>validator</code> with the rules of the <code>country</code>
+     */
+    public long getCount(final ValidatorKind validator, final String country) {
+	final LongAdder[] counts = countries.get(country);
+	return counts == null ? 0 : counts[validator.ordinal()].sum();
+    }
+
+    /**
+     * 
+     * @param validator
+     *            the validator
+     * @return the histogram of the latencies of the <code>validator</code>
+     */
+    public LatencyHistogram getLatency(final ValidatorKind validator) {
+	return latencies[validator.ordinal()];
+    }
+
+    public void reset() {
+	for (int i = 0; i < VALIDATORS.length; i++) {
+	    for (final LongAdder count : reasons[i]) {
+		count.reset();
+	    }
+	    latencies[i].reset();
+	}
+	countries.clear();
+    }
+
+    private static LongAdder[] newCounters() {
+	final LongAdder[] counts = new LongAdder[VALIDATORS.length];
+	for (int i = 0; i < counts.length; i++) {
+	    counts[i] = new LongAdder();
+	}
+	return counts;
+    }
+}
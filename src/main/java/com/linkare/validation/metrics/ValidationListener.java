@@ -0,0 +1,36 @@
+package com.linkare.validation.metrics;
+
+import com.linkare.validation.identification.FailureReason;
+
+/**
+ * 
+ * Receives the outcome of every validation, when the metrics are enabled through the <code>ValidationMetrics.ENABLED_PROPERTY</code> system property.
+ * Implementations are called on the validating threads, so they must be thread safe and cheap, such as {@link ValidationCounters}.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public interface ValidationListener {
+
+    /**
+     * The listener that ignores every validation, installed by default.
+     */
+    ValidationListener NONE = new ValidationListener() {
+	@Override
+	public void validated(final ValidatorKind validator, final String country, final FailureReason reason, final long nanos) {
+	}
+    };
+
+    /**
+     * 
+     * @param validator
+     *            the validator that ran
+     * @param country
+     *            the ISO 3166 alpha-2 code of the country whose rules were applied, or null for validators that do not depend on the country
+     * @param reason
+     *            the reason of the failure, or <code>NONE</code> if the value is valid
+     * @param nanos
+     *            the time the validation took, in nanoseconds
+     */
+    void validated(ValidatorKind validator, String country, FailureReason reason, long nanos);
+}
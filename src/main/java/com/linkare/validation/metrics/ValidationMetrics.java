@@ -0,0 +1,76 @@
+package com.linkare.validation.metrics;
+
+import com.linkare.validation.identification.FailureReason;
+
+/**
+ * 
+ * The switch and the entry point of the validation metrics. The metrics are disabled unless the JVM is started with the <code>ENABLED_PROPERTY</code>
+ * system property set to true. Since <code>ENABLED</code> is a constant, the JIT compiler removes the instrumentation of the validators altogether when
+ * the metrics are disabled.
+ * 
+ * <pre>
+ * final ValidationCounters counters = new ValidationCounters();
+ * ValidationMetrics.setListener(counters);
+ * </pre>
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class ValidationMetrics {
+
+    /**
+     * The system property that enables the metrics.
+     */
+    public static final String ENABLED_PROPERTY = "com.linkare.validation.metrics";
+
+    /**
+     * Whether the validators report their outcomes to the listener.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private static volatile ValidationListener listener = ValidationListener.NONE;
+
+    private ValidationMetrics() {
+    }
+
+    /**
+     * 
+     * @param validationListener
+     *            the listener to be notified of every validation, or null to ignore them, which is the default.
+     */
+    public static void setListener(final ValidationListener validationListener) {
+	listener = validationListener == null ? ValidationListener.NONE : validationListener;
+    }
+
+    public static ValidationListener getListener() {
+	return listener;
+    }
+
+    /**
+     * 
+     * @return the start time of a validation, to be passed to {@link #record(ValidatorKind, String, FailureReason, long)}, or 0 if the metrics are
+     *         disabled.
+     */
+    public static long start() {
+	return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 
+     * Reports the outcome of a validation to the listener, if the metrics are enabled.
+     * 
+     * @param validator
+     *            the validator that ran
+     * @param country
+     *            the country whose rules were applied, or null
+     * @param reason
+     *            the reason of the failure, or <code>NONE</code> if the value is valid
+     * @param start
+     *            the value returned by {@link #start()} before the validation
+     */
+    public static void record(final ValidatorKind validator, final String country, final FailureReason reason, final long start) {
+	if (ENABLED) {
+	    listener.validated(validator, country, reason, System.nanoTime() - start);
+	}
+    }
+}
@@ -0,0 +1,19 @@
+package com.linkare.validation.metrics;
+
+/**
+ * 
+ * The validators whose outcomes are reported to the {@link ValidationListener}.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public enum ValidatorKind {
+
+    TAX_NUMBER,
+
+    IDENTIFICATION_CARD,
+
+    CITIZEN_CARD,
+
+    EMAIL
+}
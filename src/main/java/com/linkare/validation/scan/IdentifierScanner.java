@@ -0,0 +1,511 @@
+package com.linkare.validation.scan;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.linkare.validation.email.EmailValidator;
+import com.linkare.validation.identification.CheckDigitEngine;
+
+/**
+ * 
+ * Finds the valid identifiers embedded in free text, such as contracts or support tickets to be redacted, in a single pass over a
+ * <code>CharSequence</code> or a <code>Reader</code> of any size. A hand-built state machine recognises the candidate tokens and computes their check
+ * digits as it reads them, so that only the valid ones are reported, with their offsets:
+ * <ul>
+ * <li>runs of 9 digits that are valid tax numbers (NIF) are reported as <code>TAX_NUMBER</code>, and other valid runs of 8 or 9 digits as
+ * <code>IDENTIFICATION_CARD</code>;</li>
+ * <li>citizen card numbers, either written as 12 chars or with a space or hyphen between the document number and the version, as "153846575 ZZ0",
+ * or also before the check digit of the document number, as printed on the card, "15384657 5 ZZ0", are reported as <code>CITIZEN_CARD</code>;</li>
+ * <li>unquoted email addresses whose syntax is valid, as told by {@link EmailValidator#isValid(String)}, are reported as <code>EMAIL</code>.</li>
+ * </ul>
+ * 
+ * The numbers must not be glued to letters, digits, '_' or '@', so that the digits of longer numbers or of email addresses are not reported. Random 8 or
+ * 9 digit numbers pass the mod 11 check one time out of eleven, so phone numbers and the like are reported when they happen to be valid.
+ * 
+ * Scanners are immutable and thread safe. Each scan keeps its own state, of a few hundred bytes whatever the size of the text.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public final class IdentifierScanner {
+
+    /**
+     * The kinds of identifiers a scanner finds.
+     */
+    public enum Kind {
+
+	/**
+	 * A tax number (NIF), valid as told by {@link CheckDigitEngine#isValidTaxNumber(CharSequence)}.
+	 */
+	TAX_NUMBER,
+
+	/**
+	 * An identification card number (BI) of 8 or 9 digits, valid as told by {@link CheckDigitEngine#scoreIdCard(CharSequence)}, that is not a valid tax
+	 * number.
+	 */
+	IDENTIFICATION_CARD,
+
+	/**
+	 * A citizen card number, valid as told by {@link CheckDigitEngine#citizenCardRemainder(CharSequence)} once the separator is removed.
+	 */
+	CITIZEN_CARD,
+
+	/**
+	 * An email address, valid as told by {@link EmailValidator#isValid(String)}.
+	 */
+	EMAIL
+    }
+
+    /**
+     * Receives the identifiers found by a scan, by the order they end in the text.
+     */
+    public interface Listener {
+
+	/**
+	 * 
+	 * @param kind
+	 *            the kind of the identifier
+	 * @param start
+	 *            the offset of the first char of the identifier, from the start of the text
+	 * @param end
+	 *            the offset after the last char of the identifier
+	 */
+	void found(Kind kind, long start, long end);
+    }
+
+    private static final int ASCII_LIMIT = 128;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The longest email address that can be delivered.
+     */
+    private static final int EMAIL_LIMIT = 254;
+
+    private static final int DOCUMENT_LENGTH = CheckDigitEngine.PT_NUMBER_LENGTH;
+
+    private static final int CITIZEN_CARD_LENGTH = CheckDigitEngine.CITIZEN_CARD_LENGTH;
+
+    private static final int MINIMUM_ID_CARD_LENGTH = DOCUMENT_LENGTH - 1;
+
+    /**
+     * Fed after the last char of the text, so that the tokens still open are ended. It is neither a word char nor a separator.
+     */
+    private static final char END = 0;
+
+    private static final int WORD = 1;
+
+    private static final int LOCAL = 2;
+
+    private static final int DOMAIN = 4;
+
+    /**
+     * The classes of each ASCII char, as a mask of <code>WORD</code>, <code>LOCAL</code> and <code>DOMAIN</code>.
+     */
+    private static final byte[] CLASSES = new byte[ASCII_LIMIT];
+
+    // the states of the number recognizer
+
+    private static final int BOUNDARY = 0;
+
+    private static final int IN_WORD = 1;
+
+    private static final int IN_TOKEN = 2;
+
+    private static final int AFTER_SEPARATOR = 3;
+
+    static {
+	for (char c = '0'; c <= '9'; c++) {
+	    CLASSES[c] = WORD | LOCAL | DOMAIN;
+	}
+	for (char c = 'a'; c <= 'z'; c++) {
+	    CLASSES[c] = WORD | LOCAL | DOMAIN;
+	    CLASSES[Character.toUpperCase(c)] = WORD | LOCAL | DOMAIN;
+	}
+	for (final char c : "!#$%&'*+/=?^`{|}~".toCharArray()) {
+	    CLASSES[c] = LOCAL;
+	}
+	CLASSES['.'] = LOCAL | DOMAIN;
+	CLASSES['-'] = LOCAL | DOMAIN;
+	CLASSES['_'] = WORD | LOCAL;
+	CLASSES['@'] = WORD;
+    }
+
+    private final boolean taxNumbers;
+
+    private final boolean idCards;
+
+    private final boolean citizenCards;
+
+    private final boolean emails;
+
+    /**
+     * Creates a scanner that finds every kind of identifiers.
+     */
+    public IdentifierScanner() {
+	this(EnumSet.allOf(Kind.class));
+    }
+
+    /**
+     * 
+     * @param kinds
+     *            the kinds of identifiers to be found
+     */
+    public IdentifierScanner(final Set<Kind> kinds) {
+	this.taxNumbers = kinds.contains(Kind.TAX_NUMBER);
+	this.idCards = kinds.contains(Kind.IDENTIFICATION_CARD);
+	this.citizenCards = kinds.contains(Kind.CITIZEN_CARD);
+	this.emails = kinds.contains(Kind.EMAIL);
+    }
+
+    /**
+     * 
+     * @param text
+     *            the text to be scanned
+     * @param listener
+     *            the listener of the identifiers found
+     * @return the number of identifiers found
+     */
+    public long scan(final CharSequence text, final Listener listener) {
+	final Scan scan = new Scan(listener);
+	final int length = text.length();
+	for (int i = 0; i < length; i++) {
+	    scan.feed(text.charAt(i), i);
+	}
+	scan.feed(END, length);
+	return scan.found;
+    }
+
+    /**
+     * 
+     * @param reader
+     *            the text to be scanned. It is read to its end, but not closed.
+     * @param listener
+     *            the listener of the identifiers found
+     * @return the number of identifiers found
+     * 
+     * @throws IOException
+     *             if the text cannot be read
+     */
+    public long scan(final Reader reader, final Listener listener) throws IOException {
+	final Scan scan = new Scan(listener);
+	final char[] buffer = new char[BUFFER_SIZE];
+	long position = 0;
+	int read;
+	while ((read = reader.read(buffer)) >= 0) {
+	    for (int i = 0; i < read; i++) {
+		scan.feed(buffer[i], position++);
+	    }
+	}
+	scan.feed(END, position);
+	return scan.found;
+    }
+
+    private static int classOf(final char c) {
+	if (c < ASCII_LIMIT) {
+	    return CLASSES[c];
+	}
+	return Character.isLetterOrDigit(c) ? WORD : 0;
+    }
+
+    /**
+     * 
+     * @return the citizen card value of <code>c</code>, from 0 for '0' to 35 for 'Z', or -1 if it is neither a digit nor an upper case letter.
+     */
+    private static int citizenCardValue(final char c) {
+	if (c >= '0' && c <= '9') {
+	    return c - '0';
+	}
+	return c >= 'A' && c <= 'Z' ? c - 'A' + 10 : -1;
+    }
+
+    /**
+     * The state of a single scan.
+     */
+    private final class Scan {
+
+	final Listener listener;
+
+	long found;
+
+	int state = BOUNDARY;
+
+	long tokenStart;
+
+	int significant;
+
+	int firstDigit;
+
+	int lastDigit;
+
+	int digitSum;
+
+	int indexSum;
+
+	int citizenCardSum;
+
+	long separator = -1;
+
+	/**
+	 * Whether the separator came before the check digit of the document number, so that a second one may follow that digit.
+	 */
+	boolean printed;
+
+	/**
+	 * Whether the second separator of the printed layout was read.
+	 */
+	boolean split;
+
+	Kind pending;
+
+	/**
+	 * The chars read after the separator, to be read again as a new token if the citizen card number turns out not to be one: the significant chars
+	 * after the 8 digits of a printed one, its second separator and the char that ends it.
+	 */
+	final char[] replay = new char[CITIZEN_CARD_LENGTH - MINIMUM_ID_CARD_LENGTH + 2];
+
+	int replayLength;
+
+	boolean inDomain;
+
+	long emailStart;
+
+	int emailLength;
+
+	final char[] email = new char[EMAIL_LIMIT];
+
+	Scan(final Listener listener) {
+	    this.listener = listener;
+	}
+
+	void feed(final char c, final long position) {
+	    final int charClass = classOf(c);
+	    if (taxNumbers || idCards || citizenCards) {
+		feedNumber(c, charClass, position);
+	    }
+	    if (emails) {
+		feedEmail(c, charClass, position);
+	    }
+	}
+
+	private void feedNumber(final char c, final int charClass, final long position) {
+	    switch (state) {
+	    case BOUNDARY:
+		if (c >= '0' && c <= '9') {
+		    tokenStart = position;
+		    significant = 0;
+		    digitSum = 0;
+		    indexSum = 0;
+		    citizenCardSum = 0;
+		    separator = -1;
+		    firstDigit = c - '0';
+		    add(c);
+		    state = IN_TOKEN;
+		} else if ((charClass & WORD) != 0) {
+		    state = IN_WORD;
+		}
+		break;
+	    case IN_WORD:
+		if ((charClass & WORD) == 0) {
+		    state = BOUNDARY;
+		}
+		break;
+	    case AFTER_SEPARATOR:
+		if (citizenCardValue(c) < 0) {
+		    // the separator only ended the number
+		    state = BOUNDARY;
+		    report(pending, tokenStart, separator);
+		    feedNumber(c, charClass, position);
+		    break;
+		}
+		state = IN_TOKEN;
+		feedToken(c, charClass, position);
+		break;
+	    case IN_TOKEN:
+		feedToken(c, charClass, position);
+		break;
+	    default:
+		break;
+	    }
+	}
+
+	private void feedToken(final char c, final int charClass, final long position) {
+	    if (separator >= 0) {
+		replay[replayLength++] = c;
+	    }
+	    if (citizenCardValue(c) >= 0) {
+		if (!add(c)) {
+		    fail(position);
+		}
+	    } else if ((c == ' ' || c == '-') && separator < 0 && (significant == DOCUMENT_LENGTH || significant == MINIMUM_ID_CARD_LENGTH)) {
+		separator = position;
+		printed = significant == MINIMUM_ID_CARD_LENGTH;
+		split = false;
+		pending = numberKind();
+		replayLength = 0;
+		state = AFTER_SEPARATOR;
+	    } else if ((c == ' ' || c == '-') && printed && !split && significant == DOCUMENT_LENGTH) {
+		// the second separator of the printed layout, after the check digit of the document number
+		split = true;
+	    } else if ((charClass & WORD) != 0) {
+		fail(position);
+	    } else {
+		end(position);
+	    }
+	}
+
+	/**
+	 * Adds a significant char to the token, updating the sums of every scheme it may belong to.
+	 * 
+	 * @return false if the token cannot be an identifier anymore.
+	 */
+	private boolean add(final char c) {
+	    final int value = citizenCardValue(c);
+	    final int index = significant++;
+	    if (index >= CITIZEN_CARD_LENGTH || (value > 9 && index != DOCUMENT_LENGTH && index != DOCUMENT_LENGTH + 1)) {
+		// only the 2 chars of the version of citizen card numbers can be letters
+		return false;
+	    }
+	    if (index < DOCUMENT_LENGTH) {
+		digitSum += value;
+		indexSum += index * value;
+		lastDigit = value;
+	    }
+	    // the chars at even positions of citizen card numbers are doubled, minus 9 when the double is above 9
+	    citizenCardSum += (index & 1) == 0 ? (value * 2 > 9 ? value * 2 - 9 : value * 2) : value;
+	    return true;
+	}
+
+	/**
+	 * Ends the token at a word char that makes it an invalid one.
+	 */
+	private void fail(final long position) {
+	    if (separator >= 0) {
+		replayAfterSeparator(position);
+	    } else {
+		state = IN_WORD;
+	    }
+	}
+
+	/**
+	 * Ends the token at a boundary char.
+	 */
+	private void end(final long position) {
+	    if (significant == CITIZEN_CARD_LENGTH && citizenCards && citizenCardSum % 10 == 0) {
+		report(Kind.CITIZEN_CARD, tokenStart, position);
+		state = BOUNDARY;
+	    } else if (separator >= 0) {
+		replayAfterSeparator(position);
+	    } else {
+		report(numberKind(), tokenStart, position);
+		state = BOUNDARY;
+	    }
+	}
+
+	/**
+	 * Reports the number before the separator, and reads again the chars after it, the current one included, as a new token.
+	 */
+	private void replayAfterSeparator(final long position) {
+	    report(pending, tokenStart, separator);
+	    final int length = replayLength;
+	    final long from = position - length + 1;
+	    // the new token cannot reach a separator within the replayed chars, so they are not overwritten while being read again
+	    separator = -1;
+	    replayLength = 0;
+	    state = BOUNDARY;
+	    for (int i = 0; i < length; i++) {
+		feedNumber(replay[i], classOf(replay[i]), from + i);
+	    }
+	}
+
+	/**
+	 * 
+	 * @return the kind of the 8 or 9 digits token, or null if it is not a valid number.
+	 */
+	private Kind numberKind() {
+	    if (significant == MINIMUM_ID_CARD_LENGTH) {
+		return idCards && isValidMod11() ? Kind.IDENTIFICATION_CARD : null;
+	    }
+	    return documentKind();
+	}
+
+	/**
+	 * 
+	 * @return the kind of the 9 digits token, or null if it is not a valid number.
+	 */
+	private Kind documentKind() {
+	    if (significant != DOCUMENT_LENGTH || !isValidMod11()) {
+		return null;
+	    }
+	    // the first digit of tax numbers must be one of 1, 2, 5, 6, 7, 8 or 9
+	    if (taxNumbers && firstDigit != 0 && firstDigit != 3 && firstDigit != 4) {
+		return Kind.TAX_NUMBER;
+	    }
+	    return idCards ? Kind.IDENTIFICATION_CARD : null;
+	}
+
+	private boolean isValidMod11() {
+	    // the weights grow from the right: the digit at index i has weight length - i, so the check digit has weight 1
+	    final int sum = significant * digitSum - indexSum;
+	    return CheckDigitEngine.checkDigit(sum - lastDigit) == lastDigit;
+	}
+
+	private void feedEmail(final char c, final int charClass, final long position) {
+	    if (inDomain) {
+		if ((charClass & DOMAIN) != 0) {
+		    appendEmail(c);
+		    return;
+		}
+		endEmail();
+	    }
+	    if (c == '@' && emailLength > 0 && emailLength < EMAIL_LIMIT) {
+		appendEmail(c);
+		inDomain = true;
+	    } else if ((charClass & LOCAL) != 0) {
+		if (emailLength == 0) {
+		    emailStart = position;
+		}
+		appendEmail(c);
+	    } else {
+		emailLength = 0;
+	    }
+	}
+
+	private void appendEmail(final char c) {
+	    if (emailLength < EMAIL_LIMIT) {
+		email[emailLength] = c;
+	    }
+	    emailLength++;
+	}
+
+	private void endEmail() {
+	    inDomain = false;
+	    final int length = emailLength;
+	    emailLength = 0;
+	    if (length > EMAIL_LIMIT) {
+		return;
+	    }
+	    // the dots and hyphens that end a sentence and the dots and apostrophes that open the address do not belong to it
+	    int to = length;
+	    while (email[to - 1] == '.' || email[to - 1] == '-') {
+		to--;
+	    }
+	    int from = 0;
+	    while (email[from] == '.' || email[from] == '\'') {
+		from++;
+	    }
+	    if (email[from] != '@' && email[to - 1] != '@' && EmailValidator.isValid(new String(email, from, to - from))) {
+		report(Kind.EMAIL, emailStart + from, emailStart + to);
+	    }
+	}
+
+	private void report(final Kind kind, final long start, final long end) {
+	    if (kind != null) {
+		found++;
+		listener.found(kind, start, end);
+	    }
+	}
+    }
+}
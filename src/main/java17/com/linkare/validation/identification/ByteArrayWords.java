@@ -0,0 +1,48 @@
+package com.linkare.validation.identification;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * 
+ * Reads 8 ASCII chars of a <code>byte[]</code> as a single little endian <code>long</code>, for the {@link SwarDigits} kernels of the <code>byte[]</code>
+ * entry points of {@link CheckDigitEngine}.
+ * 
+ * This is the Java 17 implementation of the multi-release jar. The word is read through a byte array view <code>VarHandle</code>, which the JIT compiles
+ * to a single, possibly unaligned, load, so the engine uses the SWAR kernels for <code>byte[]</code> numbers as it does for <code>ByteBuffer</code> ones.
+ * 
+ * @author Linkare TI
+ * 
+ */
+final class ByteArrayWords {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private ByteArrayWords() {
+    }
+
+    /**
+     * 
+     * @return true if {@link #word(byte[], int)} is a single load, and so worth using instead of the scalar loops. It is a method rather than a
+     *         constant, which javac would inline in the callers compiled against the other implementation, and the JIT folds it all the same.
+     */
+    static boolean isIntrinsic() {
+	return true;
+    }
+
+    /**
+     * 
+     * @param array
+     *            the array holding the chars
+     * @param index
+     *            the index of the first char
+     * @return the 8 chars from the <code>index</code>, with the first one in the lowest byte.
+     * 
+     * @throws IndexOutOfBoundsException
+     *             if the 8 chars do not fit in the <code>array</code>.
+     */
+    static long word(final byte[] array, final int index) {
+	return (long) LONGS.get(array, index);
+    }
+}
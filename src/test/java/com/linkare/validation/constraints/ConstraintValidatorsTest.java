@@ -0,0 +1,79 @@
+package com.linkare.validation.constraints;
+
+import java.lang.annotation.Annotation;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ *
+ */
+public class ConstraintValidatorsTest {
+
+    /**
+     * A bean annotated as the Bean Validation provider would see it.
+     */
+    static final class Person {
+
+	@ValidNif
+	String taxNumber;
+
+	@ValidNif(country = "es")
+	String spanishTaxNumber;
+
+	@ValidIdCard
+	String idCardNumber;
+
+	@ValidCitizenCard
+	String citizenCardNumber;
+
+	@ValidEmail
+	String email;
+    }
+
+    private static <A extends Annotation> A constraint(final String field, final Class<A> type) throws NoSuchFieldException {
+	return Person.class.getDeclaredField(field).getAnnotation(type);
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.constraints.ValidNifValidator#isValid(CharSequence, javax.validation.ConstraintValidatorContext)} and
+     * {@link com.linkare.validation.constraints.ValidIdCardValidator#isValid(CharSequence, javax.validation.ConstraintValidatorContext)}.
+     */
+    @Test
+    public void testCountryConstraints() throws Exception {
+	final ValidNifValidator nif = new ValidNifValidator();
+	nif.initialize(constraint("taxNumber", ValidNif.class));
+	Assert.assertTrue("It should be valid", nif.isValid("217186246", null));
+	Assert.assertTrue("It should be valid, since null values are left to @NotNull", nif.isValid(null, null));
+	Assert.assertFalse("It should fail, since the check digit is wrong", nif.isValid(new StringBuilder("217186247"), null));
+	final ValidIdCardValidator idCard = new ValidIdCardValidator();
+	idCard.initialize(constraint("idCardNumber", ValidIdCard.class));
+	Assert.assertTrue("It should be valid", idCard.isValid("120972778", null));
+	Assert.assertFalse("It should fail, since it is not numeric", idCard.isValid("d12097277", null));
+	try {
+	    new ValidNifValidator().initialize(constraint("spanishTaxNumber", ValidNif.class));
+	    Assert.fail("It should fail, since no rules are registered for ES");
+	} catch (UnsupportedOperationException e) {
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.constraints.ValidCitizenCardValidator#isValid(CharSequence, javax.validation.ConstraintValidatorContext)}
+     * and {@link com.linkare.validation.constraints.ValidEmailValidator#isValid(CharSequence, javax.validation.ConstraintValidatorContext)}.
+     */
+    @Test
+    public void testCitizenCardAndEmailConstraints() throws Exception {
+	final ValidCitizenCardValidator citizenCard = new ValidCitizenCardValidator();
+	citizenCard.initialize(constraint("citizenCardNumber", ValidCitizenCard.class));
+	Assert.assertTrue("It should be valid", citizenCard.isValid("153846575ZZ0", null));
+	Assert.assertFalse("It should fail instead of throwing, since it is too short", citizenCard.isValid("153846575ZZ", null));
+	Assert.assertFalse("It should fail instead of throwing, since it contains lowercase letters", citizenCard.isValid("000000000zz4", null));
+	final ValidEmailValidator email = new ValidEmailValidator();
+	email.initialize(constraint("email", ValidEmail.class));
+	Assert.assertTrue("It should be valid", email.isValid("john.doe@example.com", null));
+	Assert.assertFalse("It should fail, since the domain is missing", email.isValid("john.doe@", null));
+	Assert.assertTrue("It should be valid, since null values are left to @NotNull", email.isValid(null, null));
+    }
+}
@@ -0,0 +1,84 @@
+package com.linkare.validation.email;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.linkare.validation.identification.FailureReason;
+
+/**
+ * @author Linkare TI
+ * 
+ */
+public class EmailBatchValidatorTest {
+
+    private static final String[] EMAILS = { "jpereira@linkare.com", "pmatrola@linkare.com", "us..er@linkare.com", "jpereira@linkare.c", null, "  ",
+	    "(comment)john@example.com", "\"a@b\"@example.com", "nobody", "ana@example.com", "rui@linkare.c", "a@b@example.com" };
+
+    private static String[] imports(final int size) {
+	final String[] users = { "ana", "rui.silva", "j'pereira", "us..er", "" };
+	final String[] domains = { "linkare.com", "example.pt", "gmail.com", "linkare.c", "exa mple.com" };
+	final String[] emails = new String[size];
+	for (int i = 0; i < size; i++) {
+	    emails[i] = users[i % users.length] + i % 7 + '@' + domains[i % 11 % domains.length];
+	}
+	return emails;
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailBatchValidator#validate(CharSequence[])}.
+     */
+    @Test
+    public void testValidate() {
+	final EmailBatchResult result = new EmailBatchValidator().validate(EMAILS);
+	Assert.assertEquals("It should validate every address", EMAILS.length, result.getSize());
+	for (int i = 0; i < EMAILS.length; i++) {
+	    Assert.assertEquals("Unexpected validity for " + EMAILS[i], EmailValidator.isValid(EMAILS[i], EmailValidator.Mode.NATIVE), result.isValid(i));
+	}
+	Assert.assertEquals("It should count the valid addresses", 5, result.getValidCount());
+	Assert.assertEquals("It should count the null and blank addresses", 2, result.getReasonCount(FailureReason.BLANK));
+	Assert.assertEquals("It should count the bad local parts", 1, result.getReasonCount(FailureReason.BAD_LOCAL_PART));
+	Assert.assertEquals("It should count the bad domains", 3, result.getReasonCount(FailureReason.BAD_DOMAIN));
+	Assert.assertEquals("It should count the addresses that cannot be split", 1, result.getReasonCount(FailureReason.INVALID));
+	Assert.assertTrue("It should list the invalid addresses", Arrays.equals(new int[] { 2, 3, 4, 5, 8, 10, 11 }, result.getInvalidIndices()));
+	Assert.assertEquals("It should validate with the largest threshold", 5,
+			    new EmailBatchValidator(ForkJoinPool.commonPool(), Integer.MAX_VALUE).validate(EMAILS).getValidCount());
+	Assert.assertEquals("It should validate each domain once", 4, result.getDomainValidations());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailBatchValidator#validate(CharSequence[])} with a batch split across several tasks.
+     */
+    @Test
+    public void testParallel() {
+	final String[] emails = imports(100000);
+	final ForkJoinPool pool = new ForkJoinPool(4);
+	try {
+	    final EmailBatchResult result = new EmailBatchValidator(pool, 1000).validate(emails);
+	    int valid = 0;
+	    for (int i = 0; i < emails.length; i++) {
+		final boolean expected = EmailValidator.isValid(emails[i], EmailValidator.Mode.NATIVE);
+		Assert.assertEquals("Unexpected validity for " + emails[i], expected, result.isValid(i));
+		if (expected) {
+		    valid++;
+		}
+	    }
+	    Assert.assertEquals("It should count the valid addresses", valid, result.getValidCount());
+	    Assert.assertEquals("It should count every address", emails.length, result.getValidCount() + result.getReasonCount(FailureReason.BAD_LOCAL_PART)
+									      + result.getReasonCount(FailureReason.BAD_DOMAIN));
+	    Assert.assertTrue("It should validate each domain at most once per worker", result.getDomainValidations() <= 5 * 4);
+	} finally {
+	    pool.shutdown();
+	}
+	final ForkJoinPool single = new ForkJoinPool(1);
+	try {
+	    final EmailBatchResult sequential = new EmailBatchValidator(single, 1000).validate(Arrays.asList(emails));
+	    Assert.assertEquals("It should validate each domain once", 5, sequential.getDomainValidations());
+	} finally {
+	    single.shutdown();
+	}
+    }
+}
@@ -0,0 +1,165 @@
+package com.linkare.validation.email;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ *
+ */
+public class EmailDomainVerifierTest {
+
+    /**
+     * In-memory stand-in for the DNS, which counts the lookups and can hold them until released.
+     */
+    private static final class MapResolver implements DomainResolver {
+
+	private final Set<String> domains;
+
+	private final CountDownLatch release;
+
+	private final AtomicInteger lookups = new AtomicInteger();
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	private final AtomicInteger maximumRunning = new AtomicInteger();
+
+	MapResolver(final CountDownLatch release, final String... domains) {
+	    this.release = release;
+	    this.domains = new HashSet<String>();
+	    Collections.addAll(this.domains, domains);
+	}
+
+	@Override
+	public boolean canReceiveMail(final String domain) throws IOException {
+	    lookups.incrementAndGet();
+	    final int current = running.incrementAndGet();
+	    maximumRunning.accumulateAndGet(current, Math::max);
+	    try {
+		release.await();
+	    } catch (InterruptedException e) {
+		throw new IOException(e);
+	    } finally {
+		running.decrementAndGet();
+	    }
+	    if (domain.startsWith("fail.")) {
+		throw new IOException("The name server did not answer");
+	    }
+	    if (domain.startsWith("error.")) {
+		throw new NoClassDefFoundError("javax/naming/directory/InitialDirContext");
+	    }
+	    return domains.contains(domain);
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailDomainVerifier#verify(String)}.
+     */
+    @Test
+    public void testVerify() throws Exception {
+	final MapResolver resolver = new MapResolver(new CountDownLatch(0), "linkare.com");
+	try (final EmailDomainVerifier verifier = new EmailDomainVerifier(resolver, 1, TimeUnit.MINUTES, 4)) {
+	    Assert.assertTrue("It should be deliverable", verifier.verify("jpereira@Linkare.COM").get().booleanValue());
+	    Assert.assertTrue("It should be deliverable", verifier.verify("\"a@b\"@linkare.com (comment)").get().booleanValue());
+	    Assert.assertFalse("It should not be deliverable", verifier.verify("jpereira@example.com").get().booleanValue());
+	    Assert.assertFalse("It should fail, since the syntax is not valid", verifier.verify("jpereira@linkare.c").get().booleanValue());
+	    Assert.assertFalse("It should fail, since it is null", verifier.verify(null).get().booleanValue());
+	    Assert.assertEquals("It should only look up each domain once", 2, resolver.lookups.get());
+	    Assert.assertEquals("It should answer the repeated domain from the cache", 1, verifier.getHits());
+	    try {
+		verifier.verifyDomain("fail.example.com").get();
+		Assert.fail("It should fail, since the lookup failed");
+	    } catch (ExecutionException e) {
+		Assert.assertTrue("It should report the failure of the resolver", e.getCause() instanceof IOException);
+	    }
+	    Assert.assertEquals("It should not cache the failed lookup", 2, verifier.size());
+	    for (int i = 0; i < 2; i++) {
+		try {
+		    verifier.verifyDomain("error.example.com").get(10, TimeUnit.SECONDS);
+		    Assert.fail("It should fail, since the resolver threw an error");
+		} catch (ExecutionException e) {
+		    Assert.assertTrue("It should report the error of the resolver", e.getCause() instanceof NoClassDefFoundError);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailDomainVerifier#verify(String)} with comments holding '@' and with address literals.
+     */
+    @Test
+    public void testCommentsAndAddressLiterals() throws Exception {
+	final MapResolver resolver = new MapResolver(new CountDownLatch(0), "linkare.com");
+	try (final EmailDomainVerifier verifier = new EmailDomainVerifier(resolver, 1, TimeUnit.MINUTES, 4)) {
+	    Assert.assertTrue("It should ignore the '@' of the trailing comment", verifier.verify("jpereira@linkare.com (x@y)").get().booleanValue());
+	    Assert.assertTrue("It should ignore the '@' of the leading comment", verifier.verify("(a@b.com) jpereira@linkare.com").get().booleanValue());
+	    Assert.assertTrue("It should deliver to the address literal", verifier.verify("user@[10.0.0.1]").get().booleanValue());
+	    Assert.assertEquals("It should only look up the domain", 1, resolver.lookups.get());
+	    Assert.assertEquals("It should not cache the address literal", 1, verifier.size());
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailDomainVerifier#verifyDomain(String)} with concurrent lookups.
+     */
+    @Test
+    public void testCoalescingAndConcurrency() throws Exception {
+	final CountDownLatch release = new CountDownLatch(1);
+	final MapResolver resolver = new MapResolver(release, "linkare.com");
+	try (final EmailDomainVerifier verifier = new EmailDomainVerifier(resolver, 1, TimeUnit.MINUTES, 2)) {
+	    final CompletableFuture<?>[] futures = new CompletableFuture<?>[20];
+	    for (int i = 0; i < futures.length; i++) {
+		futures[i] = verifier.verifyDomain(i % 2 == 0 ? "linkare.com" : "domain" + i + ".com");
+	    }
+	    Assert.assertEquals("It should join the lookups in flight", 9, verifier.getCoalesced());
+	    release.countDown();
+	    CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+	    Assert.assertTrue("It should be deliverable", ((Boolean) futures[18].get()).booleanValue());
+	    Assert.assertEquals("It should look up each distinct domain once", 11, resolver.lookups.get());
+	    Assert.assertTrue("It should respect the maximum concurrency", resolver.maximumRunning.get() <= 2);
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailDomainVerifier#verifyDomain(String)} with expired outcomes.
+     */
+    @Test
+    public void testTimeToLive() throws Exception {
+	final AtomicLong now = new AtomicLong();
+	final MapResolver resolver = new MapResolver(new CountDownLatch(0), "linkare.com");
+	try (final EmailDomainVerifier verifier = new EmailDomainVerifier(resolver, 100, 1, 1, now::get)) {
+	    verifier.verifyDomain("linkare.com").get();
+	    now.set(99);
+	    verifier.verifyDomain("linkare.com").get();
+	    Assert.assertEquals("It should answer from the cache before the outcome expires", 1, resolver.lookups.get());
+	    now.set(100);
+	    verifier.verifyDomain("linkare.com").get();
+	    Assert.assertEquals("It should look up the expired domain again", 2, resolver.lookups.get());
+	    Assert.assertFalse("It should not be deliverable", verifier.verifyDomain("example.com").get().booleanValue());
+	    Assert.assertEquals("It should respect the capacity", 1, verifier.size());
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailDomainVerifier#domainOf(String)}.
+     */
+    @Test
+    public void testDomainOf() {
+	Assert.assertEquals("It should lower the case", "linkare.com", EmailDomainVerifier.domainOf("jpereira@Linkare.Com"));
+	Assert.assertEquals("It should skip comments and blanks", "linkare.com", EmailDomainVerifier.domainOf("\"a@b\"@linkare.com(x(y)) "));
+	Assert.assertEquals("It should skip the '@' of comments", "linkare.com", EmailDomainVerifier.domainOf("(a@b)jpereira@linkare.com (x@y\\)z@w)"));
+	Assert.assertEquals("It should keep the address literal", "[10.0.0.1]", EmailDomainVerifier.domainOf("user@[10.0.0.1]"));
+    }
+}
\ No newline at end of file
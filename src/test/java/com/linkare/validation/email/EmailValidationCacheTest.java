@@ -0,0 +1,90 @@
+package com.linkare.validation.email;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ * 
+ */
+public class EmailValidationCacheTest {
+
+    @After
+    public void tearDown() throws Exception {
+	EmailValidator.setCache(null);
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailValidationCache#isValid(String)}.
+     */
+    @Test
+    public void testHitsAndMisses() {
+	final EmailValidationCache cache = new EmailValidationCache(100);
+	Assert.assertTrue("It should be valid", cache.isValid("jpereira@linkare.com"));
+	Assert.assertTrue("It should be valid", cache.isValid("jpereira@linkare.com"));
+	Assert.assertTrue("It should be valid", cache.isValid("pmatrola@linkare.com"));
+	Assert.assertFalse("It should be invalid", cache.isValid("jpereira@linkare.c"));
+	Assert.assertFalse("It should be invalid", cache.isValid("jpereira@linkare.c"));
+	Assert.assertFalse("It should be invalid", cache.isValid(null));
+	Assert.assertEquals("It should count the repeated addresses as hits", 2, cache.getHits());
+	Assert.assertEquals("It should count the new addresses as misses", 3, cache.getMisses());
+	Assert.assertEquals("It should reuse the domain of the second address", 1, cache.getDomainHits());
+	Assert.assertEquals("It should validate two distinct domains", 2, cache.getDomainMisses());
+	Assert.assertEquals("It should keep the validated addresses", 3, cache.size());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailValidationCache#isValid(String)} with addresses that cannot be split.
+     */
+    @Test
+    public void testCommentsAreNotSplit() {
+	final EmailValidationCache cache = new EmailValidationCache(100);
+	Assert.assertTrue("It should be valid", cache.isValid("(comment)john@example.com"));
+	Assert.assertTrue("It should be valid", cache.isValid("\"a@b\"@example.com"));
+	Assert.assertFalse("It should be invalid", cache.isValid("a@b@example.com"));
+	Assert.assertEquals("It should only split the addresses without comments", 2, cache.getDomainMisses());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailValidationCache#EmailValidationCache(int, EmailValidationCache.Eviction)}.
+     */
+    @Test
+    public void testEviction() {
+	final EmailValidationCache lru = new EmailValidationCache(2, EmailValidationCache.Eviction.LRU);
+	lru.isValid("a@example.com");
+	lru.isValid("b@example.com");
+	lru.isValid("a@example.com");
+	lru.isValid("c@example.com");
+	Assert.assertEquals("It should keep the capacity", 2, lru.size());
+	Assert.assertEquals("It should evict one address and no domain", 1, lru.getEvictions());
+	lru.isValid("a@example.com");
+	Assert.assertEquals("It should have kept the recently used address", 2, lru.getHits());
+
+	final EmailValidationCache fifo = new EmailValidationCache(2, EmailValidationCache.Eviction.FIFO);
+	fifo.isValid("a@example.com");
+	fifo.isValid("b@example.com");
+	fifo.isValid("a@example.com");
+	fifo.isValid("c@example.com");
+	fifo.isValid("a@example.com");
+	Assert.assertEquals("It should have evicted the oldest address", 1, fifo.getHits());
+	fifo.clear();
+	Assert.assertEquals("It should be empty", 0, fifo.size());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailValidator#setCache(EmailValidationCache)}.
+     */
+    @Test
+    public void testInstalledCache() {
+	final EmailValidationCache cache = new EmailValidationCache(100);
+	EmailValidator.setCache(cache);
+	Assert.assertTrue("It should be valid", EmailValidator.isValid("jpereira@linkare.com"));
+	Assert.assertTrue("It should be valid", EmailValidator.isValid("jpereira@linkare.com"));
+	Assert.assertEquals("It should have used the cache", 1, cache.getHits());
+	EmailValidator.setCache(null);
+	Assert.assertTrue("It should be valid", EmailValidator.isValid("jpereira@linkare.com"));
+	Assert.assertEquals("It should not use a removed cache", 1, cache.getHits());
+    }
+}
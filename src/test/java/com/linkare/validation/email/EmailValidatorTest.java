@@ -0,0 +1,76 @@
+package com.linkare.validation.email;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.linkare.validation.email.EmailValidator.Mode;
+
+/**
+ * 
+ * Checks that the native parser and the commons-validator implementation agree on a corpus of accepted and rejected addresses.
+ * 
+ * @author Linkare TI
+ * 
+ */
+public class EmailValidatorTest {
+
+    private static final String[] ACCEPTED = { "jpereira@linkare.com", "joao.silva@mail.example.pt", "j_pereira+news@gmail.com",
+	    "first.last@sub.domain.example.co.uk", "\"quoted user\"@example.com", "\"a@b\"@example.com", "\"john\".smith@example.com", "o'neil@example.ie",
+	    "user@exam_ple.com", "user@ex-ample.com", "user@123.example.com", "!#$%&*+/=?^_`{|}~-@example.org", "UPPER@EXAMPLE.COM",
+	    "(comment)john@example.com", "john@example.com(home)", "(nested (comment))john@example.com", " leading@example.com", "trailing@example.com ",
+	    "final@example.com\n", "user@[127.0.0.1]", "someone@[216.109.118.76]", "\"quoted\u0001control\"@example.com",
+	    "(escaped \\) parenthesis) john@example.com", "(comment\nwith new line)john@example.com" };
+
+    private static final String[] REJECTED = { "", " ", "plainaddress", "@example.com", "user@", "user@example", "user@example.c", "user@example.com.",
+	    "user@.example.com", "user@example..com", "us..er@example.com", ".user@example.com", "user.@example.com", "user@exa mple.com",
+	    "us er@example.com", "user @example.com", "user@ example.com", "user@example.c0m", "josé@example.com",
+	    "user@exámple.com", "a@b@example.com", "user(unclosed@example.com", "user)@example.com", "user@example.com)", "<user@example.com>",
+	    "user@example,com", "user;x@example.com", "\"unclosed@example.com", "user@domain'quote.com", "user\"x\"@example.com", "two\nlines@example.com",
+	    "user@example.com\n\n", "user@exam\\ple.com", "user@[256.1.1.1]", "user@[1.2.3]", "user@[1.2.3.4.5]",
+	    "user@[1234.1.1.1]", "user@[1..2.3]", "user@[1.2.3.4] ", "user@[1.2.3.4].com", "user@example.[1.2.3.4]", "foo\u0001bar@domain.com",
+	    "user@exa\u001fmple.com", "user\u007f@example.com", "user@example.com\u0000", "\u0000user@example.com", "john(comment)@example.com",
+	    "jo(nested (comment))hn@example.com", "john@(comment)example.com", "john@example(comment).com", "user@[1.2.3.4](comment)",
+	    "\"escaped quote\\\"@example.com (comment)" };
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailValidator#isValid(String, Mode)} with the accepted corpus.
+     */
+    @Test
+    public void testAcceptedCorpus() {
+	for (final String email : ACCEPTED) {
+	    Assert.assertTrue("The native parser should accept " + email, EmailValidator.isValid(email, Mode.NATIVE));
+	    Assert.assertTrue("commons-validator should accept " + email, EmailValidator.isValid(email, Mode.COMMONS_VALIDATOR));
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailValidator#isValid(String, Mode)} with the rejected corpus.
+     */
+    @Test
+    public void testRejectedCorpus() {
+	for (final String email : REJECTED) {
+	    Assert.assertFalse("The native parser should reject " + email, EmailValidator.isValid(email, Mode.NATIVE));
+	    Assert.assertFalse("commons-validator should reject " + email, EmailValidator.isValid(email, Mode.COMMONS_VALIDATOR));
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailValidator#isValid(String)}.
+     */
+    @Test
+    public void testIsValidString() {
+	Assert.assertTrue("It should not fail, since the address is valid", EmailValidator.isValid("jpereira@linkare.com"));
+	Assert.assertFalse("It should fail, since the address has no domain", EmailValidator.isValid("jpereira"));
+	Assert.assertFalse("It should fail, since the address is null", EmailValidator.isValid(null));
+	Assert.assertFalse("It should fail, since the address is null", EmailValidator.isValid(null, Mode.COMMONS_VALIDATOR));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.email.EmailValidator#isValid(String, Mode)} with a domain that commons-validator cannot handle.
+     */
+    @Test
+    public void testManyLabels() {
+	Assert.assertTrue("The native parser should accept more than 10 labels", EmailValidator.isValid("user@a.b.c.d.e.f.g.h.i.j.example.com", Mode.NATIVE));
+    }
+}
@@ -0,0 +1,252 @@
+package com.linkare.validation.flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.linkare.validation.identification.NumberGenerator;
+import com.linkare.validation.identification.TaxNumberValidator;
+
+/**
+ * @author Linkare TI
+ * 
+ */
+public class ValidationProcessorTest {
+
+    /**
+     * Publishes a list synchronously, as requested, and records how much was requested.
+     */
+    private static final class ListPublisher implements Flow.Publisher<String> {
+
+	private final List<String> items;
+
+	private long requested;
+
+	private int next;
+
+	private boolean emitting;
+
+	private boolean cancelled;
+
+	ListPublisher(final List<String> items) {
+	    this.items = items;
+	}
+
+	@Override
+	public void subscribe(final Flow.Subscriber<? super String> subscriber) {
+	    subscriber.onSubscribe(new Flow.Subscription() {
+
+		@Override
+		public synchronized void request(final long n) {
+		    requested += n;
+		    if (emitting) {
+			return;
+		    }
+		    emitting = true;
+		    while (!cancelled && next < items.size() && next < requested) {
+			subscriber.onNext(items.get(next++));
+		    }
+		    emitting = false;
+		    if (!cancelled && next == items.size()) {
+			cancelled = true;
+			subscriber.onComplete();
+		    }
+		}
+
+		@Override
+		public synchronized void cancel() {
+		    cancelled = true;
+		}
+	    });
+	}
+    }
+
+    /**
+     * Collects the results, requesting <code>chunk</code> of them at a time.
+     */
+    private static class CollectingSubscriber implements Flow.Subscriber<Validated<String>> {
+
+	private final int chunk;
+
+	final List<Validated<String>> results = new ArrayList<Validated<String>>();
+
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	private Flow.Subscription subscription;
+
+	private int received;
+
+	private Throwable error;
+
+	CollectingSubscriber(final int chunk) {
+	    this.chunk = chunk;
+	}
+
+	@Override
+	public void onSubscribe(final Flow.Subscription subscription) {
+	    this.subscription = subscription;
+	    subscription.request(chunk);
+	}
+
+	@Override
+	public void onNext(final Validated<String> item) {
+	    results.add(item);
+	    if (++received % chunk == 0) {
+		subscription.request(chunk);
+	    }
+	}
+
+	@Override
+	public void onError(final Throwable throwable) {
+	    error = throwable;
+	    done.countDown();
+	}
+
+	@Override
+	public void onComplete() {
+	    done.countDown();
+	}
+    }
+
+    private static List<String> numbers(final int count) {
+	final int[] valid = NumberGenerator.taxNumbers("1256789", 22).limit(count).toArray();
+	final List<String> numbers = new ArrayList<String>(count);
+	for (int i = 0; i < count; i++) {
+	    // every third number gets a wrong check digit
+	    numbers.add(String.valueOf(i % 3 == 0 ? valid[i] / 10 * 10 + (valid[i] + 1) % 10 : valid[i]));
+	}
+	return numbers;
+    }
+
+    private static void assertInOrder(final List<String> numbers, final CollectingSubscriber subscriber) {
+	Assert.assertNull("It should not fail", subscriber.error);
+	Assert.assertEquals("It should emit every number", numbers.size(), subscriber.results.size());
+	for (int i = 0; i < numbers.size(); i++) {
+	    final Validated<String> result = subscriber.results.get(i);
+	    Assert.assertSame("It should keep the order", numbers.get(i), result.getValue());
+	    Assert.assertEquals("Unexpected validity for " + result.getValue(), TaxNumberValidator.isValid(numbers.get(i)), result.isValid());
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.flow.ValidationProcessor} validating in the thread that delivers the elements.
+     */
+    @Test
+    public void testInThread() throws Exception {
+	final List<String> numbers = numbers(1000);
+	final ListPublisher publisher = new ListPublisher(numbers);
+	final ValidationProcessor<String> processor = new ValidationProcessor<String>(TaxNumberValidator::isValid, 64, 2, null);
+	final CollectingSubscriber subscriber = new CollectingSubscriber(7);
+	publisher.subscribe(processor);
+	processor.subscribe(subscriber);
+	Assert.assertTrue("It should complete", subscriber.done.await(10, TimeUnit.SECONDS));
+	assertInOrder(numbers, subscriber);
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.flow.ValidationProcessor} validating the batches in parallel.
+     */
+    @Test
+    public void testExecutor() throws Exception {
+	final ExecutorService executor = Executors.newFixedThreadPool(4);
+	try {
+	    final List<String> numbers = numbers(20000);
+	    final ListPublisher publisher = new ListPublisher(numbers);
+	    final ValidationProcessor<String> processor = new ValidationProcessor<String>(TaxNumberValidator::isValid, 100, 8, executor);
+	    final CollectingSubscriber subscriber = new CollectingSubscriber(1000);
+	    processor.subscribe(subscriber);
+	    publisher.subscribe(processor);
+	    Assert.assertTrue("It should complete", subscriber.done.await(10, TimeUnit.SECONDS));
+	    assertInOrder(numbers, subscriber);
+	} finally {
+	    executor.shutdown();
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.flow.ValidationProcessor} with a subscriber slower than the upstream.
+     */
+    @Test
+    public void testBackpressure() throws Exception {
+	final ListPublisher publisher = new ListPublisher(numbers(1000));
+	final ValidationProcessor<String> processor = new ValidationProcessor<String>(TaxNumberValidator::isValid, 10, 3, null);
+	final CollectingSubscriber subscriber = new CollectingSubscriber(1) {
+
+	    @Override
+	    public void onSubscribe(final Flow.Subscription subscription) {
+		// it requests 5 elements only
+		subscription.request(5);
+	    }
+
+	    @Override
+	    public void onNext(final Validated<String> item) {
+		results.add(item);
+	    }
+	};
+	publisher.subscribe(processor);
+	processor.subscribe(subscriber);
+	Assert.assertEquals("It should only emit the requested elements", 5, subscriber.results.size());
+	Assert.assertEquals("It should not buffer more than the maximum batches", 30, publisher.requested);
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.flow.ValidationProcessor} with a slow upstream, which keeps the subscription open without filling a
+     * batch.
+     */
+    @Test
+    public void testOpenUpstream() throws Exception {
+	final List<String> numbers = numbers(10);
+	final ValidationProcessor<String> processor = new ValidationProcessor<String>(TaxNumberValidator::isValid, 64, 2, null);
+	final CountDownLatch emitted = new CountDownLatch(numbers.size());
+	final CollectingSubscriber subscriber = new CollectingSubscriber(100) {
+
+	    @Override
+	    public void onNext(final Validated<String> item) {
+		super.onNext(item);
+		emitted.countDown();
+	    }
+	};
+	final SubmissionPublisher<String> publisher = new SubmissionPublisher<String>();
+	try {
+	    publisher.subscribe(processor);
+	    processor.subscribe(subscriber);
+	    for (final String number : numbers) {
+		publisher.submit(number);
+	    }
+	    Assert.assertTrue("It should emit the partial batch while the upstream is open", emitted.await(10, TimeUnit.SECONDS));
+	    Assert.assertEquals("It should not complete", 1, subscriber.done.getCount());
+	    assertInOrder(numbers, subscriber);
+	} finally {
+	    publisher.close();
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.flow.ValidationProcessor} with a failing validator.
+     */
+    @Test
+    public void testFailingValidator() throws Exception {
+	final ListPublisher publisher = new ListPublisher(numbers(100));
+	final ValidationProcessor<String> processor = new ValidationProcessor<String>(number -> {
+	    throw new IllegalStateException("Broken validator");
+	}, 10, 2, null);
+	final CollectingSubscriber subscriber = new CollectingSubscriber(10);
+	publisher.subscribe(processor);
+	processor.subscribe(subscriber);
+	Assert.assertTrue("It should fail", subscriber.done.await(10, TimeUnit.SECONDS));
+	Assert.assertTrue("It should report the failure of the validator", subscriber.error instanceof IllegalStateException);
+	Assert.assertTrue("It should cancel the upstream", publisher.cancelled);
+	final CollectingSubscriber second = new CollectingSubscriber(10);
+	processor.subscribe(second);
+	Assert.assertTrue("It should reject a second subscriber", second.error instanceof IllegalStateException);
+    }
+}
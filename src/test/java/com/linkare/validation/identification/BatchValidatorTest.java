@@ -0,0 +1,117 @@
+package com.linkare.validation.identification;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ * 
+ */
+public class BatchValidatorTest {
+
+    private Locale portugalLocale;
+
+    @Before
+    public void setUp() throws Exception {
+	portugalLocale = new Locale("pt", "PT");
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.BatchValidator#validate(Locale, DocumentType, CharSequence[], BitSet)}.
+     */
+    @Test
+    public void testValidateArray() {
+	final BitSet valid = new BitSet();
+	valid.set(1);
+	final String[] numbers = { "217186246", "d17186246", null, "", "217186246" };
+	Assert.assertEquals("It should count two valid numbers", 2, BatchValidator.validate(portugalLocale, DocumentType.TAX_NUMBER, numbers, valid));
+	Assert.assertEquals("It should flag the valid numbers only", "{0, 4}", valid.toString());
+
+	final String[] cards = { "000000000ZZ4", "000000000ZZ5", "000000000ZZ", "000000000Z?4" };
+	valid.clear();
+	Assert.assertEquals("It should not throw for malformed citizen cards", 1,
+			    BatchValidator.validate(portugalLocale, DocumentType.CITIZEN_CARD, cards, valid));
+	Assert.assertEquals("It should flag the valid citizen card only", "{0}", valid.toString());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.BatchValidator#validate(Locale, DocumentType, java.util.List, BitSet)}.
+     */
+    @Test
+    public void testValidateList() {
+	final BitSet valid = new BitSet();
+	Assert.assertEquals("It should count one valid number", 1,
+			    BatchValidator.validate(portugalLocale, DocumentType.IDENTIFICATION_CARD, Arrays.asList("12097277", "120972778"), valid));
+	Assert.assertEquals("It should flag the valid number only", "{1}", valid.toString());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.BatchValidator#validate(Locale, DocumentType, byte[], int, int, int, BitSet)}.
+     */
+    @Test
+    public void testValidateRecords() throws Exception {
+	final byte[] records = ("0001 217186246 X\n" + "0002 d17186246 X\n" + "0003  21718624 X\n" + "0004 217186246 X\n").getBytes("US-ASCII");
+	final BitSet valid = new BitSet();
+	Assert.assertEquals("It should count two valid numbers", 2,
+			    BatchValidator.validate(portugalLocale, DocumentType.TAX_NUMBER, records, 17, 4, 11, valid));
+	Assert.assertEquals("It should flag the valid numbers only", "{0, 3}", valid.toString());
+	try {
+	    BatchValidator.validate(portugalLocale, DocumentType.TAX_NUMBER, records, 16, 4, 11, valid);
+	    Assert.fail("It was supposed to throw one IllegalArgumentException");
+	} catch (IllegalArgumentException expected) {
+	    Assert.assertTrue("It should have thrown one IllegalArgumentException",
+			      "The buffer does not hold a whole number of records".equals(expected.getMessage()));
+	}
+	try {
+	    BatchValidator.validate(portugalLocale, DocumentType.TAX_NUMBER, records, 0, 0, 0, valid);
+	    Assert.fail("It was supposed to throw one IllegalArgumentException");
+	} catch (IllegalArgumentException expected) {
+	    Assert.assertTrue("It should have thrown one IllegalArgumentException", "The record length must be positive".equals(expected.getMessage()));
+	}
+	try {
+	    BatchValidator.validate(portugalLocale, DocumentType.TAX_NUMBER, records, 17, 4, Integer.MAX_VALUE, valid);
+	    Assert.fail("It was supposed to throw one IllegalArgumentException");
+	} catch (IllegalArgumentException expected) {
+	    Assert.assertTrue("It should have thrown one IllegalArgumentException", "The field does not fit in the record".equals(expected.getMessage()));
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.BatchValidator#scoreIdCards(Locale, CharSequence[], byte[])}.
+     */
+    @Test
+    public void testScoreIdCards() throws Exception {
+	final String[] numbers = { "", "13414d", "1234567890", "012345678", "120972778" };
+	final byte[] scores = new byte[numbers.length];
+	Assert.assertEquals("It should count one valid number", 1, BatchValidator.scoreIdCards(portugalLocale, numbers, scores));
+	for (int i = 0; i < scores.length; i++) {
+	    Assert.assertEquals("It should return " + i + " as score", i, scores[i]);
+	}
+	final byte[] records = "          13414d    1234567890012345678 120972778 ".getBytes("US-ASCII");
+	Arrays.fill(scores, (byte) -1);
+	Assert.assertEquals("It should count one valid number", 1, BatchValidator.scoreIdCards(portugalLocale, records, 10, 0, 10, scores));
+	for (int i = 0; i < scores.length; i++) {
+	    Assert.assertEquals("It should return " + i + " as score", i, scores[i]);
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.BatchValidator#validate(Locale, DocumentType, CharSequence[], BitSet)} with an
+     * unsupported locale.
+     */
+    @Test
+    public void testUnsupportedLocale() {
+	try {
+	    BatchValidator.validate(new Locale("pt", "BR"), DocumentType.TAX_NUMBER, new String[] { "217186246" }, new BitSet());
+	    Assert.fail("It was supposed to throw one UnsupportedOperationException");
+	} catch (UnsupportedOperationException expected) {
+	    Assert.assertTrue("It should have thrown one UnsupportedOperationException", "Not implemented yet".equals(expected.getMessage()));
+	}
+    }
+}
@@ -0,0 +1,47 @@
+package com.linkare.validation.identification;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ *
+ */
+public class ByteArrayWordsTest {
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.ByteArrayWords#word(byte[], int)}.
+     */
+    @Test
+    public void testWord() {
+	final byte[] bytes = "#217186246#\u00FF\u0080".getBytes(StandardCharsets.ISO_8859_1);
+	final ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+	for (int i = 0; i + SwarDigits.WORD_LENGTH <= bytes.length; i++) {
+	    Assert.assertEquals("Unexpected word at " + i, buffer.getLong(i), ByteArrayWords.word(bytes, i));
+	}
+	try {
+	    ByteArrayWords.word(bytes, bytes.length - SwarDigits.WORD_LENGTH + 1);
+	    Assert.fail("It should fail, since the word does not fit in the array");
+	} catch (IndexOutOfBoundsException e) {
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.ByteArrayWords#isIntrinsic()}, which tells which variant of the multi-release jar is
+     * loaded.
+     */
+    @Test
+    public void testVariant() {
+	final CodeSource source = ByteArrayWords.class.getProtectionDomain().getCodeSource();
+	final boolean fromJar = source != null && source.getLocation().getPath().endsWith(".jar");
+	final String version = System.getProperty("java.specification.version");
+	final boolean java17 = !version.startsWith("1.") && Integer.parseInt(version) >= 17;
+	Assert.assertEquals("It should load the Java 17 variant from the jar only", fromJar && java17, ByteArrayWords.isIntrinsic());
+    }
+}
@@ -0,0 +1,206 @@
+package com.linkare.validation.identification;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ *
+ */
+public class CheckDigitEngineTest {
+
+    private static byte[] ascii(final String s) {
+	final byte[] bytes = new byte[s.length()];
+	for (int i = 0; i < bytes.length; i++) {
+	    bytes[i] = (byte) s.charAt(i);
+	}
+	return bytes;
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CheckDigitEngine#checkDigit(int)}.
+     */
+    @Test
+    public void testCheckDigit() {
+	Assert.assertEquals("Remainder 0 should map to 0", 0, CheckDigitEngine.checkDigit(22));
+	Assert.assertEquals("Remainder 1 should map to 0", 0, CheckDigitEngine.checkDigit(23));
+	Assert.assertEquals("Remainder 2 should map to 9", 9, CheckDigitEngine.checkDigit(24));
+	Assert.assertEquals("Remainder 10 should map to 1", 1, CheckDigitEngine.checkDigit(32));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CheckDigitEngine#isValidTaxNumber(CharSequence, int, int)} and its array variants.
+     */
+    @Test
+    public void testIsValidTaxNumberSlices() {
+	final String line = "x;217186246;d17186246;317186246;";
+	Assert.assertTrue("It should be valid", CheckDigitEngine.isValidTaxNumber(line, 2, 9));
+	Assert.assertTrue("It should be valid", CheckDigitEngine.isValidTaxNumber(line.toCharArray(), 2, 9));
+	Assert.assertTrue("It should be valid", CheckDigitEngine.isValidTaxNumber(ascii(line), 2, 9));
+	Assert.assertFalse("It should fail, since it is not numeric", CheckDigitEngine.isValidTaxNumber(line, 12, 9));
+	Assert.assertFalse("It should fail, since it is not numeric", CheckDigitEngine.isValidTaxNumber(ascii(line), 12, 9));
+	Assert.assertFalse("It should fail, since 3 is not a valid first digit", CheckDigitEngine.isValidTaxNumber(line, 22, 9));
+	Assert.assertFalse("It should fail, since it is too short", CheckDigitEngine.isValidTaxNumber(line, 3, 8));
+	Assert.assertFalse("It should fail, since it is null", CheckDigitEngine.isValidTaxNumber(null));
+	Assert.assertFalse("It should fail, since the check digit is wrong", CheckDigitEngine.isValidTaxNumber("217186247"));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CheckDigitEngine#scoreIdCard(CharSequence, int, int)} and its array variants.
+     */
+    @Test
+    public void testScoreIdCardSlices() {
+	final String line = "120972778|12097277|  |1234567890|0";
+	final char[] chars = line.toCharArray();
+	final byte[] bytes = ascii(line);
+	final int[][] ranges = { { 0, 9 }, { 10, 8 }, { 19, 2 }, { 22, 10 }, { 33, 1 }, { 0, 10 }, { 5, 0 } };
+	final int[] scores = { IdentificationCardNumberValidator.MAXIMUM_SCORE, IdentificationCardNumberValidator.LEVEL3_SCORE,
+		IdentificationCardNumberValidator.MINIMUM_SCORE, IdentificationCardNumberValidator.LEVEL2_SCORE, IdentificationCardNumberValidator.MAXIMUM_SCORE,
+		IdentificationCardNumberValidator.LEVEL1_SCORE, IdentificationCardNumberValidator.MINIMUM_SCORE };
+	for (int i = 0; i < ranges.length; i++) {
+	    final String message = "Unexpected score for range " + i;
+	    Assert.assertEquals(message, scores[i], CheckDigitEngine.scoreIdCard(line, ranges[i][0], ranges[i][1]));
+	    Assert.assertEquals(message, scores[i], CheckDigitEngine.scoreIdCard(chars, ranges[i][0], ranges[i][1]));
+	    Assert.assertEquals(message, scores[i], CheckDigitEngine.scoreIdCard(bytes, ranges[i][0], ranges[i][1]));
+	}
+	Assert.assertEquals("It should be scored as padded with zeros", IdentificationCardNumberValidator.LEVEL3_SCORE,
+			    CheckDigitEngine.scoreIdCard("012345678"));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CheckDigitEngine#citizenCardRemainder(CharSequence, int, int)} and its array variants.
+     */
+    @Test
+    public void testCitizenCardRemainder() {
+	final String line = "000000000ZZ4 153846575ZZ0 153846575ZZ1 000000000zz4";
+	Assert.assertEquals("It should be valid", 0, CheckDigitEngine.citizenCardRemainder(line, 0, 12));
+	Assert.assertEquals("It should be valid", 0, CheckDigitEngine.citizenCardRemainder(line.toCharArray(), 13, 12));
+	Assert.assertEquals("It should be valid", 0, CheckDigitEngine.citizenCardRemainder(ascii(line), 13, 12));
+	Assert.assertTrue("It should fail, since the check digit is wrong", CheckDigitEngine.citizenCardRemainder(ascii(line), 26, 12) > 0);
+	Assert.assertEquals("It should fail, since it contains lowercase letters", CheckDigitEngine.INVALID_CHAR,
+			    CheckDigitEngine.citizenCardRemainder(line, 39, 12));
+	Assert.assertEquals("It should fail, since it is too short", CheckDigitEngine.INVALID_LENGTH, CheckDigitEngine.citizenCardRemainder(line, 0, 11));
+	Assert.assertTrue("It should be valid", CitizenCardNumberValidator.isValid("000000000ZZ4"));
+	Assert.assertFalse("It should fail, since the check digit is wrong", CitizenCardNumberValidator.isValid("153846575ZZ1"));
+    }
+
+    private static void assertCode(final String message, final FailureReason reason, final int position, final int code) {
+	Assert.assertEquals(message, reason, ValidationResult.reason(code));
+	Assert.assertEquals(message, position, ValidationResult.position(code));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CheckDigitEngine#checkTaxNumber(CharSequence)}.
+     */
+    @Test
+    public void testCheckTaxNumber() {
+	Assert.assertEquals("It should be valid", ValidationResult.VALID, CheckDigitEngine.checkTaxNumber("217186246"));
+	assertCode("It should fail, since it is null", FailureReason.BLANK, -1, CheckDigitEngine.checkTaxNumber(null));
+	assertCode("It should fail, since it is blank", FailureReason.BLANK, -1, CheckDigitEngine.checkTaxNumber("  "));
+	assertCode("It should fail, since it is not numeric", FailureReason.NON_DIGIT, 3, CheckDigitEngine.checkTaxNumber("217x86246"));
+	assertCode("It should fail, since it is too short", FailureReason.BAD_LENGTH, -1, CheckDigitEngine.checkTaxNumber("21718624"));
+	assertCode("It should fail, since 3 is not a valid first digit", FailureReason.BAD_PREFIX, 0, CheckDigitEngine.checkTaxNumber("317186246"));
+	assertCode("It should fail, since the check digit is wrong", FailureReason.BAD_CHECK_DIGIT, 8, CheckDigitEngine.checkTaxNumber("217186247"));
+	final ValidationResult result = new ValidationResult();
+	Assert.assertFalse("It should fail, since it is not numeric", TaxNumberValidator.check("d17186246", result));
+	Assert.assertEquals("It should report the offending char", 0, result.getPosition());
+	Assert.assertTrue("It should be valid", TaxNumberValidator.check("217186246", result));
+	Assert.assertEquals("It should be reset by the last check", FailureReason.NONE, result.getReason());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CheckDigitEngine#checkIdCard(CharSequence)}.
+     */
+    @Test
+    public void testCheckIdCard() {
+	Assert.assertEquals("It should be valid", ValidationResult.VALID, IdentificationCardNumberValidator.check("120972778"));
+	assertCode("It should fail, since the check digit was not included", FailureReason.BAD_CHECK_DIGIT, 7, CheckDigitEngine.checkIdCard("12097277"));
+	assertCode("It should fail, since it is empty", FailureReason.BLANK, -1, CheckDigitEngine.checkIdCard(""));
+	assertCode("It should fail, since it is not numeric", FailureReason.NON_DIGIT, 0, CheckDigitEngine.checkIdCard("d12097277"));
+	assertCode("It should fail, since it is too long", FailureReason.BAD_LENGTH, -1, CheckDigitEngine.checkIdCard("1234567890"));
+	assertCode("It should fail, since the check digit is wrong", FailureReason.BAD_CHECK_DIGIT, 8, CheckDigitEngine.checkIdCard("012345678"));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CheckDigitEngine#checkCitizenCard(CharSequence)}.
+     */
+    @Test
+    public void testCheckCitizenCard() {
+	Assert.assertEquals("It should be valid", ValidationResult.VALID, CitizenCardNumberValidator.check("153846575ZZ0"));
+	assertCode("It should fail, since it is null", FailureReason.BLANK, -1, CitizenCardNumberValidator.check(null));
+	assertCode("It should fail, since it contains lowercase letters", FailureReason.INVALID_CHAR, 9, CitizenCardNumberValidator.check("000000000zz4"));
+	assertCode("It should fail, since it is too short", FailureReason.BAD_LENGTH, -1, CitizenCardNumberValidator.check("000000000ZZ"));
+	assertCode("It should fail, since the check digit is wrong", FailureReason.BAD_CHECK_DIGIT, 11, DocumentType.CITIZEN_CARD.check("153846575ZZ1"));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CheckDigitEngine#checkPrintedCitizenCard(CharSequence)} and
+     * {@link com.linkare.validation.identification.CheckDigitEngine#checkCitizenCardDocument(CharSequence)}.
+     */
+    @Test
+    public void testCheckPrintedCitizenCard() {
+	Assert.assertEquals("It should be valid", ValidationResult.VALID, CitizenCardNumberValidator.checkPrinted("15384657 5 zz0"));
+	Assert.assertEquals("It should be valid", ValidationResult.VALID, CheckDigitEngine.checkPrintedCitizenCard("x 000000000-Zz-4 x", 2, 14));
+	Assert.assertEquals("It should be valid", ValidationResult.VALID, CheckDigitEngine.checkPrintedCitizenCard("153846577ZZ6"));
+	assertCode("It should fail, since it is only separators", FailureReason.BLANK, -1, CitizenCardNumberValidator.checkPrinted(" - "));
+	assertCode("It should fail, since it contains a dot", FailureReason.INVALID_CHAR, 8, CitizenCardNumberValidator.checkPrinted("15384657.5 ZZ0"));
+	assertCode("It should fail, since it is too long", FailureReason.BAD_LENGTH, -1, CitizenCardNumberValidator.checkPrinted("153846575 ZZ0 1"));
+	assertCode("It should fail, since the check digit is wrong", FailureReason.BAD_CHECK_DIGIT, 13, CitizenCardNumberValidator.checkPrinted("153846575 ZZ 1"));
+	Assert.assertEquals("It should be valid", ValidationResult.VALID, CitizenCardNumberValidator.checkDocumentNumber("15384657 7 zz6"));
+	Assert.assertEquals("It should be valid, since the check digit of the whole number is not checked", ValidationResult.VALID,
+			    CheckDigitEngine.checkCitizenCardDocument("153846577ZZ0"));
+	assertCode("It should fail, since the document number is not numeric", FailureReason.NON_DIGIT, 2, CheckDigitEngine.checkCitizenCardDocument("15a846577ZZ6"));
+	assertCode("It should fail, since the document check digit is wrong", FailureReason.BAD_CHECK_DIGIT, 9,
+		   CitizenCardNumberValidator.checkDocumentNumber("15384657 5 ZZ0"));
+	Assert.assertEquals("It should be valid, since the document number may come alone", ValidationResult.VALID,
+			    CitizenCardNumberValidator.checkDocumentNumber("153846577"));
+	Assert.assertEquals("It should be valid", ValidationResult.VALID, CheckDigitEngine.checkCitizenCardDocument("15384657 7"));
+	assertCode("It should fail, since the document check digit is wrong", FailureReason.BAD_CHECK_DIGIT, 8,
+		   CitizenCardNumberValidator.checkDocumentNumber("153846575"));
+	assertCode("It should fail, since the version is incomplete", FailureReason.BAD_LENGTH, -1, CheckDigitEngine.checkCitizenCardDocument("153846577Z"));
+    }
+
+    /**
+     * Test method for the <code>byte[]</code> and <code>ByteBuffer</code> entry points of the validators.
+     */
+    @Test
+    public void testByteEntryPoints() {
+	final byte[] message = ascii("#217186246#120972778#153846575ZZ0#15384657");
+	final ByteBuffer direct = ByteBuffer.allocateDirect(message.length);
+	direct.put(message).flip();
+	final ByteBuffer heap = ByteBuffer.wrap(message, 1, 9).slice();
+	Assert.assertTrue("It should be valid", TaxNumberValidator.isValid(message, 1, 9));
+	Assert.assertTrue("It should be valid", TaxNumberValidator.isValid(direct, 1, 9));
+	Assert.assertTrue("It should be valid", TaxNumberValidator.isValid(heap, 0, 9));
+	Assert.assertFalse("It should fail, since it includes the separator", TaxNumberValidator.isValid(direct, 0, 9));
+	Assert.assertTrue("It should be valid", IdentificationCardNumberValidator.isValid(direct, 11, 9));
+	Assert.assertEquals("It should be scored as not numeric", IdentificationCardNumberValidator.LEVEL1_SCORE,
+			    IdentificationCardNumberValidator.scoreIdCard(direct, 10, 9));
+	Assert.assertEquals("It should be valid", IdentificationCardNumberValidator.MAXIMUM_SCORE, IdentificationCardNumberValidator.scoreIdCard(message, 11, 9));
+	Assert.assertTrue("It should be valid", CitizenCardNumberValidator.isValid(direct, 21, 12));
+	Assert.assertTrue("It should be valid", CitizenCardNumberValidator.isValid(message, 21, 12));
+	Assert.assertEquals("It should not move the buffer position", 0, direct.position());
+	assertCode("It should fail, since it is too short", FailureReason.BAD_LENGTH, -1, CitizenCardNumberValidator.check(message, 34, 8));
+	assertCode("It should fail, since the check digit is wrong", FailureReason.BAD_CHECK_DIGIT, 8, TaxNumberValidator.check(message, 21, 9));
+	assertCode("It should fail, since it is not numeric", FailureReason.NON_DIGIT, 0, IdentificationCardNumberValidator.check(message, 0, 9));
+	Assert.assertEquals("It should be valid", ValidationResult.VALID, CheckDigitEngine.checkTaxNumber(direct, 1, 9));
+	assertCode("It should fail, since it includes the separator", FailureReason.NON_DIGIT, 0, CheckDigitEngine.checkTaxNumber(direct, 0, 9));
+	assertCode("It should fail, since the check digit is wrong", FailureReason.BAD_CHECK_DIGIT, 8, CheckDigitEngine.checkTaxNumber(direct, 21, 9));
+	assertCode("It should fail, since it is too short", FailureReason.BAD_LENGTH, -1, CheckDigitEngine.checkTaxNumber(direct, 34, 8));
+	assertCode("It should fail, since 3 is not a valid first digit", FailureReason.BAD_PREFIX, 0,
+		   CheckDigitEngine.checkTaxNumber(ByteBuffer.wrap(ascii("317186246")), 0, 9));
+	try {
+	    CitizenCardNumberValidator.isValid(direct, 34, 8);
+	    Assert.fail("It should fail, since it is too short");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+	    TaxNumberValidator.isValid(direct, 40, 9);
+	    Assert.fail("It should fail, since the range exceeds the buffer");
+	} catch (IndexOutOfBoundsException e) {
+	}
+    }
+}
@@ -0,0 +1,135 @@
+package com.linkare.validation.identification;
+
+import java.util.Locale;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ * 
+ */
+public class CheckDigitSchemeTest {
+
+    private static final CompiledScheme TAX_NUMBER = CheckDigitScheme.PT_TAX_NUMBER.compile();
+
+    private static final CompiledScheme ID_CARD = CheckDigitScheme.PT_IDENTIFICATION_CARD.compile();
+
+    private static final CompiledScheme CITIZEN_CARD = CheckDigitScheme.PT_CITIZEN_CARD.compile();
+
+    private static String randomNumber(final Random random, final String alphabet, final int length) {
+	final StringBuilder number = new StringBuilder(length);
+	for (int i = 0; i < length; i++) {
+	    number.append(alphabet.charAt(random.nextInt(alphabet.length())));
+	}
+	return number.toString();
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CompiledScheme#isValid(CharSequence)} with the portuguese tax numbers.
+     */
+    @Test
+    public void testTaxNumber() {
+	Assert.assertTrue("It should be valid", TAX_NUMBER.isValid("217186246"));
+	Assert.assertTrue("It should be valid", TAX_NUMBER.isValid(" 217186246 ", 1, 9));
+	Assert.assertFalse("It should fail, since the check digit is wrong", TAX_NUMBER.isValid("217186245"));
+	Assert.assertFalse("It should fail, since the first digit is not allowed", TAX_NUMBER.isValid("317186246"));
+	Assert.assertFalse("It should fail, since it is too short", TAX_NUMBER.isValid("17186246"));
+	Assert.assertFalse("It should fail, since it is null", TAX_NUMBER.isValid(null));
+	Assert.assertEquals("It should report the prefix", ValidationResult.code(FailureReason.BAD_PREFIX, 0), TAX_NUMBER.check("317186246"));
+	Assert.assertEquals("It should report the non digit", ValidationResult.code(FailureReason.NON_DIGIT, 2), TAX_NUMBER.check("21x186246"));
+	final Random random = new Random(21);
+	for (int i = 0; i < 100000; i++) {
+	    final String number = randomNumber(random, "0123456789", 9);
+	    Assert.assertEquals("Unexpected validity for " + number, CheckDigitEngine.isValidTaxNumber(number), TAX_NUMBER.isValid(number));
+	    Assert.assertEquals("Unexpected code for " + number, CheckDigitEngine.checkTaxNumber(number), TAX_NUMBER.check(number));
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CompiledScheme#score(CharSequence)} with the portuguese identification card numbers.
+     */
+    @Test
+    public void testIdentificationCard() {
+	Assert.assertTrue("It should be valid", ID_CARD.isValid("120972778"));
+	Assert.assertTrue("It should be valid, once padded", ID_CARD.isValid("0"));
+	final byte[] bytes = "x120972778".getBytes();
+	Assert.assertTrue("It should be valid", ID_CARD.isValid(bytes, 1, 9));
+	Assert.assertEquals("It should be blank", IdentificationCardNumberValidator.MINIMUM_SCORE, ID_CARD.score("  "));
+	Assert.assertEquals("It should be too long", IdentificationCardNumberValidator.LEVEL2_SCORE, ID_CARD.score("1209727780"));
+	final Random random = new Random(21);
+	for (int i = 0; i < 100000; i++) {
+	    final String number = randomNumber(random, "0123456789 a", 1 + random.nextInt(10));
+	    Assert.assertEquals("Unexpected score for " + number, CheckDigitEngine.scoreIdCard(number), ID_CARD.score(number));
+	    Assert.assertEquals("Unexpected code for " + number, CheckDigitEngine.checkIdCard(number), ID_CARD.check(number));
+	    Assert.assertEquals("Unexpected validity for " + number, ID_CARD.isValid(number), ID_CARD.isValid(number.getBytes(), 0, number.length()));
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CompiledScheme#isValid(CharSequence)} with the portuguese citizen card numbers.
+     */
+    @Test
+    public void testCitizenCard() {
+	Assert.assertTrue("It should be valid", CITIZEN_CARD.isValid("153846575ZZ0"));
+	Assert.assertTrue("It should be valid", CITIZEN_CARD.isValid("000000000ZZ4"));
+	Assert.assertFalse("It should fail, since the check digit is wrong", CITIZEN_CARD.isValid("153846575ZZ1"));
+	Assert.assertEquals("It should report the invalid char", ValidationResult.code(FailureReason.INVALID_CHAR, 9), CITIZEN_CARD.check("153846575zZ0"));
+	final Random random = new Random(21);
+	for (int i = 0; i < 100000; i++) {
+	    final String number = randomNumber(random, CheckDigitScheme.DIGITS_AND_LETTERS, 12);
+	    Assert.assertEquals("Unexpected validity for " + number, CheckDigitEngine.citizenCardRemainder(number) == 0, CITIZEN_CARD.isValid(number));
+	    Assert.assertEquals("Unexpected code for " + number, CheckDigitEngine.checkCitizenCard(number), CITIZEN_CARD.check(number));
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CheckDigitScheme#CheckDigitScheme(String, int, char, String, String, int[], boolean, int, int[])}
+     * with inconsistent descriptions.
+     */
+    @Test
+    public void testInconsistentScheme() {
+	try {
+	    new CheckDigitScheme("Short weights", 4, CheckDigitScheme.NO_PADDING, null, CheckDigitScheme.DIGITS, new int[] { 1, 2 }, false, 10,
+		    new int[10]);
+	    Assert.fail("It should fail, since a weight is missing");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+	    new CheckDigitScheme("Big check value", 3, CheckDigitScheme.NO_PADDING, null, CheckDigitScheme.DIGITS, new int[] { 1, 2 }, false, 2,
+		    new int[] { 0, 2 });
+	    Assert.fail("It should fail, since the check value is not lower than the modulus");
+	} catch (IllegalArgumentException e) {
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.SchemeCountryRules}, with a scheme described as data.
+     */
+    @Test
+    public void testSchemeCountryRules() {
+	final int[] remainders = new int[11];
+	for (int r = 0; r < remainders.length; r++) {
+	    remainders[r] = (11 - r) % 11 % 10;
+	}
+	// a mod 11 scheme with the weights 2 to 5 from the right and the check digit 0 for the remainders 0 and 1
+	final CheckDigitScheme scheme = new CheckDigitScheme("ZY number", 5, '0', null, CheckDigitScheme.DIGITS, new int[] { 5, 4, 3, 2 }, false, 11,
+		remainders);
+	CountryRulesRegistry.register(new SchemeCountryRules("ZY", scheme, null));
+	try {
+	    final Locale locale = new Locale("en", "ZY");
+	    Assert.assertTrue("It should be valid for the scheme", TaxNumberValidator.isValid(locale, "12343"));
+	    Assert.assertTrue("It should be valid once padded", TaxNumberValidator.isValid(locale, "19"));
+	    Assert.assertFalse("It should fail, since the check digit is wrong", TaxNumberValidator.isValid(locale, "12345"));
+	    try {
+		IdentificationCardNumberValidator.isValid(locale, "12343");
+		Assert.fail("It should fail, since there are no identification card rules");
+	    } catch (UnsupportedOperationException e) {
+	    }
+	} finally {
+	    CountryRulesRegistry.unregister("ZY");
+	}
+    }
+}
@@ -0,0 +1,112 @@
+package com.linkare.validation.identification;
+
+import java.util.Locale;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ *
+ */
+public class CountryRulesRegistryTest {
+
+    /**
+     * Rules discovered through <code>META-INF/services</code>: numbers made of exactly five digits are valid.
+     */
+    public static class ZzRules implements CountryRules {
+
+	@Override
+	public String getCountry() {
+	    return "ZZ";
+	}
+
+	@Override
+	public boolean isValidTaxNumber(final CharSequence number) {
+	    return scoreIdCard(number) == IdentificationCardNumberValidator.MAXIMUM_SCORE;
+	}
+
+	@Override
+	public int scoreIdCard(final CharSequence number) {
+	    if (number == null || number.length() == 0) {
+		return IdentificationCardNumberValidator.MINIMUM_SCORE;
+	    }
+	    for (int i = 0; i < number.length(); i++) {
+		if (number.charAt(i) < '0' || number.charAt(i) > '9') {
+		    return IdentificationCardNumberValidator.LEVEL1_SCORE;
+		}
+	    }
+	    return number.length() == 5 ? IdentificationCardNumberValidator.MAXIMUM_SCORE : IdentificationCardNumberValidator.LEVEL2_SCORE;
+	}
+    }
+
+    /**
+     * A provider listed before <code>ZzRules</code> that cannot be instantiated.
+     */
+    public static class BrokenRules extends ZzRules {
+
+	public BrokenRules() {
+	    throw new IllegalStateException("Broken provider");
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CountryRulesRegistry#get(java.util.Locale)}.
+     */
+    @Test
+    public void testDiscoveredRules() {
+	final Locale locale = new Locale("en", "ZZ");
+	Assert.assertTrue("It should be discovered, skipping the broken provider", CountryRulesRegistry.find("ZZ") instanceof ZzRules);
+	CountryRulesRegistry.discover();
+	Assert.assertTrue("It should keep the discovered rules", CountryRulesRegistry.find("ZZ") instanceof ZzRules);
+	Assert.assertTrue("It should be valid for the discovered rules", TaxNumberValidator.isValid(locale, "12345"));
+	Assert.assertFalse("It should fail, since the length is wrong", IdentificationCardNumberValidator.isValid(locale, "123456"));
+	Assert.assertEquals("It should be scored by the discovered rules", IdentificationCardNumberValidator.LEVEL1_SCORE,
+			    IdentificationCardNumberValidator.scoreIdCard(locale, "12a45"));
+	Assert.assertTrue("It should still be valid for PT", TaxNumberValidator.isValid(new Locale("pt", "PT"), "217186246"));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CountryRulesRegistry#register(CountryRules)} and
+     * {@link com.linkare.validation.identification.CountryRulesRegistry#unregister(String)}.
+     */
+    @Test
+    public void testRegisterAndUnregister() {
+	final Locale locale = new Locale("en", "ZY");
+	try {
+	    TaxNumberValidator.isValid(locale, "12345");
+	    Assert.fail("It should fail, since no rules are registered for ZY");
+	} catch (UnsupportedOperationException e) {
+	}
+	CountryRulesRegistry.register(new ZzRules() {
+	    @Override
+	    public String getCountry() {
+		return "ZY";
+	    }
+	});
+	try {
+	    Assert.assertTrue("It should be valid for the registered rules", TaxNumberValidator.isValid(locale, "12345"));
+	} finally {
+	    Assert.assertNotNull("It should remove the registered rules", CountryRulesRegistry.unregister("ZY"));
+	}
+	Assert.assertNull("It should have no rules for ZY", CountryRulesRegistry.find("ZY"));
+	Assert.assertNull("It should have no rules for an empty country", CountryRulesRegistry.find(""));
+	Assert.assertNull("It should have no rules for a lower case country", CountryRulesRegistry.find("pt"));
+	try {
+	    CountryRulesRegistry.get(null);
+	    Assert.fail("It should fail, since the locale is null");
+	} catch (UnsupportedOperationException e) {
+	}
+	try {
+	    CountryRulesRegistry.register(new ZzRules() {
+		@Override
+		public String getCountry() {
+		    return "ZZZ";
+		}
+	    });
+	    Assert.fail("It should fail, since the country is not an alpha-2 code");
+	} catch (IllegalArgumentException e) {
+	}
+    }
+}
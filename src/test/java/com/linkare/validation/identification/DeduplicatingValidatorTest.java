@@ -0,0 +1,87 @@
+package com.linkare.validation.identification;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ *
+ */
+public class DeduplicatingValidatorTest {
+
+    private final Locale portugalLocale = new Locale("pt", "PT");
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.DeduplicatingValidator#validate(Locale, CharSequence[], BitSet)}.
+     */
+    @Test
+    public void testValidateArray() {
+	final DeduplicatingValidator validator = new DeduplicatingValidator(DocumentType.TAX_NUMBER);
+	final String[] numbers = { "217186246", "217186247", null, "217186246", "d17186246", "21718624", "217186246", "217186247" };
+	final BitSet valid = new BitSet();
+	Assert.assertEquals("It should count three valid numbers", 3, validator.validate(portugalLocale, numbers, valid));
+	Assert.assertEquals("It should flag the valid numbers only", "{0, 3, 6}", valid.toString());
+	Assert.assertEquals("It should memoise the two distinct numbers of 9 digits", 2, validator.getMisses());
+	Assert.assertEquals("It should find the repeated numbers", 3, validator.getHits());
+	Assert.assertEquals("It should keep the memoised numbers", 2, validator.size());
+	try {
+	    validator.validate(Locale.US, numbers, valid);
+	    Assert.fail("It should fail, since only PT is supported");
+	} catch (UnsupportedOperationException e) {
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.DeduplicatingValidator#validate(Locale, java.util.List, BitSet)} with identification
+     * cards.
+     */
+    @Test
+    public void testValidateIdentificationCards() {
+	final DeduplicatingValidator validator = new DeduplicatingValidator(DocumentType.IDENTIFICATION_CARD);
+	final BitSet valid = new BitSet();
+	Assert.assertEquals("It should count the padded number as valid", 2,
+			    validator.validate(portugalLocale, Arrays.asList("120972778", "12097277", "0120972778", "120972778", " "), valid));
+	Assert.assertEquals("It should flag the valid numbers only", "{0, 3}", valid.toString());
+	Assert.assertFalse("It should fail, since it is empty", validator.isValid(""));
+	try {
+	    new DeduplicatingValidator(DocumentType.CITIZEN_CARD);
+	    Assert.fail("It should fail, since citizen cards are not packed in 9 digits");
+	} catch (IllegalArgumentException e) {
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.DeduplicatingValidator#validate(Locale, byte[], int, int, int, BitSet)}.
+     */
+    @Test
+    public void testValidateRecords() {
+	final byte[] records = "A 217186246 \nB 217186246 \nC 120972778 \nD  21718624 \n".getBytes();
+	final DeduplicatingValidator validator = new DeduplicatingValidator(DocumentType.TAX_NUMBER);
+	final BitSet valid = new BitSet();
+	Assert.assertEquals("It should count three valid numbers", 3, validator.validate(portugalLocale, records, 13, 2, 10, valid));
+	Assert.assertEquals("It should flag the valid numbers only", "{0, 1, 2}", valid.toString());
+	Assert.assertEquals("It should find the repeated number", 1, validator.getHits());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.DeduplicatingValidator#isValid(CharSequence)} when the table is full.
+     */
+    @Test
+    public void testCapacity() {
+	final DeduplicatingValidator validator = new DeduplicatingValidator(DocumentType.IDENTIFICATION_CARD, 100);
+	final Random random = new Random(7);
+	for (int i = 0; i < 10000; i++) {
+	    final String number = Integer.toString(random.nextInt(i < 5000 ? 150 : 1000000000));
+	    Assert.assertEquals("Unexpected outcome for " + number, DocumentType.IDENTIFICATION_CARD.isValid(number), validator.isValid(number));
+	    Assert.assertTrue("It should respect the capacity", validator.size() <= 100);
+	}
+	Assert.assertTrue("It should clear the full table", validator.getResets() > 0);
+	Assert.assertTrue("It should find the repeated numbers", validator.getHits() > 0);
+    }
+}
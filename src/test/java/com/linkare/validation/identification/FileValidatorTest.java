@@ -0,0 +1,112 @@
+package com.linkare.validation.identification;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ * 
+ */
+public class FileValidatorTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+	file = File.createTempFile("validation", ".txt");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+	file.delete();
+    }
+
+    private void write(final String content) throws IOException {
+	final OutputStream out = new FileOutputStream(file);
+	try {
+	    out.write(content.getBytes("US-ASCII"));
+	} finally {
+	    out.close();
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.FileValidator#validate(java.nio.file.Path, OutputStream)} with a CSV file.
+     */
+    @Test
+    public void testValidateCsv() throws Exception {
+	write("id;name;nif\r\n" + "1;\"Silva; Maria\";217186246\r\n" + "2;Pereira;d17186246\r\n" + "3;Santos;\" 217186246 \"\r\n" + "4;Sousa\r\n"
+	      + "5;Costa;217186247");
+	final ByteArrayOutputStream report = new ByteArrayOutputStream();
+	final FileValidationSummary summary = FileValidator.csv(DocumentType.TAX_NUMBER, ';', 2).withHeaderLines(1).withWindowSize(32)
+							   .validate(file.toPath(), report);
+	Assert.assertEquals("It should count the records", 5, summary.getRecords());
+	Assert.assertEquals("It should count the valid numbers", 2, summary.getValid());
+	Assert.assertEquals("It should count the invalid numbers", 3, summary.getInvalid());
+	Assert.assertEquals("It should report the invalid records", "3;41;1\n" + "5;86;0\n" + "6;95;3\n", report.toString("US-ASCII"));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.FileValidator#validate(java.nio.file.Path, OutputStream)} with a fixed width file.
+     */
+    @Test
+    public void testValidateFixedWidth() throws Exception {
+	write("0001000000000ZZ4\n" + "0002000000000ZZ5\n" + "0003000000000Z\n" + "0004153846575ZZ0\n");
+	final ByteArrayOutputStream report = new ByteArrayOutputStream();
+	final FileValidationSummary summary = FileValidator.fixedWidth(DocumentType.CITIZEN_CARD, 4, 12).validate(file.toPath(), report);
+	Assert.assertEquals("It should count the records", 4, summary.getRecords());
+	Assert.assertEquals("It should count the valid numbers", 2, summary.getValid());
+	Assert.assertEquals("It should count the wrong check digits", 1, summary.getScoreCount(IdentificationCardNumberValidator.LEVEL3_SCORE));
+	Assert.assertEquals("It should report the invalid records", "2;17;3\n" + "3;34;2\n", report.toString("US-ASCII"));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.FileValidator#validate(java.nio.file.Path, OutputStream)} with a line longer than the
+     * window.
+     */
+    @Test
+    public void testLineLongerThanWindow() throws Exception {
+	write("0001217186246\n0002217186246\n");
+	try {
+	    FileValidator.fixedWidth(DocumentType.TAX_NUMBER, 4, 9).withWindowSize(8).validate(file.toPath(), new ByteArrayOutputStream());
+	    Assert.fail("It was supposed to throw one IOException");
+	} catch (IOException expected) {
+	    Assert.assertTrue("It should tell the window size", expected.getMessage().endsWith("is longer than the window size (8)"));
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.FileValidator#withHeaderLines(int)} and
+     * {@link com.linkare.validation.identification.FileValidator#csv(DocumentType, char, int)} with invalid arguments.
+     */
+    @Test
+    public void testInvalidArguments() {
+	try {
+	    FileValidator.csv(DocumentType.TAX_NUMBER, ';', 1).withHeaderLines(-1);
+	    Assert.fail("It was supposed to throw one IllegalArgumentException");
+	} catch (IllegalArgumentException expected) {
+	    Assert.assertEquals("It should tell the header lines are negative", "The number of header lines must not be negative", expected.getMessage());
+	}
+	try {
+	    FileValidator.csv(null, ';', 1);
+	    Assert.fail("It was supposed to throw one IllegalArgumentException");
+	} catch (IllegalArgumentException expected) {
+	    Assert.assertEquals("It should tell the type is missing", "The document type is mandatory", expected.getMessage());
+	}
+	try {
+	    FileValidator.fixedWidth(null, 4, 9);
+	    Assert.fail("It was supposed to throw one IllegalArgumentException");
+	} catch (IllegalArgumentException expected) {
+	    Assert.assertEquals("It should tell the type is missing", "The document type is mandatory", expected.getMessage());
+	}
+    }
+}
@@ -0,0 +1,180 @@
+package com.linkare.validation.identification;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ * 
+ */
+public class IdentifierSetTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+	file = File.createTempFile("identifiers", ".bin");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+	file.delete();
+    }
+
+    private void write(final String content) throws IOException {
+	final OutputStream out = new FileOutputStream(file);
+	try {
+	    out.write(content.getBytes("US-ASCII"));
+	} finally {
+	    out.close();
+	}
+    }
+
+    private static int[] numbers(final long seed) {
+	final Random random = new Random(seed);
+	final int[] numbers = new int[200000];
+	for (int i = 0; i < numbers.length; i++) {
+	    // a third of the numbers fall in a few chunks, which get bitmaps, while the others are spread in sparse chunks
+	    numbers[i] = i % 3 == 0 ? random.nextInt(1 << 18) : random.nextInt(IdentifierSet.MAXIMUM_VALUE + 1);
+	}
+	return numbers;
+    }
+
+    private static void assertSameNumbers(final int[] numbers, final IdentifierSet set) {
+	final Set<Integer> expected = new HashSet<Integer>();
+	for (final int number : numbers) {
+	    expected.add(number);
+	    Assert.assertTrue("It should contain " + number, set.contains(number));
+	}
+	Assert.assertEquals("It should keep the repeated numbers once", expected.size(), set.size());
+	final Random random = new Random(7);
+	for (int i = 0; i < 200000; i++) {
+	    final int number = i % 2 == 0 ? random.nextInt(1 << 18) : random.nextInt(IdentifierSet.MAXIMUM_VALUE + 1);
+	    Assert.assertEquals("Unexpected membership of " + number, expected.contains(number), set.contains(number));
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.IdentifierSet#contains(int)}.
+     */
+    @Test
+    public void testContains() {
+	final int[] numbers = numbers(1);
+	assertSameNumbers(numbers, IdentifierSet.of(numbers));
+	final IdentifierSet set = IdentifierSet.of(0, 65535, 65536, IdentifierSet.MAXIMUM_VALUE);
+	Assert.assertTrue("It should contain the first number", set.contains(0));
+	Assert.assertTrue("It should contain the last number of a chunk", set.contains(65535));
+	Assert.assertTrue("It should contain the first number of a chunk", set.contains(65536));
+	Assert.assertTrue("It should contain the largest number", set.contains(IdentifierSet.MAXIMUM_VALUE));
+	Assert.assertFalse("It should not contain negative numbers", set.contains(-1));
+	Assert.assertFalse("It should not contain numbers with 10 digits", set.contains(IdentifierSet.MAXIMUM_VALUE + 1));
+	Assert.assertEquals("It should have no numbers", 0, IdentifierSet.of().size());
+	try {
+	    IdentifierSet.of(1000000000);
+	    Assert.fail("It should not accept numbers with 10 digits");
+	} catch (final IllegalArgumentException e) {
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.IdentifierSet#contains(CharSequence)}.
+     */
+    @Test
+    public void testContainsDigits() {
+	final IdentifierSet set = IdentifierSet.of(217186246, 12345679);
+	Assert.assertTrue("It should contain the tax number", set.contains("217186246"));
+	Assert.assertTrue("It should contain the identification card number", set.contains("12345679"));
+	Assert.assertTrue("It should ignore the leading zeros", set.contains("012345679"));
+	Assert.assertTrue("It should contain the bytes", set.contains("x217186246".getBytes(), 1, 9));
+	Assert.assertFalse("It should not contain other numbers", set.contains("217186245"));
+	Assert.assertFalse("It should not contain non digits", set.contains("2171862a6"));
+	Assert.assertFalse("It should not contain numbers with 10 digits", set.contains("0217186246"));
+	Assert.assertFalse("It should not contain empty numbers", set.contains(""));
+	Assert.assertFalse("It should not contain null", set.contains((CharSequence) null));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.IdentifierSet#isValidAndAbsent(DocumentType, CharSequence)}.
+     */
+    @Test
+    public void testIsValidAndAbsent() {
+	final IdentifierSet blocked = IdentifierSet.of(217186246);
+	Assert.assertFalse("It should reject the blocked number", blocked.isValidAndAbsent(DocumentType.TAX_NUMBER, "217186246"));
+	Assert.assertTrue("It should accept other valid numbers", blocked.isValidAndAbsent(DocumentType.TAX_NUMBER, "153846577"));
+	Assert.assertFalse("It should reject invalid numbers", blocked.isValidAndAbsent(DocumentType.TAX_NUMBER, "217186245"));
+	Assert.assertTrue("It should accept valid identification card numbers",
+			  blocked.isValidAndAbsent(DocumentType.IDENTIFICATION_CARD, "120972778".getBytes(), 0, 9));
+	Assert.assertFalse("It should reject null", blocked.isValidAndAbsent(DocumentType.TAX_NUMBER, null));
+	final IdentifierSet both = IdentifierSet.of(217186246, 153846577);
+	Assert.assertFalse("It should reject the blocked number written with arabic-indic digits",
+			   both.isValidAndAbsent(DocumentType.TAX_NUMBER, "2\u0661\u0667\u0661\u0668\u0666\u0662\u0664\u0666"));
+	Assert.assertFalse("It should reject the blocked number written with arabic-indic digits",
+			   both.isValidAndAbsent(DocumentType.IDENTIFICATION_CARD, "\u0661\u0665\u0663\u0668\u0664\u0666\u0665\u0667\u0667"));
+	try {
+	    blocked.isValidAndAbsent(DocumentType.CITIZEN_CARD, "153846575ZZ0");
+	    Assert.fail("It should not support citizen card numbers");
+	} catch (final IllegalArgumentException e) {
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.IdentifierSet#map(java.nio.file.Path)}, with a Bloom filter.
+     */
+    @Test
+    public void testWriteAndMap() throws Exception {
+	final int[] numbers = numbers(2);
+	final IdentifierSet set = IdentifierSet.of(IntStream.of(numbers), 10);
+	Assert.assertTrue("It should have a Bloom filter", set.hasBloomFilter());
+	assertSameNumbers(numbers, set);
+	set.write(file.toPath());
+	Assert.assertEquals("It should write every byte", set.getByteSize(), file.length());
+	final IdentifierSet mapped = IdentifierSet.map(file.toPath());
+	Assert.assertTrue("It should keep the Bloom filter", mapped.hasBloomFilter());
+	assertSameNumbers(numbers, mapped);
+	Assert.assertFalse("It should not have a Bloom filter", IdentifierSet.of(numbers).hasBloomFilter());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.IdentifierSet#map(java.nio.file.Path)} with a file that does not hold a set.
+     */
+    @Test
+    public void testMapInvalidFile() throws Exception {
+	write("217186246\n");
+	try {
+	    IdentifierSet.map(file.toPath());
+	    Assert.fail("It should not map a text file");
+	} catch (final IOException e) {
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.IdentifierSet#build(java.nio.file.Path, int)}.
+     */
+    @Test
+    public void testBuild() throws Exception {
+	write("217186246\r\n\n 12345679 \n153846577\n217186246");
+	final IdentifierSet set = IdentifierSet.build(file.toPath(), IdentifierSet.NO_BLOOM_FILTER);
+	Assert.assertEquals("It should read every number once", 3, set.size());
+	Assert.assertTrue("It should contain the last number", set.contains("153846577"));
+	Assert.assertTrue("It should contain the padded number", set.contains(12345679));
+	write("217186246\n21718 6246\n");
+	try {
+	    IdentifierSet.build(file.toPath(), IdentifierSet.NO_BLOOM_FILTER);
+	    Assert.fail("It should reject the line with two numbers");
+	} catch (final IOException e) {
+	    Assert.assertTrue("It should tell the line", e.getMessage().startsWith("The line 2 "));
+	}
+    }
+}
@@ -0,0 +1,95 @@
+package com.linkare.validation.identification;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ *
+ */
+public class IncrementalValidatorTest {
+
+    private static void assertSameAsFromScratch(final IncrementalValidator validator) {
+	final String text = validator.toString();
+	final DocumentType type = validator.getType();
+	final byte[] bytes = new byte[text.length()];
+	for (int i = 0; i < bytes.length; i++) {
+	    bytes[i] = (byte) text.charAt(i);
+	}
+	Assert.assertEquals("Unexpected validity for " + text, type.isValid(text), validator.isValid());
+	Assert.assertEquals("Unexpected code for " + text, type.check(text), validator.check());
+	Assert.assertEquals("Unexpected score for " + text, type.score(bytes, 0, bytes.length), validator.score());
+    }
+
+    private static void type(final IncrementalValidator validator, final String keys) {
+	for (int i = 0; i < keys.length(); i++) {
+	    final char c = keys.charAt(i);
+	    if (c == '<') {
+		validator.deleteLast();
+	    } else {
+		validator.append(c);
+	    }
+	    assertSameAsFromScratch(validator);
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.IncrementalValidator} with tax numbers.
+     */
+    @Test
+    public void testTaxNumber() {
+	final IncrementalValidator validator = new IncrementalValidator(DocumentType.TAX_NUMBER);
+	Assert.assertTrue("It should be possible to complete an empty number", validator.canBecomeValid());
+	type(validator, "2171862477<<6x<<46 <0<<<<<<<<<<<3<217186246");
+	Assert.assertTrue("It should be valid", validator.isValid());
+	Assert.assertEquals("It should keep the typed chars", "217186246", validator.toString());
+	validator.clear().append("3");
+	Assert.assertFalse("It should not be possible to complete, since 3 is not a valid first digit", validator.canBecomeValid());
+	validator.clear().append("21718");
+	Assert.assertTrue("It should be possible to complete", validator.canBecomeValid());
+	validator.append('x');
+	Assert.assertFalse("It should not be possible to complete, since it is not numeric", validator.canBecomeValid());
+	Assert.assertEquals("It should report the offending char", 5, ValidationResult.position(validator.check()));
+	validator.deleteLast().append("6247");
+	Assert.assertFalse("It should not be possible to complete, since the check digit is wrong", validator.canBecomeValid());
+	validator.deleteLast().append('6').append('0');
+	Assert.assertFalse("It should not be possible to complete, since it is too long", validator.canBecomeValid());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.IncrementalValidator} with identification card numbers.
+     */
+    @Test
+    public void testIdentificationCard() {
+	final IncrementalValidator validator = new IncrementalValidator(DocumentType.IDENTIFICATION_CARD);
+	type(validator, "  <<120972778<7<<0<<<<<<<<<<<<<<<12097277801<<");
+	Assert.assertTrue("It should be valid", validator.isValid());
+	Assert.assertEquals("It should be valid", IdentificationCardNumberValidator.MAXIMUM_SCORE, validator.score());
+	validator.deleteLast();
+	Assert.assertTrue("It should be possible to complete", validator.canBecomeValid());
+	Assert.assertEquals("It should fail, since the check digit was not included", IdentificationCardNumberValidator.LEVEL3_SCORE, validator.score());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.IncrementalValidator} with citizen card numbers.
+     */
+    @Test
+    public void testCitizenCard() {
+	final IncrementalValidator validator = new IncrementalValidator(DocumentType.CITIZEN_CARD);
+	type(validator, "153846575ZZ1<0z<Z<<<<<<<<<<<<< 000000000zz<<ZZ4");
+	Assert.assertFalse("It should fail, since it starts with a space", validator.canBecomeValid());
+	validator.clear();
+	type(validator, "000000000ZZ4");
+	Assert.assertTrue("It should be valid", validator.canBecomeValid());
+	validator.append('0');
+	Assert.assertFalse("It should not be possible to complete, since it is too long", validator.canBecomeValid());
+	validator.clear().append("153846575ZZ");
+	Assert.assertTrue("It should be possible to complete", validator.canBecomeValid());
+	try {
+	    new IncrementalValidator(null);
+	    Assert.fail("It should fail, since the document type is null");
+	} catch (IllegalArgumentException e) {
+	}
+    }
+}
\ No newline at end of file
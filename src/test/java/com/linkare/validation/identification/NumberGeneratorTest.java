@@ -0,0 +1,101 @@
+package com.linkare.validation.identification;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ *
+ */
+public class NumberGeneratorTest {
+
+    private static String pad(final int number) {
+	final String digits = Integer.toString(number);
+	return "000000000".substring(digits.length()) + digits;
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.CheckDigitEngine#computeCheckDigit(CharSequence)} and
+     * {@link com.linkare.validation.identification.CheckDigitEngine#computeCitizenCardCheckDigit(CharSequence)}.
+     */
+    @Test
+    public void testComputeCheckDigit() {
+	Assert.assertEquals("It should complete the tax number", 6, CheckDigitEngine.computeCheckDigit("21718624"));
+	Assert.assertEquals("It should complete the padded identification card number", 8, CheckDigitEngine.computeCheckDigit("12097277"));
+	Assert.assertEquals("It should complete the citizen card number", '0', CheckDigitEngine.computeCitizenCardCheckDigit("153846575ZZ"));
+	Assert.assertEquals("It should complete the citizen card number", '4', CheckDigitEngine.computeCitizenCardCheckDigit("000000000ZZ"));
+	try {
+	    CheckDigitEngine.computeCheckDigit("2171862x");
+	    Assert.fail("It should fail, since the prefix is not numeric");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+	    CheckDigitEngine.computeCitizenCardCheckDigit("153846575Z");
+	    Assert.fail("It should fail, since the prefix is too short");
+	} catch (IllegalArgumentException e) {
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.NumberGenerator#fillTaxNumbers(int[], int, int, int, String)}.
+     */
+    @Test
+    public void testFillTaxNumbers() {
+	final int[] numbers = new int[1000];
+	Assert.assertEquals("It should fill the whole array", numbers.length, NumberGenerator.fillTaxNumbers(numbers, 0, numbers.length, 29999500, "25"));
+	Assert.assertEquals("It should start at the first body", 29999500, numbers[0] / 10);
+	Assert.assertEquals("It should skip the bodies starting with 3 and 4", 50000000, numbers[500] / 10);
+	for (final int number : numbers) {
+	    Assert.assertTrue("It should be valid: " + number, TaxNumberValidator.isValid(pad(number)));
+	}
+	Assert.assertEquals("It should stop when the prefixes run out", 10, NumberGenerator.fillTaxNumbers(numbers, 0, 20, 99999990, "9"));
+	final Random random = new Random(7);
+	NumberGenerator.fillRandomTaxNumbers(numbers, 0, numbers.length, "6", random);
+	for (final int number : numbers) {
+	    Assert.assertTrue("It should be valid: " + number, TaxNumberValidator.isValid(pad(number)));
+	    Assert.assertEquals("It should start with the prefix", 6, number / 100000000);
+	}
+	Assert.assertEquals("It should generate valid numbers only", 10000,
+			    NumberGenerator.taxNumbers(NumberGenerator.ALL_TAX_NUMBER_PREFIXES, 7).limit(10000).parallel()
+				    .filter(number -> TaxNumberValidator.isValid(pad(number))).count());
+	try {
+	    NumberGenerator.fillRandomTaxNumbers(numbers, 0, 1, "3", random);
+	    Assert.fail("It should fail, since 3 is not a valid first digit");
+	} catch (IllegalArgumentException e) {
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.NumberGenerator#fillIdCardNumbers(int[], int, int, int)} and
+     * {@link com.linkare.validation.identification.NumberGenerator#fillCitizenCards(char[], int, int, int, String)}.
+     */
+    @Test
+    public void testFillIdCardsAndCitizenCards() {
+	final int[] numbers = new int[2000];
+	NumberGenerator.fillIdCardNumbers(numbers, 0, numbers.length, 0);
+	for (final int number : numbers) {
+	    Assert.assertTrue("It should be valid: " + number, IdentificationCardNumberValidator.isValid(pad(number)));
+	}
+	Assert.assertEquals("It should generate valid numbers only", 1000,
+			    NumberGenerator.idCardNumbers(3).limit(1000).filter(number -> IdentificationCardNumberValidator.isValid(pad(number))).count());
+	final int length = CheckDigitEngine.CITIZEN_CARD_LENGTH;
+	final char[] cards = new char[numbers.length * length];
+	NumberGenerator.fillCitizenCards(cards, 0, numbers.length, 15384657, NumberGenerator.DEFAULT_CITIZEN_CARD_VERSION);
+	Assert.assertEquals("It should start at the first body", "153846577ZZ6", new String(cards, 0, length));
+	for (int i = 0; i < numbers.length; i++) {
+	    Assert.assertTrue("It should be valid: " + i, CitizenCardNumberValidator.isValid(new String(cards, i * length, length)));
+	}
+	NumberGenerator.fillRandomCitizenCards(cards, 0, numbers.length, "A7", new Random(11));
+	for (int i = 0; i < numbers.length; i++) {
+	    Assert.assertTrue("It should be valid: " + i, CitizenCardNumberValidator.isValid(new String(cards, i * length, length)));
+	}
+	try {
+	    NumberGenerator.fillIdCardNumbers(numbers, 0, 2, NumberGenerator.BODY_LIMIT - 1);
+	    Assert.fail("It should fail, since the bodies run out");
+	} catch (IllegalArgumentException e) {
+	}
+    }
+}
@@ -0,0 +1,109 @@
+package com.linkare.validation.identification;
+
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ * 
+ */
+public class ParallelBatchValidatorTest {
+
+    private static final String[] SAMPLES = { "217186246", "d17186246", "", null, "120972778", "12097277", "1234567890", "012345678", "13 414" };
+
+    private Locale portugalLocale;
+
+    private ForkJoinPool pool;
+
+    private ParallelBatchValidator validator;
+
+    private String[] numbers;
+
+    @Before
+    public void setUp() throws Exception {
+	portugalLocale = new Locale("pt", "PT");
+	pool = new ForkJoinPool(4);
+	// a small threshold, so that the batch is split in many chunks
+	validator = new ParallelBatchValidator(pool, 100);
+	numbers = new String[10007];
+	for (int i = 0; i < numbers.length; i++) {
+	    numbers[i] = SAMPLES[(i * 7) % SAMPLES.length];
+	}
+    }
+
+    @After
+    public void tearDown() throws Exception {
+	pool.shutdown();
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.ParallelBatchValidator#validate(Locale, DocumentType, CharSequence[])}.
+     */
+    @Test
+    public void testValidateMatchesSequential() {
+	for (final DocumentType type : DocumentType.values()) {
+	    final BitSet expected = new BitSet();
+	    final int expectedCount = BatchValidator.validate(portugalLocale, type, numbers, expected);
+	    final BatchResult result = validator.validate(portugalLocale, type, numbers);
+	    Assert.assertEquals("It should have the same valid count for " + type, expectedCount, result.getValidCount());
+	    Assert.assertEquals("It should flag the same numbers for " + type, expected, result.getValid());
+	    Assert.assertEquals("It should have the batch size", numbers.length, result.getSize());
+	    final int[] invalid = result.getInvalidIndices();
+	    Assert.assertEquals("It should list every invalid number", numbers.length - expectedCount, invalid.length);
+	    for (final int index : invalid) {
+		Assert.assertFalse("It should only list invalid numbers", expected.get(index));
+	    }
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.ParallelBatchValidator#scoreIdCards(Locale, byte[], int, int, int)}.
+     */
+    @Test
+    public void testScoreIdCardRecords() throws Exception {
+	final StringBuilder buffer = new StringBuilder();
+	for (final String number : numbers) {
+	    final String field = number == null ? "" : number;
+	    buffer.append(field);
+	    for (int i = field.length(); i < 12; i++) {
+		buffer.append(' ');
+	    }
+	}
+	final byte[] scores = new byte[numbers.length];
+	BatchValidator.scoreIdCards(portugalLocale, numbers, scores);
+	final int[] histogram = new int[IdentificationCardNumberValidator.MAXIMUM_SCORE + 1];
+	for (final byte score : scores) {
+	    histogram[score]++;
+	}
+	final BatchResult result = validator.scoreIdCards(portugalLocale, buffer.toString().getBytes("US-ASCII"), 12, 0, 12);
+	for (int score = 0; score < histogram.length; score++) {
+	    Assert.assertEquals("It should have the same count for score " + score, histogram[score], result.getScoreCount(score));
+	}
+	Assert.assertEquals("It should count the maximum scores as valid", histogram[IdentificationCardNumberValidator.MAXIMUM_SCORE], result.getValidCount());
+	try {
+	    validator.validate(portugalLocale, DocumentType.TAX_NUMBER, numbers).getScoreCount(0);
+	    Assert.fail("It was supposed to throw one UnsupportedOperationException");
+	} catch (UnsupportedOperationException expected) {
+	    Assert.assertTrue("It should have thrown one UnsupportedOperationException",
+			      "Not supported for batches that were not scored".equals(expected.getMessage()));
+	}
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.ParallelBatchValidator#ParallelBatchValidator(ForkJoinPool, int)} with the largest
+     * threshold.
+     */
+    @Test
+    public void testLargestThreshold() {
+	final int expectedCount = BatchValidator.validate(portugalLocale, DocumentType.TAX_NUMBER, numbers, new BitSet());
+	final BatchResult result = new ParallelBatchValidator(pool, Integer.MAX_VALUE).validate(portugalLocale, DocumentType.TAX_NUMBER, numbers);
+	Assert.assertEquals("It should validate the batch in a single task", expectedCount, result.getValidCount());
+    }
+}
@@ -0,0 +1,51 @@
+package com.linkare.validation.identification;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author Linkare TI
+ *
+ */
+public class SwarDigitsTest {
+
+    private static long word(final String chars) {
+	final byte[] bytes = new byte[SwarDigits.WORD_LENGTH];
+	for (int i = 0; i < bytes.length; i++) {
+	    bytes[i] = (byte) chars.charAt(i);
+	}
+	return SwarDigits.word(ByteBuffer.wrap(bytes), 0);
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.SwarDigits#isDigits(long)}.
+     */
+    @Test
+    public void testIsDigits() {
+	Assert.assertTrue("It should be digits", SwarDigits.isDigits(word("21718624")));
+	Assert.assertTrue("It should be digits", SwarDigits.isDigits(word("09999990")));
+	Assert.assertFalse("It should fail, since '/' is below '0'", SwarDigits.isDigits(word("2171862/")));
+	Assert.assertFalse("It should fail, since ':' is above '9'", SwarDigits.isDigits(word(":1718624")));
+	Assert.assertFalse("It should fail, since it contains a letter", SwarDigits.isDigits(word("2171Z624")));
+	Assert.assertFalse("It should fail, since it contains a non ASCII byte", SwarDigits.isDigits(word("217¹8624")));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.identification.SwarDigits#weightedSum(long)} and
+     * {@link com.linkare.validation.identification.SwarDigits#citizenCardSum(long)}.
+     */
+    @Test
+    public void testSums() {
+	Assert.assertEquals("It should weight the digits from 9 to 2", 2 * 9 + 1 * 8 + 7 * 7 + 1 * 6 + 8 * 5 + 6 * 4 + 2 * 3 + 4 * 2,
+			    SwarDigits.weightedSum(word("21718624")));
+	Assert.assertEquals("It should weight the digits from 9 to 2", 9 * 44, SwarDigits.weightedSum(word("99999999")));
+	// 1 5 3 8 4 6 5 7: the digits at even positions are doubled, minus 9 if above 9
+	Assert.assertEquals("It should double the digits at even positions", 2 + 5 + 6 + 8 + 8 + 6 + 1 + 7, SwarDigits.citizenCardSum(word("15384657")));
+	final ByteBuffer littleEndian = ByteBuffer.wrap("15384657".getBytes()).order(ByteOrder.LITTLE_ENDIAN);
+	Assert.assertEquals("It should not depend on the buffer order", word("15384657"), SwarDigits.word(littleEndian, 0));
+    }
+}
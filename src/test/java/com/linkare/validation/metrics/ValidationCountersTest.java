@@ -0,0 +1,92 @@
+package com.linkare.validation.metrics;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.linkare.validation.email.EmailValidator;
+import com.linkare.validation.identification.CitizenCardNumberValidator;
+import com.linkare.validation.identification.FailureReason;
+import com.linkare.validation.identification.IdentificationCardNumberValidator;
+import com.linkare.validation.identification.TaxNumberValidator;
+
+/**
+ * @author Linkare TI
+ *
+ */
+public class ValidationCountersTest {
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+	ValidationMetrics.setListener(null);
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.metrics.ValidationCounters#validated(ValidatorKind, String, FailureReason, long)}.
+     */
+    @Test
+    public void testCounters() {
+	final ValidationCounters counters = new ValidationCounters();
+	counters.validated(ValidatorKind.TAX_NUMBER, "PT", FailureReason.NONE, 100);
+	counters.validated(ValidatorKind.TAX_NUMBER, "PT", FailureReason.BAD_CHECK_DIGIT, 3000);
+	counters.validated(ValidatorKind.TAX_NUMBER, "ES", FailureReason.NONE, 100);
+	counters.validated(ValidatorKind.EMAIL, null, FailureReason.INVALID, 0);
+	Assert.assertEquals("It should count every tax number", 3, counters.getCount(ValidatorKind.TAX_NUMBER));
+	Assert.assertEquals("It should count by reason", 2, counters.getCount(ValidatorKind.TAX_NUMBER, FailureReason.NONE));
+	Assert.assertEquals("It should count by country", 2, counters.getCount(ValidatorKind.TAX_NUMBER, "PT"));
+	Assert.assertEquals("It should not count other validators by country", 0, counters.getCount(ValidatorKind.EMAIL, "PT"));
+	Assert.assertEquals("It should count validations without country", 1, counters.getCount(ValidatorKind.EMAIL, FailureReason.INVALID));
+	final LatencyHistogram latency = counters.getLatency(ValidatorKind.TAX_NUMBER);
+	Assert.assertEquals("It should record every latency", 3, latency.getCount());
+	Assert.assertEquals("It should put 100ns in the bucket up to 127ns", 2, latency.getCount(LatencyHistogram.bucket(127)));
+	Assert.assertEquals("It should report the median bucket", 127, latency.getPercentile(0.5));
+	Assert.assertEquals("It should report the maximum bucket", 4095, latency.getPercentile(1));
+	counters.reset();
+	Assert.assertEquals("It should be reset", 0, counters.getCount(ValidatorKind.TAX_NUMBER));
+	Assert.assertEquals("It should be reset", 0, latency.getPercentile(0.5));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.metrics.ValidationMetrics#record(ValidatorKind, String, FailureReason, long)}, through the validators.
+     */
+    @Test
+    public void testValidatorsReport() {
+	final ValidationCounters counters = new ValidationCounters();
+	ValidationMetrics.setListener(counters);
+	TaxNumberValidator.isValid("217186247");
+	IdentificationCardNumberValidator.scoreIdCard(new Locale("pt", "PT"), "1209727x8");
+	CitizenCardNumberValidator.check("153846575ZZ0");
+	EmailValidator.isValid("john.doe@example.com");
+	final long expected = ValidationMetrics.ENABLED ? 1 : 0;
+	Assert.assertEquals("It should report the failure reason", expected, counters.getCount(ValidatorKind.TAX_NUMBER, FailureReason.BAD_CHECK_DIGIT));
+	Assert.assertEquals("It should report the score level", expected, counters.getCount(ValidatorKind.IDENTIFICATION_CARD, FailureReason.NON_DIGIT));
+	Assert.assertEquals("It should report the country", expected, counters.getCount(ValidatorKind.CITIZEN_CARD, "PT"));
+	Assert.assertEquals("It should report the valid addresses", expected, counters.getCount(ValidatorKind.EMAIL, FailureReason.NONE));
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.metrics.ValidationMetrics#record(ValidatorKind, String, FailureReason, long)}, through the byte
+     * overloads of the validators.
+     */
+    @Test
+    public void testByteValidatorsReport() {
+	final ValidationCounters counters = new ValidationCounters();
+	ValidationMetrics.setListener(counters);
+	TaxNumberValidator.isValid("217186246".getBytes(), 0, 9);
+	TaxNumberValidator.isValid(ByteBuffer.allocateDirect(9).put("217186247".getBytes()), 0, 9);
+	IdentificationCardNumberValidator.isValid(ByteBuffer.wrap("1209727x8".getBytes()), 0, 9);
+	CitizenCardNumberValidator.check("153846575ZZ0".getBytes(), 0, 12);
+	final long expected = ValidationMetrics.ENABLED ? 1 : 0;
+	Assert.assertEquals("It should report the valid numbers", expected, counters.getCount(ValidatorKind.TAX_NUMBER, FailureReason.NONE));
+	Assert.assertEquals("It should report the reason of buffers", expected, counters.getCount(ValidatorKind.TAX_NUMBER, FailureReason.BAD_CHECK_DIGIT));
+	Assert.assertEquals("It should report the score level", expected, counters.getCount(ValidatorKind.IDENTIFICATION_CARD, FailureReason.NON_DIGIT));
+	Assert.assertEquals("It should report the country", expected, counters.getCount(ValidatorKind.CITIZEN_CARD, "PT"));
+    }
+}
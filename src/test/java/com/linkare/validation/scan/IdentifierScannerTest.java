@@ -0,0 +1,72 @@
+package com.linkare.validation.scan;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.linkare.validation.scan.IdentifierScanner.Kind;
+
+/**
+ * @author Linkare TI
+ * 
+ */
+public class IdentifierScannerTest {
+
+    private static final String TEXT = "O contribuinte 217186246 (CC 153846575 ZZ0, BI 12345679) escreveu para jpereira@linkare.com. "
+	    + "Telefone 217186245; conta 2171862461; ref x217186246 e 217186246@linkare.com; CC 153846577ZZ6, 153846577 ZZ5 e 217186246-217186246. "
+	    + "Cartao 15384657 5 ZZ0 ou 15384657-5-ZZ0, BI 12345679 5 x.";
+
+    private static List<String> scan(final IdentifierScanner scanner, final CharSequence text) {
+	final List<String> found = new ArrayList<String>();
+	scanner.scan(text, (kind, start, end) -> found.add(kind + " " + text.subSequence((int) start, (int) end)));
+	return found;
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.scan.IdentifierScanner#scan(CharSequence, IdentifierScanner.Listener)}.
+     */
+    @Test
+    public void testScan() {
+	final List<String> found = scan(new IdentifierScanner(), TEXT);
+	final String[] expected = { "TAX_NUMBER 217186246", "CITIZEN_CARD 153846575 ZZ0", "IDENTIFICATION_CARD 12345679", "EMAIL jpereira@linkare.com",
+		"EMAIL 217186246@linkare.com", "CITIZEN_CARD 153846577ZZ6", "TAX_NUMBER 153846577", "TAX_NUMBER 217186246", "TAX_NUMBER 217186246",
+		"CITIZEN_CARD 15384657 5 ZZ0", "CITIZEN_CARD 15384657-5-ZZ0", "IDENTIFICATION_CARD 12345679" };
+	Assert.assertEquals("It should only find the valid identifiers", Arrays.asList(expected), found);
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.scan.IdentifierScanner#IdentifierScanner(java.util.Set)}.
+     */
+    @Test
+    public void testKinds() {
+	final List<String> found = scan(new IdentifierScanner(EnumSet.of(Kind.IDENTIFICATION_CARD, Kind.EMAIL)), "217186246 a@b.pt 153846577 ZZ6");
+	Assert.assertEquals("It should report the tax number as an identification card number", "IDENTIFICATION_CARD 217186246", found.get(0));
+	Assert.assertEquals("It should find the email", "EMAIL a@b.pt", found.get(1));
+	Assert.assertEquals("It should report the document number of the citizen card only", "IDENTIFICATION_CARD 153846577", found.get(2));
+	Assert.assertEquals("It should not find more identifiers", 3, found.size());
+    }
+
+    /**
+     * Test method for {@link com.linkare.validation.scan.IdentifierScanner#scan(java.io.Reader, IdentifierScanner.Listener)}, with identifiers across
+     * the reads.
+     */
+    @Test
+    public void testReader() throws Exception {
+	final StringBuilder text = new StringBuilder();
+	for (int i = 0; i < 200; i++) {
+	    text.append(TEXT).append(i % 7 == 0 ? "\n" : " ");
+	}
+	final List<String> expected = scan(new IdentifierScanner(), text);
+	final List<String> found = new ArrayList<String>();
+	final long count = new IdentifierScanner().scan(new StringReader(text.toString()),
+							(kind, start, end) -> found.add(kind + " " + text.subSequence((int) start, (int) end)));
+	Assert.assertEquals("It should find 12 identifiers in each copy", 2400, count);
+	Assert.assertEquals("It should find the same identifiers", expected, found);
+    }
+}